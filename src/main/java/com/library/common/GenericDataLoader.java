@@ -1,7 +1,13 @@
 package com.library.common;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.common.dataset.DatasetFormat;
+import com.library.common.dataset.DatasetReader;
+import com.library.common.dataset.DatasetSplit;
+import com.library.common.dataset.LoadCheckpoint;
+import com.library.common.dataset.LoadProgress;
 import com.library.common.util.ModelDataGenerator;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -10,7 +16,13 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Abstract base class for database data loaders
@@ -20,11 +32,16 @@ import java.util.List;
  */
 public abstract class GenericDataLoader<T, R> {
 		private static final Logger logger = LogManager.getLogger();
+		private static final long CHECKPOINT_SPLIT_SIZE = 64L << 20;
 
 		protected final String dataPath;
 		protected final int entityCount;
 		protected final ObjectMapper objectMapper;
 		protected final R repository;
+		private int loaderThreads = Integer.getInteger("library.loader.threads", 1);
+		private int batchSize = 1000;
+		private boolean resumable = Boolean.getBoolean("library.loader.resumable");
+		private boolean deferIndexes;
 
 		/**
 		 * Constructor for GenericDataLoader
@@ -40,6 +57,47 @@ public abstract class GenericDataLoader<T, R> {
 				this.repository = repository;
 		}
 
+		/**
+		 * Number of threads reading the mapped splits of NDJSON or CBOR files
+		 */
+		public GenericDataLoader<T, R> loaderThreads(int loaderThreads) {
+				if (loaderThreads <= 0) {
+						throw new IllegalArgumentException("Loader threads must be positive");
+				}
+				this.loaderThreads = loaderThreads;
+				return this;
+		}
+
+		/**
+		 * Number of entities inserted per batch when loading in parallel
+		 */
+		public GenericDataLoader<T, R> batchSize(int batchSize) {
+				if (batchSize <= 0) {
+						throw new IllegalArgumentException("Batch size must be positive");
+				}
+				this.batchSize = batchSize;
+				return this;
+		}
+
+		/**
+		 * Resumable mode: the file is loaded in checkpointed splits with upserts keyed by ID,
+		 * a restarted load skips the splits completed by the failed run instead of clearing the collection.
+		 * The JSON format cannot be split, its whole file is a single checkpointed split: use NDJSON or CBOR
+		 * for a load that resumes part-way
+		 */
+		public GenericDataLoader<T, R> resumable(boolean resumable) {
+				this.resumable = resumable;
+				return this;
+		}
+
+		/**
+		 * Skip the index build at the end of {@link #loadData()}, the caller runs {@link #buildIndexes()} later
+		 */
+		public GenericDataLoader<T, R> deferIndexes(boolean deferIndexes) {
+				this.deferIndexes = deferIndexes;
+				return this;
+		}
+
 		/**
 		 * Load data into database.
 		 * If data doesn't exist in the specified file path, it will be generated.
@@ -48,11 +106,20 @@ public abstract class GenericDataLoader<T, R> {
 				logger.info("Starting {} data loading process", getEntityName());
 
 				try {
-						// Get entities from file or generate new ones
-						List<T> entities = getOrGenerateEntities();
+						Path entityFilePath = getOrGenerateEntityFile();
+						DatasetFormat format = DatasetFormat.of(entityFilePath);
 
-						// Store in database
-						populateDatabase(entities);
+						if (format.isSplittable() || resumable) {
+								// Stream mapped splits to the bulk path, the whole dataset is never held in the heap
+								loadInBatches(entityFilePath, format);
+						} else {
+								// Get entities from file and store them in database
+								populateDatabase(loadEntitiesFromFile(entityFilePath, format));
+						}
+
+						if (!deferIndexes) {
+								buildIndexes();
+						}
 				} catch (IOException e) {
 						logger.error("Error during {} data loading process", getEntityName(), e);
 						throw new RuntimeException("Failed to load " + getEntityName() + " data", e);
@@ -60,47 +127,146 @@ public abstract class GenericDataLoader<T, R> {
 		}
 
 		/**
-		 * Get existing entity data or generate new data
+		 * Get the existing entity file or generate new data
 		 *
-		 * @return List of entity objects
-		 * @throws IOException If file operations fail
+		 * @return Path of the entity file
 		 */
-		private List<T> getOrGenerateEntities() throws IOException {
+		private Path getOrGenerateEntityFile() {
 				Path entityFilePath = getEntityFilePath();
 
 				if (!Files.exists(entityFilePath)) {
 						logger.info("No existing {} data found (possible incoherence), dropping entire database data", getEntityName());
 						ModelDataGenerator.generateData();
 						resetDatabase();
+						entityFilePath = getEntityFilePath();
 				}
 
-				return loadEntitiesFromFile(entityFilePath);
+				return entityFilePath;
 		}
 
 		/**
-		 * Load entities from JSON file
+		 * Load entities from a dataset file
 		 *
-		 * @param filePath Path to JSON file
+		 * @param filePath Path to the dataset file
+		 * @param format   Format of the file
 		 * @return List of entity objects
 		 * @throws IOException If file reading fails
 		 */
-		private List<T> loadEntitiesFromFile(Path filePath) throws IOException {
+		private List<T> loadEntitiesFromFile(Path filePath, DatasetFormat format) throws IOException {
 				logger.info("Reading existing {} data from {}", getEntityName(), filePath);
-				List<T> entities = objectMapper.readValue(
-								filePath.toFile(),
-								getTypeReference()
-				);
+				List<T> entities = new ArrayList<>();
+				DatasetReader.<T>read(new DatasetSplit(filePath, format, 0, Files.size(filePath)), getEntityType(), entities::add);
 				logger.info("Loaded {} {} records from file", entities.size(), getEntityName());
 				return entities;
 		}
 
 		/**
-		 * Get the file path for entity JSON
+		 * Split the file on record boundaries and let each loader thread insert the batches of its splits
+		 */
+		private void loadInBatches(Path filePath, DatasetFormat format) throws IOException {
+				long size = Files.size(filePath);
+				// Resumable loads use smaller splits so a failure loses little work
+				int parts = resumable ? (int) Math.max(loaderThreads, (size + CHECKPOINT_SPLIT_SIZE - 1) / CHECKPOINT_SPLIT_SIZE) : loaderThreads;
+				List<DatasetSplit> splits = DatasetReader.split(filePath, format, parts);
+				// A resumed load keeps the splits of the checkpointed run, whatever the thread count now
+				LoadCheckpoint checkpoint = resumable ? LoadCheckpoint.open(getCheckpointPath(), filePath, splits) : null;
+				if (checkpoint != null) {
+						splits = checkpoint.splits(filePath, format);
+				}
+				logger.info("Reading existing {} data from {} with {} splits", getEntityName(), filePath, splits.size());
+				JavaType type = getEntityType();
+				AtomicLong inserted = new AtomicLong();
+				LoadProgress progress = new LoadProgress(getEntityName(), size, splits.size());
+
+				if (checkpoint != null && checkpoint.hasProgress()) {
+						logger.info("Resuming {} load, {} of {} splits already done", getEntityName(), checkpoint.completedCount(), splits.size());
+				} else {
+						prepareLoad();
+				}
+				ExecutorService executor = Executors.newFixedThreadPool(Math.min(loaderThreads, splits.size()));
+				try {
+						List<Future<?>> futures = new ArrayList<>();
+						for (DatasetSplit split : splits) {
+								futures.add(executor.submit(() -> {
+										if (checkpoint != null && checkpoint.isDone(split)) {
+												progress.skipped(split);
+												return null;
+										}
+										List<T> batch = new ArrayList<>(batchSize);
+										DatasetReader.<T>read(split, type, entity -> {
+												batch.add(entity);
+												if (batch.size() == batchSize) {
+														inserted.addAndGet(writeBatch(batch));
+														batch.clear();
+												}
+										});
+										if (!batch.isEmpty()) {
+												inserted.addAndGet(writeBatch(batch));
+										}
+										if (checkpoint != null) {
+												checkpoint.markDone(split);
+										}
+										progress.completed(split);
+										return null;
+								}));
+						}
+						for (Future<?> future : futures) {
+								future.get();
+						}
+				} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new RuntimeException("Interrupted while loading " + getEntityName(), e);
+				} catch (ExecutionException e) {
+						throw new RuntimeException("Failed to load " + getEntityName() + " split", e.getCause());
+				} finally {
+						executor.shutdownNow();
+				}
+				finishLoad(inserted.get());
+				if (checkpoint != null) {
+						checkpoint.delete();
+				}
+		}
+
+		/**
+		 * Insert a batch, or upsert it in resumable mode where a split may be replayed
+		 */
+		private int writeBatch(List<T> batch) {
+				if (resumable) {
+						upsertBatch(batch);
+				} else {
+						insertBatch(batch);
+				}
+				return batch.size();
+		}
+
+		/**
+		 * Checkpoint of this loader, loaders of different databases share the dataset but not the checkpoint
+		 */
+		protected Path getCheckpointPath() {
+				return Paths.get(dataPath, ".checkpoints", getClass().getSimpleName() + ".json");
+		}
+
+		/**
+		 * Element type of {@link #getTypeReference()}
+		 */
+		private JavaType getEntityType() {
+				return objectMapper.getTypeFactory().constructType(getTypeReference()).getContentType();
+		}
+
+		/**
+		 * Get the file path for the entity data, preferring the binary then NDJSON files when several exist
 		 *
-		 * @return Path object for entity JSON file
+		 * @return Path object for the entity file
 		 */
 		protected Path getEntityFilePath() {
-				return Paths.get(dataPath, getEntityFileName());
+				String baseName = DatasetFormat.baseName(getEntityFileName());
+				for (DatasetFormat format : List.of(DatasetFormat.CBOR, DatasetFormat.NDJSON, DatasetFormat.JSON)) {
+						Path path = Paths.get(dataPath, baseName + format.getExtension());
+						if (Files.exists(path)) {
+								return path;
+						}
+				}
+				return Paths.get(dataPath, baseName + DatasetFormat.configured().getExtension());
 		}
 
 		/**
@@ -113,7 +279,43 @@ public abstract class GenericDataLoader<T, R> {
 		 *
 		 * @param entities List of entities to insert
 		 */
-		protected abstract void populateDatabase(List<T> entities);
+		protected void populateDatabase(List<T> entities) {
+				prepareLoad();
+				insertBatch(entities);
+				finishLoad(entities.size());
+		}
+
+		/**
+		 * Clear the entity collection before loading
+		 */
+		protected abstract void prepareLoad();
+
+		/**
+		 * Insert a batch of entities, may be called concurrently by the loader threads
+		 *
+		 * @param entities Entities to insert
+		 */
+		protected abstract void insertBatch(List<T> entities);
+
+		/**
+		 * Insert or replace a batch of entities by ID, replaying it must leave the database unchanged
+		 *
+		 * @param entities Entities to upsert
+		 */
+		protected abstract void upsertBatch(List<T> entities);
+
+		/**
+		 * Called once every batch is inserted
+		 *
+		 * @param inserted Number of inserted entities
+		 */
+		protected abstract void finishLoad(long inserted);
+
+		/**
+		 * Build the secondary indexes of the loaded collection, nothing by default
+		 */
+		protected void buildIndexes() {
+		}
 
 		/**
 		 * Get entity name (for logging)
@@ -125,7 +327,7 @@ public abstract class GenericDataLoader<T, R> {
 		/**
 		 * Get entity file name
 		 *
-		 * @return File name for entity JSON
+		 * @return File name for entity data, its extension is replaced by the dataset format one
 		 */
 		protected abstract String getEntityFileName();
 
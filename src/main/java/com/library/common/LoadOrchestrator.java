@@ -0,0 +1,127 @@
+package com.library.common;
+
+import com.library.common.util.ModelDataGenerator;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Loads every collection of a database in one run.
+ * Loaders of the same stage run in parallel, a stage starts once the previous one is fully loaded,
+ * and indexes are built once all the data is in.
+ */
+public class LoadOrchestrator {
+		private static final Logger logger = LogManager.getLogger();
+
+		private final String backendName;
+		private final Runnable resetDatabase;
+		private final List<List<GenericDataLoader<?, ?>>> stages = new ArrayList<>();
+		private Runnable beforeLoad = () -> {
+		};
+		private Runnable afterLoad = () -> {
+		};
+
+		/**
+		 * @param backendName   Database name (for logging)
+		 * @param resetDatabase Clears the whole database when the dataset has to be regenerated
+		 */
+		public LoadOrchestrator(String backendName, Runnable resetDatabase) {
+				this.backendName = backendName;
+				this.resetDatabase = resetDatabase;
+		}
+
+		/**
+		 * Add a stage of independent loaders, run after the stages added before it
+		 */
+		public LoadOrchestrator stage(GenericDataLoader<?, ?>... loaders) {
+				if (loaders.length == 0) {
+						throw new IllegalArgumentException("A stage needs at least one loader");
+				}
+				stages.add(List.of(loaders));
+				return this;
+		}
+
+		/**
+		 * Run before the first stage, once the dataset is ready
+		 */
+		public LoadOrchestrator beforeLoad(Runnable beforeLoad) {
+				this.beforeLoad = beforeLoad;
+				return this;
+		}
+
+		/**
+		 * Run after the index build, even if a stage failed
+		 */
+		public LoadOrchestrator afterLoad(Runnable afterLoad) {
+				this.afterLoad = afterLoad;
+				return this;
+		}
+
+		/**
+		 * Load all stages, then build the indexes of every loaded collection
+		 */
+		public void run() {
+				long start = System.nanoTime();
+				List<GenericDataLoader<?, ?>> loaders = stages.stream().flatMap(List::stream).toList();
+				ensureDataset(loaders);
+
+				int threads = stages.stream().mapToInt(List::size).max().orElse(1);
+				ExecutorService executor = Executors.newFixedThreadPool(threads);
+				beforeLoad.run();
+				try {
+						for (int i = 0; i < stages.size(); i++) {
+								List<GenericDataLoader<?, ?>> stage = stages.get(i);
+								logger.info("{} load stage {}/{}: {}", backendName, i + 1, stages.size(),
+												stage.stream().map(GenericDataLoader::getEntityName).toList());
+								runAll(executor, stage, loader -> loader.deferIndexes(true).loadData());
+						}
+
+						logger.info("{} bulk load done, building indexes", backendName);
+						runAll(executor, loaders, GenericDataLoader::buildIndexes);
+				} finally {
+						executor.shutdownNow();
+						afterLoad.run();
+				}
+				logger.info("{} database loaded in {} ms", backendName, (System.nanoTime() - start) / 1_000_000);
+		}
+
+		/**
+		 * Generate the whole dataset once if any file is missing, so every collection comes from the same generation
+		 */
+		private void ensureDataset(List<GenericDataLoader<?, ?>> loaders) {
+				boolean complete = loaders.stream().allMatch(loader -> Files.exists(loader.getEntityFilePath()));
+				if (!complete) {
+						logger.info("Dataset incomplete, regenerating all data and resetting {}", backendName);
+						ModelDataGenerator.generateData();
+						resetDatabase.run();
+				}
+		}
+
+		private static void runAll(ExecutorService executor, List<GenericDataLoader<?, ?>> loaders, Consumer<GenericDataLoader<?, ?>> action) {
+				List<Future<?>> futures = new ArrayList<>();
+				for (GenericDataLoader<?, ?> loader : loaders) {
+						futures.add(executor.submit(() -> action.accept(loader)));
+				}
+				try {
+						for (Future<?> future : futures) {
+								future.get();
+						}
+				} catch (InterruptedException e) {
+						futures.forEach(future -> future.cancel(true));
+						Thread.currentThread().interrupt();
+						throw new RuntimeException("Interrupted while loading", e);
+				} catch (ExecutionException e) {
+						// Do not start the next stage on top of a partial one
+						futures.forEach(future -> future.cancel(true));
+						throw new RuntimeException("Failed to load database", e.getCause());
+				}
+		}
+}
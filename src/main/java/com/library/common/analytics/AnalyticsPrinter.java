@@ -0,0 +1,17 @@
+package com.library.common.analytics;
+
+import java.util.List;
+
+/**
+ * Optional console sink for analytics results
+ */
+public class AnalyticsPrinter {
+
+		/**
+		 * Print a titled list of results, one row per line
+		 */
+		public static void print(String title, List<?> rows) {
+				System.out.println(title);
+				rows.forEach(System.out::println);
+		}
+}
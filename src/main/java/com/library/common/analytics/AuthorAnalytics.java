@@ -0,0 +1,51 @@
+package com.library.common.analytics;
+
+import java.util.List;
+
+/**
+ * Question 8 - Author aggregations shared by the MongoDB and RavenDB managers
+ */
+public interface AuthorAnalytics {
+
+		/**
+		 * Count total number of authors per nationality, most represented first
+		 */
+		List<NationalityCount> countAuthorsByNationality();
+
+		/**
+		 * List author names for a given nationality
+		 */
+		List<String> listAuthorsByNationality(String nationality);
+
+		/**
+		 * Find authors whose names start with a given letter (case-insensitive)
+		 */
+		List<AuthorSummary> findAuthorsStartingWith(char letter);
+
+		/**
+		 * Compute the length of every author name
+		 */
+		List<NameLength> computeNameLengthForAuthors();
+
+		/**
+		 * List author names in ascending order
+		 */
+		List<String> sortAuthorsByName();
+
+		/**
+		 * Join every author with the titles of their books
+		 */
+		List<AuthorBooks> getAuthorsWithBooks();
+
+		record NationalityCount(String nationality, long count) {
+		}
+
+		record AuthorSummary(String name, String nationality) {
+		}
+
+		record NameLength(String name, int length) {
+		}
+
+		record AuthorBooks(String name, List<String> bookTitles) {
+		}
+}
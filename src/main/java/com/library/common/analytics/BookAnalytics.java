@@ -0,0 +1,49 @@
+package com.library.common.analytics;
+
+import java.util.List;
+
+/**
+ * Question 8 - Book aggregations shared by the MongoDB and RavenDB managers
+ */
+public interface BookAnalytics {
+
+		/**
+		 * Count the number of books published per year, oldest year first
+		 */
+		List<YearCount> countBooksPerPublicationYear();
+
+		/**
+		 * Compute the average page count of books per author
+		 */
+		List<AuthorAverage> averagePageCountPerAuthor();
+
+		/**
+		 * List all books with their associated author names
+		 */
+		List<BookAuthors> listBooksWithAuthors();
+
+		/**
+		 * Count the number of books written by each author
+		 */
+		List<AuthorCount> countBooksByAuthor();
+
+		/**
+		 * Find all books whose title starts with a given letter
+		 */
+		List<BookSummary> findBooksStartingWith(char letter);
+
+		record YearCount(int year, long count) {
+		}
+
+		record AuthorAverage(String authorName, double averagePages) {
+		}
+
+		record BookAuthors(String title, int publicationYear, List<String> authorNames) {
+		}
+
+		record AuthorCount(String authorName, long bookCount) {
+		}
+
+		record BookSummary(String title, int publicationYear) {
+		}
+}
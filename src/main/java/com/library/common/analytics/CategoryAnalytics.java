@@ -0,0 +1,51 @@
+package com.library.common.analytics;
+
+import java.util.List;
+
+/**
+ * Question 8 - Category aggregations shared by the MongoDB and RavenDB managers
+ */
+public interface CategoryAnalytics {
+
+		/**
+		 * Count how many categories exist at each depth level (based on "path")
+		 */
+		List<DepthCount> countCategoriesByDepthLevel();
+
+		/**
+		 * List all top-level categories (first element of "path")
+		 */
+		List<String> listTopLevelCategories();
+
+		/**
+		 * Count the number of subcategories under each top-level category
+		 */
+		List<TopLevelCount> countSubcategoriesPerTopLevel();
+
+		/**
+		 * Find all leaf categories (categories that are not parents of any other category)
+		 */
+		List<CategorySummary> findLeafCategories();
+
+		/**
+		 * List categories with their direct parent name
+		 */
+		List<CategoryParent> listCategoriesWithParents();
+
+		/**
+		 * Search categories by partial name (case-insensitive)
+		 */
+		List<CategorySummary> searchCategoriesByName(String keyword);
+
+		record DepthCount(int depth, long count) {
+		}
+
+		record TopLevelCount(String topLevel, long subcategoryCount) {
+		}
+
+		record CategorySummary(String name, String path) {
+		}
+
+		record CategoryParent(String name, String path, String parent) {
+		}
+}
@@ -0,0 +1,69 @@
+package com.library.common.analytics;
+
+import com.library.common.topk.SpaceSaving;
+
+import java.util.List;
+
+/**
+ * Question 8 - Member aggregations shared by the MongoDB and RavenDB managers
+ */
+public interface MemberAnalytics {
+
+		/**
+		 * Count members by registration year
+		 */
+		List<RegistrationYearCount> countMembersByRegistrationYear();
+
+		/**
+		 * List members with their overdue loans
+		 */
+		List<MemberOverdueLoans> listMembersWithOverdueLoans();
+
+		/**
+		 * Count number of active loans per member
+		 */
+		List<MemberLoanCount> countLoansPerMember();
+
+		/**
+		 * Total preference score per category, most preferred first
+		 */
+		List<CategoryScore> mostPreferredCategories();
+
+		/**
+		 * Top 5 most common favorite authors with exact counts, the rankings summary picks them when its top 5 is guaranteed
+		 */
+		List<AuthorPopularity> topFavoriteAuthors();
+
+		/**
+		 * Top k favorite authors with Space-Saving error bounds, bounded memory
+		 */
+		List<SpaceSaving.Estimate<String>> estimateTopFavoriteAuthors(int k);
+
+		/**
+		 * Top k categories by total preference score with Space-Saving error bounds, bounded memory
+		 */
+		List<SpaceSaving.Estimate<String>> estimateTopCategories(int k);
+
+		/**
+		 * Members with emergency contact info
+		 */
+		List<EmergencyContactEntry> listMembersWithEmergencyContact();
+
+		record RegistrationYearCount(int year, long count) {
+		}
+
+		record MemberOverdueLoans(String firstName, String lastName, String email, List<String> overdueBookTitles) {
+		}
+
+		record MemberLoanCount(String fullName, int loanCount) {
+		}
+
+		record CategoryScore(String category, long totalScore) {
+		}
+
+		record AuthorPopularity(String author, long count) {
+		}
+
+		record EmergencyContactEntry(String firstName, String lastName, String emergencyName, String emergencyPhone) {
+		}
+}
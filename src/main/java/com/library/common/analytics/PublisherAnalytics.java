@@ -0,0 +1,46 @@
+package com.library.common.analytics;
+
+import java.util.List;
+
+/**
+ * Question 8 - Publisher aggregations shared by the MongoDB and RavenDB managers
+ */
+public interface PublisherAnalytics {
+
+		/**
+		 * Number of books published per publisher
+		 */
+		List<PublisherCount> countBooksPerPublisher();
+
+		/**
+		 * Unique list of authors per publisher
+		 */
+		List<PublisherAuthors> listAuthorsPerPublisher();
+
+		/**
+		 * Average number of pages per publisher
+		 */
+		List<PublisherAverage> averagePagesPerPublisher();
+
+		/**
+		 * Publishers who have published more than N books
+		 */
+		List<PublisherCount> publishersWithMoreThanNBooks(int n);
+
+		/**
+		 * Ranking of publishers by total loan count in loanHistory
+		 */
+		List<PublisherLoans> rankPublishersByTotalLoans();
+
+		record PublisherCount(String publisher, long bookCount) {
+		}
+
+		record PublisherAuthors(String publisher, List<String> authors) {
+		}
+
+		record PublisherAverage(String publisher, double averagePages) {
+		}
+
+		record PublisherLoans(String publisher, long totalLoans) {
+		}
+}
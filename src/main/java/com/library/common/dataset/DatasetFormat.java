@@ -0,0 +1,73 @@
+package com.library.common.dataset;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * On-disk format of a generated dataset file
+ */
+public enum DatasetFormat {
+		/**
+		 * Pretty-printed JSON array, not splittable
+		 */
+		JSON(".json", false),
+		/**
+		 * Newline-delimited JSON, split on line boundaries
+		 */
+		NDJSON(".ndjson", true),
+		/**
+		 * Concatenated CBOR records, split with the ".idx" offsets sidecar
+		 */
+		CBOR(".cbor", true);
+
+		public static final String FORMAT_PROPERTY = "library.dataset.format";
+
+		private final String extension;
+		private final boolean splittable;
+
+		DatasetFormat(String extension, boolean splittable) {
+				this.extension = extension;
+				this.splittable = splittable;
+		}
+
+		/**
+		 * Format chosen with -Dlibrary.dataset.format (json, ndjson or cbor), JSON by default
+		 */
+		public static DatasetFormat configured() {
+				String value = System.getProperty(FORMAT_PROPERTY);
+				return value == null || value.isBlank() ? JSON : valueOf(value.trim().toUpperCase(Locale.ROOT));
+		}
+
+		/**
+		 * Format of a file, from its extension
+		 */
+		public static DatasetFormat of(Path file) {
+				String name = file.getFileName().toString();
+				for (DatasetFormat format : values()) {
+						if (name.endsWith(format.extension)) {
+								return format;
+						}
+				}
+				throw new IllegalArgumentException("Unknown dataset format: " + file);
+		}
+
+		/**
+		 * File name without its dataset extension ("members.json" -> "members")
+		 */
+		public static String baseName(String fileName) {
+				for (DatasetFormat format : values()) {
+						if (fileName.endsWith(format.extension)) {
+								return fileName.substring(0, fileName.length() - format.extension.length());
+						}
+				}
+				return fileName;
+		}
+
+		public String getExtension() {
+				return extension;
+		}
+
+		public boolean isSplittable() {
+				return splittable;
+		}
+}
@@ -0,0 +1,158 @@
+package com.library.common.dataset;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Splits dataset files on record boundaries and streams the records of each split.
+ * NDJSON and CBOR splits are memory-mapped, the parser reads the page cache directly.
+ */
+public class DatasetReader {
+		/**
+		 * Upper bound of one split, a single mapping cannot exceed Integer.MAX_VALUE bytes
+		 */
+		private static final long MAX_SPLIT_SIZE = 1L << 30;
+		private static final int SCAN_BUFFER_SIZE = 1 << 13;
+
+		private static final ObjectMapper jsonMapper = new ObjectMapper();
+		private static final ObjectMapper cborMapper = new CBORMapper();
+
+		/**
+		 * Split a file in about {@code parts} ranges starting on record boundaries.
+		 * Large files get more splits so each one can be mapped.
+		 * Non-splittable formats always give a single split.
+		 */
+		public static List<DatasetSplit> split(Path file, DatasetFormat format, int parts) throws IOException {
+				long size = Files.size(file);
+				if (!format.isSplittable() || size == 0) {
+						return List.of(new DatasetSplit(file, format, 0, size));
+				}
+
+				long target = Math.min(MAX_SPLIT_SIZE, (size + Math.max(1, parts) - 1) / Math.max(1, parts));
+				List<DatasetSplit> splits = new ArrayList<>();
+				if (format == DatasetFormat.CBOR) {
+						// Cut on the indexed record offsets
+						long[] offsets = readIndex(file);
+						long start = 0;
+						for (long offset : offsets) {
+								if (offset - start >= target) {
+										splits.add(new DatasetSplit(file, format, start, offset));
+										start = offset;
+								}
+						}
+						splits.add(new DatasetSplit(file, format, start, size));
+				} else {
+						// Move each cut after the next newline
+						try (FileChannel channel = FileChannel.open(file)) {
+								long start = 0;
+								while (start < size) {
+										long end = nextLineStart(channel, Math.min(size, start + target), size);
+										splits.add(new DatasetSplit(file, format, start, end));
+										start = end;
+								}
+						}
+				}
+				return splits;
+		}
+
+		/**
+		 * Read every record of the split
+		 */
+		public static <T> long read(DatasetSplit split, JavaType type, Consumer<T> consumer) throws IOException {
+				return switch (split.format()) {
+						case JSON -> readJson(split.file(), type, consumer);
+						case NDJSON -> readMapped(split, jsonMapper.readerFor(type), consumer);
+						case CBOR -> readMapped(split, cborMapper.readerFor(type), consumer);
+				};
+		}
+
+		private static <T> long readJson(Path file, JavaType type, Consumer<T> consumer) throws IOException {
+				long count = 0;
+				try (JsonParser parser = jsonMapper.createParser(file.toFile())) {
+						// Move inside the top level array and stream its elements
+						parser.nextToken();
+						parser.nextToken();
+						try (MappingIterator<T> it = jsonMapper.readerFor(type).readValues(parser)) {
+								while (it.hasNext()) {
+										consumer.accept(it.next());
+										count++;
+								}
+						}
+				}
+				return count;
+		}
+
+		private static <T> long readMapped(DatasetSplit split, ObjectReader reader, Consumer<T> consumer) throws IOException {
+				if (split.end() - split.start() > Integer.MAX_VALUE) {
+						throw new IllegalArgumentException("Split too large to be mapped: " + split);
+				}
+				long count = 0;
+				try (FileChannel channel = FileChannel.open(split.file())) {
+						// The mapping stays valid after the channel is closed, the parser reads it without a read() per buffer
+						MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, split.start(), split.end() - split.start());
+						try (MappingIterator<T> it = reader.readValues(new ByteBufferBackedInputStream(buffer))) {
+								while (it.hasNext()) {
+										consumer.accept(it.next());
+										count++;
+								}
+						}
+				}
+				return count;
+		}
+
+		/**
+		 * Position of the first line starting at or after {@code position}
+		 */
+		private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+				if (position >= size) {
+						return size;
+				}
+				ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+				long offset = position - 1;
+				while (offset < size) {
+						buffer.clear();
+						int read = channel.read(buffer, offset);
+						if (read <= 0) {
+								break;
+						}
+						for (int i = 0; i < read; i++) {
+								if (buffer.get(i) == '\n') {
+										return offset + i + 1;
+								}
+						}
+						offset += read;
+				}
+				return size;
+		}
+
+		private static long[] readIndex(Path file) throws IOException {
+				Path indexFile = file.resolveSibling(file.getFileName() + DatasetWriter.INDEX_SUFFIX);
+				if (!Files.exists(indexFile)) {
+						throw new IOException("Missing offsets index for " + file);
+				}
+				long[] offsets = new long[(int) (Files.size(indexFile) / Long.BYTES)];
+				try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+						for (int i = 0; i < offsets.length; i++) {
+								offsets[i] = in.readLong();
+						}
+				}
+				return offsets;
+		}
+}
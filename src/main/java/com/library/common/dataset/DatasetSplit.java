@@ -0,0 +1,15 @@
+package com.library.common.dataset;
+
+import java.nio.file.Path;
+
+/**
+ * Byte range of a dataset file read by one loader thread.
+ * A record belongs to the split in which it starts.
+ *
+ * @param file   Dataset file
+ * @param format Dataset format
+ * @param start  First byte (inclusive)
+ * @param end    Last byte (exclusive)
+ */
+public record DatasetSplit(Path file, DatasetFormat format, long start, long end) {
+}
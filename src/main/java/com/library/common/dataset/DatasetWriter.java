@@ -0,0 +1,109 @@
+package com.library.common.dataset;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes generated entities in any {@link DatasetFormat}
+ */
+public class DatasetWriter {
+		/**
+		 * One CBOR offset is indexed every INDEX_INTERVAL records
+		 */
+		static final int INDEX_INTERVAL = 1000;
+		public static final String INDEX_SUFFIX = ".idx";
+		private static final int BUFFER_SIZE = 1 << 16;
+
+		private static final ObjectMapper jsonMapper = new ObjectMapper();
+		private static final ObjectWriter prettyWriter = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+						.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		private static final ObjectMapper cborMapper = new CBORMapper();
+
+		/**
+		 * Write entities to a file, one at a time so a lazily generated sequence is never held in memory
+		 */
+		public static void write(Path file, Iterable<?> entities, DatasetFormat format) throws IOException {
+				switch (format) {
+						case JSON -> writeJson(file, entities);
+						case NDJSON -> writeNdjson(file, entities);
+						case CBOR -> writeCbor(file, entities);
+				}
+		}
+
+		private static void writeJson(Path file, Iterable<?> entities) throws IOException {
+				try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+						 JsonGenerator generator = prettyWriter.createGenerator(out)) {
+						generator.writeStartArray();
+						for (Object entity : entities) {
+								prettyWriter.writeValue(generator, entity);
+						}
+						generator.writeEndArray();
+				}
+		}
+
+		private static void writeNdjson(Path file, Iterable<?> entities) throws IOException {
+				try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+						 JsonGenerator generator = jsonMapper.getFactory().createGenerator(out)) {
+						generator.setRootValueSeparator(new SerializedString("\n"));
+						boolean empty = true;
+						for (Object entity : entities) {
+								generator.writeObject(entity);
+								empty = false;
+						}
+						if (!empty) {
+								generator.writeRaw('\n');
+						}
+				}
+		}
+
+		private static void writeCbor(Path file, Iterable<?> entities) throws IOException {
+				Path indexFile = file.resolveSibling(file.getFileName() + INDEX_SUFFIX);
+
+				try (CountingOutputStream out = new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+						 DataOutputStream index = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile)));
+						 JsonGenerator generator = cborMapper.getFactory().createGenerator(out)) {
+						long written = 0;
+						for (Object entity : entities) {
+								if (written % INDEX_INTERVAL == 0) {
+										// Flush so the counter is at the exact start of the record
+										generator.flush();
+										index.writeLong(out.count);
+								}
+								generator.writeObject(entity);
+								written++;
+						}
+				}
+		}
+
+		private static class CountingOutputStream extends FilterOutputStream {
+				private long count;
+
+				CountingOutputStream(OutputStream out) {
+						super(out);
+				}
+
+				@Override
+				public void write(int b) throws IOException {
+						out.write(b);
+						count++;
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) throws IOException {
+						out.write(b, off, len);
+						count += len;
+				}
+		}
+}
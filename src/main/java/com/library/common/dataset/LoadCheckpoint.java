@@ -0,0 +1,124 @@
+package com.library.common.dataset;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Split plan and completed splits of one dataset file, persisted after every split so an interrupted load can resume.
+ * A checkpoint is only reused while the dataset file keeps the same size and modification time, and a resumed load
+ * reuses its split plan so a different thread count cannot shift the split boundaries.
+ */
+public class LoadCheckpoint {
+		private static final Logger logger = LogManager.getLogger();
+		private static final ObjectMapper mapper = new ObjectMapper();
+
+		private final Path checkpointFile;
+		private final State state;
+
+		private LoadCheckpoint(Path checkpointFile, State state) {
+				this.checkpointFile = checkpointFile;
+				this.state = state;
+		}
+
+		/**
+		 * Persisted form, completed splits are keyed by their range in the plan
+		 */
+		private record State(String file, long size, long lastModified, List<Range> plan, Set<Range> completed) {
+		}
+
+		private record Range(long start, long end) implements Comparable<Range> {
+				private static Range of(DatasetSplit split) {
+						return new Range(split.start(), split.end());
+				}
+
+				@Override
+				public int compareTo(Range other) {
+						return start != other.start ? Long.compare(start, other.start) : Long.compare(end, other.end);
+				}
+		}
+
+		/**
+		 * Open the checkpoint of a dataset file, starting a new one with the given split plan if it is missing
+		 * or was taken on another file
+		 */
+		public static LoadCheckpoint open(Path checkpointFile, Path dataFile, List<DatasetSplit> plan) throws IOException {
+				long size = Files.size(dataFile);
+				long lastModified = Files.getLastModifiedTime(dataFile).toMillis();
+				String file = dataFile.toAbsolutePath().toString();
+
+				if (Files.exists(checkpointFile)) {
+						try {
+								State state = mapper.readValue(checkpointFile.toFile(), State.class);
+								if (state.plan() == null || state.completed() == null) {
+										logger.info("Checkpoint {} has no split plan, starting over", checkpointFile);
+								} else if (file.equals(state.file()) && state.size() == size && state.lastModified() == lastModified) {
+										return new LoadCheckpoint(checkpointFile,
+														new State(file, size, lastModified, List.copyOf(state.plan()), new TreeSet<>(state.completed())));
+								} else {
+										logger.info("Dataset {} changed since checkpoint {}, starting over", dataFile, checkpointFile);
+								}
+						} catch (IOException e) {
+								logger.warn("Ignoring unreadable checkpoint {}", checkpointFile, e);
+						}
+				}
+
+				Files.createDirectories(checkpointFile.toAbsolutePath().getParent());
+				List<Range> ranges = plan.stream().map(Range::of).toList();
+				LoadCheckpoint checkpoint = new LoadCheckpoint(checkpointFile, new State(file, size, lastModified, ranges, new TreeSet<>()));
+				checkpoint.save();
+				return checkpoint;
+		}
+
+		/**
+		 * Splits to load: the plan the checkpoint was started with
+		 */
+		public List<DatasetSplit> splits(Path dataFile, DatasetFormat format) {
+				return state.plan().stream().map(range -> new DatasetSplit(dataFile, format, range.start(), range.end())).toList();
+		}
+
+		/**
+		 * Whether some splits were already loaded
+		 */
+		public synchronized boolean hasProgress() {
+				return !state.completed().isEmpty();
+		}
+
+		public synchronized int completedCount() {
+				return state.completed().size();
+		}
+
+		public synchronized boolean isDone(DatasetSplit split) {
+				return state.completed().contains(Range.of(split));
+		}
+
+		/**
+		 * Record a fully inserted split
+		 */
+		public synchronized void markDone(DatasetSplit split) throws IOException {
+				state.completed().add(Range.of(split));
+				save();
+		}
+
+		/**
+		 * Remove the checkpoint once the whole file is loaded
+		 */
+		public synchronized void delete() throws IOException {
+				Files.deleteIfExists(checkpointFile);
+		}
+
+		private void save() throws IOException {
+				// Write then rename so a crash never leaves a truncated checkpoint
+				Path tmp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+				mapper.writeValue(tmp.toFile(), state);
+				Files.move(tmp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+}
@@ -0,0 +1,63 @@
+package com.library.common.dataset;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks loaded bytes of a dataset file and logs progress with an ETA after each split
+ */
+public class LoadProgress {
+		private static final Logger logger = LogManager.getLogger();
+
+		private final String entityName;
+		private final long totalBytes;
+		private final int totalSplits;
+		private final AtomicLong doneBytes = new AtomicLong();
+		private final AtomicLong skippedBytes = new AtomicLong();
+		private final AtomicLong doneSplits = new AtomicLong();
+		private final long startNanos = System.nanoTime();
+
+		public LoadProgress(String entityName, long totalBytes, int totalSplits) {
+				this.entityName = entityName;
+				this.totalBytes = totalBytes;
+				this.totalSplits = totalSplits;
+		}
+
+		/**
+		 * Count a split completed by a previous run, it does not weigh in the rate
+		 */
+		public void skipped(DatasetSplit split) {
+				long size = split.end() - split.start();
+				skippedBytes.addAndGet(size);
+				doneBytes.addAndGet(size);
+				doneSplits.incrementAndGet();
+		}
+
+		/**
+		 * Count a split loaded by this run and log the progress
+		 */
+		public void completed(DatasetSplit split) {
+				long done = doneBytes.addAndGet(split.end() - split.start());
+				long splits = doneSplits.incrementAndGet();
+
+				long loadedNow = done - skippedBytes.get();
+				long elapsed = System.nanoTime() - startNanos;
+				double percent = totalBytes == 0 ? 100 : 100.0 * done / totalBytes;
+				String eta = loadedNow <= 0 ? "unknown" : format(Duration.ofNanos((long) ((double) elapsed / loadedNow * (totalBytes - done))));
+
+				logger.info("{} load: {}/{} splits, {}/{} MB ({}%), elapsed {}, ETA {}",
+								entityName, splits, totalSplits, done >> 20, totalBytes >> 20,
+								String.format("%.1f", percent), format(Duration.ofNanos(elapsed)), eta);
+		}
+
+		private static String format(Duration duration) {
+				long seconds = duration.getSeconds();
+				return seconds < 60
+								? seconds + "s"
+								: TimeUnit.SECONDS.toMinutes(seconds) + "m" + (seconds % 60) + "s";
+		}
+}
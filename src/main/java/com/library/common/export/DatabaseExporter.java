@@ -0,0 +1,85 @@
+package com.library.common.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Snapshot every collection of a database into one file per collection,
+ * several collections being exported concurrently
+ */
+public abstract class DatabaseExporter {
+		private static final Logger logger = LogManager.getLogger();
+		protected final ObjectMapper mapper = new ObjectMapper();
+
+		/**
+		 * Collections to export
+		 */
+		protected abstract List<String> collections();
+
+		/**
+		 * Stream a whole collection into the writer
+		 */
+		protected abstract void exportCollection(String collection, JsonExportWriter writer, ExportOptions options) throws IOException;
+
+		/**
+		 * Backend name (for logging)
+		 */
+		protected abstract String getBackendName();
+
+		/**
+		 * Export all collections
+		 *
+		 * @return Number of exported documents per collection
+		 */
+		public Map<String, Long> export(Path directory, ExportOptions options) {
+				long start = System.nanoTime();
+				List<String> collections = collections();
+				Map<String, Future<Long>> tasks = new LinkedHashMap<>();
+				Map<String, Long> counts = new LinkedHashMap<>();
+
+				ExecutorService executor = Executors.newFixedThreadPool(Math.min(options.getParallelism(), Math.max(1, collections.size())));
+				try {
+						Files.createDirectories(directory);
+
+						for (String collection : collections) {
+								tasks.put(collection, executor.submit(() -> exportOne(collection, directory, options)));
+						}
+
+						for (Map.Entry<String, Future<Long>> task : tasks.entrySet()) {
+								counts.put(task.getKey(), task.getValue().get());
+						}
+				} catch (IOException | ExecutionException e) {
+						logger.error("Error exporting {} database to {}", getBackendName(), directory, e);
+						throw new RuntimeException("Failed to export " + getBackendName() + " database", e);
+				} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new RuntimeException("Interrupted while exporting " + getBackendName() + " database", e);
+				} finally {
+						executor.shutdownNow();
+				}
+
+				logger.info("Exported {} {} collections to {} in {} ms: {}", counts.size(), getBackendName(), directory,
+								(System.nanoTime() - start) / 1_000_000, counts);
+				return counts;
+		}
+
+		private long exportOne(String collection, Path directory, ExportOptions options) throws IOException {
+				try (JsonExportWriter writer = new JsonExportWriter(mapper, directory, collection, options)) {
+						exportCollection(collection, writer, options);
+						logger.info("Exported {} {} documents to {}", writer.getCount(), collection, writer.getFile());
+						return writer.getCount();
+				}
+		}
+}
@@ -0,0 +1,25 @@
+package com.library.common.export;
+
+/**
+ * Layout of an exported collection file
+ */
+public enum ExportFormat {
+		/**
+		 * One JSON document per line
+		 */
+		NDJSON(".ndjson"),
+		/**
+		 * A single JSON array
+		 */
+		JSON_ARRAY(".json");
+
+		private final String extension;
+
+		ExportFormat(String extension) {
+				this.extension = extension;
+		}
+
+		public String getExtension() {
+				return extension;
+		}
+}
@@ -0,0 +1,62 @@
+package com.library.common.export;
+
+/**
+ * Options for {@link DatabaseExporter#export}
+ */
+public class ExportOptions {
+		private ExportFormat format = ExportFormat.NDJSON;
+		private boolean gzip = false;
+		private int parallelism = Math.min(4, Runtime.getRuntime().availableProcessors());
+		private int batchSize = 1000;
+
+		public ExportOptions format(ExportFormat format) {
+				this.format = format;
+				return this;
+		}
+
+		/**
+		 * Compress files with gzip (.gz suffix)
+		 */
+		public ExportOptions gzip(boolean gzip) {
+				this.gzip = gzip;
+				return this;
+		}
+
+		/**
+		 * Number of collections exported concurrently
+		 */
+		public ExportOptions parallelism(int parallelism) {
+				if (parallelism <= 0) {
+						throw new IllegalArgumentException("parallelism must be positive");
+				}
+				this.parallelism = parallelism;
+				return this;
+		}
+
+		/**
+		 * Documents fetched per cursor round trip
+		 */
+		public ExportOptions batchSize(int batchSize) {
+				if (batchSize <= 0) {
+						throw new IllegalArgumentException("batchSize must be positive");
+				}
+				this.batchSize = batchSize;
+				return this;
+		}
+
+		public ExportFormat getFormat() {
+				return format;
+		}
+
+		public boolean isGzip() {
+				return gzip;
+		}
+
+		public int getParallelism() {
+				return parallelism;
+		}
+
+		public int getBatchSize() {
+				return batchSize;
+		}
+}
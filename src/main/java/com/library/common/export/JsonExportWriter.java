@@ -0,0 +1,77 @@
+package com.library.common.export;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming writer for one exported collection.
+ * Documents go straight to a JsonGenerator, nothing is buffered besides the output stream.
+ */
+public class JsonExportWriter implements AutoCloseable {
+		private static final int BUFFER_SIZE = 1 << 16;
+
+		private final Path file;
+		private final ExportFormat format;
+		private final JsonGenerator generator;
+		private long count;
+
+		public JsonExportWriter(ObjectMapper mapper, Path directory, String collection, ExportOptions options) throws IOException {
+				this.format = options.getFormat();
+				this.file = directory.resolve(collection + format.getExtension() + (options.isGzip() ? ".gz" : ""));
+
+				OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+				if (options.isGzip()) {
+						out = new GZIPOutputStream(out, BUFFER_SIZE);
+				}
+
+				this.generator = mapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+				if (format == ExportFormat.NDJSON) {
+						generator.setRootValueSeparator(new SerializedString("\n"));
+				} else {
+						generator.writeStartArray();
+				}
+		}
+
+		/**
+		 * Write a document already serialized as JSON
+		 */
+		public void writeRaw(String json) throws IOException {
+				generator.writeRawValue(json);
+				count++;
+		}
+
+		/**
+		 * Write a document serialized by the mapper
+		 */
+		public void writeObject(Object document) throws IOException {
+				generator.writeObject(document);
+				count++;
+		}
+
+		public long getCount() {
+				return count;
+		}
+
+		public Path getFile() {
+				return file;
+		}
+
+		@Override
+		public void close() throws IOException {
+				if (format == ExportFormat.JSON_ARRAY) {
+						generator.writeEndArray();
+				} else if (count > 0) {
+						generator.writeRaw('\n');
+				}
+				generator.close();
+		}
+}
@@ -0,0 +1,286 @@
+package com.library.common.facet;
+
+import com.library.common.model.Book;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * In-process facet index over the catalogue: each book gets a dense ordinal and one bitmap per
+ * facet value holds the ordinals of the books having it, plus one bitmap of the available books.
+ * Filters and faceted counts are bitmap intersections and never reach the database.
+ * Kept current by the book repositories' writes once attached with {@code feedFacets}.
+ */
+public class BookFacetIndex {
+		public static final int YEAR_BUCKET = 10;
+
+		/**
+		 * Indexed book attributes
+		 */
+		public enum Facet {
+				CATEGORY(Book::getCategoryId),
+				PUBLISHER(Book::getPublisherId),
+				LANGUAGE(book -> metadata(book, "language")),
+				FORMAT(book -> metadata(book, "format")),
+				DECADE(book -> book.getPublicationYear() > 0
+								? String.valueOf(book.getPublicationYear() / YEAR_BUCKET * YEAR_BUCKET) : null);
+
+				private final Function<Book, String> extractor;
+
+				Facet(Function<Book, String> extractor) {
+						this.extractor = extractor;
+				}
+
+				public String valueOf(Book book) {
+						return extractor.apply(book);
+				}
+		}
+
+		private static final Facet[] FACETS = Facet.values();
+
+		private final ReadWriteLock lock = new ReentrantReadWriteLock();
+		private final Map<String, Integer> ordinals = new HashMap<>();
+		private final List<String> bookIds = new ArrayList<>();
+		private final List<String[]> valuesByOrdinal = new ArrayList<>();
+		private final RoaringBitmap all = new RoaringBitmap();
+		private final RoaringBitmap available = new RoaringBitmap();
+		private final Map<Facet, Map<String, RoaringBitmap>> bitmaps = new EnumMap<>(Facet.class);
+
+		public BookFacetIndex() {
+				for (Facet facet : FACETS) {
+						bitmaps.put(facet, new HashMap<>());
+				}
+		}
+
+		/**
+		 * Index a book under the given id, replacing its previous facet values
+		 */
+		public void put(String bookId, Book book) {
+				if (bookId == null || book == null) {
+						return;
+				}
+				lock.writeLock().lock();
+				try {
+						int ordinal = ordinals.computeIfAbsent(bookId, id -> {
+								bookIds.add(id);
+								valuesByOrdinal.add(null);
+								return bookIds.size() - 1;
+						});
+						unindex(ordinal);
+
+						String[] values = new String[FACETS.length];
+						for (Facet facet : FACETS) {
+								String value = facet.valueOf(book);
+								values[facet.ordinal()] = value;
+								if (value != null) {
+										bitmaps.get(facet).computeIfAbsent(value, v -> new RoaringBitmap()).add(ordinal);
+								}
+						}
+						valuesByOrdinal.set(ordinal, values);
+						all.add(ordinal);
+						if (book.isAvailable()) {
+								available.add(ordinal);
+						}
+				} finally {
+						lock.writeLock().unlock();
+				}
+		}
+
+		public void put(Book book) {
+				put(book.getId(), book);
+		}
+
+		public void setAvailable(String bookId, boolean isAvailable) {
+				lock.writeLock().lock();
+				try {
+						Integer ordinal = ordinals.get(bookId);
+						if (ordinal != null && valuesByOrdinal.get(ordinal) != null) {
+								if (isAvailable) {
+										available.add(ordinal);
+								} else {
+										available.remove(ordinal);
+								}
+						}
+				} finally {
+						lock.writeLock().unlock();
+				}
+		}
+
+		/**
+		 * Drop a book from every bitmap, its ordinal is kept for a later re-insert
+		 */
+		public void remove(String bookId) {
+				lock.writeLock().lock();
+				try {
+						Integer ordinal = ordinals.get(bookId);
+						if (ordinal != null) {
+								unindex(ordinal);
+						}
+				} finally {
+						lock.writeLock().unlock();
+				}
+		}
+
+		public void clear() {
+				lock.writeLock().lock();
+				try {
+						for (int ordinal = 0; ordinal < bookIds.size(); ordinal++) {
+								unindex(ordinal);
+						}
+				} finally {
+						lock.writeLock().unlock();
+				}
+		}
+
+		public Query query() {
+				return new Query();
+		}
+
+		public long size() {
+				return query().count();
+		}
+
+		private void unindex(int ordinal) {
+				String[] values = valuesByOrdinal.get(ordinal);
+				if (values == null) {
+						return;
+				}
+				for (Facet facet : FACETS) {
+						String value = values[facet.ordinal()];
+						if (value != null) {
+								Map<String, RoaringBitmap> byValue = bitmaps.get(facet);
+								RoaringBitmap bitmap = byValue.get(value);
+								bitmap.remove(ordinal);
+								if (bitmap.isEmpty()) {
+										byValue.remove(value);
+								}
+						}
+				}
+				all.remove(ordinal);
+				available.remove(ordinal);
+				valuesByOrdinal.set(ordinal, null);
+		}
+
+		private static String metadata(Book book, String key) {
+				Object value = book.getMetadata() == null ? null : book.getMetadata().get(key);
+				return value == null ? null : value.toString();
+		}
+
+		/**
+		 * Conjunction of facet filters, evaluated under the read lock
+		 */
+		public class Query {
+				private boolean availableOnly;
+				private final Map<Facet, String> filters = new EnumMap<>(Facet.class);
+
+				public Query available() {
+						this.availableOnly = true;
+						return this;
+				}
+
+				public Query where(Facet facet, String value) {
+						filters.put(facet, value);
+						return this;
+				}
+
+				/**
+				 * Number of matching books
+				 */
+				public long count() {
+						lock.readLock().lock();
+						try {
+								List<RoaringBitmap> operands = operands();
+								if (operands == null) {
+										return 0;
+								}
+								if (operands.size() == 1) {
+										return operands.get(0).getCardinality();
+								}
+								// The last intersection only needs its size
+								int last = operands.size() - 1;
+								return RoaringBitmap.andCardinality(intersect(operands.subList(0, last)), operands.get(last));
+						} finally {
+								lock.readLock().unlock();
+						}
+				}
+
+				/**
+				 * Ids of the matching books, in ordinal order
+				 */
+				public List<String> bookIds(int limit) {
+						lock.readLock().lock();
+						try {
+								List<RoaringBitmap> operands = operands();
+								List<String> ids = new ArrayList<>();
+								if (operands == null) {
+										return ids;
+								}
+								int[] matches = intersect(operands).toArray();
+								for (int i = 0; i < Math.min(limit, matches.length); i++) {
+										ids.add(BookFacetIndex.this.bookIds.get(matches[i]));
+								}
+								return ids;
+						} finally {
+								lock.readLock().unlock();
+						}
+				}
+
+				/**
+				 * Matching books per value of a facet, largest first
+				 */
+				public Map<String, Long> countBy(Facet facet) {
+						lock.readLock().lock();
+						try {
+								Map<String, Long> counts = new LinkedHashMap<>();
+								List<RoaringBitmap> operands = operands();
+								if (operands == null) {
+										return counts;
+								}
+								RoaringBitmap matches = intersect(operands);
+								bitmaps.get(facet).entrySet().stream()
+												.map(e -> Map.entry(e.getKey(), RoaringBitmap.andCardinality(matches, e.getValue())))
+												.filter(e -> e.getValue() > 0)
+												.sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+																.thenComparing(Map.Entry.comparingByKey()))
+												.forEachOrdered(e -> counts.put(e.getKey(), e.getValue()));
+								return counts;
+						} finally {
+								lock.readLock().unlock();
+						}
+				}
+
+				/**
+				 * Bitmaps to intersect, null when a filter value has no book
+				 */
+				private List<RoaringBitmap> operands() {
+						List<RoaringBitmap> operands = new ArrayList<>();
+						operands.add(availableOnly ? available : all);
+						for (Map.Entry<Facet, String> filter : filters.entrySet()) {
+								RoaringBitmap bitmap = bitmaps.get(filter.getKey()).get(filter.getValue());
+								if (bitmap == null) {
+										return null;
+								}
+								operands.add(bitmap);
+						}
+						// Smallest first keeps the intermediate results small
+						operands.sort(Comparator.comparingLong(RoaringBitmap::getCardinality));
+						return operands;
+				}
+
+				private RoaringBitmap intersect(List<RoaringBitmap> operands) {
+						RoaringBitmap result = operands.get(0);
+						for (int i = 1; i < operands.size(); i++) {
+								result = RoaringBitmap.and(result, operands.get(i));
+						}
+						return result;
+				}
+		}
+}
@@ -0,0 +1,472 @@
+package com.library.common.facet;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed bitmap of non-negative ints in the Roaring layout: values are split on their high 16 bits,
+ * each chunk of 65536 values is a sorted array of low bits while sparse (up to 4096 values) and
+ * a plain 8 KB bitset once dense. Intersections work chunk by chunk and skip the chunks present on one side only.
+ * Not thread-safe, {@link BookFacetIndex} guards its bitmaps with a lock.
+ */
+public class RoaringBitmap {
+		private static final int ARRAY_MAX = 4096;
+		private static final int GALLOP_RATIO = 64;
+
+		private char[] keys = new char[4];
+		private Container[] containers = new Container[4];
+		private int size;
+		private long cardinality;
+
+		public void add(int value) {
+				checkValue(value);
+				char high = (char) (value >>> 16);
+				int i = indexOf(high);
+				if (i >= 0) {
+						int before = containers[i].cardinality();
+						containers[i] = containers[i].add((char) value);
+						cardinality += containers[i].cardinality() - before;
+				} else {
+						insertAt(-i - 1, high, new ArrayContainer().add((char) value));
+				}
+		}
+
+		public void remove(int value) {
+				checkValue(value);
+				int i = indexOf((char) (value >>> 16));
+				if (i < 0) {
+						return;
+				}
+				int before = containers[i].cardinality();
+				containers[i] = containers[i].remove((char) value);
+				cardinality -= before - containers[i].cardinality();
+				if (containers[i].cardinality() == 0) {
+						removeAt(i);
+				}
+		}
+
+		public boolean contains(int value) {
+				if (value < 0) {
+						return false;
+				}
+				int i = indexOf((char) (value >>> 16));
+				return i >= 0 && containers[i].contains((char) value);
+		}
+
+		public long getCardinality() {
+				return cardinality;
+		}
+
+		public boolean isEmpty() {
+				return size == 0;
+		}
+
+		public void forEach(IntConsumer consumer) {
+				for (int i = 0; i < size; i++) {
+						containers[i].forEach(keys[i] << 16, consumer);
+				}
+		}
+
+		public int[] toArray() {
+				int[] values = new int[(int) getCardinality()];
+				int[] n = {0};
+				forEach(v -> values[n[0]++] = v);
+				return values;
+		}
+
+		/**
+		 * Values present in both bitmaps
+		 */
+		public static RoaringBitmap and(RoaringBitmap a, RoaringBitmap b) {
+				RoaringBitmap result = new RoaringBitmap();
+				int i = 0;
+				int j = 0;
+				while (i < a.size && j < b.size) {
+						if (a.keys[i] < b.keys[j]) {
+								i++;
+						} else if (a.keys[i] > b.keys[j]) {
+								j++;
+						} else {
+								Container c = a.containers[i].and(b.containers[j]);
+								if (c.cardinality() > 0) {
+										result.insertAt(result.size, a.keys[i], c);
+								}
+								i++;
+								j++;
+						}
+				}
+				return result;
+		}
+
+		/**
+		 * Size of the intersection, without building it
+		 */
+		public static long andCardinality(RoaringBitmap a, RoaringBitmap b) {
+				long cardinality = 0;
+				int i = 0;
+				int j = 0;
+				while (i < a.size && j < b.size) {
+						if (a.keys[i] < b.keys[j]) {
+								i++;
+						} else if (a.keys[i] > b.keys[j]) {
+								j++;
+						} else {
+								cardinality += a.containers[i].andCardinality(b.containers[j]);
+								i++;
+								j++;
+						}
+				}
+				return cardinality;
+		}
+
+		/**
+		 * Values present in either bitmap
+		 */
+		public static RoaringBitmap or(RoaringBitmap a, RoaringBitmap b) {
+				RoaringBitmap result = new RoaringBitmap();
+				int i = 0;
+				int j = 0;
+				while (i < a.size || j < b.size) {
+						if (j >= b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+								result.insertAt(result.size, a.keys[i], a.containers[i].copy());
+								i++;
+						} else if (i >= a.size || a.keys[i] > b.keys[j]) {
+								result.insertAt(result.size, b.keys[j], b.containers[j].copy());
+								j++;
+						} else {
+								result.insertAt(result.size, a.keys[i], a.containers[i].or(b.containers[j]));
+								i++;
+								j++;
+						}
+				}
+				return result;
+		}
+
+		public RoaringBitmap copy() {
+				RoaringBitmap copy = new RoaringBitmap();
+				copy.keys = Arrays.copyOf(keys, Math.max(4, size));
+				copy.containers = new Container[copy.keys.length];
+				for (int i = 0; i < size; i++) {
+						copy.containers[i] = containers[i].copy();
+				}
+				copy.size = size;
+				copy.cardinality = cardinality;
+				return copy;
+		}
+
+		private int indexOf(char high) {
+				return Arrays.binarySearch(keys, 0, size, high);
+		}
+
+		private void insertAt(int index, char high, Container container) {
+				if (size == keys.length) {
+						keys = Arrays.copyOf(keys, size * 2);
+						containers = Arrays.copyOf(containers, size * 2);
+				}
+				System.arraycopy(keys, index, keys, index + 1, size - index);
+				System.arraycopy(containers, index, containers, index + 1, size - index);
+				keys[index] = high;
+				containers[index] = container;
+				cardinality += container.cardinality();
+				size++;
+		}
+
+		private void removeAt(int index) {
+				cardinality -= containers[index].cardinality();
+				System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+				System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+				containers[--size] = null;
+		}
+
+		private static void checkValue(int value) {
+				if (value < 0) {
+						throw new IllegalArgumentException("Bitmap values must be non-negative: " + value);
+				}
+		}
+
+		private interface Container {
+				Container add(char low);
+
+				Container remove(char low);
+
+				boolean contains(char low);
+
+				int cardinality();
+
+				Container and(Container other);
+
+				int andCardinality(Container other);
+
+				Container or(Container other);
+
+				Container copy();
+
+				void forEach(int base, IntConsumer consumer);
+		}
+
+		/**
+		 * Sparse chunk, sorted low bits
+		 */
+		private static final class ArrayContainer implements Container {
+				private char[] values;
+				private int cardinality;
+
+				private ArrayContainer() {
+						this(new char[4], 0);
+				}
+
+				private ArrayContainer(char[] values, int cardinality) {
+						this.values = values;
+						this.cardinality = cardinality;
+				}
+
+				@Override
+				public Container add(char low) {
+						int i = Arrays.binarySearch(values, 0, cardinality, low);
+						if (i >= 0) {
+								return this;
+						}
+						if (cardinality == ARRAY_MAX) {
+								return toBitmap().add(low);
+						}
+						i = -i - 1;
+						if (cardinality == values.length) {
+								values = Arrays.copyOf(values, Math.min(ARRAY_MAX, cardinality * 2));
+						}
+						System.arraycopy(values, i, values, i + 1, cardinality - i);
+						values[i] = low;
+						cardinality++;
+						return this;
+				}
+
+				@Override
+				public Container remove(char low) {
+						int i = Arrays.binarySearch(values, 0, cardinality, low);
+						if (i >= 0) {
+								System.arraycopy(values, i + 1, values, i, cardinality - i - 1);
+								cardinality--;
+						}
+						return this;
+				}
+
+				@Override
+				public boolean contains(char low) {
+						return Arrays.binarySearch(values, 0, cardinality, low) >= 0;
+				}
+
+				@Override
+				public int cardinality() {
+						return cardinality;
+				}
+
+				@Override
+				public Container and(Container other) {
+						char[] result = new char[Math.min(cardinality, other.cardinality())];
+						return new ArrayContainer(result, intersect(other, result));
+				}
+
+				@Override
+				public int andCardinality(Container other) {
+						return intersect(other, null);
+				}
+
+				/**
+				 * Intersect with another chunk, writing the common values to {@code out} when not null
+				 *
+				 * @return Number of common values
+				 */
+				private int intersect(Container other, char[] out) {
+						int n = 0;
+						if (other instanceof BitmapContainer bitmap) {
+								long[] words = bitmap.words;
+								for (int i = 0; i < cardinality; i++) {
+										char v = values[i];
+										if ((words[v >>> 6] & (1L << v)) != 0) {
+												if (out != null) {
+														out[n] = v;
+												}
+												n++;
+										}
+								}
+								return n;
+						}
+
+						ArrayContainer array = (ArrayContainer) other;
+						ArrayContainer small = cardinality <= array.cardinality ? this : array;
+						ArrayContainer large = small == this ? array : this;
+						if (large.cardinality > GALLOP_RATIO * small.cardinality) {
+								// Skewed sizes: search each small value in the remaining part of the large array
+								int from = 0;
+								for (int i = 0; i < small.cardinality && from < large.cardinality; i++) {
+										int found = Arrays.binarySearch(large.values, from, large.cardinality, small.values[i]);
+										if (found >= 0) {
+												if (out != null) {
+														out[n] = small.values[i];
+												}
+												n++;
+												from = found + 1;
+										} else {
+												from = -found - 1;
+										}
+								}
+								return n;
+						}
+
+						int i = 0;
+						int j = 0;
+						while (i < small.cardinality && j < large.cardinality) {
+								char a = small.values[i];
+								char b = large.values[j];
+								if (a == b) {
+										if (out != null) {
+												out[n] = a;
+										}
+										n++;
+								}
+								i += a <= b ? 1 : 0;
+								j += b <= a ? 1 : 0;
+						}
+						return n;
+				}
+
+				@Override
+				public Container or(Container other) {
+						Container result = other.copy();
+						for (int i = 0; i < cardinality; i++) {
+								result = result.add(values[i]);
+						}
+						return result;
+				}
+
+				@Override
+				public Container copy() {
+						return new ArrayContainer(Arrays.copyOf(values, Math.max(4, cardinality)), cardinality);
+				}
+
+				@Override
+				public void forEach(int base, IntConsumer consumer) {
+						for (int i = 0; i < cardinality; i++) {
+								consumer.accept(base | values[i]);
+						}
+				}
+
+				private BitmapContainer toBitmap() {
+						BitmapContainer bitmap = new BitmapContainer();
+						for (int i = 0; i < cardinality; i++) {
+								bitmap.add(values[i]);
+						}
+						return bitmap;
+				}
+		}
+
+		/**
+		 * Dense chunk, one bit per low value
+		 */
+		private static final class BitmapContainer implements Container {
+				private final long[] words;
+				private int cardinality;
+
+				private BitmapContainer() {
+						this(new long[1024], 0);
+				}
+
+				private BitmapContainer(long[] words, int cardinality) {
+						this.words = words;
+						this.cardinality = cardinality;
+				}
+
+				@Override
+				public Container add(char low) {
+						long mask = 1L << low;
+						if ((words[low >>> 6] & mask) == 0) {
+								words[low >>> 6] |= mask;
+								cardinality++;
+						}
+						return this;
+				}
+
+				@Override
+				public Container remove(char low) {
+						long mask = 1L << low;
+						if ((words[low >>> 6] & mask) != 0) {
+								words[low >>> 6] &= ~mask;
+								cardinality--;
+						}
+						return cardinality <= ARRAY_MAX ? toArray() : this;
+				}
+
+				@Override
+				public boolean contains(char low) {
+						return (words[low >>> 6] & (1L << low)) != 0;
+				}
+
+				@Override
+				public int cardinality() {
+						return cardinality;
+				}
+
+				@Override
+				public Container and(Container other) {
+						if (!(other instanceof BitmapContainer bitmap)) {
+								return other.and(this);
+						}
+						long[] result = new long[1024];
+						int n = 0;
+						for (int i = 0; i < result.length; i++) {
+								result[i] = words[i] & bitmap.words[i];
+								n += Long.bitCount(result[i]);
+						}
+						BitmapContainer container = new BitmapContainer(result, n);
+						return n <= ARRAY_MAX ? container.toArray() : container;
+				}
+
+				@Override
+				public int andCardinality(Container other) {
+						if (!(other instanceof BitmapContainer bitmap)) {
+								return other.andCardinality(this);
+						}
+						int n = 0;
+						for (int i = 0; i < words.length; i++) {
+								n += Long.bitCount(words[i] & bitmap.words[i]);
+						}
+						return n;
+				}
+
+				@Override
+				public Container or(Container other) {
+						if (!(other instanceof BitmapContainer bitmap)) {
+								return other.or(this);
+						}
+						long[] result = new long[1024];
+						int n = 0;
+						for (int i = 0; i < result.length; i++) {
+								result[i] = words[i] | bitmap.words[i];
+								n += Long.bitCount(result[i]);
+						}
+						return new BitmapContainer(result, n);
+				}
+
+				@Override
+				public Container copy() {
+						return new BitmapContainer(words.clone(), cardinality);
+				}
+
+				@Override
+				public void forEach(int base, IntConsumer consumer) {
+						for (int i = 0; i < words.length; i++) {
+								long word = words[i];
+								while (word != 0) {
+										consumer.accept(base | (i << 6) | Long.numberOfTrailingZeros(word));
+										word &= word - 1;
+								}
+						}
+				}
+
+				private ArrayContainer toArray() {
+						char[] values = new char[Math.max(4, cardinality)];
+						int[] n = {0};
+						forEach(0, v -> values[n[0]++] = (char) v);
+						return new ArrayContainer(values, cardinality);
+				}
+		}
+}
@@ -0,0 +1,244 @@
+package com.library.common.generator;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Popularity of the items of a list of {@code size} elements: maps a uniform draw in [0, 1)
+ * to an item index. Used by the data generator to pick related entities (authors, categories,
+ * publishers, loaned books) with a realistic skew instead of uniformly.
+ * <p>
+ * Chosen with -Dlibrary.generator.distribution (uniform, zipfian or hotspot, uniform by default),
+ * overridable per relationship with -Dlibrary.generator.distribution.&lt;relation&gt;:
+ * <ul>
+ *     <li>zipfian: item of rank r drawn with probability proportional to 1 / r^theta,
+ *     -Dlibrary.generator.zipfianTheta (default 0.99)</li>
+ *     <li>hotspot: -Dlibrary.generator.hotsetFraction of the items (default 0.2) receive
+ *     -Dlibrary.generator.hotAccessFraction of the draws (default 0.8)</li>
+ * </ul>
+ * Skewed ranks are scattered over the indexes, so the hot items are not the first generated ones.
+ */
+public abstract class AccessDistribution {
+		public static final String DISTRIBUTION_PROPERTY = "library.generator.distribution";
+		private static final double DEFAULT_ZIPFIAN_THETA =
+						Double.parseDouble(System.getProperty("library.generator.zipfianTheta", "0.99"));
+		private static final double DEFAULT_HOTSET_FRACTION =
+						Double.parseDouble(System.getProperty("library.generator.hotsetFraction", "0.2"));
+		private static final double DEFAULT_HOT_ACCESS_FRACTION =
+						Double.parseDouble(System.getProperty("library.generator.hotAccessFraction", "0.8"));
+		// Draws allowed per distinct item before falling back to uniform picks
+		private static final int DISTINCT_ATTEMPTS_PER_ITEM = 16;
+
+		protected final int size;
+
+		protected AccessDistribution(int size) {
+				if (size <= 0) {
+						throw new IllegalArgumentException("size must be positive");
+				}
+				this.size = size;
+		}
+
+		/**
+		 * Index drawn for a uniform value in [0, 1)
+		 */
+		public abstract int sample(double uniform);
+
+		/**
+		 * Probability of an index relative to the uniform one, 1.0 on average
+		 */
+		public abstract double weight(int index);
+
+		public int next(Random random) {
+				return sample(random.nextDouble());
+		}
+
+		public int getSize() {
+				return size;
+		}
+
+		/**
+		 * min(count, size) distinct indexes in draw order. A skewed distribution can keep drawing the same
+		 * few items (a hot set smaller than count), so the draws are bounded and the missing indexes are
+		 * then picked uniformly among the remaining ones.
+		 */
+		public Set<Integer> sampleDistinct(int count, DoubleSupplier uniform) {
+				int target = Math.min(count, size);
+				Set<Integer> picked = new LinkedHashSet<>();
+				for (int attempts = 0; picked.size() < target && attempts < DISTINCT_ATTEMPTS_PER_ITEM * target; attempts++) {
+						picked.add(sample(uniform.getAsDouble()));
+				}
+				while (picked.size() < target) {
+						// Next index not picked yet from a uniform start
+						int index = Math.min((int) (uniform.getAsDouble() * size), size - 1);
+						while (picked.contains(index)) {
+								index = (index + 1) % size;
+						}
+						picked.add(index);
+				}
+				return picked;
+		}
+
+		public static AccessDistribution uniform(int size) {
+				return new Uniform(size);
+		}
+
+		public static AccessDistribution zipfian(int size, double theta) {
+				return new Zipfian(size, theta);
+		}
+
+		public static AccessDistribution hotspot(int size, double hotsetFraction, double hotAccessFraction) {
+				return new Hotspot(size, hotsetFraction, hotAccessFraction);
+		}
+
+		/**
+		 * Distribution configured for a relationship ("authors", "books"...), the global one when not overridden
+		 */
+		public static AccessDistribution configured(String relation, int size) {
+				String value = System.getProperty(DISTRIBUTION_PROPERTY + "." + relation,
+								System.getProperty(DISTRIBUTION_PROPERTY, "uniform"));
+				return switch (value.trim().toLowerCase(Locale.ROOT)) {
+						case "uniform" -> uniform(size);
+						case "zipfian" -> zipfian(size, DEFAULT_ZIPFIAN_THETA);
+						case "hotspot" -> hotspot(size, DEFAULT_HOTSET_FRACTION, DEFAULT_HOT_ACCESS_FRACTION);
+						default -> throw new IllegalArgumentException("Unknown access distribution: " + value);
+				};
+		}
+
+		private static final class Uniform extends AccessDistribution {
+				private Uniform(int size) {
+						super(size);
+				}
+
+				@Override
+				public int sample(double uniform) {
+						return Math.min((int) (uniform * size), size - 1);
+				}
+
+				@Override
+				public double weight(int index) {
+						return 1.0;
+				}
+
+				@Override
+				public String toString() {
+						return "uniform(" + size + ")";
+				}
+		}
+
+		/**
+		 * Maps the skewed ranks to scattered indexes
+		 */
+		private abstract static class Scattered extends AccessDistribution {
+				private final Scatter scatter;
+
+				private Scattered(int size) {
+						super(size);
+						this.scatter = new Scatter(size);
+				}
+
+				protected int indexOf(int rank) {
+						return scatter.indexOf(rank);
+				}
+
+				protected int rankOf(int index) {
+						return scatter.rankOf(index);
+				}
+		}
+
+		/**
+		 * Zipfian ranks drawn in O(1) with the rejection-free method of Gray et al. ("Quickly generating
+		 * billion-record synthetic databases"), the zeta constant is computed once in O(size)
+		 */
+		private static final class Zipfian extends Scattered {
+				private final double theta;
+				private final double zetaN;
+				private final double alpha;
+				private final double eta;
+				private final double secondThreshold;
+
+				private Zipfian(int size, double theta) {
+						super(size);
+						if (theta <= 0 || theta >= 1) {
+								throw new IllegalArgumentException("zipfian theta must be in (0, 1)");
+						}
+						this.theta = theta;
+						this.zetaN = zeta(size, theta);
+						double zeta2 = zeta(Math.min(size, 2), theta);
+						this.alpha = 1.0 / (1.0 - theta);
+						this.eta = size <= 2 ? 0 : (1 - Math.pow(2.0 / size, 1 - theta)) / (1 - zeta2 / zetaN);
+						this.secondThreshold = 1 + Math.pow(0.5, theta);
+				}
+
+				private static double zeta(int n, double theta) {
+						double sum = 0;
+						for (int i = 1; i <= n; i++) {
+								sum += 1 / Math.pow(i, theta);
+						}
+						return sum;
+				}
+
+				@Override
+				public int sample(double uniform) {
+						double uz = uniform * zetaN;
+						int rank;
+						if (uz < 1.0) {
+								rank = 0;
+						} else if (uz < secondThreshold) {
+								rank = 1;
+						} else {
+								rank = (int) (size * Math.pow(eta * uniform - eta + 1, alpha));
+						}
+						return indexOf(Math.min(rank, size - 1));
+				}
+
+				@Override
+				public double weight(int index) {
+						return size / (Math.pow(rankOf(index) + 1, theta) * zetaN);
+				}
+
+				@Override
+				public String toString() {
+						return "zipfian(" + size + ", theta=" + theta + ")";
+				}
+		}
+
+		private static final class Hotspot extends Scattered {
+				private final int hotSize;
+				private final double hotAccessFraction;
+
+				private Hotspot(int size, double hotsetFraction, double hotAccessFraction) {
+						super(size);
+						if (hotsetFraction <= 0 || hotsetFraction > 1 || hotAccessFraction <= 0 || hotAccessFraction > 1) {
+								throw new IllegalArgumentException("hotspot fractions must be in (0, 1]");
+						}
+						this.hotSize = Math.max(1, (int) (size * hotsetFraction));
+						this.hotAccessFraction = hotSize == size ? 1.0 : hotAccessFraction;
+				}
+
+				@Override
+				public int sample(double uniform) {
+						int rank;
+						if (uniform < hotAccessFraction) {
+								rank = (int) (uniform / hotAccessFraction * hotSize);
+						} else {
+								rank = hotSize + (int) ((uniform - hotAccessFraction) / (1 - hotAccessFraction) * (size - hotSize));
+						}
+						return indexOf(Math.min(rank, size - 1));
+				}
+
+				@Override
+				public double weight(int index) {
+						return rankOf(index) < hotSize
+										? hotAccessFraction * size / hotSize
+										: (1 - hotAccessFraction) * size / (size - hotSize);
+				}
+
+				@Override
+				public String toString() {
+						return "hotspot(" + size + ", " + hotSize + " hot items, " + hotAccessFraction + " of the draws)";
+				}
+		}
+}
@@ -0,0 +1,530 @@
+package com.library.common.generator;
+
+import com.library.common.dataset.DatasetFormat;
+import com.library.common.dataset.DatasetWriter;
+import com.library.common.model.*;
+import com.library.common.util.ModelDataGenerator;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bson.types.ObjectId;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Referentially consistent dataset generation at any scale.
+ * <p>
+ * Every entity is a pure function of (seed, kind, index): its ID is derived from its index, its
+ * content from a random seeded with both. A book's loan history can then name real members and a
+ * member's active loans real books, without holding either collection in memory, and both sides agree:
+ * <ul>
+ *     <li>every active loan of a member is the unreturned, most recent loan of that book;</li>
+ *     <li>a book is unavailable exactly when a member holds it.</li>
+ * </ul>
+ * Book positions are scattered over members (position % memberCount is the holder, position / memberCount
+ * the slot), so a member enumerates its candidate books and a book finds its holder in O(1).
+ * Enabled for {@link ModelDataGenerator#generateData()} with -Dlibrary.generator.mode=consistent,
+ * sized by -Dlibrary.generator.authors, .publishers, .books and .members, seeded with -Dlibrary.generator.seed.
+ */
+public class ConsistentDataGenerator {
+		private static final Logger logger = LogManager.getLogger();
+		public static final String MODE_PROPERTY = "library.generator.mode";
+		private static final long MILLISECONDS_IN_DAY = 86_400_000L;
+		private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+		// Fixed ObjectId timestamp, the IDs must not depend on the generation time
+		private static final int ID_TIMESTAMP = 1_700_000_000;
+		private static final int MAX_ACTIVE_LOANS = 5;
+		private static final int LOAN_DAYS = 14;
+		private static final int MAX_LOANS_PER_BOOK = Integer.getInteger("library.generator.maxLoansPerBook", 200);
+
+		// Independent random streams of an entity
+		private static final int IDENTITY = 1;
+		private static final int DETAILS = 2;
+		private static final int ACTIVE_LOANS = 3;
+
+		private static final List<String> FORMATS = List.of("Hardcover", "Paperback", "E-book", "Audiobook");
+		private static final List<String> LANGUAGES = List.of("English", "French", "Spanish", "German", "Italian");
+		private static final List<String> RELATIONSHIPS = List.of("Spouse", "Parent", "Sibling", "Friend", "Child");
+
+		public enum Kind {
+				AUTHOR, CATEGORY, PUBLISHER, BOOK, MEMBER;
+
+				private byte tag() {
+						return (byte) (ordinal() + 1);
+				}
+		}
+
+		private final long seed;
+		private final int authorCount;
+		private final int publisherCount;
+		private final int bookCount;
+		private final int memberCount;
+		private final long referenceTime;
+		private final List<Category> categories;
+
+		private final Scatter holders;
+		private final Scatter isbns = new Scatter(1_000_000_000);
+		private final AccessDistribution authorPick;
+		private final AccessDistribution categoryPick;
+		private final AccessDistribution publisherPick;
+		private final AccessDistribution bookPopularity;
+		private final AccessDistribution borrowerPick;
+		private final TemporalDistribution pastLoanAge;
+
+		/**
+		 * @param referenceTime "Now" of the dataset, loan and registration dates are relative to it
+		 */
+		public ConsistentDataGenerator(long seed, int authorCount, int publisherCount, int bookCount, int memberCount,
+																	 long referenceTime) {
+				if (authorCount <= 0 || publisherCount <= 0 || bookCount <= 0 || memberCount <= 0) {
+						throw new IllegalArgumentException("entity counts must be positive");
+				}
+				this.seed = seed;
+				this.authorCount = authorCount;
+				this.publisherCount = publisherCount;
+				this.bookCount = bookCount;
+				this.memberCount = memberCount;
+				this.referenceTime = referenceTime;
+				this.categories = buildCategories();
+
+				this.holders = new Scatter(bookCount);
+				this.authorPick = AccessDistribution.configured("authors", authorCount);
+				this.categoryPick = AccessDistribution.configured("categories", categories.size());
+				this.publisherPick = AccessDistribution.configured("publishers", publisherCount);
+				this.bookPopularity = AccessDistribution.configured("books", bookCount);
+				this.borrowerPick = AccessDistribution.configured("members", memberCount);
+				// Past loans start before the active ones (1-30 days ago), their returns are capped at the active loan
+				this.pastLoanAge = TemporalDistribution.configured(31, 365 * 3);
+		}
+
+		/**
+		 * Generator sized and seeded from the system properties, dates relative to the start of the day
+		 * or to -Dlibrary.generator.referenceTime (epoch milliseconds)
+		 */
+		public static ConsistentDataGenerator configured() {
+				long today = System.currentTimeMillis() / MILLISECONDS_IN_DAY * MILLISECONDS_IN_DAY;
+				return new ConsistentDataGenerator(
+								Long.getLong("library.generator.seed", 42L),
+								Integer.getInteger("library.generator.authors", 100),
+								Integer.getInteger("library.generator.publishers", 30),
+								Integer.getInteger("library.generator.books", 5000),
+								Integer.getInteger("library.generator.members", 1000),
+								Long.getLong("library.generator.referenceTime", today));
+		}
+
+		public int getBookCount() {
+				return bookCount;
+		}
+
+		public int getMemberCount() {
+				return memberCount;
+		}
+
+		public static boolean isEnabled() {
+				return "consistent".equalsIgnoreCase(System.getProperty(MODE_PROPERTY, "").trim());
+		}
+
+		/// ///////////////////////
+		///  IDS                 //
+		/// ///////////////////////
+
+		/**
+		 * ObjectId of the entity of a kind at an index: fixed timestamp, kind, 24 bits of the seed, index
+		 */
+		public String id(Kind kind, int index) {
+				ByteBuffer bytes = ByteBuffer.allocate(12)
+								.putInt(ID_TIMESTAMP)
+								.put(kind.tag())
+								.put((byte) (seed >>> 16))
+								.put((byte) (seed >>> 8))
+								.put((byte) seed)
+								.putInt(index);
+				return new ObjectId(bytes.array()).toHexString();
+		}
+
+		/**
+		 * Index of an ID generated by this generator for that kind, -1 otherwise
+		 */
+		public int indexOf(Kind kind, String id) {
+				if (id == null || !ObjectId.isValid(id)) {
+						return -1;
+				}
+				ByteBuffer bytes = ByteBuffer.wrap(new ObjectId(id).toByteArray());
+				if (bytes.getInt() != ID_TIMESTAMP || bytes.get() != kind.tag()
+								|| bytes.get() != (byte) (seed >>> 16) || bytes.get() != (byte) (seed >>> 8) || bytes.get() != (byte) seed) {
+						return -1;
+				}
+				return bytes.getInt();
+		}
+
+		public String authorId(int index) {
+				return id(Kind.AUTHOR, index);
+		}
+
+		public String categoryId(int index) {
+				return id(Kind.CATEGORY, index);
+		}
+
+		public String publisherId(int index) {
+				return id(Kind.PUBLISHER, index);
+		}
+
+		public String bookId(int index) {
+				return id(Kind.BOOK, index);
+		}
+
+		public String memberId(int index) {
+				return id(Kind.MEMBER, index);
+		}
+
+		/**
+		 * ISBN-13 unique per book index: 978, the index shifted by the seed and scattered over 9 digits, check digit
+		 */
+		public String isbn(int bookIndex) {
+				String body = String.format("978%09d", isbns.indexOf((int) Math.floorMod(bookIndex + seed, 1_000_000_000L)));
+				int sum = 0;
+				for (int i = 0; i < body.length(); i++) {
+						sum += (body.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+				}
+				return body + (10 - sum % 10) % 10;
+		}
+
+		/// ///////////////////////
+		///  IDENTITIES          //
+		/// ///////////////////////
+
+		public String authorName(int index) {
+				return identity(Kind.AUTHOR, index).fullName();
+		}
+
+		public String bookTitle(int index) {
+				return identity(Kind.BOOK, index).bookTitle();
+		}
+
+		/**
+		 * First and last name of a member
+		 */
+		public String[] memberName(int index) {
+				FastFaker faker = identity(Kind.MEMBER, index);
+				return new String[]{faker.firstName(), faker.lastName()};
+		}
+
+		/// ///////////////////////
+		///  LOANS               //
+		/// ///////////////////////
+
+		/**
+		 * Number of books a member currently holds, bounded by its slots in the scattered book positions
+		 */
+		public int activeLoanCount(int memberIndex) {
+				if (memberIndex >= bookCount) {
+						return 0;
+				}
+				int slots = (bookCount - 1 - memberIndex) / memberCount + 1;
+				return Math.min(slots, random(Kind.MEMBER, memberIndex, ACTIVE_LOANS).nextInt(MAX_ACTIVE_LOANS + 1));
+		}
+
+		/**
+		 * Index of the member holding a book, -1 when it is available
+		 */
+		public int holderOf(int bookIndex) {
+				int position = holders.indexOf(bookIndex);
+				int member = position % memberCount;
+				return position / memberCount < activeLoanCount(member) ? member : -1;
+		}
+
+		/**
+		 * Index of the book a member holds in a slot below {@link #activeLoanCount(int)}
+		 */
+		public int heldBook(int memberIndex, int slot) {
+				return holders.rankOf(memberIndex + slot * memberCount);
+		}
+
+		private long activeLoanDate(int bookIndex) {
+				int daysAgo = 1 + random(Kind.BOOK, bookIndex, ACTIVE_LOANS).nextInt(30);
+				return referenceTime - daysAgo * MILLISECONDS_IN_DAY;
+		}
+
+		/// ///////////////////////
+		///  ENTITIES            //
+		/// ///////////////////////
+
+		public Author author(int index) {
+				Author author = new Author();
+				author.setId(authorId(index));
+				author.setName(authorName(index));
+				author.setNationality(details(Kind.AUTHOR, index).nationality());
+				return author;
+		}
+
+		public List<Category> getCategories() {
+				return categories;
+		}
+
+		public Publisher publisher(int index) {
+				Publisher publisher = new Publisher();
+				publisher.setId(publisherId(index));
+				publisher.setName(identity(Kind.PUBLISHER, index).publisher());
+				return publisher;
+		}
+
+		public Book book(int index) {
+				FastFaker faker = details(Kind.BOOK, index);
+
+				Book book = new Book();
+				book.setId(bookId(index));
+				book.setIsbn(isbn(index));
+				book.setTitle(bookTitle(index));
+				book.setPublicationYear(1900 + faker.nextInt(124));
+				book.setPageCount(100 + faker.nextInt(900));
+
+				int authorCount = faker.nextInt(3) + 1;
+				List<String> bookAuthors = new ArrayList<>(authorCount);
+				for (int j = 0; j < authorCount; j++) {
+						bookAuthors.add(authorId(authorPick.sample(faker.nextDouble())));
+				}
+				book.setAuthorsId(bookAuthors);
+				book.setCategoryId(categories.get(categoryPick.sample(faker.nextDouble())).getId());
+				book.setPublisherId(publisherId(publisherPick.sample(faker.nextDouble())));
+
+				int holder = holderOf(index);
+				long activeLoanDate = holder >= 0 ? activeLoanDate(index) : referenceTime;
+
+				// Returned loans (0-10, scaled by the book's popularity) by existing members, back before the active loan
+				int loanCount = (int) Math.min(MAX_LOANS_PER_BOOK, Math.round(faker.nextInt(11) * bookPopularity.weight(index)));
+				List<Book.LoanRecord> loanHistory = new ArrayList<>(loanCount + 1);
+				for (int j = 0; j < loanCount; j++) {
+						long loanDate = referenceTime - pastLoanAge.sample(faker.nextDouble()) * MILLISECONDS_IN_DAY;
+						int borrower = borrowerPick.sample(faker.nextDouble());
+						long returnDate = Math.min(loanDate + (1 + faker.nextInt(30)) * MILLISECONDS_IN_DAY, activeLoanDate);
+						loanHistory.add(loanRecord(borrower, loanDate, returnDate));
+				}
+
+				// The active loan, also listed by the holder
+				if (holder >= 0) {
+						loanHistory.add(loanRecord(holder, activeLoanDate, null));
+				}
+				book.setAvailable(holder < 0);
+				if (!loanHistory.isEmpty()) {
+						loanHistory.sort(Comparator.comparingLong(Book.LoanRecord::getLoanDate));
+						book.setLoanHistory(loanHistory);
+				}
+
+				Map<String, Object> metadata = new HashMap<>();
+				metadata.put("format", FORMATS.get(faker.nextInt(FORMATS.size())));
+				metadata.put("language", LANGUAGES.get(faker.nextInt(LANGUAGES.size())));
+				metadata.put("edition", faker.nextInt(5) + 1);
+				if (faker.nextBoolean()) {
+						metadata.put("series", faker.bookTitle() + " Series");
+						metadata.put("volume", faker.nextInt(10) + 1);
+				}
+				if (faker.nextBoolean()) {
+						metadata.put("awards", List.of(faker.bookTitle() + " Award", faker.bookTitle() + " Prize"));
+				}
+				book.setMetadata(metadata);
+				return book;
+		}
+
+		private Book.LoanRecord loanRecord(int memberIndex, long loanDate, Long returnDate) {
+				String[] name = memberName(memberIndex);
+				Book.LoanRecord loan = new Book.LoanRecord();
+				loan.setMemberId(memberId(memberIndex));
+				loan.setMemberName(name[0] + " " + name[1]);
+				loan.setLoanDate(loanDate);
+				loan.setDueDate(loanDate + LOAN_DAYS * MILLISECONDS_IN_DAY);
+				loan.setReturnDate(returnDate);
+				return loan;
+		}
+
+		public Member member(int index) {
+				FastFaker faker = details(Kind.MEMBER, index);
+				String[] name = memberName(index);
+
+				Member member = new Member();
+				member.setId(memberId(index));
+				member.setFirstName(name[0]);
+				member.setLastName(name[1]);
+				// The index keeps the email unique
+				member.setEmail(faker.emailAddress(emailLocalPart(name, index)));
+				member.setAddress(faker.fullAddress());
+				member.setRegistrationDate(referenceTime - (1 + faker.nextInt(3650)) * MILLISECONDS_IN_DAY);
+
+				Member.ContactInfo contactInfo = new Member.ContactInfo();
+				contactInfo.setPhone(faker.phoneNumber());
+				contactInfo.setAlternateEmail(faker.emailAddress());
+				if (faker.nextBoolean()) {
+						Member.ContactInfo.EmergencyContact emergency = new Member.ContactInfo.EmergencyContact();
+						emergency.setName(faker.fullName());
+						emergency.setRelationship(RELATIONSHIPS.get(faker.nextInt(RELATIONSHIPS.size())));
+						emergency.setPhone(faker.phoneNumber());
+						contactInfo.setEmergencyContact(emergency);
+				}
+				member.setContactInfo(contactInfo);
+
+				// The books whose holder is this member
+				int activeLoanCount = activeLoanCount(index);
+				if (activeLoanCount > 0) {
+						List<Member.ActiveLoan> activeLoans = new ArrayList<>(activeLoanCount);
+						for (int slot = 0; slot < activeLoanCount; slot++) {
+								int bookIndex = heldBook(index, slot);
+								Member.ActiveLoan loan = new Member.ActiveLoan();
+								loan.setBookId(bookId(bookIndex));
+								loan.setBookTitle(bookTitle(bookIndex));
+								loan.setIsbn(isbn(bookIndex));
+								loan.setLoanDate(activeLoanDate(bookIndex));
+								loan.setDueDate(loan.getLoanDate() + LOAN_DAYS * MILLISECONDS_IN_DAY);
+								loan.setOverdue(loan.getDueDate() < referenceTime);
+								activeLoans.add(loan);
+						}
+						member.setActiveLoans(activeLoans);
+				}
+
+				Member.ReadingStats stats = new Member.ReadingStats();
+				int totalBooks = 1 + faker.nextInt(199);
+				stats.setTotalBooksRead(totalBooks);
+				stats.setBooksReadThisYear(Math.min(faker.nextInt(50), totalBooks));
+				stats.setAverageDaysToReturn(3 + faker.nextInt(18));
+
+				Map<String, Integer> categoryPreferences = new HashMap<>();
+				int categoryCount = 3 + faker.nextInt(Math.max(1, Math.min(8, categories.size()) - 3));
+				for (int categoryIndex : categoryPick.sampleDistinct(categoryCount, faker::nextDouble)) {
+						categoryPreferences.put(categories.get(categoryIndex).getPath(), 1 + faker.nextInt(49));
+				}
+				stats.setCategoryPreferences(categoryPreferences);
+
+				Set<Integer> authorIndices = authorPick.sampleDistinct(1 + faker.nextInt(4), faker::nextDouble);
+				stats.setFavoriteAuthors(authorIndices.stream().map(this::authorName).collect(Collectors.toList()));
+				member.setReadingStats(stats);
+
+				Map<String, Object> preferences = new HashMap<>();
+				preferences.put("preferredFormat", FORMATS.get(faker.nextInt(FORMATS.size())));
+				Map<String, Boolean> notificationPrefs = new HashMap<>();
+				notificationPrefs.put("email", faker.nextBoolean());
+				notificationPrefs.put("sms", faker.nextBoolean());
+				notificationPrefs.put("overdueReminders", faker.nextBoolean());
+				notificationPrefs.put("newArrivals", faker.nextBoolean());
+				preferences.put("notificationPreferences", notificationPrefs);
+				preferences.put("favoriteSubjects", IntStream.range(0, 1 + faker.nextInt(4))
+								.mapToObj(j -> faker.word())
+								.collect(Collectors.toList()));
+				member.setPreferences(preferences);
+				return member;
+		}
+
+		private static String emailLocalPart(String[] name, int index) {
+				StringBuilder localPart = new StringBuilder(32);
+				FastFaker.appendLocalPart(localPart, name[0]);
+				localPart.append('.');
+				FastFaker.appendLocalPart(localPart, name[1]);
+				return localPart.append('.').append(index).toString();
+		}
+
+		/// ///////////////////////
+		///  STREAMS & EXPORT    //
+		/// ///////////////////////
+
+		public Iterable<Author> authors() {
+				return lazy(authorCount, this::author);
+		}
+
+		public Iterable<Publisher> publishers() {
+				return lazy(publisherCount, this::publisher);
+		}
+
+		public Iterable<Book> books() {
+				return lazy(bookCount, this::book);
+		}
+
+		public Iterable<Member> members() {
+				return lazy(memberCount, this::member);
+		}
+
+		private static <T> Iterable<T> lazy(int count, IntFunction<T> generate) {
+				return () -> IntStream.range(0, count).mapToObj(generate).iterator();
+		}
+
+		/**
+		 * Write the dataset entity by entity, memory use does not depend on the counts
+		 */
+		public void exportAll(String outputPath, DatasetFormat format) {
+				long start = System.nanoTime();
+				try {
+						ModelDataGenerator.prepareOutputDirectory(outputPath);
+						export(outputPath, "authors", authors(), authorCount, format);
+						export(outputPath, "categories", categories, categories.size(), format);
+						export(outputPath, "publishers", publishers(), publisherCount, format);
+						export(outputPath, "books", books(), bookCount, format);
+						export(outputPath, "members", members(), memberCount, format);
+						logger.info("Consistent dataset (seed {}) generated in {} ms", seed, (System.nanoTime() - start) / 1_000_000);
+				} catch (IOException e) {
+						logger.error("Error exporting data to {}: ", format, e);
+				}
+		}
+
+		private static void export(String outputPath, String entity, Iterable<?> entities, int count, DatasetFormat format)
+						throws IOException {
+				Path file = Paths.get(outputPath, entity + format.getExtension());
+				DatasetWriter.write(file, entities, format);
+				logger.info("Successfully exported {} {} to {}", count, entity, file);
+		}
+
+		/// ///////////////////////
+		///  RANDOMNESS          //
+		/// ///////////////////////
+
+		private List<Category> buildCategories() {
+				List<Category> list = new ArrayList<>();
+				Map<String, List<String>> hierarchy = new TreeMap<>(ModelDataGenerator.generateCategoryHierarchy());
+				for (Map.Entry<String, List<String>> parent : hierarchy.entrySet()) {
+						for (String subCategoryName : parent.getValue()) {
+								Category category = new Category();
+								category.setId(categoryId(list.size()));
+								category.setName(subCategoryName);
+								category.setPath(parent.getKey() + "/" + subCategoryName);
+								list.add(category);
+						}
+				}
+				return Collections.unmodifiableList(list);
+		}
+
+		private long seedOf(Kind kind, int index, int stream) {
+				return mix(seed ^ ((long) kind.tag() << 56) ^ ((long) stream << 48) ^ (index * GOLDEN));
+		}
+
+		private SplittableRandom random(Kind kind, int index, int stream) {
+				return new SplittableRandom(seedOf(kind, index, stream));
+		}
+
+		/**
+		 * Names and titles, their own stream so looking them up from another entity never disturbs its sequence
+		 */
+		private FastFaker identity(Kind kind, int index) {
+				return new FastFaker(seedOf(kind, index, IDENTITY));
+		}
+
+		private FastFaker details(Kind kind, int index) {
+				return new FastFaker(seedOf(kind, index, DETAILS));
+		}
+
+		/**
+		 * SplitMix64 finalizer
+		 */
+		private static long mix(long z) {
+				z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+				z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+				return z ^ (z >>> 31);
+		}
+
+		/**
+		 * Generate a consistent dataset with the configured counts, seed and -Dlibrary.dataset.format
+		 */
+		public static void main(String[] args) {
+				configured().exportAll(args.length > 0 ? args[0] : "generated-data", DatasetFormat.configured());
+		}
+}
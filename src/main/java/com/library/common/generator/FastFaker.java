@@ -0,0 +1,264 @@
+package com.library.common.generator;
+
+import com.github.javafaker.service.FakeValuesService;
+import com.github.javafaker.service.RandomService;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+/**
+ * Fake values without Faker's per-call expression resolution.
+ * <p>
+ * The word lists of Faker's "en" locale are read once into arrays, each value is then an array
+ * lookup or a few concatenations driven by a {@link SplittableRandom}: same vocabulary and formats
+ * (names, US addresses, phone numbers, free-mail emails) at a fraction of the cost.
+ * An instance is not thread-safe: use {@link #current()} (one instance per thread, each with its
+ * own split of a root random) or a seeded instance per entity for reproducible output.
+ */
+public final class FastFaker {
+		private static final SplittableRandom ROOT = new SplittableRandom();
+		private static final ThreadLocal<FastFaker> CURRENT = ThreadLocal.withInitial(() -> {
+				synchronized (ROOT) {
+						return new FastFaker(ROOT.split());
+				}
+		});
+
+		private static final String[] FIRST_NAMES;
+		private static final String[] LAST_NAMES;
+		private static final String[] CITY_PREFIXES;
+		private static final String[] CITY_SUFFIXES;
+		private static final String[] STREET_SUFFIXES;
+		private static final String[] STATE_ABBREVIATIONS;
+		private static final String[] BOOK_TITLES;
+		private static final String[] PUBLISHERS;
+		private static final String[] NATIONALITIES;
+		private static final String[] EMAIL_DOMAINS;
+		private static final String[] WORDS;
+		private static final String[] PHONE_SEPARATORS = {"-", "."};
+
+		static {
+				FakeValuesService values = new FakeValuesService(Locale.forLanguageTag("en-US"), new RandomService());
+				// "name.first_name" only refers to these two lists
+				FIRST_NAMES = Stream.concat(Arrays.stream(dictionary(values, "name.male_first_name")),
+								Arrays.stream(dictionary(values, "name.female_first_name"))).toArray(String[]::new);
+				LAST_NAMES = dictionary(values, "name.last_name");
+				CITY_PREFIXES = dictionary(values, "address.city_prefix");
+				CITY_SUFFIXES = dictionary(values, "address.city_suffix");
+				STREET_SUFFIXES = dictionary(values, "address.street_suffix");
+				STATE_ABBREVIATIONS = dictionary(values, "address.state_abbr");
+				BOOK_TITLES = dictionary(values, "book.title");
+				PUBLISHERS = dictionary(values, "book.publisher");
+				NATIONALITIES = dictionary(values, "nation.nationality");
+				EMAIL_DOMAINS = dictionary(values, "internet.free_email");
+				WORDS = dictionary(values, "lorem.words");
+		}
+
+		private final SplittableRandom random;
+
+		private FastFaker(SplittableRandom random) {
+				this.random = random;
+		}
+
+		/**
+		 * Values reproducible from the seed
+		 */
+		public FastFaker(long seed) {
+				this(new SplittableRandom(seed));
+		}
+
+		/**
+		 * Instance of the calling thread
+		 */
+		public static FastFaker current() {
+				return CURRENT.get();
+		}
+
+		private static String[] dictionary(FakeValuesService values, String key) {
+				Object list = values.fetchObject(key);
+				if (!(list instanceof List<?> entries) || entries.isEmpty()) {
+						throw new IllegalStateException("Missing Faker dictionary: " + key);
+				}
+				String[] dictionary = entries.stream().map(String::valueOf).toArray(String[]::new);
+				for (String entry : dictionary) {
+						if (entry.contains("#{")) {
+								throw new IllegalStateException("Faker dictionary " + key + " holds expressions: " + entry);
+						}
+				}
+				return dictionary;
+		}
+
+		/// ///////////////////////
+		///  PRIMITIVES          //
+		/// ///////////////////////
+
+		public int nextInt(int bound) {
+				return random.nextInt(bound);
+		}
+
+		/**
+		 * Between min (inclusive) and max (exclusive), like Faker's numberBetween
+		 */
+		public int nextInt(int min, int max) {
+				return min >= max ? min : random.nextInt(min, max);
+		}
+
+		public double nextDouble() {
+				return random.nextDouble();
+		}
+
+		public boolean nextBoolean() {
+				return random.nextBoolean();
+		}
+
+		public <T> T pick(List<T> list) {
+				return list.get(random.nextInt(list.size()));
+		}
+
+		private String pick(String[] dictionary) {
+				return dictionary[random.nextInt(dictionary.length)];
+		}
+
+		private void digits(StringBuilder builder, int count) {
+				for (int i = 0; i < count; i++) {
+						builder.append((char) ('0' + random.nextInt(10)));
+				}
+		}
+
+		/// ///////////////////////
+		///  VALUES              //
+		/// ///////////////////////
+
+		public String firstName() {
+				return pick(FIRST_NAMES);
+		}
+
+		public String lastName() {
+				return pick(LAST_NAMES);
+		}
+
+		public String fullName() {
+				return pick(FIRST_NAMES) + " " + pick(LAST_NAMES);
+		}
+
+		public String nationality() {
+				return pick(NATIONALITIES);
+		}
+
+		public String bookTitle() {
+				return pick(BOOK_TITLES);
+		}
+
+		public String publisher() {
+				return pick(PUBLISHERS);
+		}
+
+		public String word() {
+				return pick(WORDS);
+		}
+
+		/**
+		 * first.last@free-mail domain
+		 */
+		public String emailAddress() {
+				StringBuilder localPart = new StringBuilder(24);
+				appendLocalPart(localPart, pick(FIRST_NAMES));
+				localPart.append('.');
+				appendLocalPart(localPart, pick(LAST_NAMES));
+				return emailAddress(localPart.toString());
+		}
+
+		/**
+		 * Lower-case letters and digits of a name, the only characters kept in an email local part
+		 */
+		public static void appendLocalPart(StringBuilder localPart, String name) {
+				for (int i = 0; i < name.length(); i++) {
+						char c = Character.toLowerCase(name.charAt(i));
+						if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+								localPart.append(c);
+						}
+				}
+		}
+
+		public String emailAddress(String localPart) {
+				return localPart + "@" + pick(EMAIL_DOMAINS);
+		}
+
+		/**
+		 * "[Apt. 123 ]4567 First Suffix, [Prefix ]NameSuffix, ST 12345[-6789]"
+		 */
+		public String fullAddress() {
+				StringBuilder address = new StringBuilder(64);
+				if (random.nextBoolean()) {
+						address.append(random.nextBoolean() ? "Apt. " : "Suite ");
+						digits(address, 3);
+						address.append(' ');
+				}
+				digits(address, 3 + random.nextInt(3));
+				address.append(' ')
+								.append(random.nextBoolean() ? pick(FIRST_NAMES) : pick(LAST_NAMES))
+								.append(' ')
+								.append(pick(STREET_SUFFIXES))
+								.append(", ");
+				switch (random.nextInt(3)) {
+						case 0 -> address.append(pick(CITY_PREFIXES)).append(' ').append(pick(FIRST_NAMES)).append(pick(CITY_SUFFIXES));
+						case 1 -> address.append(pick(CITY_PREFIXES)).append(' ').append(pick(FIRST_NAMES));
+						default -> address.append(pick(FIRST_NAMES)).append(pick(CITY_SUFFIXES));
+				}
+				address.append(", ").append(pick(STATE_ABBREVIATIONS)).append(' ');
+				digits(address, 5);
+				if (random.nextBoolean()) {
+						address.append('-');
+						digits(address, 4);
+				}
+				return address.toString();
+		}
+
+		/**
+		 * US number, "###-###-####", "(###) ###-####" or "1-###-###-####", sometimes with an extension
+		 */
+		public String phoneNumber() {
+				StringBuilder phone = new StringBuilder(24);
+				String separator = "-";
+				switch (random.nextInt(3)) {
+						case 0 -> {
+								phone.append('(');
+								digits(phone, 3);
+								phone.append(") ");
+						}
+						case 1 -> {
+								phone.append("1-");
+								digits(phone, 3);
+								phone.append('-');
+						}
+						default -> {
+								separator = pick(PHONE_SEPARATORS);
+								digits(phone, 3);
+								phone.append(separator);
+						}
+				}
+				digits(phone, 3);
+				phone.append(separator);
+				digits(phone, 4);
+				if (random.nextInt(5) > 0) {
+						phone.append(" x");
+						digits(phone, 3 + random.nextInt(3));
+				}
+				return phone.toString();
+		}
+
+		/**
+		 * ISBN-13 with a 978 prefix and a valid check digit
+		 */
+		public String isbn13() {
+				StringBuilder isbn = new StringBuilder(13).append("978");
+				digits(isbn, 9);
+				int sum = 0;
+				for (int i = 0; i < 12; i++) {
+						sum += (isbn.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+				}
+				return isbn.append((10 - sum % 10) % 10).toString();
+		}
+}
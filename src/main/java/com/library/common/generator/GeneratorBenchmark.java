@@ -0,0 +1,134 @@
+package com.library.common.generator;
+
+import com.github.javafaker.Faker;
+import com.library.common.model.Book;
+import com.library.common.model.Member;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntToLongFunction;
+import java.util.function.Supplier;
+
+/**
+ * Throughput of the fake-data layers: the fields of a member generated with Faker and with
+ * {@link FastFaker}, then whole entities from {@link ConsistentDataGenerator}.
+ * Arguments: records per thread (default 100,000, a tenth of it for Faker) and threads (default 1).
+ */
+public class GeneratorBenchmark {
+		private static final Logger logger = LogManager.getLogger();
+		private static final int WARMUP_ROUNDS = 2;
+
+		public static void main(String[] args) throws InterruptedException, ExecutionException {
+				int records = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+				int threads = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+				int fakerRecords = Math.max(1, records / 10);
+
+				ExecutorService executor = Executors.newFixedThreadPool(threads);
+				try {
+						double faker = run(executor, "Faker member fields", threads, fakerRecords, () -> {
+								Faker instance = new Faker(Locale.forLanguageTag("en-US"));
+								return i -> fakerMember(instance);
+						});
+						double fast = run(executor, "FastFaker member fields", threads, records, () -> {
+								FastFaker instance = FastFaker.current();
+								return i -> fastMember(instance);
+						});
+						logger.info("FastFaker speedup: {}x", String.format("%.1f", fast / faker));
+
+						ConsistentDataGenerator generator = ConsistentDataGenerator.configured();
+						run(executor, "Consistent members", threads, records, () -> i -> memberSize(generator.member(i % generator.getMemberCount())));
+						run(executor, "Consistent books", threads, records, () -> i -> bookSize(generator.book(i % generator.getBookCount())));
+				} finally {
+						executor.shutdownNow();
+				}
+		}
+
+		/**
+		 * Generate records on every thread after warm-up rounds
+		 *
+		 * @return Records per second over all threads
+		 */
+		private static double run(ExecutorService executor, String name, int threads, int records,
+															Supplier<IntToLongFunction> perThread) throws InterruptedException, ExecutionException {
+				for (int round = 0; round < WARMUP_ROUNDS; round++) {
+						generate(executor, threads, Math.max(1, records / 4), perThread);
+				}
+				long start = System.nanoTime();
+				long checksum = generate(executor, threads, records, perThread);
+				long elapsed = System.nanoTime() - start;
+
+				double perSecond = (double) records * threads / elapsed * 1e9;
+				logger.info("{}: {} records on {} threads in {} ms, {} records/s, {} ns/record per thread (checksum {})",
+								name, records * (long) threads, threads, elapsed / 1_000_000, String.format("%,.0f", perSecond),
+								elapsed / records, checksum);
+				return perSecond;
+		}
+
+		private static long generate(ExecutorService executor, int threads, int records,
+																 Supplier<IntToLongFunction> perThread) throws InterruptedException, ExecutionException {
+				List<Future<Long>> futures = new ArrayList<>(threads);
+				for (int t = 0; t < threads; t++) {
+						futures.add(executor.submit(() -> {
+								IntToLongFunction record = perThread.get();
+								long checksum = 0;
+								for (int i = 0; i < records; i++) {
+										checksum += record.applyAsLong(i);
+								}
+								return checksum;
+						}));
+				}
+				long checksum = 0;
+				for (Future<Long> future : futures) {
+						checksum += future.get();
+				}
+				return checksum;
+		}
+
+		/**
+		 * Faker calls the member generator used to make, the total length keeps them from being optimized away
+		 */
+		private static long fakerMember(Faker faker) {
+				return faker.name().firstName().length()
+								+ faker.name().lastName().length()
+								+ faker.internet().emailAddress().length()
+								+ faker.address().fullAddress().length()
+								+ faker.phoneNumber().phoneNumber().length()
+								+ faker.internet().emailAddress().length()
+								+ faker.name().fullName().length()
+								+ faker.phoneNumber().phoneNumber().length()
+								+ faker.book().title().length()
+								+ faker.code().isbn13().length()
+								+ faker.lorem().word().length()
+								+ faker.number().numberBetween(1, 200);
+		}
+
+		private static long fastMember(FastFaker faker) {
+				return faker.firstName().length()
+								+ faker.lastName().length()
+								+ faker.emailAddress().length()
+								+ faker.fullAddress().length()
+								+ faker.phoneNumber().length()
+								+ faker.emailAddress().length()
+								+ faker.fullName().length()
+								+ faker.phoneNumber().length()
+								+ faker.bookTitle().length()
+								+ faker.isbn13().length()
+								+ faker.word().length()
+								+ faker.nextInt(1, 200);
+		}
+
+		private static long memberSize(Member member) {
+				return member.getEmail().length() + (member.getActiveLoans() == null ? 0 : member.getActiveLoans().size());
+		}
+
+		private static long bookSize(Book book) {
+				return book.getIsbn().length() + (book.getLoanHistory() == null ? 0 : book.getLoanHistory().size());
+		}
+}
@@ -0,0 +1,39 @@
+package com.library.common.generator;
+
+import java.math.BigInteger;
+
+/**
+ * Bijection of [0, size) computed in O(1) without a permutation table:
+ * rank * multiplier + offset (mod size), the multiplier being coprime with the size
+ */
+final class Scatter {
+		private static final long GOLDEN_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+		private final int size;
+		private final long multiplier;
+		private final long inverse;
+		private final long offset;
+
+		Scatter(int size) {
+				if (size <= 0) {
+						throw new IllegalArgumentException("size must be positive");
+				}
+				this.size = size;
+				BigInteger n = BigInteger.valueOf(size);
+				long candidate = Math.floorMod(GOLDEN_MULTIPLIER, (long) size) | 1;
+				while (size > 1 && !BigInteger.valueOf(candidate).gcd(n).equals(BigInteger.ONE)) {
+						candidate = (candidate + 2) % size;
+				}
+				this.multiplier = size == 1 ? 0 : candidate;
+				this.inverse = size == 1 ? 0 : BigInteger.valueOf(candidate).modInverse(n).longValue();
+				this.offset = size / 3;
+		}
+
+		int indexOf(int rank) {
+				return (int) ((rank * multiplier + offset) % size);
+		}
+
+		int rankOf(int index) {
+				return (int) (Math.floorMod(index - offset, (long) size) * inverse % size);
+		}
+}
@@ -0,0 +1,75 @@
+package com.library.common.generator;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Age in days of a generated event (loan, registration) within [minDays, maxDays).
+ * <p>
+ * Chosen with -Dlibrary.generator.temporal (uniform or recent, uniform by default):
+ * "recent" follows a truncated exponential decay, an event half-life days old is half as likely
+ * as one of today (-Dlibrary.generator.recencyHalfLifeDays, default 90), so recent activity
+ * dominates like in a live library.
+ */
+public final class TemporalDistribution {
+		public static final String TEMPORAL_PROPERTY = "library.generator.temporal";
+		private static final double DEFAULT_HALF_LIFE_DAYS =
+						Double.parseDouble(System.getProperty("library.generator.recencyHalfLifeDays", "90"));
+
+		private final int minDays;
+		private final int maxDays;
+		private final double lambda;
+		private final double truncation;
+
+		private TemporalDistribution(int minDays, int maxDays, double halfLifeDays) {
+				if (maxDays <= minDays) {
+						throw new IllegalArgumentException("maxDays must be greater than minDays");
+				}
+				this.minDays = minDays;
+				this.maxDays = maxDays;
+				this.lambda = halfLifeDays > 0 ? Math.log(2) / halfLifeDays : 0;
+				this.truncation = lambda > 0 ? 1 - Math.exp(-lambda * (maxDays - minDays)) : 0;
+		}
+
+		public static TemporalDistribution uniform(int minDays, int maxDays) {
+				return new TemporalDistribution(minDays, maxDays, 0);
+		}
+
+		public static TemporalDistribution recent(int minDays, int maxDays, double halfLifeDays) {
+				if (halfLifeDays <= 0) {
+						throw new IllegalArgumentException("halfLifeDays must be positive");
+				}
+				return new TemporalDistribution(minDays, maxDays, halfLifeDays);
+		}
+
+		public static TemporalDistribution configured(int minDays, int maxDays) {
+				String value = System.getProperty(TEMPORAL_PROPERTY, "uniform");
+				return switch (value.trim().toLowerCase(Locale.ROOT)) {
+						case "uniform" -> uniform(minDays, maxDays);
+						case "recent" -> recent(minDays, maxDays, DEFAULT_HALF_LIFE_DAYS);
+						default -> throw new IllegalArgumentException("Unknown temporal distribution: " + value);
+				};
+		}
+
+		/**
+		 * Days ago for a uniform value in [0, 1)
+		 */
+		public int sample(double uniform) {
+				double offset = lambda == 0
+								? uniform * (maxDays - minDays)
+								// Inverse CDF of the exponential truncated to the window
+								: -Math.log(1 - uniform * truncation) / lambda;
+				return Math.min(minDays + (int) offset, maxDays - 1);
+		}
+
+		public int next(Random random) {
+				return sample(random.nextDouble());
+		}
+
+		@Override
+		public String toString() {
+				return lambda == 0
+								? "uniform(" + minDays + ".." + maxDays + " days)"
+								: "recent(" + minDays + ".." + maxDays + " days, half-life " + Math.log(2) / lambda + " days)";
+		}
+}
@@ -0,0 +1,22 @@
+package com.library.common.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic counter
+ */
+public class Counter {
+		private final LongAdder value = new LongAdder();
+
+		public void increment() {
+				value.increment();
+		}
+
+		public void increment(long amount) {
+				value.add(amount);
+		}
+
+		public long getCount() {
+				return value.sum();
+		}
+}
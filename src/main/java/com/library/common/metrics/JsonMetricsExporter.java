@@ -0,0 +1,21 @@
+package com.library.common.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON export: {"timestamp": ..., "meters": [...]}
+ */
+public class JsonMetricsExporter implements MetricsExporter {
+		private static final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+		@Override
+		public void write(List<MeterSnapshot> meters, Writer writer) throws IOException {
+				mapper.writeValue(writer, Map.of("timestamp", System.currentTimeMillis(), "meters", meters));
+		}
+}
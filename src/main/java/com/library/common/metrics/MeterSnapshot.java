@@ -0,0 +1,14 @@
+package com.library.common.metrics;
+
+import java.util.Map;
+
+/**
+ * Point-in-time value of a meter, as handed to exporters
+ *
+ * @param name   Meter name (dot separated)
+ * @param tags   Meter tags
+ * @param type   "timer", "counter" or "gauge"
+ * @param values Measured values (e.g. count, sum_seconds, max_seconds for timers)
+ */
+public record MeterSnapshot(String name, Map<String, String> tags, String type, Map<String, Number> values) {
+}
@@ -0,0 +1,40 @@
+package com.library.common.metrics;
+
+import java.nio.file.Path;
+
+/**
+ * Global metrics registry holder.
+ * Replace the registry at startup, before repositories and managers are created.
+ * When the library.metrics.file system property is set, the registry is exported there
+ * on JVM exit (JSON for a .json file, Prometheus text otherwise).
+ */
+public class Metrics {
+		public static final String EXPORT_FILE_PROPERTY = "library.metrics.file";
+		private static volatile MetricsRegistry registry = new SimpleMetricsRegistry();
+
+		static {
+				String exportFile = System.getProperty(EXPORT_FILE_PROPERTY);
+				if (exportFile != null && !exportFile.isBlank()) {
+						Path file = Path.of(exportFile);
+						Runtime.getRuntime().addShutdownHook(new Thread(
+										() -> exporterFor(file).export(registry, file), "metrics-export"));
+				}
+		}
+
+		public static MetricsRegistry registry() {
+				return registry;
+		}
+
+		public static void setRegistry(MetricsRegistry metricsRegistry) {
+				registry = metricsRegistry;
+		}
+
+		/**
+		 * Exporter matching the file extension
+		 */
+		public static MetricsExporter exporterFor(Path file) {
+				return file.getFileName().toString().endsWith(".json")
+								? new JsonMetricsExporter()
+								: new PrometheusTextExporter();
+		}
+}
@@ -0,0 +1,37 @@
+package com.library.common.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * Writes a registry snapshot to a local file, no metrics backend needed
+ */
+public interface MetricsExporter {
+
+		/**
+		 * Serialize meters to the writer
+		 */
+		void write(List<MeterSnapshot> meters, Writer writer) throws IOException;
+
+		/**
+		 * Export the registry to a file, replaced atomically so scrapers never read a partial file
+		 */
+		default void export(MetricsRegistry registry, Path file) {
+				try {
+						Path parent = file.toAbsolutePath().getParent();
+						Files.createDirectories(parent);
+						Path tmp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+						try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+								write(registry.snapshot(), writer);
+						}
+						Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				} catch (IOException e) {
+						throw new RuntimeException("Failed to export metrics to " + file, e);
+				}
+		}
+}
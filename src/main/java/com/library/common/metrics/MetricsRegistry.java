@@ -0,0 +1,31 @@
+package com.library.common.metrics;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Pluggable metrics registry.
+ * Tags are given as alternating key/value pairs.
+ */
+public interface MetricsRegistry {
+
+		/**
+		 * Get or create a timer
+		 */
+		Timer timer(String name, String... tags);
+
+		/**
+		 * Get or create a counter
+		 */
+		Counter counter(String name, String... tags);
+
+		/**
+		 * Register a gauge, sampled on every snapshot
+		 */
+		void gauge(String name, Supplier<Number> value, String... tags);
+
+		/**
+		 * Current value of every registered meter
+		 */
+		List<MeterSnapshot> snapshot();
+}
@@ -0,0 +1,59 @@
+package com.library.common.metrics;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically exports the registry to a file on a daemon thread
+ */
+public class MetricsReporter implements AutoCloseable {
+		private static final Logger logger = LogManager.getLogger();
+		private final MetricsRegistry registry;
+		private final MetricsExporter exporter;
+		private final Path file;
+		private final ScheduledExecutorService scheduler;
+
+		public MetricsReporter(MetricsRegistry registry, MetricsExporter exporter, Path file) {
+				this.registry = registry;
+				this.exporter = exporter;
+				this.file = file;
+				this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+						Thread thread = new Thread(r, "metrics-reporter");
+						thread.setDaemon(true);
+						return thread;
+				});
+		}
+
+		/**
+		 * Start exporting every period
+		 */
+		public MetricsReporter start(long period, TimeUnit unit) {
+				scheduler.scheduleAtFixedRate(this::report, period, period, unit);
+				return this;
+		}
+
+		/**
+		 * Export now
+		 */
+		public void report() {
+				try {
+						exporter.export(registry, file);
+				} catch (Exception e) {
+						logger.warn("Metrics export to {} failed: {}", file, e.getMessage());
+				}
+		}
+
+		/**
+		 * Stop the schedule and write a final export
+		 */
+		@Override
+		public void close() {
+				scheduler.shutdown();
+				report();
+		}
+}
@@ -0,0 +1,61 @@
+package com.library.common.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Prometheus text exposition format (e.g. for the node_exporter textfile collector).
+ * Timers become a summary (count/sum) plus a _max gauge.
+ */
+public class PrometheusTextExporter implements MetricsExporter {
+
+		@Override
+		public void write(List<MeterSnapshot> meters, Writer writer) throws IOException {
+				// Samples of one family must be contiguous, group them before writing
+				Map<String, StringBuilder> families = new LinkedHashMap<>();
+
+				for (MeterSnapshot meter : meters) {
+						String base = sanitize(meter.name());
+						String labels = labels(meter.tags());
+
+						switch (meter.type()) {
+								case "timer" -> {
+										family(families, base + "_seconds", "summary")
+														.append(base).append("_seconds_count").append(labels).append(' ').append(meter.values().get("count")).append('\n')
+														.append(base).append("_seconds_sum").append(labels).append(' ').append(meter.values().get("sum_seconds")).append('\n');
+										family(families, base + "_seconds_max", "gauge")
+														.append(base).append("_seconds_max").append(labels).append(' ').append(meter.values().get("max_seconds")).append('\n');
+								}
+								case "counter" -> family(families, base + "_total", "counter")
+												.append(base).append("_total").append(labels).append(' ').append(meter.values().get("count")).append('\n');
+								default -> family(families, base, "gauge")
+												.append(base).append(labels).append(' ').append(meter.values().get("value")).append('\n');
+						}
+				}
+
+				for (StringBuilder family : families.values()) {
+						writer.write(family.toString());
+				}
+		}
+
+		private static StringBuilder family(Map<String, StringBuilder> families, String name, String type) {
+				return families.computeIfAbsent(name, n -> new StringBuilder("# TYPE " + n + " " + type + "\n"));
+		}
+
+		private static String sanitize(String name) {
+				return name.replaceAll("[^a-zA-Z0-9_:]", "_");
+		}
+
+		private static String labels(Map<String, String> tags) {
+				if (tags.isEmpty()) {
+						return "";
+				}
+				return tags.entrySet().stream()
+								.map(e -> sanitize(e.getKey()) + "=\"" + e.getValue().replace("\\", "\\\\").replace("\"", "\\\"") + "\"")
+								.collect(Collectors.joining(",", "{", "}"));
+		}
+}
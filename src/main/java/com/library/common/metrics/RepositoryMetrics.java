@@ -0,0 +1,51 @@
+package com.library.common.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-repository meters, tagged with backend and entity
+ */
+public class RepositoryMetrics {
+		private final MetricsRegistry registry;
+		private final String backend;
+		private final String entity;
+		private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+		private final Counter documentsRead;
+		private final Counter documentsWritten;
+
+		public RepositoryMetrics(String backend, String entity) {
+				this(Metrics.registry(), backend, entity);
+		}
+
+		public RepositoryMetrics(MetricsRegistry registry, String backend, String entity) {
+				this.registry = registry;
+				this.backend = backend;
+				this.entity = entity;
+				this.documentsRead = registry.counter("library.documents.read", "backend", backend, "entity", entity);
+				this.documentsWritten = registry.counter("library.documents.written", "backend", backend, "entity", entity);
+		}
+
+		/**
+		 * Timer for a repository operation
+		 */
+		public Timer timer(String operation) {
+				return timers.computeIfAbsent(operation, op -> registry.timer("library.repository.operation",
+								"backend", backend, "entity", entity, "operation", op));
+		}
+
+		/**
+		 * Record an operation started at a System.nanoTime() value
+		 */
+		public void record(String operation, long startNanos) {
+				timer(operation).recordSince(startNanos);
+		}
+
+		public void documentsRead(long count) {
+				documentsRead.increment(count);
+		}
+
+		public void documentsWritten(long count) {
+				documentsWritten.increment(count);
+		}
+}
@@ -0,0 +1,68 @@
+package com.library.common.metrics;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * In-memory metrics registry, meters live for the lifetime of the JVM
+ */
+public class SimpleMetricsRegistry implements MetricsRegistry {
+		private final Map<MeterId, Timer> timers = new ConcurrentHashMap<>();
+		private final Map<MeterId, Counter> counters = new ConcurrentHashMap<>();
+		private final Map<MeterId, Supplier<Number>> gauges = new ConcurrentHashMap<>();
+
+		@Override
+		public Timer timer(String name, String... tags) {
+				return timers.computeIfAbsent(MeterId.of(name, tags), id -> new Timer());
+		}
+
+		@Override
+		public Counter counter(String name, String... tags) {
+				return counters.computeIfAbsent(MeterId.of(name, tags), id -> new Counter());
+		}
+
+		@Override
+		public void gauge(String name, Supplier<Number> value, String... tags) {
+				gauges.put(MeterId.of(name, tags), value);
+		}
+
+		@Override
+		public List<MeterSnapshot> snapshot() {
+				List<MeterSnapshot> snapshots = new ArrayList<>();
+
+				timers.forEach((id, timer) -> {
+						Map<String, Number> values = new LinkedHashMap<>();
+						values.put("count", timer.getCount());
+						values.put("sum_seconds", timer.getTotalTime(TimeUnit.SECONDS));
+						values.put("max_seconds", timer.getMax(TimeUnit.SECONDS));
+						snapshots.add(new MeterSnapshot(id.name(), id.tags(), "timer", values));
+				});
+
+				counters.forEach((id, counter) ->
+								snapshots.add(new MeterSnapshot(id.name(), id.tags(), "counter", Map.of("count", counter.getCount()))));
+
+				gauges.forEach((id, gauge) -> {
+						Number value = gauge.get();
+						snapshots.add(new MeterSnapshot(id.name(), id.tags(), "gauge", Map.of("value", value != null ? value : Double.NaN)));
+				});
+
+				snapshots.sort(Comparator.comparing(MeterSnapshot::name).thenComparing(s -> s.tags().toString()));
+				return snapshots;
+		}
+
+		private record MeterId(String name, Map<String, String> tags) {
+				static MeterId of(String name, String... tags) {
+						if (tags.length % 2 != 0) {
+								throw new IllegalArgumentException("Tags must be key/value pairs: " + Arrays.toString(tags));
+						}
+
+						Map<String, String> tagMap = new TreeMap<>();
+						for (int i = 0; i < tags.length; i += 2) {
+								tagMap.put(tags[i], tags[i + 1]);
+						}
+						return new MeterId(name, Collections.unmodifiableMap(tagMap));
+				}
+		}
+}
@@ -0,0 +1,49 @@
+package com.library.common.metrics;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+/**
+ * Wraps an analytics manager so every aggregation is timed
+ * and its returned rows are counted as documents read
+ */
+public class TimedAnalytics {
+
+		/**
+		 * Instrument an analytics manager
+		 *
+		 * @param analyticsInterface Analytics interface implemented by the manager (e.g. BookAnalytics)
+		 * @param manager            Manager instance
+		 * @param backend            "mongo" or "raven"
+		 * @return Proxy recording library.analytics.aggregation timers
+		 */
+		public static <T> T wrap(Class<T> analyticsInterface, T manager, String backend) {
+				MetricsRegistry registry = Metrics.registry();
+				String analytics = analyticsInterface.getSimpleName();
+				Counter rows = registry.counter("library.documents.read", "backend", backend, "entity", analytics);
+
+				Object proxy = Proxy.newProxyInstance(analyticsInterface.getClassLoader(), new Class<?>[]{analyticsInterface},
+								(target, method, args) -> {
+										if (method.getDeclaringClass() == Object.class) {
+												return method.invoke(manager, args);
+										}
+
+										Timer timer = registry.timer("library.analytics.aggregation",
+														"backend", backend, "analytics", analytics, "operation", method.getName());
+										long start = System.nanoTime();
+										try {
+												Object result = method.invoke(manager, args);
+												if (result instanceof List<?> list) {
+														rows.increment(list.size());
+												}
+												return result;
+										} catch (InvocationTargetException e) {
+												throw e.getCause();
+										} finally {
+												timer.recordSince(start);
+										}
+								});
+				return analyticsInterface.cast(proxy);
+		}
+}
@@ -0,0 +1,60 @@
+package com.library.common.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Latency timer: call count, total and max duration
+ */
+public class Timer {
+		private final LongAdder count = new LongAdder();
+		private final LongAdder totalNanos = new LongAdder();
+		private final AtomicLong maxNanos = new AtomicLong();
+
+		/**
+		 * Record a duration in nanoseconds
+		 */
+		public void record(long nanos) {
+				count.increment();
+				totalNanos.add(nanos);
+				maxNanos.accumulateAndGet(nanos, Math::max);
+		}
+
+		/**
+		 * Record the time elapsed since a System.nanoTime() start
+		 */
+		public void recordSince(long startNanos) {
+				record(System.nanoTime() - startNanos);
+		}
+
+		/**
+		 * Time a call
+		 */
+		public <R> R record(Supplier<R> call) {
+				long start = System.nanoTime();
+				try {
+						return call.get();
+				} finally {
+						recordSince(start);
+				}
+		}
+
+		public long getCount() {
+				return count.sum();
+		}
+
+		public double getTotalTime(TimeUnit unit) {
+				return totalNanos.sum() / (double) unit.toNanos(1);
+		}
+
+		public double getMax(TimeUnit unit) {
+				return maxNanos.get() / (double) unit.toNanos(1);
+		}
+
+		public double getMean(TimeUnit unit) {
+				long n = getCount();
+				return n == 0 ? 0.0 : getTotalTime(unit) / n;
+		}
+}
@@ -0,0 +1,53 @@
+package com.library.common.model;
+
+/**
+ * Lightweight Book view for list screens (id, title, isbn, availability)
+ */
+public class BookListItem {
+		private String id;
+		private String title;
+		private String isbn;
+		private boolean available;
+
+		public BookListItem() {
+		}
+
+		public BookListItem(String id, String title, String isbn, boolean available) {
+				this.id = id;
+				this.title = title;
+				this.isbn = isbn;
+				this.available = available;
+		}
+
+		public String getId() {
+				return id;
+		}
+
+		public void setId(String id) {
+				this.id = id;
+		}
+
+		public String getTitle() {
+				return title;
+		}
+
+		public void setTitle(String title) {
+				this.title = title;
+		}
+
+		public String getIsbn() {
+				return isbn;
+		}
+
+		public void setIsbn(String isbn) {
+				this.isbn = isbn;
+		}
+
+		public boolean isAvailable() {
+				return available;
+		}
+
+		public void setAvailable(boolean available) {
+				this.available = available;
+		}
+}
@@ -1,9 +1,17 @@
 package com.library.common.model;
 
+import com.library.common.util.CategoryPaths;
+
+import java.util.List;
+
 public class Category {
 		private String name;
 		private String path; // e.g., "Fiction/Science Fiction"
 		private String id;
+		// Derived from path, stored so hierarchy queries use indexes instead of parsing paths
+		private List<String> ancestors; // e.g., ["Fiction"]
+		private int depth; // number of path segments, 1 for a top-level category
+		private String parent; // parent path, null for a top-level category
 
 		public String getName() {
 				return name;
@@ -17,8 +25,38 @@ public class Category {
 				return path;
 		}
 
+		/**
+		 * Set the path and the hierarchy fields derived from it
+		 */
 		public void setPath(String path) {
 				this.path = path;
+				this.ancestors = CategoryPaths.ancestorsOf(path);
+				this.depth = CategoryPaths.depthOf(path);
+				this.parent = CategoryPaths.parentOf(path);
+		}
+
+		public List<String> getAncestors() {
+				return ancestors;
+		}
+
+		public void setAncestors(List<String> ancestors) {
+				this.ancestors = ancestors;
+		}
+
+		public int getDepth() {
+				return depth;
+		}
+
+		public void setDepth(int depth) {
+				this.depth = depth;
+		}
+
+		public String getParent() {
+				return parent;
+		}
+
+		public void setParent(String parent) {
+				this.parent = parent;
 		}
 
 		public String getId() {
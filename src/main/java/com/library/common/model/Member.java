@@ -207,10 +207,20 @@ public class Member {
 						this.dueDate = dueDate;
 				}
 
+				/**
+				 * Overdue flag as stored when the loan was generated, not refreshed afterwards
+				 */
 				public boolean isOverdue() {
 						return isOverdue;
 				}
 
+				/**
+				 * Overdue status computed from the due date
+				 */
+				public boolean isOverdueAt(long now) {
+						return dueDate < now;
+				}
+
 				public void setOverdue(boolean overdue) {
 						isOverdue = overdue;
 				}
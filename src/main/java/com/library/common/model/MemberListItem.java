@@ -0,0 +1,53 @@
+package com.library.common.model;
+
+/**
+ * Lightweight Member view for list screens (id, name, email)
+ */
+public class MemberListItem {
+		private String id;
+		private String firstName;
+		private String lastName;
+		private String email;
+
+		public MemberListItem() {
+		}
+
+		public MemberListItem(String id, String firstName, String lastName, String email) {
+				this.id = id;
+				this.firstName = firstName;
+				this.lastName = lastName;
+				this.email = email;
+		}
+
+		public String getId() {
+				return id;
+		}
+
+		public void setId(String id) {
+				this.id = id;
+		}
+
+		public String getFirstName() {
+				return firstName;
+		}
+
+		public void setFirstName(String firstName) {
+				this.firstName = firstName;
+		}
+
+		public String getLastName() {
+				return lastName;
+		}
+
+		public void setLastName(String lastName) {
+				this.lastName = lastName;
+		}
+
+		public String getEmail() {
+				return email;
+		}
+
+		public void setEmail(String email) {
+				this.email = email;
+		}
+}
@@ -0,0 +1,96 @@
+package com.library.common.model;
+
+/**
+ * Notice sent to a member for a loan past its due date.
+ * One notice per (member, book, due date): re-running the job refreshes it instead of duplicating it.
+ */
+public class OverdueNotice {
+		private String id;
+		private String memberId;
+		private String memberName;
+		private String email;
+		private String bookId;
+		private String bookTitle;
+		private long dueDate;
+		private int daysOverdue;
+		private long noticeDate;
+
+		/**
+		 * Stable key of a notice
+		 */
+		public static String noticeKey(String memberId, String bookId, long dueDate) {
+				return memberId + "/" + bookId + "/" + dueDate;
+		}
+
+		public String getId() {
+				return id;
+		}
+
+		public void setId(String id) {
+				this.id = id;
+		}
+
+		public String getMemberId() {
+				return memberId;
+		}
+
+		public void setMemberId(String memberId) {
+				this.memberId = memberId;
+		}
+
+		public String getMemberName() {
+				return memberName;
+		}
+
+		public void setMemberName(String memberName) {
+				this.memberName = memberName;
+		}
+
+		public String getEmail() {
+				return email;
+		}
+
+		public void setEmail(String email) {
+				this.email = email;
+		}
+
+		public String getBookId() {
+				return bookId;
+		}
+
+		public void setBookId(String bookId) {
+				this.bookId = bookId;
+		}
+
+		public String getBookTitle() {
+				return bookTitle;
+		}
+
+		public void setBookTitle(String bookTitle) {
+				this.bookTitle = bookTitle;
+		}
+
+		public long getDueDate() {
+				return dueDate;
+		}
+
+		public void setDueDate(long dueDate) {
+				this.dueDate = dueDate;
+		}
+
+		public int getDaysOverdue() {
+				return daysOverdue;
+		}
+
+		public void setDaysOverdue(int daysOverdue) {
+				this.daysOverdue = daysOverdue;
+		}
+
+		public long getNoticeDate() {
+				return noticeDate;
+		}
+
+		public void setNoticeDate(long noticeDate) {
+				this.noticeDate = noticeDate;
+		}
+}
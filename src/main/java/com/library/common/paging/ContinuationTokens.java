@@ -0,0 +1,32 @@
+package com.library.common.paging;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque continuation tokens: a versioned, URL-safe Base64 wrapper around the
+ * backend-specific keyset position (last sort value and last id).
+ * Callers must treat tokens as opaque strings and only pass them back unchanged.
+ */
+public class ContinuationTokens {
+		private static final String VERSION = "1:";
+
+		public static String encode(String position) {
+				byte[] bytes = (VERSION + position).getBytes(StandardCharsets.UTF_8);
+				return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+		}
+
+		public static String decode(String token) {
+				String decoded;
+				try {
+						decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+				} catch (IllegalArgumentException e) {
+						throw new IllegalArgumentException("Malformed continuation token", e);
+				}
+
+				if (!decoded.startsWith(VERSION)) {
+						throw new IllegalArgumentException("Unsupported continuation token");
+				}
+				return decoded.substring(VERSION.length());
+		}
+}
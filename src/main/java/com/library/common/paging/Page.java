@@ -0,0 +1,17 @@
+package com.library.common.paging;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated query
+ *
+ * @param items     Entities of this page
+ * @param nextToken Opaque continuation token for the next page, null on the last page
+ * @param <T>       Entity type
+ */
+public record Page<T>(List<T> items, String nextToken) {
+
+		public boolean hasNext() {
+				return nextToken != null;
+		}
+}
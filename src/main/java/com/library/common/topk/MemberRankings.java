@@ -0,0 +1,87 @@
+package com.library.common.topk;
+
+import com.library.common.model.Member;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Bounded-memory rankings over the members' reading stats: favorite authors
+ * counted once per member, categories weighted by the member's preference score.
+ * Fed one member at a time from a streaming scan.
+ * The number of counters is read from the "library.topk.capacity" system property
+ * (default 1024), the approximate rankings are skipped when "library.topk.exact" is set.
+ */
+public class MemberRankings {
+		public static final int DEFAULT_CAPACITY = Integer.getInteger("library.topk.capacity", 1024);
+		private static final boolean EXACT_ONLY = Boolean.getBoolean("library.topk.exact");
+
+		private final SpaceSaving<String> authors;
+		private final SpaceSaving<String> categories;
+		private long members;
+
+		public MemberRankings() {
+				this(DEFAULT_CAPACITY);
+		}
+
+		public MemberRankings(int capacity) {
+				this.authors = new SpaceSaving<>(capacity);
+				this.categories = new SpaceSaving<>(capacity);
+		}
+
+		/**
+		 * Whether callers should always use their exact aggregation
+		 */
+		public static boolean exactOnly() {
+				return EXACT_ONLY;
+		}
+
+		/**
+		 * Build the rankings from a scan that feeds every member to the given consumer
+		 */
+		public static MemberRankings scan(Consumer<Consumer<Member>> source) {
+				MemberRankings rankings = new MemberRankings();
+				source.accept(rankings::add);
+				return rankings;
+		}
+
+		public synchronized void add(Member member) {
+				members++;
+				Member.ReadingStats stats = member.getReadingStats();
+				if (stats == null) {
+						return;
+				}
+
+				if (stats.getFavoriteAuthors() != null) {
+						stats.getFavoriteAuthors().forEach(authors::offer);
+				}
+				if (stats.getCategoryPreferences() != null) {
+						for (Map.Entry<String, Integer> e : stats.getCategoryPreferences().entrySet()) {
+								if (e.getValue() != null) {
+										categories.offer(e.getKey(), e.getValue());
+								}
+						}
+				}
+		}
+
+		public List<SpaceSaving.Estimate<String>> topAuthors(int k) {
+				return authors.top(k);
+		}
+
+		public List<SpaceSaving.Estimate<String>> topCategories(int k) {
+				return categories.top(k);
+		}
+
+		public SpaceSaving<String> getAuthors() {
+				return authors;
+		}
+
+		public SpaceSaving<String> getCategories() {
+				return categories;
+		}
+
+		public synchronized long getMembers() {
+				return members;
+		}
+}
@@ -0,0 +1,49 @@
+package com.library.common.topk;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the last {@link MemberRankings} and rebuilds it once it is older than the
+ * refresh interval, read from the "library.topk.refreshSeconds" system property (default 300 s).
+ * Top-N dashboards read the summary instead of scanning the members on every call.
+ */
+public class RefreshingRankings {
+		private static final Logger logger = LogManager.getLogger();
+		private static final long DEFAULT_REFRESH_SECONDS = Long.getLong("library.topk.refreshSeconds", 300L);
+
+		private final Supplier<MemberRankings> builder;
+		private final long refreshNanos;
+		private MemberRankings current;
+		private long builtAt;
+
+		public RefreshingRankings(Supplier<MemberRankings> builder) {
+				this(builder, DEFAULT_REFRESH_SECONDS);
+		}
+
+		public RefreshingRankings(Supplier<MemberRankings> builder, long refreshSeconds) {
+				this.builder = builder;
+				this.refreshNanos = TimeUnit.SECONDS.toNanos(Math.max(0, refreshSeconds));
+		}
+
+		public synchronized MemberRankings get() {
+				if (current == null || System.nanoTime() - builtAt >= refreshNanos) {
+						long start = System.nanoTime();
+						current = builder.get();
+						builtAt = System.nanoTime();
+						logger.info("Rankings rebuilt from {} members in {} ms", current.getMembers(),
+										TimeUnit.NANOSECONDS.toMillis(builtAt - start));
+				}
+				return current;
+		}
+
+		/**
+		 * Drop the current summary, the next read rebuilds it
+		 */
+		public synchronized void invalidate() {
+				current = null;
+		}
+}
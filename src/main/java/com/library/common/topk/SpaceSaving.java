@@ -0,0 +1,138 @@
+package com.library.common.topk;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Space-Saving heavy hitters summary (Metwally et al.).
+ * Keeps at most {@code capacity} counters whatever the number of distinct items:
+ * a new item takes over the smallest counter and inherits its count as error.
+ * Every reported count overestimates the true count by at most its error, and
+ * every item seen more than {@code total / capacity} times is in the summary.
+ * The summary is exact while fewer than {@code capacity} distinct items were seen.
+ */
+public class SpaceSaving<K> {
+
+		private final int capacity;
+		private final Map<K, Counter<K>> counters;
+		private final TreeSet<Counter<K>> byCount = new TreeSet<>(
+						Comparator.<Counter<K>>comparingLong(c -> c.count).thenComparingLong(c -> c.sequence));
+		private long total;
+		private long nextSequence;
+
+		public SpaceSaving(int capacity) {
+				if (capacity <= 0) {
+						throw new IllegalArgumentException("capacity must be positive");
+				}
+				this.capacity = capacity;
+				this.counters = new HashMap<>(capacity * 2);
+		}
+
+		public void offer(K item) {
+				offer(item, 1);
+		}
+
+		/**
+		 * Count {@code weight} occurrences of an item
+		 */
+		public synchronized void offer(K item, long weight) {
+				if (item == null || weight <= 0) {
+						return;
+				}
+				total += weight;
+
+				Counter<K> counter = counters.get(item);
+				if (counter != null) {
+						byCount.remove(counter);
+						counter.count += weight;
+						byCount.add(counter);
+						return;
+				}
+
+				if (counters.size() < capacity) {
+						counter = new Counter<>(item, weight, 0, nextSequence++);
+				} else {
+						// Evict the smallest counter, the newcomer may have been seen up to that many times
+						Counter<K> evicted = byCount.pollFirst();
+						counters.remove(evicted.item);
+						counter = new Counter<>(item, evicted.count + weight, evicted.count, nextSequence++);
+				}
+				counters.put(item, counter);
+				byCount.add(counter);
+		}
+
+		/**
+		 * The {@code k} largest counters, most frequent first.
+		 * An estimate is guaranteed when the item is certainly among the true top {@code k}.
+		 */
+		public synchronized List<Estimate<K>> top(int k) {
+				List<Counter<K>> ranked = new ArrayList<>(Math.min(k + 1, counters.size()));
+				Iterator<Counter<K>> it = byCount.descendingIterator();
+				while (it.hasNext() && ranked.size() <= k) {
+						ranked.add(it.next());
+				}
+
+				// An item is in the true top k if its lower bound beats the best count outside the top k
+				long bestOutside = ranked.size() > k ? ranked.get(k).count : 0;
+				List<Estimate<K>> result = new ArrayList<>(Math.min(k, ranked.size()));
+				for (int i = 0; i < Math.min(k, ranked.size()); i++) {
+						Counter<K> c = ranked.get(i);
+						result.add(new Estimate<>(c.item, c.count, c.error, c.count - c.error >= bestOutside));
+				}
+				return result;
+		}
+
+		/**
+		 * Whether the set returned by {@link #top(int)} is exactly the true top {@code k}
+		 */
+		public boolean isTopGuaranteed(int k) {
+				return top(k).stream().allMatch(Estimate::guaranteed);
+		}
+
+		/**
+		 * Upper bound on the overestimation of any count (0 while the summary is exact)
+		 */
+		public synchronized long maxError() {
+				return counters.size() < capacity || byCount.isEmpty() ? 0 : byCount.first().count;
+		}
+
+		public synchronized long getTotal() {
+				return total;
+		}
+
+		public int getCapacity() {
+				return capacity;
+		}
+
+		public synchronized int size() {
+				return counters.size();
+		}
+
+		/**
+		 * Estimated count of an item, true count lies in [count - error, count]
+		 */
+		public record Estimate<K>(K item, long count, long error, boolean guaranteed) {
+				public long lowerBound() {
+						return count - error;
+				}
+		}
+
+		private static final class Counter<K> {
+				private final K item;
+				private final long error;
+				private final long sequence;
+				private long count;
+
+				private Counter(K item, long count, long error, long sequence) {
+						this.item = item;
+						this.count = count;
+						this.error = error;
+						this.sequence = sequence;
+				}
+		}
+}
@@ -0,0 +1,84 @@
+package com.library.common.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over strings: {@link #mightContain(String)} never misses a key that was put,
+ * and wrongly answers true for an unseen key with about the configured false positive rate.
+ * Sized once from the expected number of keys; bits are set with CAS, puts and reads can run concurrently.
+ */
+public class BloomFilter {
+		private final AtomicLongArray words;
+		private final long bitCount;
+		private final int hashCount;
+
+		/**
+		 * @param expectedKeys          Number of keys the filter is sized for
+		 * @param falsePositiveRate     Target false positive rate once expectedKeys are in, e.g. 0.01
+		 */
+		public BloomFilter(long expectedKeys, double falsePositiveRate) {
+				if (expectedKeys <= 0) {
+						throw new IllegalArgumentException("expectedKeys must be positive");
+				}
+				if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+						throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+				}
+				long bits = (long) Math.ceil(-expectedKeys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+				this.words = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE, (bits + 63) / 64));
+				this.bitCount = (long) words.length() * 64;
+				this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedKeys * Math.log(2)));
+		}
+
+		public void put(String key) {
+				long hash = hash(key);
+				int h1 = (int) hash;
+				int h2 = (int) (hash >>> 32);
+				for (int i = 1; i <= hashCount; i++) {
+						long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+						int word = (int) (bit >>> 6);
+						long mask = 1L << bit;
+						long current;
+						while (((current = words.get(word)) & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+								// Retry, another put changed the word
+						}
+				}
+		}
+
+		public boolean mightContain(String key) {
+				long hash = hash(key);
+				int h1 = (int) hash;
+				int h2 = (int) (hash >>> 32);
+				for (int i = 1; i <= hashCount; i++) {
+						long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+						if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+								return false;
+						}
+				}
+				return true;
+		}
+
+		public long getBitCount() {
+				return bitCount;
+		}
+
+		public int getHashCount() {
+				return hashCount;
+		}
+
+		/**
+		 * 64-bit FNV-1a over the UTF-16 chars, finished with the MurmurHash3 mixer
+		 */
+		private static long hash(String key) {
+				long h = 0xcbf29ce484222325L;
+				for (int i = 0; i < key.length(); i++) {
+						h ^= key.charAt(i);
+						h *= 0x100000001b3L;
+				}
+				h ^= h >>> 33;
+				h *= 0xff51afd7ed558ccdL;
+				h ^= h >>> 33;
+				h *= 0xc4ceb9fe1a85ec53L;
+				h ^= h >>> 33;
+				return h;
+		}
+}
@@ -0,0 +1,64 @@
+package com.library.common.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Helpers for slash-joined category paths ("Fiction/Science Fiction")
+ */
+public class CategoryPaths {
+		public static final String SEPARATOR = "/";
+
+		/**
+		 * Paths of every ancestor, root first: "A/B/C" -> ["A", "A/B"]
+		 */
+		public static List<String> ancestorsOf(String path) {
+				if (path == null) {
+						return Collections.emptyList();
+				}
+				List<String> ancestors = new ArrayList<>();
+				int index = path.indexOf(SEPARATOR);
+				while (index >= 0) {
+						ancestors.add(path.substring(0, index));
+						index = path.indexOf(SEPARATOR, index + 1);
+				}
+				return ancestors;
+		}
+
+		/**
+		 * Path of the direct parent, null for a top-level category
+		 */
+		public static String parentOf(String path) {
+				int index = path == null ? -1 : path.lastIndexOf(SEPARATOR);
+				return index < 0 ? null : path.substring(0, index);
+		}
+
+		/**
+		 * Number of path segments, 1 for a top-level category
+		 */
+		public static int depthOf(String path) {
+				if (path == null) {
+						return 0;
+				}
+				int depth = 1;
+				for (int i = path.indexOf(SEPARATOR); i >= 0; i = path.indexOf(SEPARATOR, i + 1)) {
+						depth++;
+				}
+				return depth;
+		}
+
+		/**
+		 * Last segment of the path
+		 */
+		public static String nameOf(String path) {
+				return path == null ? null : path.substring(path.lastIndexOf(SEPARATOR) + 1);
+		}
+
+		/**
+		 * Whether path is root itself or one of its descendants, segment-wise ("A/BC" is not under "A/B")
+		 */
+		public static boolean isInSubtree(String path, String root) {
+				return path.equals(root) || path.startsWith(root + SEPARATOR);
+		}
+}
@@ -0,0 +1,153 @@
+package com.library.common.util;
+
+import com.library.common.model.Category;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * In-memory category hierarchy built once from the category list.
+ * Interior paths without a category document (e.g. "Fiction" when only "Fiction/Fantasy" is stored)
+ * are kept as nodes without category so the tree stays connected.
+ */
+public class CategoryTree {
+		private final Map<String, Node> nodes = new HashMap<>();
+		private final List<Node> roots = new ArrayList<>();
+
+		public static class Node {
+				private final String path;
+				private final Node parent;
+				private final Map<String, Node> children = new TreeMap<>();
+				private Category category;
+
+				private Node(String path, Node parent) {
+						this.path = path;
+						this.parent = parent;
+				}
+
+				public String getPath() {
+						return path;
+				}
+
+				public String getName() {
+						return CategoryPaths.nameOf(path);
+				}
+
+				public Node getParent() {
+						return parent;
+				}
+
+				public Collection<Node> getChildren() {
+						return Collections.unmodifiableCollection(children.values());
+				}
+
+				/**
+				 * Stored category, null for an implicit interior node
+				 */
+				public Category getCategory() {
+						return category;
+				}
+
+				public boolean isLeaf() {
+						return children.isEmpty();
+				}
+
+				public int getDepth() {
+						return CategoryPaths.depthOf(path);
+				}
+		}
+
+		public CategoryTree(Collection<Category> categories) {
+				for (Category category : categories) {
+						if (category.getPath() != null) {
+								node(category.getPath()).category = category;
+						}
+				}
+				roots.sort((a, b) -> a.path.compareTo(b.path));
+		}
+
+		private Node node(String path) {
+				Node existing = nodes.get(path);
+				if (existing != null) {
+						return existing;
+				}
+				String parentPath = CategoryPaths.parentOf(path);
+				Node parent = parentPath == null ? null : node(parentPath);
+				Node created = new Node(path, parent);
+				nodes.put(path, created);
+				if (parent == null) {
+						roots.add(created);
+				} else {
+						parent.children.put(path, created);
+				}
+				return created;
+		}
+
+		public Node get(String path) {
+				return nodes.get(path);
+		}
+
+		public List<Node> roots() {
+				return Collections.unmodifiableList(roots);
+		}
+
+		public Node parent(String path) {
+				Node node = nodes.get(path);
+				return node == null ? null : node.parent;
+		}
+
+		public Collection<Node> children(String path) {
+				Node node = nodes.get(path);
+				return node == null ? Collections.emptyList() : node.getChildren();
+		}
+
+		/**
+		 * Stored categories without children
+		 */
+		public List<Category> leaves() {
+				List<Category> leaves = new ArrayList<>();
+				for (Node root : roots) {
+						collect(root, true, leaves);
+				}
+				return leaves;
+		}
+
+		/**
+		 * Stored categories of the subtree rooted at path, the root included, in depth-first order
+		 */
+		public List<Category> subtree(String path) {
+				Node node = nodes.get(path);
+				List<Category> categories = new ArrayList<>();
+				if (node != null) {
+						collect(node, false, categories);
+				}
+				return categories;
+		}
+
+		private static void collect(Node node, boolean leavesOnly, List<Category> out) {
+				if (node.category != null && (!leavesOnly || node.isLeaf())) {
+						out.add(node.category);
+				}
+				for (Node child : node.children.values()) {
+						collect(child, leavesOnly, out);
+				}
+		}
+
+		/**
+		 * Number of stored categories at each depth
+		 */
+		public Map<Integer, Long> countByDepth() {
+				Map<Integer, Long> counts = new TreeMap<>();
+				for (Node node : nodes.values()) {
+						if (node.category != null) {
+								counts.merge(node.getDepth(), 1L, Long::sum);
+						}
+				}
+				return counts;
+		}
+}
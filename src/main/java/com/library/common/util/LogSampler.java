@@ -0,0 +1,53 @@
+package com.library.common.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate limiter for per-operation log lines on hot paths.
+ * At most one line is let through per interval; the others are counted and
+ * reported with the next line that gets through.
+ * The interval is read from the "library.log.sampleIntervalMillis" system property
+ * (default 1000 ms, 0 logs every operation).
+ */
+public class LogSampler {
+		private static final long DEFAULT_INTERVAL_MILLIS =
+						Long.getLong("library.log.sampleIntervalMillis", 1000L);
+
+		private final long intervalNanos;
+		private final AtomicLong nextAllowedNanos = new AtomicLong(Long.MIN_VALUE);
+		private final AtomicLong suppressed = new AtomicLong();
+
+		public LogSampler() {
+				this(DEFAULT_INTERVAL_MILLIS);
+		}
+
+		public LogSampler(long intervalMillis) {
+				this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, intervalMillis));
+		}
+
+		/**
+		 * Whether the current log line should be written
+		 */
+		public boolean tryAcquire() {
+				if (intervalNanos == 0) {
+						return true;
+				}
+
+				long now = System.nanoTime();
+				long next = nextAllowedNanos.get();
+				if ((next == Long.MIN_VALUE || now - next >= 0) && nextAllowedNanos.compareAndSet(next, now + intervalNanos)) {
+						return true;
+				}
+
+				suppressed.incrementAndGet();
+				return false;
+		}
+
+		/**
+		 * Number of lines skipped since the last call, resets the counter
+		 */
+		public long drainSuppressed() {
+				return suppressed.getAndSet(0);
+		}
+}
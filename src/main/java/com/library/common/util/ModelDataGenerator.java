@@ -1,8 +1,11 @@
 package com.library.common.util;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.github.javafaker.Faker;
+import com.library.common.dataset.DatasetFormat;
+import com.library.common.dataset.DatasetWriter;
+import com.library.common.generator.AccessDistribution;
+import com.library.common.generator.ConsistentDataGenerator;
+import com.library.common.generator.FastFaker;
+import com.library.common.generator.TemporalDistribution;
 import com.library.common.model.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -10,6 +13,9 @@ import org.bson.types.ObjectId;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -19,8 +25,9 @@ import java.util.stream.IntStream;
  */
 public class ModelDataGenerator {
 		private static final Logger logger = LogManager.getLogger();
-		private static final Faker faker = new Faker(Locale.forLanguageTag("en-US"));
 		private static final Long MILLISECONDS_IN_DAY = 86400000L;
+		// Upper bound of a popular book's loan history under a skewed distribution
+		private static final int MAX_LOANS_PER_BOOK = Integer.getInteger("library.generator.maxLoansPerBook", 200);
 
 		// Maps to store generated entities
 		// Allows for building relationships between entities
@@ -35,12 +42,13 @@ public class ModelDataGenerator {
 		 */
 		public static List<Author> generateAuthors(int count) {
 				logger.info("Generating {} author documents", count);
+				FastFaker faker = FastFaker.current();
 
 				for (int i = 0; i < count; i++) {
 						Author author = new Author();
 						author.setId(new ObjectId().toString());
-						author.setName(faker.name().fullName());
-						author.setNationality(faker.nation().nationality());
+						author.setName(faker.fullName());
+						author.setNationality(faker.nationality());
 						authors.add(author);
 				}
 
@@ -74,12 +82,13 @@ public class ModelDataGenerator {
 		 */
 		public static List<Publisher> generatePublishers(int count) {
 				logger.info("Generating {} publisher documents", count);
+				FastFaker faker = FastFaker.current();
 
 				Set<String> uniquePublishers = new HashSet<>();
 
 				// Generate unique publishers
 				while (publishers.size() < count) {
-						String publisherName = faker.book().publisher();
+						String publisherName = faker.publisher();
 						if (uniquePublishers.add(publisherName)) {
 								Publisher publisher = new Publisher();
 								publisher.setId(new ObjectId().toString());
@@ -92,10 +101,14 @@ public class ModelDataGenerator {
 		}
 
 		/**
-		 * Generate book documents with proper relationships
+		 * Generate book documents with proper relationships.
+		 * Authors, categories and publishers are picked with their configured {@link AccessDistribution},
+		 * a book's loan count scales with its own popularity and loan dates follow the
+		 * configured {@link TemporalDistribution}.
 		 */
 		public static List<Book> generateBooks(int count) {
 				logger.info("Generating {} book documents", count);
+				FastFaker faker = FastFaker.current();
 
 				// Ensure we have authors, categories, and publishers
 				if (authors.isEmpty()) generateAuthors(100);
@@ -103,53 +116,63 @@ public class ModelDataGenerator {
 				if (publishers.isEmpty()) generatePublishers(30);
 
 				Random random = new Random();
+				AccessDistribution authorPick = AccessDistribution.configured("authors", authors.size());
+				AccessDistribution categoryPick = AccessDistribution.configured("categories", categories.size());
+				AccessDistribution publisherPick = AccessDistribution.configured("publishers", publishers.size());
+				// Over the whole book list, the same popularity members draw their loans from
+				int firstBook = books.size();
+				AccessDistribution bookPopularity = AccessDistribution.configured("books", Math.max(firstBook + count, 1));
+				TemporalDistribution loanAge = TemporalDistribution.configured(1, 365 * 3);
+				logger.info("Book relationships: authors {}, categories {}, publishers {}, loans {} dated {}",
+								authorPick, categoryPick, publisherPick, bookPopularity, loanAge);
 
 				for (int i = 0; i < count; i++) {
 						Book book = new Book();
 						book.setId(new ObjectId().toString());
-						book.setIsbn(faker.code().isbn13());
-						book.setTitle(faker.book().title());
-						book.setPublicationYear(faker.number().numberBetween(1900, 2024));
-						book.setPageCount(faker.number().numberBetween(100, 1000));
+						book.setIsbn(faker.isbn13());
+						book.setTitle(faker.bookTitle());
+						book.setPublicationYear(faker.nextInt(1900, 2024));
+						book.setPageCount(faker.nextInt(100, 1000));
 						book.setAvailable(random.nextBoolean());
 
 						// Assign authors (1-3)
 						int authorCount = random.nextInt(3) + 1;
 						List<String> bookAuthors = new ArrayList<>();
 						for (int j = 0; j < authorCount; j++) {
-								Author author = getRandomElement(authors, random);
+								Author author = authors.get(authorPick.next(random));
 								bookAuthors.add(author.getId());
 						}
 						book.setAuthorsId(bookAuthors);
 
 						// Assign category
-						Category category = getRandomElement(categories, random);
+						Category category = categories.get(categoryPick.next(random));
 						book.setCategoryId(category.getId());
 
 						// Assign publisher
-						Publisher publisher = getRandomElement(publishers, random);
+						Publisher publisher = publishers.get(publisherPick.next(random));
 						book.setPublisherId(publisher.getId());
 
-						// Generate loan history (0-10 loans)
-						int loanCount = random.nextInt(11);
+						// Generate loan history (0-10 loans, scaled by the book's popularity)
+						int loanCount = (int) Math.min(MAX_LOANS_PER_BOOK,
+										Math.round(random.nextInt(11) * bookPopularity.weight(firstBook + i)));
 						if (loanCount > 0) {
 								List<Book.LoanRecord> loanHistory = new ArrayList<>();
 								long now = System.currentTimeMillis();
 
 								for (int j = 0; j < loanCount; j++) {
-										long loanDate = now - faker.number().numberBetween(1, 365 * 3) * MILLISECONDS_IN_DAY;
+										long loanDate = now - loanAge.next(random) * MILLISECONDS_IN_DAY;
 										long dueDate = loanDate + 14 * MILLISECONDS_IN_DAY; // 14 days later
 
 										Book.LoanRecord loan = new Book.LoanRecord();
 										loan.setMemberId(new ObjectId().toString());
-										loan.setMemberName(faker.name().fullName());
+										loan.setMemberName(faker.fullName());
 										loan.setLoanDate(loanDate);
 										loan.setDueDate(dueDate);
 
 										// 90% of past loans are returned
 										if (j < loanCount - 1 || random.nextDouble() < 0.9) {
 												// Return date between loan date and now, sometimes overdue
-												long returnDate = loanDate + faker.number().numberBetween(1, 30) * MILLISECONDS_IN_DAY;
+												long returnDate = loanDate + faker.nextInt(1, 30) * MILLISECONDS_IN_DAY;
 												loan.setReturnDate(returnDate);
 										}
 
@@ -172,14 +195,14 @@ public class ModelDataGenerator {
 						metadata.put("edition", random.nextInt(5) + 1);
 
 						if (random.nextBoolean()) {
-								metadata.put("series", faker.book().title() + " Series");
+								metadata.put("series", faker.bookTitle() + " Series");
 								metadata.put("volume", random.nextInt(10) + 1);
 						}
 
 						if (random.nextBoolean()) {
 								metadata.put("awards", Arrays.asList(
-												faker.book().title() + " Award",
-												faker.book().title() + " Prize"
+												faker.bookTitle() + " Award",
+												faker.bookTitle() + " Prize"
 								));
 						}
 
@@ -191,40 +214,46 @@ public class ModelDataGenerator {
 		}
 
 		/**
-		 * Generate member documents
+		 * Generate member documents, loaned books, preferred categories and favorite authors
+		 * are picked with their configured {@link AccessDistribution}
 		 */
 		public static List<Member> generateMembers(int count) {
 				logger.info("Generating {} member documents", count);
+				FastFaker faker = FastFaker.current();
 
 				Random random = new Random();
 
 				// Ensure we have books
 				if (books.isEmpty()) generateBooks(500);
 
+				AccessDistribution bookPick = AccessDistribution.configured("books", books.size());
+				AccessDistribution categoryPick = AccessDistribution.configured("categories", categories.size());
+				AccessDistribution authorPick = AccessDistribution.configured("authors", authors.size());
+
 				for (int i = 0; i < count; i++) {
 						Member member = new Member();
 						member.setId(new ObjectId().toString());
-						member.setFirstName(faker.name().firstName());
-						member.setLastName(faker.name().lastName());
-						member.setEmail(faker.internet().emailAddress());
-						member.setAddress(faker.address().fullAddress());
+						member.setFirstName(faker.firstName());
+						member.setLastName(faker.lastName());
+						member.setEmail(faker.emailAddress());
+						member.setAddress(faker.fullAddress());
 
 						// Registration between 10 years ago and today
 						long registrationDate = System.currentTimeMillis() -
-										faker.number().numberBetween(1, 3650) * MILLISECONDS_IN_DAY;
+										faker.nextInt(1, 3650) * MILLISECONDS_IN_DAY;
 						member.setRegistrationDate(registrationDate);
 
 						// Generate contact info
 						Member.ContactInfo contactInfo = new Member.ContactInfo();
-						contactInfo.setPhone(faker.phoneNumber().phoneNumber());
-						contactInfo.setAlternateEmail(faker.internet().emailAddress());
+						contactInfo.setPhone(faker.phoneNumber());
+						contactInfo.setAlternateEmail(faker.emailAddress());
 
 						if (random.nextBoolean()) {
 								Member.ContactInfo.EmergencyContact emergency = new Member.ContactInfo.EmergencyContact();
-								emergency.setName(faker.name().fullName());
+								emergency.setName(faker.fullName());
 								emergency.setRelationship(getRandomElement(
 												Arrays.asList("Spouse", "Parent", "Sibling", "Friend", "Child"), random));
-								emergency.setPhone(faker.phoneNumber().phoneNumber());
+								emergency.setPhone(faker.phoneNumber());
 								contactInfo.setEmergencyContact(emergency);
 						}
 
@@ -237,7 +266,7 @@ public class ModelDataGenerator {
 								long now = System.currentTimeMillis();
 
 								for (int j = 0; j < activeLoanCount; j++) {
-										Book randomBook = getRandomElement(books, random);
+										Book randomBook = books.get(bookPick.next(random));
 
 										Member.ActiveLoan loan = new Member.ActiveLoan();
 										loan.setBookId(randomBook.getId());
@@ -245,7 +274,7 @@ public class ModelDataGenerator {
 										loan.setIsbn(randomBook.getIsbn());
 
 										// Loan between 1 and 30 days ago
-										long loanDate = now - faker.number().numberBetween(1, 30) * MILLISECONDS_IN_DAY;
+										long loanDate = now - faker.nextInt(1, 30) * MILLISECONDS_IN_DAY;
 										loan.setLoanDate(loanDate);
 
 										// Due date 14 days after loan date
@@ -265,40 +294,34 @@ public class ModelDataGenerator {
 						Member.ReadingStats stats = new Member.ReadingStats();
 
 						// Total books between 1 and 200
-						int totalBooks = faker.number().numberBetween(1, 200);
+						int totalBooks = faker.nextInt(1, 200);
 						stats.setTotalBooksRead(totalBooks);
 
 						// Books this year between 0 and 50, but not more than total
-						int booksThisYear = Math.min(faker.number().numberBetween(0, 50), totalBooks);
+						int booksThisYear = Math.min(faker.nextInt(0, 50), totalBooks);
 						stats.setBooksReadThisYear(booksThisYear);
 
 						// Average days to return between 3 and 21
-						stats.setAverageDaysToReturn(faker.number().numberBetween(3, 21));
+						stats.setAverageDaysToReturn(faker.nextInt(3, 21));
 
 						// Generate category preferences using real category paths
 						Map<String, Integer> categoryPreferences = new HashMap<>();
 
 						// Pick 3-8 random categories
-						int categoryCount = faker.number().numberBetween(3, Math.min(8, categories.size()));
-						Set<Integer> categoryIndices = new HashSet<>();
-						while (categoryIndices.size() < categoryCount) {
-								categoryIndices.add(random.nextInt(categories.size()));
-						}
+						int categoryCount = faker.nextInt(3, Math.min(8, categories.size()));
+						Set<Integer> categoryIndices = categoryPick.sampleDistinct(categoryCount, random::nextDouble);
 
 						for (Integer index : categoryIndices) {
 								Category category = categories.get(index);
 								// Between 1 and 50 books in this category
-								categoryPreferences.put(category.getPath(), faker.number().numberBetween(1, 50));
+								categoryPreferences.put(category.getPath(), faker.nextInt(1, 50));
 						}
 						stats.setCategoryPreferences(categoryPreferences);
 
 						// Generate favorite authors using real author names
 						List<String> favoriteAuthors = new ArrayList<>();
-						int authorCount = faker.number().numberBetween(1, 5);
-						Set<Integer> authorIndices = new HashSet<>();
-						while (authorIndices.size() < authorCount) {
-								authorIndices.add(random.nextInt(authors.size()));
-						}
+						int authorCount = faker.nextInt(1, 5);
+						Set<Integer> authorIndices = authorPick.sampleDistinct(authorCount, random::nextDouble);
 
 						for (Integer index : authorIndices) {
 								favoriteAuthors.add(authors.get(index).getName());
@@ -319,8 +342,8 @@ public class ModelDataGenerator {
 						notificationPrefs.put("newArrivals", random.nextBoolean());
 						preferences.put("notificationPreferences", notificationPrefs);
 
-						preferences.put("favoriteSubjects", IntStream.range(0, faker.number().numberBetween(1, 5))
-										.mapToObj(j -> faker.lorem().word())
+						preferences.put("favoriteSubjects", IntStream.range(0, faker.nextInt(1, 5))
+										.mapToObj(j -> faker.word())
 										.collect(Collectors.toList()));
 
 						member.setPreferences(preferences);
@@ -334,7 +357,7 @@ public class ModelDataGenerator {
 		/**
 		 * Generate category hierarchy
 		 */
-		private static Map<String, List<String>> generateCategoryHierarchy() {
+		public static Map<String, List<String>> generateCategoryHierarchy() {
 				Map<String, List<String>> categories = new HashMap<>();
 
 				// Fiction categories
@@ -372,57 +395,57 @@ public class ModelDataGenerator {
 		}
 
 		/**
-		 * Export all generated data to JSON files
+		 * Export all generated data in the format set by -Dlibrary.dataset.format (JSON by default)
 		 */
 		public static void exportAll(String outputPath) {
-				try {
-						File outputDir = new File(outputPath);
-						if (!outputDir.exists()) {
-								boolean created = outputDir.mkdirs();
-								System.out.println("Output directory created: " + created);
-						}
-
-						ObjectMapper mapper = new ObjectMapper();
-						mapper.enable(SerializationFeature.INDENT_OUTPUT); // For pretty printing
+				exportAll(outputPath, DatasetFormat.configured());
+		}
 
-						// Export authors
-						if (!authors.isEmpty()) {
-								File authorsFile = new File(outputPath + "/authors.json");
-								mapper.writeValue(authorsFile, authors);
-								logger.info("Successfully exported {} authors to {}", authors.size(), authorsFile);
-						}
+		/**
+		 * Export all generated data to files in the given format
+		 */
+		public static void exportAll(String outputPath, DatasetFormat format) {
+				try {
+						prepareOutputDirectory(outputPath);
 
-						// Export categories
-						if (!categories.isEmpty()) {
-								File categoriesFile = new File(outputPath + "/categories.json");
-								mapper.writeValue(categoriesFile, categories);
-								logger.info("Successfully exported {} categories to {}", categories.size(), categoriesFile);
-						}
+						export(outputPath, "authors", authors, format);
+						export(outputPath, "categories", categories, format);
+						export(outputPath, "publishers", publishers, format);
+						export(outputPath, "books", books, format);
+						export(outputPath, "members", members, format);
 
-						// Export publishers
-						if (!publishers.isEmpty()) {
-								File publishersFile = new File(outputPath + "/publishers.json");
-								mapper.writeValue(publishersFile, publishers);
-								logger.info("Successfully exported {} publishers to {}", publishers.size(), publishersFile);
-						}
+				} catch (IOException e) {
+						logger.error("Error exporting data to {}: ", format, e);
+				}
+		}
 
-						// Export books
-						if (!books.isEmpty()) {
-								File booksFile = new File(outputPath + "/books.json");
-								mapper.writeValue(booksFile, books);
-								logger.info("Successfully exported {} books to {}", books.size(), booksFile);
-						}
+		/**
+		 * Create the output directory and drop the dataset files of a previous export
+		 */
+		public static void prepareOutputDirectory(String outputPath) throws IOException {
+				File outputDir = new File(outputPath);
+				if (!outputDir.exists()) {
+						boolean created = outputDir.mkdirs();
+						System.out.println("Output directory created: " + created);
+				}
 
-						// Export members
-						if (!members.isEmpty()) {
-								File membersFile = new File(outputPath + "/members.json");
-								mapper.writeValue(membersFile, members);
-								logger.info("Successfully exported {} members to {}", members.size(), membersFile);
+				// Drop files left by a previous export in another format, the loaders would pick them first
+				for (String entity : List.of("authors", "categories", "publishers", "books", "members")) {
+						for (DatasetFormat other : DatasetFormat.values()) {
+								Path stale = Paths.get(outputPath, entity + other.getExtension());
+								Files.deleteIfExists(stale);
+								Files.deleteIfExists(stale.resolveSibling(stale.getFileName() + DatasetWriter.INDEX_SUFFIX));
 						}
+				}
+		}
 
-				} catch (IOException e) {
-						logger.error("Error exporting data to JSON: ", e);
+		private static void export(String outputPath, String entity, List<?> entities, DatasetFormat format) throws IOException {
+				if (entities.isEmpty()) {
+						return;
 				}
+				Path file = Paths.get(outputPath, entity + format.getExtension());
+				DatasetWriter.write(file, entities, format);
+				logger.info("Successfully exported {} {} to {}", entities.size(), entity, file);
 		}
 
 		/**
@@ -436,7 +459,15 @@ public class ModelDataGenerator {
 				members.clear();
 		}
 
+		/**
+		 * Generate and export the dataset, streamed by {@link ConsistentDataGenerator} with -Dlibrary.generator.mode=consistent
+		 */
 		public static void generateData() {
+				if (ConsistentDataGenerator.isEnabled()) {
+						ConsistentDataGenerator.configured().exportAll("generated-data", DatasetFormat.configured());
+						return;
+				}
+
 				// Clean up
 				resetData();
 
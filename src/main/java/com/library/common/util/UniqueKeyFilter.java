@@ -0,0 +1,184 @@
+package com.library.common.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Client-side pre-check of a unique key (ISBN, email) before a bulk write.
+ * <p>
+ * A Bloom filter seeded with the stored keys answers "certainly new" for most keys of an ingest
+ * without a round trip; only the keys it may have seen are looked up, in one query per batch.
+ * Keys admitted by batches still being written are held in a pending set, so two concurrent
+ * batches never admit the same key. The database constraint (unique index, compare-exchange)
+ * stays the final guarantee. Keys are compared case-insensitively, like both constraints.
+ * The filter is sized by the "library.unique.expectedKeys" (default 1,000,000) and
+ * "library.unique.falsePositiveRate" (default 0.01) system properties.
+ */
+public class UniqueKeyFilter<T> {
+		private static final Logger logger = LogManager.getLogger();
+		private static final long DEFAULT_EXPECTED_KEYS = Long.getLong("library.unique.expectedKeys", 1_000_000L);
+		private static final double DEFAULT_FALSE_POSITIVE_RATE =
+						Double.parseDouble(System.getProperty("library.unique.falsePositiveRate", "0.01"));
+
+		private final String keyName;
+		private final Function<T, String> keyOf;
+		private final Function<T, String> idOf;
+		private final Consumer<Consumer<String>> storedKeys;
+		private final Function<Collection<String>, Map<String, String>> owners;
+		private final Set<String> pending = ConcurrentHashMap.newKeySet();
+		private BloomFilter bloom;
+
+		private final AtomicLong fastAdmits = new AtomicLong();
+		private final AtomicLong lookups = new AtomicLong();
+		private final AtomicLong rejected = new AtomicLong();
+
+		/**
+		 * @param keyName    Key name for the logs
+		 * @param keyOf      Unique key of an entity, null keys are not checked
+		 * @param idOf       ID of an entity, a key owned by the same ID is a replay and is admitted
+		 * @param storedKeys Scan feeding every stored key, seeds the Bloom filter
+		 * @param owners     ID owning each of the given keys, absent when the key is free
+		 */
+		public UniqueKeyFilter(String keyName, Function<T, String> keyOf, Function<T, String> idOf,
+													 Consumer<Consumer<String>> storedKeys,
+													 Function<Collection<String>, Map<String, String>> owners) {
+				this.keyName = keyName;
+				this.keyOf = keyOf;
+				this.idOf = idOf;
+				this.storedKeys = storedKeys;
+				this.owners = owners;
+		}
+
+		/**
+		 * Form under which keys are compared: compare-exchange keys are case-insensitive,
+		 * the MongoDB unique indexes use a case-insensitive collation to match
+		 */
+		public static String normalize(String key) {
+				return key == null ? null : key.toLowerCase(Locale.ROOT);
+		}
+
+		/**
+		 * Keep the entities whose key is free, the others are dropped and counted.
+		 * Call {@link #release(Admission)} once the admitted entities are written.
+		 */
+		public Admission<T> admit(List<T> batch) {
+				BloomFilter filter = bloom();
+				List<T> accepted = new ArrayList<>(batch.size());
+				Set<String> claimed = new HashSet<>();
+				Set<String> owned = new HashSet<>();
+				Set<String> batchKeys = new HashSet<>();
+				List<T> maybeTaken = new ArrayList<>();
+				long dropped = 0;
+
+				for (T entity : batch) {
+						String key = normalize(keyOf.apply(entity));
+						if (key == null) {
+								accepted.add(entity);
+						} else if (!batchKeys.add(key)) {
+								dropped++;
+						} else if (!pending.add(key)) {
+								// Claimed by a batch still being written
+								dropped++;
+						} else if (filter.mightContain(key)) {
+								maybeTaken.add(entity);
+						} else {
+								claimed.add(key);
+								accepted.add(entity);
+								fastAdmits.incrementAndGet();
+						}
+				}
+
+				if (!maybeTaken.isEmpty()) {
+						// One round trip for the keys the filter may have seen, claimed first so a batch
+						// released meanwhile is visible to the lookup
+						Map<String, String> taken = new HashMap<>();
+						owners.apply(maybeTaken.stream().map(keyOf).toList()).forEach((key, owner) -> taken.put(normalize(key), owner));
+						lookups.addAndGet(maybeTaken.size());
+						for (T entity : maybeTaken) {
+								String key = normalize(keyOf.apply(entity));
+								String owner = taken.get(key);
+								if (owner == null) {
+										claimed.add(key);
+										accepted.add(entity);
+								} else if (owner.equals(idOf.apply(entity))) {
+										pending.remove(key);
+										owned.add(key);
+										accepted.add(entity);
+								} else {
+										pending.remove(key);
+										dropped++;
+								}
+						}
+				}
+
+				claimed.forEach(filter::put);
+				if (dropped > 0) {
+						rejected.addAndGet(dropped);
+						logger.warn("Skipped {} entities with a duplicate {}", dropped, keyName);
+				}
+				return new Admission<>(accepted, owned, claimed);
+		}
+
+		/**
+		 * End of the write of an admission, its keys are now visible in the database
+		 */
+		public void release(Admission<T> admission) {
+				pending.removeAll(admission.claimed());
+		}
+
+		/**
+		 * Forget the seeded keys, e.g. after the collection was dropped
+		 */
+		public synchronized void reset() {
+				bloom = null;
+		}
+
+		public long getFastAdmits() {
+				return fastAdmits.get();
+		}
+
+		public long getLookups() {
+				return lookups.get();
+		}
+
+		public long getRejected() {
+				return rejected.get();
+		}
+
+		private synchronized BloomFilter bloom() {
+				if (bloom == null) {
+						BloomFilter seeded = new BloomFilter(DEFAULT_EXPECTED_KEYS, DEFAULT_FALSE_POSITIVE_RATE);
+						long[] count = {0};
+						storedKeys.accept(key -> {
+								seeded.put(normalize(key));
+								count[0]++;
+						});
+						if (count[0] > DEFAULT_EXPECTED_KEYS) {
+								logger.warn("{} stored {} keys exceed library.unique.expectedKeys={}, more lookups expected",
+												count[0], keyName, DEFAULT_EXPECTED_KEYS);
+						}
+						logger.info("Seeded the {} filter with {} stored keys", keyName, count[0]);
+						bloom = seeded;
+				}
+				return bloom;
+		}
+
+		/**
+		 * Entities to write, keys already owned by the same entity, keys claimed until release (normalized keys)
+		 */
+		public record Admission<T>(List<T> accepted, Set<String> owned, Set<String> claimed) {
+		}
+}
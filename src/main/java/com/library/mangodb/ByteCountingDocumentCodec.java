@@ -0,0 +1,90 @@
+package com.library.mangodb;
+
+import com.library.common.metrics.Counter;
+import com.library.common.metrics.Metrics;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonReader;
+import org.bson.BsonValue;
+import org.bson.BsonWriter;
+import org.bson.Document;
+import org.bson.UuidRepresentation;
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.OverridableUuidRepresentationCodec;
+import org.bson.codecs.configuration.CodecRegistry;
+
+/**
+ * Document codec counting the BSON bytes read from and written to the server.
+ * Sizes come from the binary reader/writer positions, documents are not re-encoded.
+ */
+public class ByteCountingDocumentCodec implements CollectibleCodec<Document>, OverridableUuidRepresentationCodec<Document> {
+		private final DocumentCodec delegate;
+		private final Counter bytesRead;
+		private final Counter bytesWritten;
+
+		/**
+		 * @param registry Registry used for nested values, must not contain this codec
+		 */
+		public ByteCountingDocumentCodec(CodecRegistry registry) {
+				this(new DocumentCodec(registry),
+								Metrics.registry().counter("library.bytes.read", "backend", "mongo"),
+								Metrics.registry().counter("library.bytes.written", "backend", "mongo"));
+		}
+
+		private ByteCountingDocumentCodec(DocumentCodec delegate, Counter bytesRead, Counter bytesWritten) {
+				this.delegate = delegate;
+				this.bytesRead = bytesRead;
+				this.bytesWritten = bytesWritten;
+		}
+
+		@Override
+		public Document decode(BsonReader reader, DecoderContext decoderContext) {
+				if (!(reader instanceof BsonBinaryReader binaryReader)) {
+						return delegate.decode(reader, decoderContext);
+				}
+				int start = binaryReader.getBsonInput().getPosition();
+				Document document = delegate.decode(reader, decoderContext);
+				bytesRead.increment(binaryReader.getBsonInput().getPosition() - start);
+				return document;
+		}
+
+		@Override
+		public void encode(BsonWriter writer, Document value, EncoderContext encoderContext) {
+				if (!(writer instanceof BsonBinaryWriter binaryWriter)) {
+						delegate.encode(writer, value, encoderContext);
+						return;
+				}
+				int start = binaryWriter.getBsonOutput().getPosition();
+				delegate.encode(writer, value, encoderContext);
+				bytesWritten.increment(binaryWriter.getBsonOutput().getPosition() - start);
+		}
+
+		@Override
+		public Class<Document> getEncoderClass() {
+				return Document.class;
+		}
+
+		@Override
+		public Document generateIdIfAbsentFromDocument(Document document) {
+				return delegate.generateIdIfAbsentFromDocument(document);
+		}
+
+		@Override
+		public boolean documentHasId(Document document) {
+				return delegate.documentHasId(document);
+		}
+
+		@Override
+		public BsonValue getDocumentId(Document document) {
+				return delegate.getDocumentId(document);
+		}
+
+		@Override
+		public ByteCountingDocumentCodec withUuidRepresentation(UuidRepresentation uuidRepresentation) {
+				return new ByteCountingDocumentCodec((DocumentCodec) delegate.withUuidRepresentation(uuidRepresentation),
+								bytesRead, bytesWritten);
+		}
+}
@@ -1,10 +1,20 @@
 package com.library.mangodb;
 
+import com.mongodb.client.model.Collation;
+import com.mongodb.client.model.CollationStrength;
 import org.bson.Document;
 import org.bson.types.ObjectId;
 
 public class MangoUtils {
 
+		/**
+		 * Case-insensitive comparison of the unique keys (ISBN, email), like RavenDB's compare-exchange keys
+		 */
+		public static final Collation CASE_INSENSITIVE = Collation.builder()
+						.locale("en")
+						.collationStrength(CollationStrength.SECONDARY)
+						.build();
+
 		/**
 		 * Convert a String ID to ObjectId if possible, otherwise return the original string
 		 */
@@ -37,4 +47,28 @@ public class MangoUtils {
 				}
 				return idObj != null ? idObj.toString() : null;
 		}
-}
\ No newline at end of file
+
+		/**
+		 * Read a numeric field as a long (aggregation results may be Integer, Long or Double)
+		 */
+		public static long getLong(Document doc, String fieldName) {
+				Object value = doc.get(fieldName);
+				return value instanceof Number ? ((Number) value).longValue() : 0L;
+		}
+
+		/**
+		 * Read a numeric field as an int
+		 */
+		public static int getInt(Document doc, String fieldName) {
+				Object value = doc.get(fieldName);
+				return value instanceof Number ? ((Number) value).intValue() : 0;
+		}
+
+		/**
+		 * Read a numeric field as a double
+		 */
+		public static double getDouble(Document doc, String fieldName) {
+				Object value = doc.get(fieldName);
+				return value instanceof Number ? ((Number) value).doubleValue() : 0.0;
+		}
+}
@@ -1,11 +1,16 @@
 package com.library.mangodb;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.common.metrics.Metrics;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 import com.mongodb.client.MongoDatabase;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
 
 /**
  * MongoDB configuration class
@@ -21,11 +26,35 @@ public class MongoConfig {
 		public static MongoDatabase getDatabase() {
 				if (mongoClient == null) {
 						logger.info("Initializing MongoDB connection");
-						mongoClient = MongoClients.create(CONNECTION_STRING);
+						mongoClient = MongoClients.create(clientSettings());
 				}
 				return mongoClient.getDatabase(DATABASE_NAME);
 		}
 
+		/**
+		 * Client settings with metrics hooks (BSON byte counters, connection pool gauges)
+		 * and the optional query profiler
+		 */
+		private static MongoClientSettings clientSettings() {
+				CodecRegistry defaults = MongoClientSettings.getDefaultCodecRegistry();
+				CodecRegistry codecRegistry = CodecRegistries.fromRegistries(
+								CodecRegistries.fromCodecs(new ByteCountingDocumentCodec(defaults)),
+								defaults);
+
+				MongoClientSettings.Builder builder = MongoClientSettings.builder()
+								.applyConnectionString(new ConnectionString(CONNECTION_STRING))
+								.codecRegistry(codecRegistry)
+								.applyToConnectionPoolSettings(pool -> pool.addConnectionPoolListener(new PoolMetricsListener(Metrics.registry())));
+
+				long profileThresholdMillis = QueryProfiler.configuredThresholdMillis();
+				if (profileThresholdMillis >= 0) {
+						logger.info("Query profiling enabled for find/aggregate slower than {} ms", profileThresholdMillis);
+						builder.addCommandListener(new QueryProfiler(profileThresholdMillis, name -> mongoClient.getDatabase(name)));
+				}
+
+				return builder.build();
+		}
+
 		public static void resetDatabase() {
 				logger.info("Dropping database");
 				getDatabase().drop();
@@ -0,0 +1,43 @@
+package com.library.mangodb;
+
+import com.library.common.metrics.MetricsRegistry;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionClosedEvent;
+import com.mongodb.event.ConnectionCreatedEvent;
+import com.mongodb.event.ConnectionPoolListener;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Connection pool listener exposing open and in-use connections as gauges
+ */
+public class PoolMetricsListener implements ConnectionPoolListener {
+		private final AtomicInteger open = new AtomicInteger();
+		private final AtomicInteger checkedOut = new AtomicInteger();
+
+		public PoolMetricsListener(MetricsRegistry registry) {
+				registry.gauge("mongo.pool.connections.open", open::get);
+				registry.gauge("mongo.pool.connections.checkedOut", checkedOut::get);
+		}
+
+		@Override
+		public void connectionCreated(ConnectionCreatedEvent event) {
+				open.incrementAndGet();
+		}
+
+		@Override
+		public void connectionClosed(ConnectionClosedEvent event) {
+				open.decrementAndGet();
+		}
+
+		@Override
+		public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+				checkedOut.incrementAndGet();
+		}
+
+		@Override
+		public void connectionCheckedIn(ConnectionCheckedInEvent event) {
+				checkedOut.decrementAndGet();
+		}
+}
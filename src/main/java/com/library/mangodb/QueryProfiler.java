@@ -0,0 +1,254 @@
+package com.library.mangodb;
+
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Query profiling mode for find and aggregate commands.
+ * Every find/aggregate slower than the threshold is re-run with explain("executionStats")
+ * on a background thread, and a one-line JSON summary (docs examined vs returned,
+ * indexes used, per-stage timings, warnings) is written to the "library.queryprofile"
+ * logger, routed to a rolling file by the log4j2 configurations.
+ * Pipelines ending in $out or $merge are skipped: explain would run or reject their write stage.
+ * <p>
+ * Enabled with -Dlibrary.mongo.profile.thresholdMillis=N
+ */
+public class QueryProfiler implements CommandListener {
+		public static final String THRESHOLD_PROPERTY = "library.mongo.profile.thresholdMillis";
+		private static final Logger logger = LogManager.getLogger();
+		private static final Logger report = LogManager.getLogger("library.queryprofile");
+		private static final Set<String> PROFILED_COMMANDS = Set.of("find", "aggregate");
+		private static final Set<String> OUTPUT_STAGES = Set.of("$out", "$merge");
+		// Driver-added fields that explain does not accept
+		private static final Set<String> TRANSPORT_FIELDS = Set.of("lsid", "$db", "$clusterTime", "$readPreference",
+						"txnNumber", "signature", "apiVersion", "apiStrict", "apiDeprecationErrors");
+		private static final long LOW_SELECTIVITY_MIN_EXAMINED = 1000;
+		private static final long LOW_SELECTIVITY_RATIO = 10;
+		private static final int MAX_QUERY_LENGTH = 2000;
+
+		private final long thresholdMillis;
+		private final Function<String, MongoDatabase> databases;
+		private final Map<Integer, BsonDocument> inFlight = new ConcurrentHashMap<>();
+		private final ThreadPoolExecutor explainExecutor;
+
+		/**
+		 * @param thresholdMillis Commands at or above this latency are explained
+		 * @param databases       Database lookup used to run explain commands
+		 */
+		public QueryProfiler(long thresholdMillis, Function<String, MongoDatabase> databases) {
+				this.thresholdMillis = thresholdMillis;
+				this.databases = databases;
+				// Bounded and lossy: profiling must never slow down or block the application
+				this.explainExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+								new ArrayBlockingQueue<>(100),
+								r -> {
+										Thread thread = new Thread(r, "mongo-query-profiler");
+										thread.setDaemon(true);
+										return thread;
+								},
+								new ThreadPoolExecutor.DiscardPolicy());
+		}
+
+		/**
+		 * Threshold from the system property, or -1 when profiling is disabled
+		 */
+		public static long configuredThresholdMillis() {
+				String value = System.getProperty(THRESHOLD_PROPERTY);
+				if (value == null || value.isBlank()) {
+						return -1;
+				}
+				try {
+						return Long.parseLong(value.trim());
+				} catch (NumberFormatException e) {
+						logger.warn("Ignoring invalid {}={}", THRESHOLD_PROPERTY, value);
+						return -1;
+				}
+		}
+
+		@Override
+		public void commandStarted(CommandStartedEvent event) {
+				if (PROFILED_COMMANDS.contains(event.getCommandName()) && !writesOutput(event.getCommand())) {
+						// The command may be backed by a pooled buffer, keep a copy
+						inFlight.put(event.getRequestId(), event.getCommand().clone());
+				}
+		}
+
+		@Override
+		public void commandSucceeded(CommandSucceededEvent event) {
+				BsonDocument command = inFlight.remove(event.getRequestId());
+				if (command == null) {
+						return;
+				}
+
+				long elapsedMillis = event.getElapsedTime(TimeUnit.MILLISECONDS);
+				if (elapsedMillis >= thresholdMillis) {
+						String databaseName = event.getDatabaseName();
+						explainExecutor.execute(() -> explain(databaseName, event.getCommandName(), command, elapsedMillis));
+				}
+		}
+
+		@Override
+		public void commandFailed(CommandFailedEvent event) {
+				inFlight.remove(event.getRequestId());
+		}
+
+		private void explain(String databaseName, String commandName, BsonDocument command, long elapsedMillis) {
+				try {
+						for (String field : TRANSPORT_FIELDS) {
+								command.remove(field);
+						}
+
+						Document explain = databases.apply(databaseName).runCommand(new Document("explain", command)
+										.append("verbosity", "executionStats"));
+
+						Document entry = summarize(explain)
+										.append("timestamp", System.currentTimeMillis())
+										.append("database", databaseName)
+										.append("collection", command.get(commandName).isString() ? command.getString(commandName).getValue() : null)
+										.append("command", commandName)
+										.append("elapsedMillis", elapsedMillis)
+										.append("query", truncate(queryOf(commandName, command)));
+						report.info(entry.toJson());
+				} catch (Exception e) {
+						logger.warn("Could not explain slow {} ({} ms): {}", commandName, elapsedMillis, e.getMessage());
+				}
+		}
+
+		/**
+		 * Extract docs examined vs returned, indexes and stage timings from an explain result.
+		 * Handles both plain query plans and aggregation explains with a "stages" array.
+		 */
+		static Document summarize(Document explain) {
+				List<Document> stages = new ArrayList<>();
+				List<String> indexes = new ArrayList<>();
+				long[] totals = new long[2]; // docsExamined, keysExamined
+				collectExecutionStats(explain.get("executionStats"), stages, indexes, totals);
+
+				long returned = explain.get("executionStats") instanceof Document stats
+								? MangoUtils.getLong(stats, "nReturned")
+								: 0;
+
+				if (explain.get("stages") instanceof List<?> pipelineStages) {
+						for (Object stageObject : pipelineStages) {
+								if (!(stageObject instanceof Document pipelineStage)) {
+										continue;
+								}
+								String name = pipelineStage.keySet().stream().filter(k -> k.startsWith("$")).findFirst().orElse("?");
+								Object body = pipelineStage.get(name);
+								if ("$cursor".equals(name) && body instanceof Document cursor) {
+										collectExecutionStats(cursor.get("executionStats"), stages, indexes, totals);
+										collectPlanStages(cursor.get("queryPlanner"), new ArrayList<>(), indexes);
+								} else {
+										totals[0] += MangoUtils.getLong(pipelineStage, "totalDocsExamined");
+										totals[1] += MangoUtils.getLong(pipelineStage, "totalKeysExamined");
+								}
+								returned = MangoUtils.getLong(pipelineStage, "nReturned");
+								stages.add(new Document("stage", name)
+												.append("nReturned", pipelineStage.get("nReturned"))
+												.append("timeMillis", pipelineStage.get("executionTimeMillisEstimate")));
+						}
+				} else {
+						collectPlanStages(explain.get("queryPlanner"), new ArrayList<>(), indexes);
+				}
+
+				List<String> warnings = new ArrayList<>();
+				if (stages.stream().anyMatch(s -> "COLLSCAN".equals(s.getString("stage")))) {
+						warnings.add("COLLSCAN: no index used");
+				}
+				if (totals[0] >= LOW_SELECTIVITY_MIN_EXAMINED && totals[0] > LOW_SELECTIVITY_RATIO * Math.max(returned, 1)) {
+						warnings.add("LOW_SELECTIVITY: examined " + totals[0] + " documents for " + returned + " returned");
+				}
+
+				return new Document("docsExamined", totals[0])
+								.append("keysExamined", totals[1])
+								.append("nReturned", returned)
+								.append("indexes", indexes.stream().distinct().toList())
+								.append("stages", stages)
+								.append("warnings", warnings);
+		}
+
+		/**
+		 * Totals and stage tree of an executionStats section
+		 */
+		private static void collectExecutionStats(Object node, List<Document> stages, List<String> indexes, long[] totals) {
+				if (node instanceof Document executionStats) {
+						totals[0] += MangoUtils.getLong(executionStats, "totalDocsExamined");
+						totals[1] += MangoUtils.getLong(executionStats, "totalKeysExamined");
+						collectPlanStages(executionStats.get("executionStages"), stages, indexes);
+				}
+		}
+
+		/**
+		 * Walk a plan tree (inputStage, inputStages, queryPlan...) collecting every stage
+		 */
+		private static void collectPlanStages(Object node, List<Document> stages, List<String> indexes) {
+				if (node instanceof List<?> list) {
+						for (Object element : list) {
+								collectPlanStages(element, stages, indexes);
+						}
+						return;
+				}
+				if (!(node instanceof Document document)) {
+						return;
+				}
+
+				if (document.containsKey("stage")) {
+						stages.add(new Document("stage", document.getString("stage"))
+										.append("nReturned", document.get("nReturned"))
+										.append("timeMillis", document.get("executionTimeMillisEstimate")));
+						if (document.get("indexName") instanceof String indexName) {
+								indexes.add(indexName);
+						}
+				}
+
+				for (Map.Entry<String, Object> entry : document.entrySet()) {
+						// rejectedPlans were not executed
+						if (!"rejectedPlans".equals(entry.getKey())) {
+								collectPlanStages(entry.getValue(), stages, indexes);
+						}
+				}
+		}
+
+		/**
+		 * Whether the command is an aggregation whose last stage writes a collection
+		 */
+		private static boolean writesOutput(BsonDocument command) {
+				if (!command.isArray("pipeline") || command.getArray("pipeline").isEmpty()) {
+						return false;
+				}
+				BsonValue last = command.getArray("pipeline").get(command.getArray("pipeline").size() - 1);
+				return last.isDocument() && last.asDocument().keySet().stream().anyMatch(OUTPUT_STAGES::contains);
+		}
+
+		private static String queryOf(String commandName, BsonDocument command) {
+				if ("aggregate".equals(commandName) && command.containsKey("pipeline")) {
+						return command.getArray("pipeline").getValues().stream()
+										.map(stage -> stage.asDocument().toJson())
+										.collect(Collectors.joining(",", "[", "]"));
+				}
+				return command.containsKey("filter") ? command.getDocument("filter").toJson() : "{}";
+		}
+
+		private static String truncate(String value) {
+				return value.length() <= MAX_QUERY_LENGTH ? value : value.substring(0, MAX_QUERY_LENGTH) + "...";
+		}
+}
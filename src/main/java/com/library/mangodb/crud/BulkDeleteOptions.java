@@ -0,0 +1,67 @@
+package com.library.mangodb.crud;
+
+/**
+ * Options for batched deletes in {@link MongoGenericRepository#deleteManyInBatches}
+ */
+public class BulkDeleteOptions {
+		private int batchSize = 1000;
+		private long pauseMillis = 0;
+		private boolean logRemainingCount = false;
+		private ProgressListener progressListener;
+
+		/**
+		 * Progress callback, invoked after every deleted batch
+		 */
+		@FunctionalInterface
+		public interface ProgressListener {
+				void onProgress(long deletedSoFar, int batchesDone);
+		}
+
+		/**
+		 * Number of documents deleted per round trip
+		 */
+		public BulkDeleteOptions batchSize(int batchSize) {
+				if (batchSize <= 0) {
+						throw new IllegalArgumentException("batchSize must be positive");
+				}
+				this.batchSize = batchSize;
+				return this;
+		}
+
+		/**
+		 * Pause between two batches, to leave room for foreground traffic
+		 */
+		public BulkDeleteOptions pauseMillis(long pauseMillis) {
+				this.pauseMillis = Math.max(0, pauseMillis);
+				return this;
+		}
+
+		/**
+		 * Log the (estimated) remaining document count once the deletion is over
+		 */
+		public BulkDeleteOptions logRemainingCount(boolean logRemainingCount) {
+				this.logRemainingCount = logRemainingCount;
+				return this;
+		}
+
+		public BulkDeleteOptions progressListener(ProgressListener progressListener) {
+				this.progressListener = progressListener;
+				return this;
+		}
+
+		public int getBatchSize() {
+				return batchSize;
+		}
+
+		public long getPauseMillis() {
+				return pauseMillis;
+		}
+
+		public boolean isLogRemainingCount() {
+				return logRemainingCount;
+		}
+
+		public ProgressListener getProgressListener() {
+				return progressListener;
+		}
+}
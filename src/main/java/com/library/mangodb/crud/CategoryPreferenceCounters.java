@@ -0,0 +1,146 @@
+package com.library.mangodb.crud;
+
+import com.library.common.analytics.MemberAnalytics.CategoryScore;
+import com.library.common.model.Member;
+import com.library.mangodb.MangoUtils;
+import com.library.mangodb.MongoConfig;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Global category preference totals, one document per category: {_id: category, score, members}.
+ * Member writes apply their delta with $inc upserts, so top categories are read from a small
+ * score-indexed collection instead of unwinding every member.
+ * Bulk deletes by query cannot compute a delta and call {@link #rebuild(MongoCollection)}; bulk updates
+ * and raw writes {@link #invalidate()} the counters instead, the next read rebuilds them.
+ */
+public class CategoryPreferenceCounters {
+		private static final Logger logger = LogManager.getLogger();
+		public static final String COLLECTION = "categoryPreferenceCounters";
+		// Marker of stale counters, its _id cannot collide with a category path
+		private static final Document INVALIDATED_ID = new Document("invalidated", true);
+
+		private final MongoCollection<Document> counters;
+
+		public CategoryPreferenceCounters() {
+				this.counters = MongoConfig.getDatabase().getCollection(COLLECTION);
+		}
+
+		/**
+		 * Apply the change from the removed (or previous) versions of members to the added (or new) ones
+		 */
+		public void apply(Collection<Member> removed, Collection<Member> added) {
+				Map<String, long[]> deltas = new HashMap<>();
+				accumulate(deltas, removed, -1);
+				accumulate(deltas, added, 1);
+
+				List<WriteModel<Document>> writes = new ArrayList<>();
+				for (Map.Entry<String, long[]> entry : deltas.entrySet()) {
+						long[] delta = entry.getValue();
+						if (delta[0] != 0 || delta[1] != 0) {
+								writes.add(new UpdateOneModel<>(Filters.eq("_id", entry.getKey()),
+												Updates.combine(Updates.inc("score", delta[0]), Updates.inc("members", delta[1])),
+												new UpdateOptions().upsert(true)));
+						}
+				}
+				if (!writes.isEmpty()) {
+						counters.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+				}
+		}
+
+		private static void accumulate(Map<String, long[]> deltas, Collection<Member> members, int sign) {
+				for (Member member : members) {
+						if (member == null || member.getReadingStats() == null || member.getReadingStats().getCategoryPreferences() == null) {
+								continue;
+						}
+						for (Map.Entry<String, Integer> preference : member.getReadingStats().getCategoryPreferences().entrySet()) {
+								long[] delta = deltas.computeIfAbsent(preference.getKey(), k -> new long[2]);
+								delta[0] += sign * (long) preference.getValue();
+								delta[1] += sign;
+						}
+				}
+		}
+
+		/**
+		 * Categories by total score, highest first
+		 *
+		 * @param limit Maximum number of categories, 0 for all
+		 */
+		public List<CategoryScore> top(int limit) {
+				return counters.find(Filters.gt("members", 0))
+								.sort(Sorts.descending("score"))
+								.limit(limit)
+								.map(doc -> new CategoryScore(doc.getString("_id"), MangoUtils.getLong(doc, "score")))
+								.into(new ArrayList<>());
+		}
+
+		/**
+		 * Number of members with a preference for the category
+		 */
+		public long memberCount(String category) {
+				Document counter = counters.find(Filters.eq("_id", category)).first();
+				return counter == null ? 0 : MangoUtils.getLong(counter, "members");
+		}
+
+		/**
+		 * Whether the counters are missing or were invalidated since their last rebuild
+		 */
+		public boolean needsRebuild() {
+				return counters.estimatedDocumentCount() == 0 || counters.countDocuments(Filters.eq("_id", INVALIDATED_ID)) > 0;
+		}
+
+		/**
+		 * Mark the counters stale after a write whose delta is unknown, until the next {@link #rebuild(MongoCollection)}
+		 */
+		public void invalidate() {
+				counters.replaceOne(Filters.eq("_id", INVALIDATED_ID), new Document("_id", INVALIDATED_ID), new ReplaceOptions().upsert(true));
+		}
+
+		/**
+		 * Recompute every counter from the members collection, whatever the preference layout.
+		 * $out replaces the whole collection, invalidation marker included.
+		 */
+		public void rebuild(MongoCollection<Document> members) {
+				List<Document> pipeline = List.of(
+								new Document("$project", new Document("preferences", new Document("$ifNull", List.of(
+												"$" + MangoMemberRepository.CATEGORY_SCORES,
+												new Document("$map", new Document("input", new Document("$objectToArray",
+																new Document("$ifNull", List.of("$readingStats.categoryPreferences", new Document()))))
+																.append("in", new Document("category", "$$this.k").append("score", "$$this.v"))))))),
+								new Document("$unwind", "$preferences"),
+								new Document("$group", new Document("_id", "$preferences.category")
+												.append("score", new Document("$sum", "$preferences.score"))
+												.append("members", new Document("$sum", 1))),
+								new Document("$out", COLLECTION)
+				);
+				members.aggregate(pipeline).toCollection();
+				ensureIndexes();
+				logger.info("Rebuilt category preference counters: {} categories", counters.estimatedDocumentCount());
+		}
+
+		public void ensureIndexes() {
+				counters.createIndex(Indexes.descending("score"), new IndexOptions().name("score"));
+		}
+
+		public void drop() {
+				counters.drop();
+		}
+}
@@ -1,9 +1,15 @@
 package com.library.mangodb.crud;
 
+import com.library.common.facet.BookFacetIndex;
 import com.library.common.model.Book;
+import com.library.common.model.BookListItem;
 import com.library.common.util.ModelDataGenerator;
+import com.library.common.util.UniqueKeyFilter;
 import com.library.mangodb.MangoUtils;
 import com.library.mangodb.MongoConfig;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
 import com.mongodb.client.model.UpdateOptions;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -12,8 +18,10 @@ import org.bson.types.ObjectId;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -21,6 +29,14 @@ import java.util.stream.Collectors;
  */
 public class MangoBookRepository extends MongoGenericRepository<Book> {
 		private static final Logger logger = LogManager.getLogger();
+		private static final MongoProjection<BookListItem> LIST_ITEM = MongoProjection.of(
+						doc -> new BookListItem(MangoUtils.getIdAsString(doc, "_id"), doc.getString("title"),
+										doc.getString("isbn"), doc.getBoolean("available", false)),
+						"title", "isbn", "available");
+
+		private final UniqueKeyFilter<Book> isbnFilter =
+						new UniqueKeyFilter<>("ISBN", Book::getIsbn, Book::getId, this::forEachIsbn, this::isbnOwners);
+		private volatile BookFacetIndex facets;
 
 		public MangoBookRepository() {
 				super("books", "book");
@@ -77,6 +93,15 @@ public class MangoBookRepository extends MongoGenericRepository<Book> {
 				List<Book> booksWithProjection = repository.find(new Document(), projection);
 				logger.info("Found {} books with projection", booksWithProjection.size());
 
+				// Test typed projection
+				logger.info("=== Testing findListItems ===");
+				List<BookListItem> bookItems = repository.findListItems(new Document());
+				if (!bookItems.isEmpty()) {
+						BookListItem item = bookItems.get(0);
+						logger.info("Found {} book list items, first: Title={}, ISBN={}, Available={}",
+										bookItems.size(), item.getTitle(), item.getIsbn(), item.isAvailable());
+				}
+
 				// Test find by category
 				if (!allBooks.isEmpty()) {
 						Book sampleBook = allBooks.get(0);
@@ -92,6 +117,13 @@ public class MangoBookRepository extends MongoGenericRepository<Book> {
 				List<Book> availableBooks = repository.findAvailableBooks();
 				logger.info("Found {} available books", availableBooks.size());
 
+				// Test facet index
+				logger.info("=== Testing facet index ===");
+				BookFacetIndex facets = new BookFacetIndex();
+				repository.feedFacets(facets);
+				logger.info("Available books from the facet index: {}", facets.query().available().count());
+				logger.info("Available books per language: {}", facets.query().available().countBy(BookFacetIndex.Facet.LANGUAGE));
+
 				// =====================
 				// UPDATE OPERATIONS
 				// =====================
@@ -327,6 +359,14 @@ public class MangoBookRepository extends MongoGenericRepository<Book> {
 				return find(query);
 		}
 
+		/**
+		 * Find book by ISBN, served by the unique isbn index
+		 */
+		public Book findByIsbn(String isbn) {
+				List<Book> books = find(new Document("isbn", isbn));
+				return books.isEmpty() ? null : books.get(0);
+		}
+
 		/**
 		 * Find available books
 		 */
@@ -335,6 +375,20 @@ public class MangoBookRepository extends MongoGenericRepository<Book> {
 				return find(query);
 		}
 
+		/**
+		 * Find books as list items (title, isbn, available)
+		 */
+		public List<BookListItem> findListItems(Document whereQuery) {
+				return findProjected(whereQuery, LIST_ITEM);
+		}
+
+		/**
+		 * Find available books as list items
+		 */
+		public List<BookListItem> findAvailableListItems() {
+				return findProjected(new Document("available", true), LIST_ITEM);
+		}
+
 		/**
 		 * Update book availability
 		 */
@@ -356,4 +410,182 @@ public class MangoBookRepository extends MongoGenericRepository<Book> {
 				List<Book> books = find(query);
 				return books.isEmpty() ? null : books.get(0);
 		}
-}
\ No newline at end of file
+
+		/**
+		 * Load every book into the facet index and keep it current from this repository's writes.
+		 * Bulk updates and deletes by query reload the index.
+		 */
+		public void feedFacets(BookFacetIndex index) {
+				loadFacets(index);
+				this.facets = index;
+		}
+
+		/**
+		 * Stream the books into a facet index, without their loan history
+		 *
+		 * @return Number of books indexed
+		 */
+		public long loadFacets(BookFacetIndex index) {
+				long start = System.nanoTime();
+				long loaded = 0;
+				index.clear();
+				for (Document doc : collection.find().projection(new Document("loanHistory", 0)).batchSize(1000)) {
+						index.put(documentToEntity(doc));
+						loaded++;
+				}
+				metrics.record("loadFacets", start);
+				logger.info("Indexed {} books in the facet index", loaded);
+				return loaded;
+		}
+
+		@Override
+		public ObjectId insertOne(Book book) {
+				ObjectId id = super.insertOne(book);
+				BookFacetIndex index = facets;
+				if (index != null && id != null) {
+						index.put(id.toHexString(), book);
+				}
+				return id;
+		}
+
+		/**
+		 * Insert the books whose ISBN is not taken yet, the others are skipped
+		 */
+		@Override
+		public List<ObjectId> insertMany(List<Book> books) {
+				UniqueKeyFilter.Admission<Book> admission = isbnFilter.admit(books);
+				try {
+						List<Book> accepted = admission.accepted();
+						List<ObjectId> ids = insertManySkippingDuplicates(accepted);
+						List<ObjectId> inserted = new ArrayList<>(ids.size());
+						BookFacetIndex index = facets;
+						for (int i = 0; i < ids.size(); i++) {
+								if (ids.get(i) != null) {
+										inserted.add(ids.get(i));
+										if (index != null) {
+												index.put(ids.get(i).toHexString(), accepted.get(i));
+										}
+								}
+						}
+						return inserted;
+				} finally {
+						isbnFilter.release(admission);
+				}
+		}
+
+		/**
+		 * Upsert the books whose ISBN is free or already theirs, the others are skipped
+		 */
+		@Override
+		public long upsertMany(List<Book> books) {
+				UniqueKeyFilter.Admission<Book> admission = isbnFilter.admit(books);
+				try {
+						List<Book> written = upsertManySkippingDuplicates(admission.accepted());
+						BookFacetIndex index = facets;
+						if (index != null) {
+								if (written.stream().allMatch(book -> book.getId() != null)) {
+										written.forEach(index::put);
+								} else {
+										// Generated ids are not returned, reload instead
+										loadFacets(index);
+								}
+						}
+						return written.size();
+				} finally {
+						isbnFilter.release(admission);
+				}
+		}
+
+		@Override
+		public boolean update(Book book) {
+				boolean updated = super.update(book);
+				BookFacetIndex index = facets;
+				if (updated && index != null) {
+						index.put(book);
+				}
+				return updated;
+		}
+
+		@Override
+		public boolean updateMany(Document whereQuery, Document updateExpressions, UpdateOptions updateOptions) {
+				boolean updated = super.updateMany(whereQuery, updateExpressions, updateOptions);
+				BookFacetIndex index = facets;
+				if (updated && index != null) {
+						loadFacets(index);
+				}
+				return updated;
+		}
+
+		@Override
+		public boolean updateManyWithPipeline(Document whereQuery, List<Document> updatePipeline, UpdateOptions updateOptions) {
+				boolean updated = super.updateManyWithPipeline(whereQuery, updatePipeline, updateOptions);
+				BookFacetIndex index = facets;
+				if (updated && index != null) {
+						loadFacets(index);
+				}
+				return updated;
+		}
+
+		@Override
+		public boolean delete(Book book) {
+				boolean deleted = super.delete(book);
+				BookFacetIndex index = facets;
+				if (deleted && index != null) {
+						index.remove(book.getId());
+				}
+				return deleted;
+		}
+
+		@Override
+		public boolean deleteMany(Document whereQuery) {
+				boolean deleted = super.deleteMany(whereQuery);
+				BookFacetIndex index = facets;
+				if (deleted && index != null) {
+						loadFacets(index);
+				}
+				return deleted;
+		}
+
+		@Override
+		public long deleteManyInBatches(Document whereQuery, BulkDeleteOptions options) {
+				long deleted = super.deleteManyInBatches(whereQuery, options);
+				BookFacetIndex index = facets;
+				if (deleted > 0 && index != null) {
+						loadFacets(index);
+				}
+				return deleted;
+		}
+
+		@Override
+		protected List<IndexModel> indexModels() {
+				return List.of(
+								// Unique among the books that have an ISBN, whatever its case
+								new IndexModel(Indexes.ascending("isbn"), new IndexOptions().name("isbn_unique_ci").unique(true)
+												.collation(MangoUtils.CASE_INSENSITIVE)
+												.partialFilterExpression(new Document("isbn", new Document("$type", "string"))))
+				);
+		}
+
+		@Override
+		public void dropCollection() {
+				super.dropCollection();
+				isbnFilter.reset();
+		}
+
+		private void forEachIsbn(Consumer<String> consumer) {
+				for (Document doc : collection.find(new Document("isbn", new Document("$type", "string")))
+								.projection(new Document("isbn", 1).append("_id", 0)).batchSize(10_000)) {
+						consumer.accept(doc.getString("isbn"));
+				}
+		}
+
+		private Map<String, String> isbnOwners(Collection<String> isbns) {
+				Map<String, String> owners = new HashMap<>();
+				for (Document doc : collection.find(new Document("isbn", new Document("$in", isbns)))
+								.collation(MangoUtils.CASE_INSENSITIVE)
+								.projection(new Document("isbn", 1))) {
+						owners.put(doc.getString("isbn"), MangoUtils.getIdAsString(doc, "_id"));
+				}
+				return owners;
+		}
+}
@@ -1,9 +1,14 @@
 package com.library.mangodb.crud;
 
 import com.library.common.model.Category;
+import com.library.common.util.CategoryPaths;
+import com.library.common.util.CategoryTree;
 import com.library.common.util.ModelDataGenerator;
 import com.library.mangodb.MangoUtils;
 import com.library.mangodb.MongoConfig;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
 import com.mongodb.client.model.UpdateOptions;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -18,8 +23,22 @@ import java.util.List;
 public class MangoCategoryRepository extends MongoGenericRepository<Category> {
 		private static final Logger logger = LogManager.getLogger();
 
+		public static final String ANCESTORS = "ancestors";
+		public static final String DEPTH = "depth";
+		public static final String PARENT = "parent";
+
+		private final MangoMemberRepository members;
+
 		public MangoCategoryRepository() {
+				this(new MangoMemberRepository());
+		}
+
+		/**
+		 * @param members Member repository renaming the preferences of moved categories, its counters follow the move
+		 */
+		public MangoCategoryRepository(MangoMemberRepository members) {
 				super("categories", "category");
+				this.members = members;
 		}
 
 		public static void main(String[] args) {
@@ -88,6 +107,26 @@ public class MangoCategoryRepository extends MongoGenericRepository<Category> {
 						logger.info("Found {} categories with name containing 'Fiction'", categoriesByName.size());
 				}
 
+				// Test hierarchy lookups
+				if (!allCategories.isEmpty()) {
+						logger.info("=== Testing hierarchy lookups ===");
+						repository.ensureIndexes();
+						CategoryTree tree = repository.loadTree();
+						logger.info("Tree: {} roots, {} leaves", tree.roots().size(), tree.leaves().size());
+						logger.info("Children of 'Fiction': {}", repository.findChildren("Fiction").size());
+						logger.info("Subtree of 'Fiction': {}", repository.findSubtree("Fiction").size());
+						logger.info("Categories at depth 2: {}", repository.findAtDepth(2).size());
+				}
+
+				// Test subtree move
+				if (!allCategories.isEmpty()) {
+						logger.info("=== Testing moveSubtree ===");
+						boolean moved = repository.moveSubtree("Fiction", "Literature/Fiction");
+						logger.info("Move result: {}, children of 'Literature/Fiction': {}", moved,
+										repository.findChildren("Literature/Fiction").size());
+						repository.moveSubtree("Literature/Fiction", "Fiction");
+				}
+
 				// Test find by parent
 				if (!allCategories.isEmpty()) {
 						logger.info("=== Testing findByParent ===");
@@ -194,6 +233,10 @@ public class MangoCategoryRepository extends MongoGenericRepository<Category> {
 
 				if (category.getPath() != null) {
 						doc.append("path", category.getPath());
+						// Hierarchy fields are always derived from the path so they cannot drift from it
+						doc.append(ANCESTORS, CategoryPaths.ancestorsOf(category.getPath()));
+						doc.append(DEPTH, CategoryPaths.depthOf(category.getPath()));
+						doc.append(PARENT, CategoryPaths.parentOf(category.getPath()));
 				} else if (category.getName().isEmpty()) {
 						doc.append("path", "NaN");
 				}
@@ -237,10 +280,104 @@ public class MangoCategoryRepository extends MongoGenericRepository<Category> {
 		}
 
 		/**
-		 * Find category by parent
+		 * Find every descendant of a category path (index lookup on ancestors)
 		 */
 		public List<Category> findByParent(String parent) {
-				Document query = new Document("path", new Document("$regex", "^" + parent + "/").append("$options", "i"));
-				return find(query);
+				return find(new Document(ANCESTORS, parent));
+		}
+
+		/**
+		 * Find the direct children of a category path
+		 */
+		public List<Category> findChildren(String parentPath) {
+				return find(new Document(PARENT, parentPath));
+		}
+
+		/**
+		 * Find a category and all its descendants
+		 */
+		public List<Category> findSubtree(String path) {
+				return find(new Document("$or", List.of(new Document("path", path), new Document(ANCESTORS, path))));
+		}
+
+		/**
+		 * Find categories at a depth, 1 being top-level
+		 */
+		public List<Category> findAtDepth(int depth) {
+				return find(new Document(DEPTH, depth));
+		}
+
+		/**
+		 * Load every category into an in-memory tree
+		 */
+		public CategoryTree loadTree() {
+				return new CategoryTree(find(new Document()));
+		}
+
+		/**
+		 * Move a category and all its descendants under a new path in one server-side updateMany.
+		 * Path, ancestors, depth and parent of every document are rewritten by a single pipeline $set
+		 * from their current values, then the member preferences keyed by a moved path are renamed.
+		 * Books reference categories by ID and need no change.
+		 * Each document is updated atomically, the whole move is not a transaction.
+		 *
+		 * @param oldPath Path of the subtree root, e.g. "Fiction/Fantasy"
+		 * @param newPath New path of the root, e.g. "Genre/Fantasy"
+		 * @return true if at least one category was moved
+		 */
+		public boolean moveSubtree(String oldPath, String newPath) {
+				if (CategoryPaths.isInSubtree(newPath, oldPath)) {
+						throw new IllegalArgumentException("Cannot move " + oldPath + " into its own subtree " + newPath);
+				}
+				Document subtree = new Document("$or", List.of(new Document("path", oldPath), new Document(ANCESTORS, oldPath)));
+				Document target = new Document("$or", List.of(new Document("path", newPath), new Document(ANCESTORS, newPath)));
+				if (collection.countDocuments(target) > 0) {
+						throw new IllegalArgumentException("Target path already exists: " + newPath);
+				}
+
+				int oldLength = oldPath.codePointCount(0, oldPath.length());
+				int oldDepth = CategoryPaths.depthOf(oldPath);
+
+				Document set = new Document()
+								.append("path", replacePrefix("$path", newPath, oldLength))
+								// Ancestors above the old root are replaced, those inside the subtree get the new prefix
+								.append(ANCESTORS, new Document("$concatArrays", List.of(
+												CategoryPaths.ancestorsOf(newPath),
+												new Document("$map", new Document("input", new Document("$slice", List.of(
+																"$" + ANCESTORS, oldDepth - 1, new Document("$max", List.of(1, new Document("$size", "$" + ANCESTORS))))))
+																.append("as", "ancestor")
+																.append("in", replacePrefix("$$ancestor", newPath, oldLength))))))
+								.append(DEPTH, new Document("$add", List.of("$" + DEPTH, CategoryPaths.depthOf(newPath) - oldDepth)))
+								.append(PARENT, new Document("$cond", List.of(
+												new Document("$eq", List.of("$path", oldPath)),
+												new Document("$literal", CategoryPaths.parentOf(newPath)),
+												replacePrefix("$" + PARENT, newPath, oldLength))));
+
+				// A single $set stage evaluates every expression against the document before the update
+				boolean moved = updateManyWithPipeline(subtree, List.of(new Document("$set", set)), new UpdateOptions());
+				if (moved) {
+						members.renameCategoryPrefix(oldPath, newPath);
+				}
+				logger.info("Moved category subtree '{}' to '{}': {}", oldPath, newPath, moved);
+				return moved;
+		}
+
+		/**
+		 * newPrefix + value without its first oldLength code points
+		 */
+		private static Document replacePrefix(String value, String newPrefix, int oldLength) {
+				return new Document("$concat", List.of(newPrefix, new Document("$substrCP", List.of(
+								value, oldLength, new Document("$strLenCP", value)))));
+		}
+
+		@Override
+		protected List<IndexModel> indexModels() {
+				return List.of(
+								new IndexModel(Indexes.ascending("path"), new IndexOptions().name("path")),
+								// Multikey: one entry per ancestor, serves subtree and leaf lookups
+								new IndexModel(Indexes.ascending(ANCESTORS), new IndexOptions().name("ancestors")),
+								new IndexModel(Indexes.ascending(PARENT), new IndexOptions().name("parent")),
+								new IndexModel(Indexes.ascending(DEPTH), new IndexOptions().name("depth"))
+				);
 		}
 }
\ No newline at end of file
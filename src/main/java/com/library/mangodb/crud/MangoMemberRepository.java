@@ -1,25 +1,72 @@
 package com.library.mangodb.crud;
 
+import com.library.common.analytics.MemberAnalytics.CategoryScore;
 import com.library.common.model.Member;
+import com.library.common.model.MemberListItem;
+import com.library.common.paging.Page;
 import com.library.common.util.ModelDataGenerator;
+import com.library.common.util.UniqueKeyFilter;
 import com.library.mangodb.MangoUtils;
 import com.library.mangodb.MongoConfig;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.MongoCollection;
 import com.mongodb.client.model.UpdateOptions;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * Question 7 - CRUD Operations
  */
 public class MangoMemberRepository extends MongoGenericRepository<Member> {
 		private static final Logger logger = LogManager.getLogger();
+		public static final String ACTIVE_LOANS_DUE_DATE = "activeLoans.dueDate";
+		private static final MongoProjection<MemberListItem> LIST_ITEM = MongoProjection.of(
+						doc -> new MemberListItem(MangoUtils.getIdAsString(doc, "_id"), doc.getString("firstName"),
+										doc.getString("lastName"), doc.getString("email")),
+						"firstName", "lastName", "email");
+
+		public static final String CATEGORY_SCORES = "readingStats.categoryScores";
+		private static final String CATEGORY = "category";
+		private static final String SCORE = "score";
+
+		/**
+		 * Storage of readingStats category preferences, chosen with -Dlibrary.member.preferenceLayout
+		 */
+		public enum PreferenceLayout {
+				/**
+				 * {"Fiction/Fantasy": 3, ...}, keys cannot be indexed
+				 */
+				MAP,
+				/**
+				 * categoryScores: [{category: "Fiction/Fantasy", score: 3}, ...] (default)
+				 */
+				ATTRIBUTES
+		}
+
+		private static final PreferenceLayout PREFERENCE_LAYOUT = PreferenceLayout.valueOf(
+						System.getProperty("library.member.preferenceLayout", "attributes").toUpperCase(Locale.ROOT));
+
+		private final CategoryPreferenceCounters categoryCounters = new CategoryPreferenceCounters();
+		private final UniqueKeyFilter<Member> emailFilter =
+						new UniqueKeyFilter<>("email", Member::getEmail, Member::getId, this::forEachEmail, this::emailOwners);
 
 		public MangoMemberRepository() {
 				super("members", "member");
@@ -73,6 +120,25 @@ public class MangoMemberRepository extends MongoGenericRepository<Member> {
 				List<Member> membersWithProjection = repository.find(new Document(), projection);
 				logger.info("Found {} members with projection", membersWithProjection.size());
 
+				// Test typed projection
+				logger.info("=== Testing findListItems ===");
+				List<MemberListItem> memberItems = repository.findListItems(new Document());
+				if (!memberItems.isEmpty()) {
+						MemberListItem item = memberItems.get(0);
+						logger.info("Found {} member list items, first: {} {} <{}>",
+										memberItems.size(), item.getFirstName(), item.getLastName(), item.getEmail());
+				}
+
+				// Test keyset pagination
+				logger.info("=== Testing findPage ===");
+				String token = null;
+				int pageNumber = 0;
+				do {
+						Page<Member> page = repository.findPage(new Document(), "lastName", false, 3, token);
+						logger.info("Page {}: {} members, has next: {}", ++pageNumber, page.items().size(), page.hasNext());
+						token = page.nextToken();
+				} while (token != null);
+
 				// Test find by name
 				if (!allMembers.isEmpty()) {
 						Member sampleMember = allMembers.get(0);
@@ -95,6 +161,16 @@ public class MangoMemberRepository extends MongoGenericRepository<Member> {
 				List<Member> membersWithOverdueBooks = repository.findMembersWithOverdueBooks();
 				logger.info("Found {} members with overdue books", membersWithOverdueBooks.size());
 
+				// Test category preference lookups
+				logger.info("=== Testing category preferences ===");
+				repository.ensureIndexes();
+				List<CategoryScore> topCategories = repository.getCategoryCounters().top(3);
+				logger.info("Top categories: {}", topCategories);
+				if (!topCategories.isEmpty()) {
+						String category = topCategories.get(0).category();
+						logger.info("Members who like '{}': {}", category, repository.findMembersWhoLike(category, 1).size());
+				}
+
 				// =====================
 				// UPDATE OPERATIONS
 				// =====================
@@ -229,11 +305,20 @@ public class MangoMemberRepository extends MongoGenericRepository<Member> {
 
 						// Add category preferences
 						if (member.getReadingStats().getCategoryPreferences() != null) {
-								Document prefsDoc = new Document();
-								for (Map.Entry<String, Integer> entry : member.getReadingStats().getCategoryPreferences().entrySet()) {
-										prefsDoc.append(entry.getKey(), entry.getValue());
+								if (PREFERENCE_LAYOUT == PreferenceLayout.ATTRIBUTES) {
+										// Attribute pattern: [{category, score}], served by a multikey index
+										List<Document> scores = new ArrayList<>();
+										for (Map.Entry<String, Integer> entry : member.getReadingStats().getCategoryPreferences().entrySet()) {
+												scores.add(new Document(CATEGORY, entry.getKey()).append(SCORE, entry.getValue()));
+										}
+										statsDoc.append("categoryScores", scores);
+								} else {
+										Document prefsDoc = new Document();
+										for (Map.Entry<String, Integer> entry : member.getReadingStats().getCategoryPreferences().entrySet()) {
+												prefsDoc.append(entry.getKey(), entry.getValue());
+										}
+										statsDoc.append("categoryPreferences", prefsDoc);
 								}
-								statsDoc.append("categoryPreferences", prefsDoc);
 						}
 
 						// Add favorite authors
@@ -370,14 +455,21 @@ public class MangoMemberRepository extends MongoGenericRepository<Member> {
 								stats.setAverageDaysToReturn(averageDaysToReturn);
 						}
 
-						// Convert category preferences
+						// Convert category preferences, from either layout
 						Document prefsDoc = (Document) statsDoc.get("categoryPreferences");
+						List<Document> scores = statsDoc.getList("categoryScores", Document.class);
 						if (prefsDoc != null) {
 								Map<String, Integer> categoryPreferences = new HashMap<>();
 								for (String key : prefsDoc.keySet()) {
 										categoryPreferences.put(key, prefsDoc.getInteger(key));
 								}
 								stats.setCategoryPreferences(categoryPreferences);
+						} else if (scores != null) {
+								Map<String, Integer> categoryPreferences = new HashMap<>();
+								for (Document score : scores) {
+										categoryPreferences.put(score.getString(CATEGORY), score.getInteger(SCORE));
+								}
+								stats.setCategoryPreferences(categoryPreferences);
 						}
 
 						// Convert favorite authors
@@ -423,11 +515,291 @@ public class MangoMemberRepository extends MongoGenericRepository<Member> {
 				return member;
 		}
 
+		@Override
+		protected List<IndexModel> indexModels() {
+				return List.of(
+								// Multikey: one entry per active loan
+								new IndexModel(Indexes.ascending(ACTIVE_LOANS_DUE_DATE), new IndexOptions().name("activeLoans_dueDate")),
+								// Multikey: one entry per category preference, "members who like X" by descending score
+								new IndexModel(Indexes.compoundIndex(
+												Indexes.ascending(CATEGORY_SCORES + "." + CATEGORY),
+												Indexes.descending(CATEGORY_SCORES + "." + SCORE)), new IndexOptions().name("categoryScores_category_score")),
+								// Multikey: one entry per favorite author, serves the exact counts of the top authors
+								new IndexModel(Indexes.ascending("readingStats.favoriteAuthors"), new IndexOptions().name("readingStats_favoriteAuthors")),
+								// Keyset pages sorted by last name (findPage)
+								new IndexModel(Indexes.ascending("lastName", "_id"), new IndexOptions().name("lastName_id")),
+								// Unique among the members that have an email, whatever its case
+								new IndexModel(Indexes.ascending("email"), new IndexOptions().name("email_unique_ci").unique(true)
+												.collation(MangoUtils.CASE_INSENSITIVE)
+												.partialFilterExpression(new Document("email", new Document("$type", "string"))))
+				);
+		}
+
 		@Override
 		protected String getEntityId(Member member) {
 				return member.getId();
 		}
 
+		/**
+		 * Members with a preference score of at least minScore for the category, highest score for that
+		 * category first. Needs the attribute layout, the match is served by the categoryScores index.
+		 */
+		public List<Member> findMembersWhoLike(String category, int minScore) {
+				long start = System.nanoTime();
+				try {
+						Document query = new Document(CATEGORY_SCORES, new Document("$elemMatch",
+										new Document(CATEGORY, category).append(SCORE, new Document("$gte", minScore))));
+						// Sorting on the array field would use each member's highest score in any category
+						Document matchedScore = new Document("$max", new Document("$map", new Document("input",
+										new Document("$filter", new Document("input", "$" + CATEGORY_SCORES)
+														.append("cond", new Document("$eq", List.of("$$this." + CATEGORY, category)))))
+										.append("in", "$$this." + SCORE)));
+						List<Document> pipeline = List.of(
+										new Document("$match", query),
+										new Document("$addFields", new Document("matchedScore", matchedScore)),
+										new Document("$sort", new Document("matchedScore", -1).append("_id", 1)),
+										new Document("$project", new Document("matchedScore", 0)));
+						List<Member> members = collection.aggregate(pipeline).map(this::documentToEntity).into(new ArrayList<>());
+						metrics.documentsRead(members.size());
+						return members;
+				} finally {
+						metrics.record("findMembersWhoLike", start);
+				}
+		}
+
+		/**
+		 * Rename the category preferences of the subtree rooted at oldPath after a category move, in both
+		 * layouts, then rebuild the counters keyed by path. Attribute preferences are found through the
+		 * categoryScores index, map preferences need a scan of the members that have one.
+		 */
+		public void renameCategoryPrefix(String oldPath, String newPath) {
+				int oldLength = oldPath.codePointCount(0, oldPath.length());
+				Document subtree = new Document("$regex", "^" + Pattern.quote(oldPath) + "(/|$)");
+
+				Document scores = new Document("$set", new Document(CATEGORY_SCORES, new Document("$map",
+								new Document("input", "$" + CATEGORY_SCORES)
+												.append("in", new Document("$mergeObjects", List.of("$$this",
+																new Document(CATEGORY, renamedPath("$$this." + CATEGORY, oldPath, newPath, oldLength))))))));
+				boolean renamedScores = updateManyWithPipeline(new Document(CATEGORY_SCORES + "." + CATEGORY, subtree),
+								List.of(scores), new UpdateOptions());
+
+				Document preferences = new Document("$set", new Document("readingStats.categoryPreferences", new Document("$arrayToObject",
+								new Document("$map", new Document("input", new Document("$objectToArray", "$readingStats.categoryPreferences"))
+												.append("in", new Document("k", renamedPath("$$this.k", oldPath, newPath, oldLength)).append("v", "$$this.v"))))));
+				boolean renamedPreferences = updateManyWithPipeline(new Document("readingStats.categoryPreferences", new Document("$type", "object")),
+								List.of(preferences), new UpdateOptions());
+
+				if (renamedScores || renamedPreferences) {
+						categoryCounters.rebuild(collection);
+				}
+		}
+
+		/**
+		 * Expression of a category path with the oldPath prefix replaced by newPath, unchanged outside the subtree
+		 */
+		private static Document renamedPath(String path, String oldPath, String newPath, int oldLength) {
+				Document inSubtree = new Document("$or", List.of(
+								new Document("$eq", List.of(path, oldPath)),
+								new Document("$eq", List.of(new Document("$substrCP", List.of(path, 0, oldLength + 1)), oldPath + "/"))));
+				return new Document("$cond", List.of(inSubtree,
+								new Document("$concat", List.of(newPath, new Document("$substrCP", List.of(path, oldLength, new Document("$strLenCP", path))))),
+								path));
+		}
+
+		/**
+		 * Global per-category preference totals, kept up to date by this repository's writes
+		 */
+		public CategoryPreferenceCounters getCategoryCounters() {
+				return categoryCounters;
+		}
+
+		/**
+		 * Stream the members matching the filter with a cursor, only the projected fields are decoded
+		 *
+		 * @return Number of members visited
+		 */
+		public long forEachMember(Document whereQuery, Document projectionFields, int batchSize, Consumer<Member> consumer) {
+				long visited = 0;
+				for (Document doc : collection.find(whereQuery).projection(projectionFields).batchSize(batchSize)) {
+						consumer.accept(documentToEntity(doc));
+						visited++;
+				}
+				return visited;
+		}
+
+		@Override
+		public ObjectId insertOne(Member member) {
+				ObjectId id = super.insertOne(member);
+				categoryCounters.apply(List.of(), List.of(member));
+				return id;
+		}
+
+		/**
+		 * Insert the members whose email is not taken yet, the others are skipped
+		 */
+		@Override
+		public List<ObjectId> insertMany(List<Member> members) {
+				UniqueKeyFilter.Admission<Member> admission = emailFilter.admit(members);
+				try {
+						List<Member> accepted = admission.accepted();
+						List<ObjectId> ids = insertManySkippingDuplicates(accepted);
+						List<ObjectId> insertedIds = new ArrayList<>(ids.size());
+						List<Member> inserted = new ArrayList<>(ids.size());
+						for (int i = 0; i < ids.size(); i++) {
+								if (ids.get(i) != null) {
+										insertedIds.add(ids.get(i));
+										inserted.add(accepted.get(i));
+								}
+						}
+						categoryCounters.apply(List.of(), inserted);
+						return insertedIds;
+				} finally {
+						emailFilter.release(admission);
+				}
+		}
+
+		/**
+		 * Upsert the members whose email is free or already theirs, the others are skipped
+		 */
+		@Override
+		public long upsertMany(List<Member> members) {
+				UniqueKeyFilter.Admission<Member> admission = emailFilter.admit(members);
+				try {
+						// Previous versions give the delta, a replayed batch then changes nothing
+						List<ObjectId> ids = admission.accepted().stream().map(Member::getId).filter(Objects::nonNull).map(this::toObjectId).toList();
+						List<Member> previous = ids.isEmpty() ? List.of() : find(new Document("_id", new Document("$in", ids)));
+						List<Member> written = upsertManySkippingDuplicates(admission.accepted());
+						if (written.size() < admission.accepted().size()) {
+								Set<String> writtenIds = written.stream().map(Member::getId).filter(Objects::nonNull).collect(Collectors.toSet());
+								previous = previous.stream().filter(member -> writtenIds.contains(member.getId())).toList();
+						}
+						categoryCounters.apply(previous, written);
+						return written.size();
+				} finally {
+						emailFilter.release(admission);
+				}
+		}
+
+		@Override
+		public boolean update(Member member) {
+				Member previous = findById(member.getId());
+				boolean updated = super.update(member);
+				if (updated) {
+						categoryCounters.apply(previous == null ? List.of() : List.of(previous), List.of(member));
+				}
+				return updated;
+		}
+
+		/**
+		 * Bulk updates cannot compute a delta, the counters are rebuilt on their next read
+		 */
+		@Override
+		public boolean updateMany(Document whereQuery, Document updateExpressions, UpdateOptions updateOptions) {
+				boolean updated = super.updateMany(whereQuery, updateExpressions, updateOptions);
+				if (updated || updateOptions.isUpsert()) {
+						categoryCounters.invalidate();
+				}
+				return updated;
+		}
+
+		@Override
+		public boolean updateManyWithPipeline(Document whereQuery, List<Document> updatePipeline, UpdateOptions updateOptions) {
+				boolean updated = super.updateManyWithPipeline(whereQuery, updatePipeline, updateOptions);
+				if (updated || updateOptions.isUpsert()) {
+						categoryCounters.invalidate();
+				}
+				return updated;
+		}
+
+		/**
+		 * Raw documents are not decoded, the counters are rebuilt on their next read.
+		 * Invalidated even on failure, an unordered insert may have written part of the batch.
+		 */
+		@Override
+		public int insertManyRaw(List<RawBsonDocument> documents) {
+				try {
+						return super.insertManyRaw(documents);
+				} finally {
+						if (!documents.isEmpty()) {
+								categoryCounters.invalidate();
+						}
+				}
+		}
+
+		@Override
+		public long upsertManyRaw(List<RawBsonDocument> documents) {
+				try {
+						return super.upsertManyRaw(documents);
+				} finally {
+						if (!documents.isEmpty()) {
+								categoryCounters.invalidate();
+						}
+				}
+		}
+
+		/**
+		 * The counters only follow this collection, a copy into it invalidates them
+		 */
+		@Override
+		public long copyRaw(Bson whereQuery, MongoCollection<?> target, int batchSize) {
+				try {
+						return super.copyRaw(whereQuery, target, batchSize);
+				} finally {
+						if (target.getNamespace().equals(collection.getNamespace())) {
+								categoryCounters.invalidate();
+						}
+				}
+		}
+
+		@Override
+		public boolean delete(Member member) {
+				Member previous = findById(member.getId());
+				boolean deleted = super.delete(member);
+				if (deleted && previous != null) {
+						categoryCounters.apply(List.of(previous), List.of());
+				}
+				return deleted;
+		}
+
+		@Override
+		public boolean deleteMany(Document whereQuery) {
+				boolean deleted = super.deleteMany(whereQuery);
+				if (deleted) {
+						categoryCounters.rebuild(collection);
+				}
+				return deleted;
+		}
+
+		@Override
+		public void ensureIndexes() {
+				super.ensureIndexes();
+				categoryCounters.ensureIndexes();
+		}
+
+		@Override
+		public void dropCollection() {
+				super.dropCollection();
+				categoryCounters.drop();
+				emailFilter.reset();
+		}
+
+		private void forEachEmail(Consumer<String> consumer) {
+				for (Document doc : collection.find(new Document("email", new Document("$type", "string")))
+								.projection(new Document("email", 1).append("_id", 0)).batchSize(10_000)) {
+						consumer.accept(doc.getString("email"));
+				}
+		}
+
+		private Map<String, String> emailOwners(Collection<String> emails) {
+				Map<String, String> owners = new HashMap<>();
+				for (Document doc : collection.find(new Document("email", new Document("$in", emails)))
+								.collation(MangoUtils.CASE_INSENSITIVE)
+								.projection(new Document("email", 1))) {
+						owners.put(doc.getString("email"), MangoUtils.getIdAsString(doc, "_id"));
+				}
+				return owners;
+		}
+
 		/**
 		 * Find member by name
 		 */
@@ -447,11 +819,38 @@ public class MangoMemberRepository extends MongoGenericRepository<Member> {
 				return find(query);
 		}
 
+		/**
+		 * Find members as list items (name, email)
+		 */
+		public List<MemberListItem> findListItems(Document whereQuery) {
+				return findProjected(whereQuery, LIST_ITEM);
+		}
+
 		/**
 		 * Find members with overdue books
 		 */
 		public List<Member> findMembersWithOverdueBooks() {
-				Document query = new Document("activeLoans.overdue", true);
+				return findMembersWithOverdueBooks(System.currentTimeMillis());
+		}
+
+		/**
+		 * Find members with at least one loan due before the given time.
+		 * Overdue status is computed at query time, served by the activeLoans.dueDate multikey index.
+		 */
+		public List<Member> findMembersWithOverdueBooks(long now) {
+				Document query = new Document(ACTIVE_LOANS_DUE_DATE, new Document("$lt", now));
 				return find(query);
 		}
-}
\ No newline at end of file
+
+		/**
+		 * Purge members registered before the given date, in throttled batches
+		 */
+		public long purgeMembersRegisteredBefore(long registrationDate, BulkDeleteOptions options) {
+				Document query = new Document("registrationDate", new Document("$lt", registrationDate));
+				long deleted = deleteManyInBatches(query, options);
+				if (deleted > 0) {
+						categoryCounters.rebuild(collection);
+				}
+				return deleted;
+		}
+}
@@ -1,10 +1,28 @@
 package com.library.mangodb.crud;
 
+import com.library.common.metrics.RepositoryMetrics;
+import com.library.common.paging.ContinuationTokens;
+import com.library.common.paging.Page;
+import com.library.common.util.LogSampler;
 import com.library.mangodb.MongoConfig;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.IndexModel;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
 import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
 import com.mongodb.client.result.DeleteResult;
 import com.mongodb.client.result.InsertManyResult;
 import com.mongodb.client.result.InsertOneResult;
@@ -12,12 +30,19 @@ import com.mongodb.client.result.UpdateResult;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.bson.Document;
+import org.bson.RawBsonDocument;
 import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -28,7 +53,11 @@ import java.util.stream.Collectors;
 public abstract class MongoGenericRepository<T> {
 		private static final Logger logger = LogManager.getLogger();
 		protected final MongoCollection<Document> collection;
+		protected final MongoCollection<RawBsonDocument> rawCollection;
 		protected final String entityName;
+		// One sampler per operation, so a line only reports the lines of its own operation it stood for
+		private final Map<String, LogSampler> opLogSamplers = new ConcurrentHashMap<>();
+		protected final RepositoryMetrics metrics;
 
 		/**
 		 * Constructor for generic repository
@@ -38,7 +67,9 @@ public abstract class MongoGenericRepository<T> {
 		 */
 		protected MongoGenericRepository(String collectionName, String entityName) {
 				this.collection = MongoConfig.getDatabase().getCollection(collectionName);
+				this.rawCollection = collection.withDocumentClass(RawBsonDocument.class);
 				this.entityName = entityName;
+				this.metrics = new RepositoryMetrics("mongo", entityName);
 		}
 
 		/**
@@ -51,6 +82,13 @@ public abstract class MongoGenericRepository<T> {
 		 */
 		protected abstract T documentToEntity(Document document);
 
+		/**
+		 * Decode a full document of this collection, e.g. from a change stream event
+		 */
+		public T decode(Document document) {
+				return documentToEntity(document);
+		}
+
 		/**
 		 * Get ID from entity
 		 */
@@ -63,6 +101,10 @@ public abstract class MongoGenericRepository<T> {
 				return new ObjectId(id);
 		}
 
+		private LogSampler opLogSampler(String operation) {
+				return opLogSamplers.computeIfAbsent(operation, k -> new LogSampler());
+		}
+
 		/// ///////////////////////
 		///  CREATE OPERATIONS   //
 		/// ///////////////////////
@@ -74,15 +116,21 @@ public abstract class MongoGenericRepository<T> {
 		 * @return ID of the inserted entity
 		 */
 		public ObjectId insertOne(T entity) {
+				long start = System.nanoTime();
 				try {
 						Document doc = entityToDocument(entity);
 						InsertOneResult result = collection.insertOne(doc);
 						ObjectId objectId = Objects.requireNonNull(result.getInsertedId()).asObjectId().getValue();
-						logger.info("Inserted {} with ID: {}", entityName, objectId);
+						metrics.documentsWritten(1);
+						if (logger.isInfoEnabled() && opLogSampler("insertOne").tryAcquire()) {
+								logger.info("Inserted {} with ID: {} (+{} sampled out)", entityName, objectId, opLogSampler("insertOne").drainSuppressed());
+						}
 						return objectId;
 				} catch (Exception e) {
 						logger.error("Error inserting {}: ", entityName, e);
 						throw new RuntimeException("Failed to insert " + entityName, e);
+				} finally {
+						metrics.record("insertOne", start);
 				}
 		}
 
@@ -93,12 +141,14 @@ public abstract class MongoGenericRepository<T> {
 		 * @return List of inserted entity IDs
 		 */
 		public List<ObjectId> insertMany(List<T> entities) {
+				long start = System.nanoTime();
 				try {
 						List<Document> docs = entities.stream()
 										.map(this::entityToDocument)
 										.collect(Collectors.toList());
 
 						InsertManyResult results = collection.insertMany(docs);
+						metrics.documentsWritten(results.getInsertedIds().size());
 						logger.info("Inserted {} {}s", results.getInsertedIds().size(), entityName);
 						return results.getInsertedIds().values().stream()
 										.map(v -> v.asObjectId().getValue())
@@ -106,9 +156,225 @@ public abstract class MongoGenericRepository<T> {
 				} catch (Exception e) {
 						logger.error("Error inserting {}s: ", entityName, e);
 						throw new RuntimeException("Failed to insert " + entityName + "s", e);
+				} finally {
+						metrics.record("insertMany", start);
+				}
+		}
+
+		/**
+		 * Insert or replace many entities by _id, replaying the same batch leaves the collection unchanged.
+		 * Entities without an ID are plainly inserted.
+		 *
+		 * @param entities List of entities to upsert
+		 * @return Number of inserted or replaced documents
+		 */
+		public long upsertMany(List<T> entities) {
+				long start = System.nanoTime();
+				try {
+						List<WriteModel<Document>> writes = new ArrayList<>(entities.size());
+						for (T entity : entities) {
+								Document doc = entityToDocument(entity);
+								Object id = doc.get("_id");
+								writes.add(id == null
+												? new InsertOneModel<>(doc)
+												: new ReplaceOneModel<>(Filters.eq("_id", id), doc, new ReplaceOptions().upsert(true)));
+						}
+						if (writes.isEmpty()) {
+								return 0;
+						}
+
+						BulkWriteResult result = collection.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+						long written = result.getInsertedCount() + result.getUpserts().size() + result.getMatchedCount();
+						metrics.documentsWritten(written);
+						logger.info("Upserted {} {}s", written, entityName);
+						return written;
+				} catch (Exception e) {
+						logger.error("Error upserting {}s: ", entityName, e);
+						throw new RuntimeException("Failed to upsert " + entityName + "s", e);
+				} finally {
+						metrics.record("upsertMany", start);
+				}
+		}
+
+		/**
+		 * Insert many entities in one unordered batch, the documents a unique index rejects are skipped
+		 *
+		 * @param entities List of entities to insert
+		 * @return IDs aligned with the entities, null for the rejected ones
+		 */
+		public List<ObjectId> insertManySkippingDuplicates(List<T> entities) {
+				long start = System.nanoTime();
+				try {
+						if (entities.isEmpty()) {
+								return List.of();
+						}
+						List<Document> docs = new ArrayList<>(entities.size());
+						for (T entity : entities) {
+								Document doc = entityToDocument(entity);
+								doc.putIfAbsent("_id", new ObjectId());
+								docs.add(doc);
+						}
+
+						Set<Integer> rejected = Set.of();
+						try {
+								collection.insertMany(docs, new InsertManyOptions().ordered(false));
+						} catch (MongoBulkWriteException e) {
+								rejected = duplicateKeyErrors(e);
+						}
+
+						List<ObjectId> ids = new ArrayList<>(docs.size());
+						for (int i = 0; i < docs.size(); i++) {
+								ids.add(rejected.contains(i) ? null : docs.get(i).getObjectId("_id"));
+						}
+						metrics.documentsWritten(docs.size() - rejected.size());
+						logger.info("Inserted {} {}s, {} duplicates skipped", docs.size() - rejected.size(), entityName, rejected.size());
+						return ids;
+				} catch (Exception e) {
+						logger.error("Error inserting {}s: ", entityName, e);
+						throw new RuntimeException("Failed to insert " + entityName + "s", e);
+				} finally {
+						metrics.record("insertManySkippingDuplicates", start);
+				}
+		}
+
+		/**
+		 * Upsert many entities like {@link #upsertMany(List)}, the documents a unique index rejects are skipped
+		 *
+		 * @param entities List of entities to upsert
+		 * @return Entities written
+		 */
+		public List<T> upsertManySkippingDuplicates(List<T> entities) {
+				long start = System.nanoTime();
+				try {
+						if (entities.isEmpty()) {
+								return List.of();
+						}
+						List<WriteModel<Document>> writes = new ArrayList<>(entities.size());
+						for (T entity : entities) {
+								Document doc = entityToDocument(entity);
+								Object id = doc.get("_id");
+								writes.add(id == null
+												? new InsertOneModel<>(doc)
+												: new ReplaceOneModel<>(Filters.eq("_id", id), doc, new ReplaceOptions().upsert(true)));
+						}
+
+						Set<Integer> rejected = Set.of();
+						try {
+								collection.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+						} catch (MongoBulkWriteException e) {
+								rejected = duplicateKeyErrors(e);
+						}
+
+						List<T> written = new ArrayList<>(entities.size() - rejected.size());
+						for (int i = 0; i < entities.size(); i++) {
+								if (!rejected.contains(i)) {
+										written.add(entities.get(i));
+								}
+						}
+						metrics.documentsWritten(written.size());
+						logger.info("Upserted {} {}s, {} duplicates skipped", written.size(), entityName, rejected.size());
+						return written;
+				} catch (Exception e) {
+						logger.error("Error upserting {}s: ", entityName, e);
+						throw new RuntimeException("Failed to upsert " + entityName + "s", e);
+				} finally {
+						metrics.record("upsertManySkippingDuplicates", start);
 				}
 		}
 
+		/**
+		 * Indexes of the writes rejected by a unique index, rethrows any other write error
+		 */
+		private static Set<Integer> duplicateKeyErrors(MongoBulkWriteException e) {
+				Set<Integer> rejected = new HashSet<>();
+				for (BulkWriteError error : e.getWriteErrors()) {
+						if (error.getCategory() != ErrorCategory.DUPLICATE_KEY) {
+								throw e;
+						}
+						rejected.add(error.getIndex());
+				}
+				if (e.getWriteConcernError() != null) {
+						throw e;
+				}
+				return rejected;
+		}
+
+		/**
+		 * Insert documents as they are, their bytes are sent without going through a Document or a POJO
+		 *
+		 * @param documents Raw documents, typically read with {@link #forEachRaw}
+		 * @return Number of inserted documents
+		 */
+		public int insertManyRaw(List<RawBsonDocument> documents) {
+				long start = System.nanoTime();
+				try {
+						if (documents.isEmpty()) {
+								return 0;
+						}
+						InsertManyResult result = rawCollection.insertMany(documents, new InsertManyOptions().ordered(false));
+						metrics.documentsWritten(result.getInsertedIds().size());
+						return result.getInsertedIds().size();
+				} catch (Exception e) {
+						logger.error("Error inserting raw {}s: ", entityName, e);
+						throw new RuntimeException("Failed to insert raw " + entityName + "s", e);
+				} finally {
+						metrics.record("insertManyRaw", start);
+				}
+		}
+
+		/**
+		 * Insert or replace raw documents by _id, only the _id field is decoded
+		 *
+		 * @param documents Raw documents with an _id
+		 * @return Number of inserted or replaced documents
+		 */
+		public long upsertManyRaw(List<RawBsonDocument> documents) {
+				long start = System.nanoTime();
+				try {
+						if (documents.isEmpty()) {
+								return 0;
+						}
+						List<WriteModel<RawBsonDocument>> writes = new ArrayList<>(documents.size());
+						for (RawBsonDocument document : documents) {
+								writes.add(new ReplaceOneModel<>(Filters.eq("_id", document.get("_id")), document, new ReplaceOptions().upsert(true)));
+						}
+						BulkWriteResult result = rawCollection.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+						long written = result.getUpserts().size() + result.getMatchedCount();
+						metrics.documentsWritten(written);
+						return written;
+				} catch (Exception e) {
+						logger.error("Error upserting raw {}s: ", entityName, e);
+						throw new RuntimeException("Failed to upsert raw " + entityName + "s", e);
+				} finally {
+						metrics.record("upsertManyRaw", start);
+				}
+		}
+
+		/**
+		 * Copy matching documents to another collection in raw batches, without decoding them
+		 *
+		 * @return Number of copied documents
+		 */
+		public long copyRaw(Bson whereQuery, MongoCollection<?> target, int batchSize) {
+				MongoCollection<RawBsonDocument> rawTarget = target.withDocumentClass(RawBsonDocument.class);
+				List<RawBsonDocument> batch = new ArrayList<>(batchSize);
+				long[] copied = {0};
+				forEachRaw(whereQuery, batchSize, document -> {
+						batch.add(document);
+						if (batch.size() == batchSize) {
+								rawTarget.insertMany(batch, new InsertManyOptions().ordered(false));
+								copied[0] += batch.size();
+								batch.clear();
+						}
+				});
+				if (!batch.isEmpty()) {
+						rawTarget.insertMany(batch, new InsertManyOptions().ordered(false));
+						copied[0] += batch.size();
+				}
+				logger.info("Copied {} {}s to {}", copied[0], entityName, target.getNamespace());
+				return copied[0];
+		}
+
 		/// ///////////////////////
 		///  READ OPERATIONS     //
 		/// ///////////////////////
@@ -126,22 +392,30 @@ public abstract class MongoGenericRepository<T> {
 		 * Find entities with a query, projection, and sort
 		 */
 		public List<T> find(Document whereQuery, Document projectionFields, Document sortFields) {
-				FindIterable<Document> results = collection.find(whereQuery);
+				long start = System.nanoTime();
+				try {
+						FindIterable<Document> results = collection.find(whereQuery);
 
-				if (sortFields != null) {
-						results = results.sort(sortFields);
-				}
+						if (sortFields != null) {
+								results = results.sort(sortFields);
+						}
 
-				if (projectionFields != null) {
-						results = results.projection(projectionFields);
-				}
+						if (projectionFields != null) {
+								results = results.projection(projectionFields);
+						}
 
-				List<Document> documents = results.into(new ArrayList<>());
-				logger.info("Found {} {}s", documents.size(), entityName);
+						List<Document> documents = results.into(new ArrayList<>());
+						metrics.documentsRead(documents.size());
+						if (logger.isInfoEnabled() && opLogSampler("find").tryAcquire()) {
+								logger.info("Found {} {}s (+{} sampled out)", documents.size(), entityName, opLogSampler("find").drainSuppressed());
+						}
 
-				return documents.stream()
-								.map(this::documentToEntity)
-								.collect(Collectors.toList());
+						return documents.stream()
+										.map(this::documentToEntity)
+										.collect(Collectors.toList());
+				} finally {
+						metrics.record("find", start);
+				}
 		}
 
 		public List<T> find(Document whereQuery, Document projectionFields) {
@@ -152,6 +426,148 @@ public abstract class MongoGenericRepository<T> {
 				return find(whereQuery, null, null);
 		}
 
+		/**
+		 * Find entities as a typed view: only the projected fields are transferred and decoded
+		 */
+		public <P> List<P> findProjected(Document whereQuery, MongoProjection<P> projection, Document sortFields) {
+				long start = System.nanoTime();
+				try {
+						FindIterable<Document> results = collection.find(whereQuery).projection(projection.fields());
+
+						if (sortFields != null) {
+								results = results.sort(sortFields);
+						}
+
+						List<P> views = results.map(projection.decoder()::apply).into(new ArrayList<>());
+						metrics.documentsRead(views.size());
+						return views;
+				} finally {
+						metrics.record("findProjected", start);
+				}
+		}
+
+		public <P> List<P> findProjected(Document whereQuery, MongoProjection<P> projection) {
+				return findProjected(whereQuery, projection, null);
+		}
+
+		/**
+		 * Stream matching documents as RawBsonDocument: each one keeps the BSON bytes of the reply and nothing
+		 * is decoded unless a field is read. {@code getByteBuffer().asNIO()} gives the bytes as a ByteBuffer.
+		 *
+		 * @param whereQuery Filter
+		 * @param batchSize  Cursor batch size
+		 * @param consumer   Receives each document, which must not be kept past the call if memory matters
+		 * @return Number of documents read
+		 */
+		public long forEachRaw(Bson whereQuery, int batchSize, Consumer<RawBsonDocument> consumer) {
+				long start = System.nanoTime();
+				long count = 0;
+				try (MongoCursor<RawBsonDocument> cursor = rawCollection.find(whereQuery).batchSize(batchSize).cursor()) {
+						while (cursor.hasNext()) {
+								consumer.accept(cursor.next());
+								count++;
+						}
+						return count;
+				} finally {
+						metrics.documentsRead(count);
+						metrics.record("forEachRaw", start);
+				}
+		}
+
+		/**
+		 * Find matching documents without decoding them
+		 */
+		public List<RawBsonDocument> findRaw(Bson whereQuery) {
+				long start = System.nanoTime();
+				try {
+						List<RawBsonDocument> documents = rawCollection.find(whereQuery).into(new ArrayList<>());
+						metrics.documentsRead(documents.size());
+						return documents;
+				} finally {
+						metrics.record("findRaw", start);
+				}
+		}
+
+		/**
+		 * Keyset pagination on (sortField, _id).
+		 * Each page seeks past the last returned key instead of skipping, so page N costs
+		 * the same as page 1 when an index on (sortField, _id) exists: declare it in {@link #indexModels()}
+		 * for every sort field paged on (members have one on lastName), the _id index serves the default order.
+		 * The sort field must be present on every matching document.
+		 *
+		 * @param whereQuery        Filter
+		 * @param sortField         Sort key, null to page on _id only
+		 * @param descending        Sort direction
+		 * @param pageSize          Maximum number of entities per page
+		 * @param continuationToken Token from the previous page, null for the first page
+		 */
+		public Page<T> findPage(Document whereQuery, String sortField, boolean descending, int pageSize, String continuationToken) {
+				long start = System.nanoTime();
+				try {
+						String field = sortField != null ? sortField : "_id";
+						Bson filter = whereQuery;
+
+						if (continuationToken != null) {
+								Document position = Document.parse(ContinuationTokens.decode(continuationToken));
+								if (!field.equals(position.getString("f"))) {
+										throw new IllegalArgumentException("Continuation token was issued for sort field " + position.getString("f"));
+								}
+								filter = Filters.and(whereQuery, after(field, position.get("v"), position.get("id"), descending));
+						}
+
+						Bson sort = "_id".equals(field)
+										? direction("_id", descending)
+										: Sorts.orderBy(direction(field, descending), direction("_id", descending));
+
+						// One extra document tells whether a next page exists
+						List<Document> documents = collection.find(filter)
+										.sort(sort)
+										.limit(pageSize + 1)
+										.into(new ArrayList<>());
+
+						String nextToken = null;
+						if (documents.size() > pageSize) {
+								documents = documents.subList(0, pageSize);
+								Document last = documents.get(documents.size() - 1);
+								Document position = new Document("f", field)
+												.append("v", last.getEmbedded(Arrays.asList(field.split("\\.")), Object.class))
+												.append("id", last.get("_id"));
+								nextToken = ContinuationTokens.encode(position.toJson());
+						}
+
+						metrics.documentsRead(documents.size());
+						List<T> entities = documents.stream()
+										.map(this::documentToEntity)
+										.collect(Collectors.toList());
+						return new Page<>(entities, nextToken);
+				} finally {
+						metrics.record("findPage", start);
+				}
+		}
+
+		/**
+		 * Keyset pagination on _id
+		 */
+		public Page<T> findPage(Document whereQuery, int pageSize, String continuationToken) {
+				return findPage(whereQuery, null, false, pageSize, continuationToken);
+		}
+
+		private static Bson direction(String field, boolean descending) {
+				return descending ? Sorts.descending(field) : Sorts.ascending(field);
+		}
+
+		/**
+		 * Documents strictly after the (value, id) key in sort order
+		 */
+		private static Bson after(String field, Object lastValue, Object lastId, boolean descending) {
+				Bson idAfter = descending ? Filters.lt("_id", lastId) : Filters.gt("_id", lastId);
+				if ("_id".equals(field)) {
+						return idAfter;
+				}
+				Bson valueAfter = descending ? Filters.lt(field, lastValue) : Filters.gt(field, lastValue);
+				return Filters.or(valueAfter, Filters.and(Filters.eq(field, lastValue), idAfter));
+		}
+
 		/// ///////////////////////
 		///  UPDATE OPERATIONS   //
 		/// ///////////////////////
@@ -160,20 +576,27 @@ public abstract class MongoGenericRepository<T> {
 		 * Update an entity
 		 */
 		public boolean update(T entity) {
+				long start = System.nanoTime();
 				try {
 						Bson filter = Filters.eq("_id", toObjectId(getEntityId(entity)));
 						Document doc = entityToDocument(entity);
 						doc.remove("_id"); // Remove ID from update document
 
 						UpdateResult result = collection.replaceOne(filter, doc);
+						metrics.documentsWritten(result.getModifiedCount());
 
-						logger.info("{} update operation - id: {}, matched: {}, modified: {}",
-										entityName, getEntityId(entity), result.getMatchedCount(), result.getModifiedCount());
+						if (logger.isInfoEnabled() && opLogSampler("update").tryAcquire()) {
+								logger.info("{} update operation - id: {}, matched: {}, modified: {} (+{} sampled out)",
+												entityName, getEntityId(entity), result.getMatchedCount(), result.getModifiedCount(),
+												opLogSampler("update").drainSuppressed());
+						}
 
 						return result.getModifiedCount() > 0;
 				} catch (Exception e) {
 						logger.error("Failed to update {} with id: {}", entityName, getEntityId(entity), e);
 						return false;
+				} finally {
+						metrics.record("update", start);
 				}
 		}
 
@@ -181,8 +604,10 @@ public abstract class MongoGenericRepository<T> {
 		 * Update entities with a query and update expressions
 		 */
 		public boolean updateMany(Document whereQuery, Document updateExpressions, UpdateOptions updateOptions) {
+				long start = System.nanoTime();
 				try {
 						UpdateResult result = collection.updateMany(whereQuery, updateExpressions, updateOptions);
+						metrics.documentsWritten(result.getModifiedCount());
 
 						logger.info("{} update operation completed - matched: {}, modified: {}",
 										entityName, result.getMatchedCount(), result.getModifiedCount());
@@ -191,6 +616,8 @@ public abstract class MongoGenericRepository<T> {
 				} catch (Exception e) {
 						logger.error("Failed to update {}s with query: {}", entityName, whereQuery, e);
 						return false;
+				} finally {
+						metrics.record("updateMany", start);
 				}
 		}
 
@@ -198,12 +625,16 @@ public abstract class MongoGenericRepository<T> {
 		 * Update entities with a query and update pipeline
 		 */
 		public boolean updateManyWithPipeline(Document whereQuery, List<Document> updatePipeline, UpdateOptions updateOptions) {
+				long start = System.nanoTime();
 				try {
 						UpdateResult result = collection.updateMany(whereQuery, updatePipeline, updateOptions);
+						metrics.documentsWritten(result.getModifiedCount());
 						return result.getModifiedCount() > 0;
 				} catch (Exception e) {
 						logger.error("Failed to update with pipeline", e);
 						return false;
+				} finally {
+						metrics.record("updateManyWithPipeline", start);
 				}
 		}
 
@@ -215,10 +646,16 @@ public abstract class MongoGenericRepository<T> {
 		 * Delete an entity
 		 */
 		public boolean delete(T entity) {
+				long start = System.nanoTime();
 				DeleteResult result = collection.deleteOne(Filters.eq("_id", toObjectId(getEntityId(entity))));
-				logger.info("Deleted {} with ID {} {}",
-								entityName, getEntityId(entity),
-								result.getDeletedCount() > 0 ? "successfully" : "unsuccessfully");
+				metrics.record("delete", start);
+				metrics.documentsWritten(result.getDeletedCount());
+				if (logger.isInfoEnabled() && opLogSampler("delete").tryAcquire()) {
+						logger.info("Deleted {} with ID {} {} (+{} sampled out)",
+										entityName, getEntityId(entity),
+										result.getDeletedCount() > 0 ? "successfully" : "unsuccessfully",
+										opLogSampler("delete").drainSuppressed());
+				}
 				return result.getDeletedCount() > 0;
 		}
 
@@ -226,18 +663,106 @@ public abstract class MongoGenericRepository<T> {
 		 * Delete entities matching a where query
 		 */
 		public boolean deleteMany(Document whereQuery) {
-				long countBefore = collection.countDocuments();
-				logger.info("There are {} {}s before deletion", countBefore, entityName);
-
+				long start = System.nanoTime();
 				DeleteResult result = collection.deleteMany(whereQuery);
-
-				long countAfter = collection.countDocuments();
-				logger.info("Deleted {} {}s. There are {} {}s remaining",
-								result.getDeletedCount(), entityName, countAfter, entityName);
+				metrics.record("deleteMany", start);
+				metrics.documentsWritten(result.getDeletedCount());
+
+				if (logger.isDebugEnabled()) {
+						// Metadata count, does not scan the collection
+						logger.debug("Deleted {} {}s. There are about {} {}s remaining",
+										result.getDeletedCount(), entityName, collection.estimatedDocumentCount(), entityName);
+				} else {
+						logger.info("Deleted {} {}s", result.getDeletedCount(), entityName);
+				}
 
 				return result.getDeletedCount() > 0;
 		}
 
+		/**
+		 * Delete entities matching a where query in _id ordered batches.
+		 * Each batch reads at most batchSize ids then deletes the matching _id range,
+		 * so a very large purge never holds a single long-running delete.
+		 *
+		 * @return Number of deleted entities
+		 */
+		public long deleteManyInBatches(Document whereQuery, BulkDeleteOptions options) {
+				long start = System.nanoTime();
+				long deleted = 0;
+				int batches = 0;
+				Object lastId = null;
+
+				while (true) {
+						Bson batchFilter = lastId == null ? whereQuery : Filters.and(whereQuery, Filters.gt("_id", lastId));
+						List<Document> ids = collection.find(batchFilter)
+										.projection(Projections.include("_id"))
+										.sort(Sorts.ascending("_id"))
+										.limit(options.getBatchSize())
+										.into(new ArrayList<>());
+
+						if (ids.isEmpty()) {
+								break;
+						}
+
+						Object upperId = ids.get(ids.size() - 1).get("_id");
+						Bson rangeFilter = Filters.and(batchFilter, Filters.lte("_id", upperId));
+						deleted += collection.deleteMany(rangeFilter).getDeletedCount();
+						batches++;
+						lastId = upperId;
+
+						if (options.getProgressListener() != null) {
+								options.getProgressListener().onProgress(deleted, batches);
+						}
+
+						if (ids.size() < options.getBatchSize()) {
+								break;
+						}
+
+						if (options.getPauseMillis() > 0) {
+								try {
+										Thread.sleep(options.getPauseMillis());
+								} catch (InterruptedException e) {
+										Thread.currentThread().interrupt();
+										logger.warn("Batched {} deletion interrupted after {} documents", entityName, deleted);
+										break;
+								}
+						}
+				}
+
+				if (options.isLogRemainingCount()) {
+						logger.info("Deleted {} {}s in {} batches. There are about {} {}s remaining",
+										deleted, entityName, batches, collection.estimatedDocumentCount(), entityName);
+				} else {
+						logger.info("Deleted {} {}s in {} batches", deleted, entityName, batches);
+				}
+
+				metrics.record("deleteManyInBatches", start);
+				metrics.documentsWritten(deleted);
+				return deleted;
+		}
+
+		/// ///////////////////////
+		///  INDEXES             //
+		/// ///////////////////////
+
+		/**
+		 * Secondary indexes of the collection, created by ensureIndexes
+		 */
+		protected List<IndexModel> indexModels() {
+				return List.of();
+		}
+
+		/**
+		 * Create the collection's secondary indexes (no-op for indexes that already exist)
+		 */
+		public void ensureIndexes() {
+				List<IndexModel> models = indexModels();
+				if (!models.isEmpty()) {
+						List<String> names = collection.createIndexes(models);
+						logger.info("Ensured {} indexes: {}", entityName, names);
+				}
+		}
+
 		/**
 		 * Drop the collection
 		 */
@@ -0,0 +1,22 @@
+package com.library.mangodb.crud;
+
+import com.mongodb.client.model.Projections;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.function.Function;
+
+/**
+ * Typed projection: the fields to fetch and how to decode them.
+ * Projected documents are decoded straight into the view type, skipping documentToEntity.
+ *
+ * @param fields  Mongo projection (_id is always returned)
+ * @param decoder Maps a projected document to the view type
+ * @param <P>     View type
+ */
+public record MongoProjection<P>(Bson fields, Function<Document, P> decoder) {
+
+		public static <P> MongoProjection<P> of(Function<Document, P> decoder, String... fieldNames) {
+				return new MongoProjection<>(Projections.include(fieldNames), decoder);
+		}
+}
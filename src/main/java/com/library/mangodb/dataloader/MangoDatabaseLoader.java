@@ -0,0 +1,27 @@
+package com.library.mangodb.dataloader;
+
+import com.library.common.LoadOrchestrator;
+import com.library.mangodb.MongoConfig;
+
+/**
+ * Loads the whole MongoDB database in one run
+ */
+public class MangoDatabaseLoader {
+
+		/**
+		 * Authors, categories and publishers first, then the books referencing them, then the members borrowing books.
+		 * Secondary indexes are built once everything is loaded.
+		 */
+		public static LoadOrchestrator orchestrator(String dataPath) {
+				return new LoadOrchestrator("MongoDB", MongoConfig::resetDatabase)
+								.stage(new MangoAuthorDataLoader(dataPath, 100),
+												new MangoCategoryDataLoader(dataPath),
+												new MangoPublisherDataLoader(dataPath, 30))
+								.stage(new MangoBookDataLoader(dataPath, 5000))
+								.stage(new MangoMemberDataLoader(dataPath, 1000));
+		}
+
+		public static void main(String[] args) {
+				orchestrator("generated-data").run();
+		}
+}
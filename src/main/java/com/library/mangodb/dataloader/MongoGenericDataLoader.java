@@ -33,9 +33,28 @@ public abstract class MongoGenericDataLoader<T> extends GenericDataLoader<T, Mon
 		}
 
 		@Override
-		protected void populateDatabase(List<T> entities) {
+		protected void prepareLoad() {
 				repository.dropCollection();
+		}
+
+		@Override
+		protected void insertBatch(List<T> entities) {
 				repository.insertMany(entities);
-				logger.info("Inserted {} {} into MongoDB", entities.size(), getEntityName());
+		}
+
+		@Override
+		protected void upsertBatch(List<T> entities) {
+				repository.upsertMany(entities);
+		}
+
+		@Override
+		protected void finishLoad(long inserted) {
+				logger.info("Inserted {} {} into MongoDB", inserted, getEntityName());
+		}
+
+		@Override
+		protected void buildIndexes() {
+				// Build secondary indexes once the bulk load is done
+				repository.ensureIndexes();
 		}
 }
\ No newline at end of file
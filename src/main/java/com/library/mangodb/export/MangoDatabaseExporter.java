@@ -0,0 +1,62 @@
+package com.library.mangodb.export;
+
+import com.library.common.export.DatabaseExporter;
+import com.library.common.export.ExportFormat;
+import com.library.common.export.ExportOptions;
+import com.library.common.export.JsonExportWriter;
+import com.library.mangodb.MongoConfig;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import org.bson.RawBsonDocument;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exports every MongoDB collection as extended JSON (relaxed mode, ObjectIds kept as $oid).
+ * Documents are read as RawBsonDocument and converted from BSON bytes straight to JSON.
+ */
+public class MangoDatabaseExporter extends DatabaseExporter {
+		private static final JsonWriterSettings JSON_SETTINGS = JsonWriterSettings.builder()
+						.outputMode(JsonMode.RELAXED)
+						.build();
+
+		private final MongoDatabase database;
+
+		public MangoDatabaseExporter() {
+				this.database = MongoConfig.getDatabase();
+		}
+
+		public static void main(String[] args) {
+				new MangoDatabaseExporter().export(Path.of("export", "mongodb"), new ExportOptions()
+								.format(ExportFormat.NDJSON)
+								.gzip(true));
+				MongoConfig.closeConnection();
+		}
+
+		@Override
+		protected List<String> collections() {
+				return database.listCollectionNames().into(new ArrayList<>());
+		}
+
+		@Override
+		protected void exportCollection(String collection, JsonExportWriter writer, ExportOptions options) throws IOException {
+				try (MongoCursor<RawBsonDocument> cursor = database.getCollection(collection, RawBsonDocument.class)
+								.find()
+								.batchSize(options.getBatchSize())
+								.iterator()) {
+						while (cursor.hasNext()) {
+								writer.writeRaw(cursor.next().toJson(JSON_SETTINGS));
+						}
+				}
+		}
+
+		@Override
+		protected String getBackendName() {
+				return "MongoDB";
+		}
+}
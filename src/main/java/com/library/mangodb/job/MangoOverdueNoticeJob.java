@@ -0,0 +1,116 @@
+package com.library.mangodb.job;
+
+import com.library.common.model.OverdueNotice;
+import com.library.mangodb.MongoConfig;
+import com.library.mangodb.crud.MangoMemberRepository;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overdue notices job.
+ * Streams members with a loan due before now through a cursor (bounded memory whatever the
+ * member count) and upserts one notice per overdue loan in unordered bulk writes.
+ */
+public class MangoOverdueNoticeJob {
+		private static final Logger logger = LogManager.getLogger();
+		private static final String NOTICES_COLLECTION = "overdueNotices";
+
+		private final MongoCollection<Document> members;
+		private final MongoCollection<Document> notices;
+		private final int batchSize;
+
+		public MangoOverdueNoticeJob(int batchSize) {
+				this.members = MongoConfig.getDatabase().getCollection("members");
+				this.notices = MongoConfig.getDatabase().getCollection(NOTICES_COLLECTION);
+				this.batchSize = batchSize;
+		}
+
+		public static void main(String[] args) {
+				new MangoMemberRepository().ensureIndexes();
+
+				MangoOverdueNoticeJob job = new MangoOverdueNoticeJob(1000);
+				long written = job.run(System.currentTimeMillis());
+				logger.info("Overdue notices job wrote {} notices", written);
+		}
+
+		/**
+		 * Create or refresh the notices of every loan due before now
+		 *
+		 * @return Number of notices written
+		 */
+		public long run(long now) {
+				long scanned = 0;
+				long written = 0;
+				List<WriteModel<Document>> pending = new ArrayList<>(batchSize);
+
+				try (MongoCursor<Document> cursor = members
+								.find(Filters.lt(MangoMemberRepository.ACTIVE_LOANS_DUE_DATE, now))
+								.projection(Projections.include("firstName", "lastName", "email", "activeLoans"))
+								.batchSize(batchSize)
+								.iterator()) {
+
+						while (cursor.hasNext()) {
+								Document member = cursor.next();
+								scanned++;
+
+								for (Document loan : member.getList("activeLoans", Document.class, List.of())) {
+										long dueDate = loan.get("dueDate") instanceof Number n ? n.longValue() : Long.MAX_VALUE;
+										if (dueDate < now) {
+												pending.add(noticeUpsert(member, loan, dueDate, now));
+										}
+								}
+
+								if (pending.size() >= batchSize) {
+										written += flush(pending);
+								}
+						}
+				}
+
+				written += flush(pending);
+				logger.info("Scanned {} members with overdue loans, wrote {} notices", scanned, written);
+				return written;
+		}
+
+		private WriteModel<Document> noticeUpsert(Document member, Document loan, long dueDate, long now) {
+				String memberId = member.getObjectId("_id").toHexString();
+				String bookId = String.valueOf(loan.get("bookId"));
+				String noticeId = OverdueNotice.noticeKey(memberId, bookId, dueDate);
+
+				Document onInsert = new Document("memberId", member.get("_id"))
+								.append("memberName", member.getString("firstName") + " " + member.getString("lastName"))
+								.append("email", member.getString("email"))
+								.append("bookId", loan.get("bookId"))
+								.append("bookTitle", loan.getString("bookTitle"))
+								.append("dueDate", dueDate);
+				Document refresh = new Document("daysOverdue", (int) TimeUnit.MILLISECONDS.toDays(now - dueDate))
+								.append("noticeDate", now);
+
+				return new UpdateOneModel<>(
+								Filters.eq("_id", noticeId),
+								new Document("$setOnInsert", onInsert).append("$set", refresh),
+								new UpdateOptions().upsert(true));
+		}
+
+		private long flush(List<WriteModel<Document>> pending) {
+				if (pending.isEmpty()) {
+						return 0;
+				}
+				int count = pending.size();
+				notices.bulkWrite(pending, new BulkWriteOptions().ordered(false));
+				pending.clear();
+				return count;
+		}
+}
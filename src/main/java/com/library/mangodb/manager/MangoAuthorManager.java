@@ -1,7 +1,11 @@
 package com.library.mangodb.manager;
 
+import com.library.common.analytics.AnalyticsPrinter;
+import com.library.common.analytics.AuthorAnalytics;
+import com.library.common.metrics.TimedAnalytics;
 import com.library.common.model.Author;
 import com.library.common.util.ModelDataGenerator;
+import com.library.mangodb.MangoUtils;
 import com.library.mangodb.MongoConfig;
 import com.mongodb.client.AggregateIterable;
 import com.mongodb.client.MongoCollection;
@@ -11,7 +15,7 @@ import org.bson.conversions.Bson;
 
 import java.util.*;
 
-public class MangoAuthorManager {
+public class MangoAuthorManager implements AuthorAnalytics {
 
 		private final MongoCollection<Document> authorsCollection;
 
@@ -23,7 +27,7 @@ public class MangoAuthorManager {
 				// Reset the database to ensure clean test data
 				MongoConfig.resetDatabase();
 
-				MangoAuthorManager manager = new MangoAuthorManager();
+				AuthorAnalytics manager = TimedAnalytics.wrap(AuthorAnalytics.class, new MangoAuthorManager(), "mongo");
 
 				// Generate a list of test authors
 				List<Author> testAuthors = ModelDataGenerator.generateAuthors(10);
@@ -39,7 +43,7 @@ public class MangoAuthorManager {
 				}
 
 				// Insert authors into MongoDB
-				manager.authorsCollection.insertMany(authorDocuments);
+				MongoConfig.getDatabase().getCollection("authors").insertMany(authorDocuments);
 
 				// Insert test books into "books" collection to test $lookup join
 				MongoConfig.getDatabase().getCollection("books").insertMany(Arrays.asList(
@@ -52,30 +56,24 @@ public class MangoAuthorManager {
 				String testNationality = nationalities.stream().findFirst().orElse("Unknown");
 
 				// Run aggregation methods
-				System.out.println("1. Count Authors by Nationality:");
-				manager.countAuthorsByNationality();
+				AnalyticsPrinter.print("1. Count Authors by Nationality:", manager.countAuthorsByNationality());
 
-				System.out.println("\n2. List Authors by Nationality (" + testNationality + "):");
-				manager.listAuthorsByNationality(testNationality);
+				AnalyticsPrinter.print("\n2. List Authors by Nationality (" + testNationality + "):", manager.listAuthorsByNationality(testNationality));
 
-				System.out.println("\n3. Authors Starting with 'H':");
-				manager.findAuthorsStartingWith('H');
+				AnalyticsPrinter.print("\n3. Authors Starting with 'H':", manager.findAuthorsStartingWith('H'));
 
-				System.out.println("\n4. Compute Name Length for Authors:");
-				manager.computeNameLengthForAuthors();
+				AnalyticsPrinter.print("\n4. Compute Name Length for Authors:", manager.computeNameLengthForAuthors());
 
-				System.out.println("\n5. Sort Authors by Name:");
-				manager.sortAuthorsByName();
+				AnalyticsPrinter.print("\n5. Sort Authors by Name:", manager.sortAuthorsByName());
 
-				System.out.println("\n6. Authors with Books:");
-				List<Document> authorsWithBooks = manager.getAuthorsWithBooks();
-				authorsWithBooks.forEach(author -> System.out.println(author.toJson()));
+				AnalyticsPrinter.print("\n6. Authors with Books:", manager.getAuthorsWithBooks());
 		}
 
 		// 1. Count total number of authors per nationality
 		// Uses $group to group authors by nationality and count them using $sum
 		// Then $sort sorts the result in descending order by count
-		public void countAuthorsByNationality() {
+		@Override
+		public List<NationalityCount> countAuthorsByNationality() {
 				List<Document> pipeline = Arrays.asList(
 								new Document("$group", new Document("_id", "$nationality")
 												.append("count", new Document("$sum", 1))),
@@ -83,26 +81,32 @@ public class MangoAuthorManager {
 				);
 
 				AggregateIterable<Document> results = authorsCollection.aggregate(pipeline);
-				results.forEach(doc -> System.out.println(doc.toJson()));
+				return results
+								.map(doc -> new NationalityCount(doc.getString("_id"), MangoUtils.getLong(doc, "count")))
+								.into(new ArrayList<>());
 		}
 
 		// 2. List author names by a given nationality
 		// Uses $match to filter authors by nationality
 		// Then $project to keep only the name field (excluding _id)
-		public void listAuthorsByNationality(String nationality) {
+		@Override
+		public List<String> listAuthorsByNationality(String nationality) {
 				List<Document> pipeline = Arrays.asList(
 								new Document("$match", new Document("nationality", nationality)),
 								new Document("$project", new Document("name", 1).append("_id", 0))
 				);
 
 				AggregateIterable<Document> results = authorsCollection.aggregate(pipeline);
-				results.forEach(doc -> System.out.println(doc.toString()));
+				return results
+								.map(doc -> doc.getString("name"))
+								.into(new ArrayList<>());
 		}
 
 		// 3. Find authors whose names start with a given letter (case-insensitive)
 		// Uses $match with a regular expression ($regex) to filter names
 		// Then $project to return the name and nationality fields
-		public void findAuthorsStartingWith(char letter) {
+		@Override
+		public List<AuthorSummary> findAuthorsStartingWith(char letter) {
 				String regex = "^" + letter;
 				List<Document> pipeline = List.of(
 								new Document("$match", new Document("name", new Document("$regex", regex).append("$options", "i"))),
@@ -110,40 +114,49 @@ public class MangoAuthorManager {
 				);
 
 				AggregateIterable<Document> results = authorsCollection.aggregate(pipeline);
-				results.forEach(doc -> System.out.println(doc.toJson()));
+				return results
+								.map(doc -> new AuthorSummary(doc.getString("name"), doc.getString("nationality")))
+								.into(new ArrayList<>());
 		}
 
 		// 4. Add a new field "name_length" that stores the length of the author's name
 		// Uses $addFields with $strLenCP to compute the length of the string
 		// Then $project to include only name and name_length
-		public void computeNameLengthForAuthors() {
+		@Override
+		public List<NameLength> computeNameLengthForAuthors() {
 				List<Document> pipeline = List.of(
 								new Document("$addFields", new Document("name_length", new Document("$strLenCP", "$name"))),
 								new Document("$project", new Document("name", 1).append("name_length", 1))
 				);
 
 				AggregateIterable<Document> results = authorsCollection.aggregate(pipeline);
-				results.forEach(doc -> System.out.println(doc.toJson()));
+				return results
+								.map(doc -> new NameLength(doc.getString("name"), MangoUtils.getInt(doc, "name_length")))
+								.into(new ArrayList<>());
 		}
 
 		// 5. Sort authors by name in ascending order
 		// Uses $sort to order by name (1 = ascending)
 		// Then $project to include only the name field (excluding _id)
-		public void sortAuthorsByName() {
+		@Override
+		public List<String> sortAuthorsByName() {
 				List<Document> pipeline = List.of(
 								new Document("$sort", new Document("name", 1)),
 								new Document("$project", new Document("name", 1).append("_id", 0))
 				);
 
 				AggregateIterable<Document> results = authorsCollection.aggregate(pipeline);
-				results.forEach(doc -> System.out.println(doc.toJson()));
+				return results
+								.map(doc -> doc.getString("name"))
+								.into(new ArrayList<>());
 		}
 
 		// 6. Join authors with their books using $lookup
 		// Performs a left outer join between authors and books
 		// "authors._id" is matched with "books.authorId"
 		// Result includes an additional field "books" which is an array of matching book documents
-		public List<Document> getAuthorsWithBooks() {
+		@Override
+		public List<AuthorBooks> getAuthorsWithBooks() {
 				List<Bson> pipeline = List.of(
 								Aggregates.lookup("books",       // target collection
 												"_id",                  // local field in "authors"
@@ -154,6 +167,15 @@ public class MangoAuthorManager {
 				return MongoConfig.getDatabase()
 								.getCollection("authors")
 								.aggregate(pipeline)
+								.map(doc -> new AuthorBooks(doc.getString("name"), bookTitles(doc)))
 								.into(new ArrayList<>());
 		}
+
+		private static List<String> bookTitles(Document doc) {
+				List<String> titles = new ArrayList<>();
+				for (Document book : doc.getList("books", Document.class, List.of())) {
+						titles.add(book.getString("title"));
+				}
+				return titles;
+		}
 }
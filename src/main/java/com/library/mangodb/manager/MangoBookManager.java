@@ -1,9 +1,13 @@
 package com.library.mangodb.manager;
 
+import com.library.common.analytics.AnalyticsPrinter;
+import com.library.common.analytics.BookAnalytics;
+import com.library.common.metrics.TimedAnalytics;
 import com.library.common.model.Author;
 import com.library.common.model.Book;
 import com.library.common.model.Category;
 import com.library.common.util.ModelDataGenerator;
+import com.library.mangodb.MangoUtils;
 import com.library.mangodb.MongoConfig;
 import com.mongodb.client.AggregateIterable;
 import com.mongodb.client.MongoCollection;
@@ -15,7 +19,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
-public class MangoBookManager {
+public class MangoBookManager implements BookAnalytics {
 
 		private final MongoCollection<Document> bookCollection;
 
@@ -28,7 +32,7 @@ public class MangoBookManager {
 				MongoConfig.resetDatabase();
 
 				// Managers
-				MangoBookManager bookManager = new MangoBookManager();
+				BookAnalytics bookManager = TimedAnalytics.wrap(BookAnalytics.class, new MangoBookManager(), "mongo");
 				MongoCollection<Document> authorsCol = MongoConfig.getDatabase().getCollection("authors");
 				MongoCollection<Document> booksCol = MongoConfig.getDatabase().getCollection("books");
 				MongoCollection<Document> categoriesCol = MongoConfig.getDatabase().getCollection("categories");
@@ -67,39 +71,38 @@ public class MangoBookManager {
 				}
 
 				// --- Run and display aggregation results ---
-				System.out.println("1. Number of books by publication year:");
-				bookManager.countBooksPerPublicationYear();
+				AnalyticsPrinter.print("1. Number of books by publication year:", bookManager.countBooksPerPublicationYear());
 
-				System.out.println("\n2. Average number of pages per author:");
-				bookManager.averagePageCountPerAuthor();
+				AnalyticsPrinter.print("\n2. Average number of pages per author:", bookManager.averagePageCountPerAuthor());
 
-				System.out.println("\n3. List of books with their authors:");
-				bookManager.listBooksWithAuthors();
+				AnalyticsPrinter.print("\n3. List of books with their authors:", bookManager.listBooksWithAuthors());
 
-				System.out.println("\n4. Number of books per author:");
-				bookManager.countBooksByAuthor();
+				AnalyticsPrinter.print("\n4. Number of books per author:", bookManager.countBooksByAuthor());
 
-				System.out.println("\n5. Books starting with 'L':");
-				bookManager.findBooksStartingWith('L');
+				AnalyticsPrinter.print("\n5. Books starting with 'L':", bookManager.findBooksStartingWith('L'));
 		}
 
 		// 1. Count the number of books published per year
 		// Uses $group to aggregate books by "publicationYear" and count with $sum
-		public void countBooksPerPublicationYear() {
+		@Override
+		public List<YearCount> countBooksPerPublicationYear() {
 				List<Document> pipeline = Arrays.asList(
 								new Document("$group", new Document("_id", "$publicationYear")
 												.append("count", new Document("$sum", 1))),
 								new Document("$sort", new Document("_id", 1)) // Sort years ascending
 				);
 				AggregateIterable<Document> results = bookCollection.aggregate(pipeline);
-				results.forEach(doc -> System.out.println(doc.toJson()));
+				return results
+								.map(doc -> new YearCount(MangoUtils.getInt(doc, "_id"), MangoUtils.getLong(doc, "count")))
+								.into(new ArrayList<>());
 		}
 
 		// 2. Compute the average page count of books per author
 		// Unwinds authorsId array to handle many-to-many relations
 		// Performs a $lookup to join books with authors collection
 		// Groups by author name and calculates average page count
-		public void averagePageCountPerAuthor() {
+		@Override
+		public List<AuthorAverage> averagePageCountPerAuthor() {
 				List<Document> pipeline = Arrays.asList(
 								new Document("$unwind", "$authorsId"), // Deconstruct authorsId array
 								new Document("$lookup", new Document("from", "authors") // Join with authors collection
@@ -112,13 +115,16 @@ public class MangoBookManager {
 								new Document("$sort", new Document("averagePages", -1)) // Sort descending
 				);
 				AggregateIterable<Document> results = bookCollection.aggregate(pipeline);
-				results.forEach(doc -> System.out.println(doc.toJson()));
+				return results
+								.map(doc -> new AuthorAverage(doc.getString("_id"), MangoUtils.getDouble(doc, "averagePages")))
+								.into(new ArrayList<>());
 		}
 
 		// 3. List all books with their associated authors
 		// Uses $lookup to join books with authors on "authorsId"
 		// Projects title, year, and author names
-		public void listBooksWithAuthors() {
+		@Override
+		public List<BookAuthors> listBooksWithAuthors() {
 				List<Document> pipeline = Arrays.asList(
 								new Document("$lookup", new Document("from", "authors")
 												.append("localField", "authorsId")
@@ -129,12 +135,15 @@ public class MangoBookManager {
 												.append("authors.name", 1)) // Only keep author names
 				);
 				AggregateIterable<Document> results = bookCollection.aggregate(pipeline);
-				results.forEach(doc -> System.out.println(doc.toJson()));
+				return results
+								.map(doc -> new BookAuthors(doc.getString("title"), MangoUtils.getInt(doc, "publicationYear"), authorNames(doc)))
+								.into(new ArrayList<>());
 		}
 
 		// 4. Count the number of books written by each author
 		// Similar to above, but with grouping and counting instead of listing
-		public void countBooksByAuthor() {
+		@Override
+		public List<AuthorCount> countBooksByAuthor() {
 				List<Document> pipeline = Arrays.asList(
 								new Document("$unwind", "$authorsId"), // One author per document
 								new Document("$lookup", new Document("from", "authors")
@@ -147,18 +156,31 @@ public class MangoBookManager {
 								new Document("$sort", new Document("bookCount", -1)) // Most prolific authors first
 				);
 				AggregateIterable<Document> results = bookCollection.aggregate(pipeline);
-				results.forEach(doc -> System.out.println(doc.toJson()));
+				return results
+								.map(doc -> new AuthorCount(doc.getString("_id"), MangoUtils.getLong(doc, "bookCount")))
+								.into(new ArrayList<>());
 		}
 
 		// 5. Find all books whose title starts with a given letter (case-insensitive)
 		// Uses $match with regex for pattern filtering
-		public void findBooksStartingWith(char letter) {
+		@Override
+		public List<BookSummary> findBooksStartingWith(char letter) {
 				String regex = "^" + letter;
 				List<Document> pipeline = Arrays.asList(
 								new Document("$match", new Document("title", new Document("$regex", regex).append("$options", "i"))),
 								new Document("$project", new Document("title", 1).append("publicationYear", 1))
 				);
 				AggregateIterable<Document> results = bookCollection.aggregate(pipeline);
-				results.forEach(doc -> System.out.println(doc.toJson()));
+				return results
+								.map(doc -> new BookSummary(doc.getString("title"), MangoUtils.getInt(doc, "publicationYear")))
+								.into(new ArrayList<>());
+		}
+
+		private static List<String> authorNames(Document doc) {
+				List<String> names = new ArrayList<>();
+				for (Document author : doc.getList("authors", Document.class, List.of())) {
+						names.add(author.getString("name"));
+				}
+				return names;
 		}
 }
@@ -1,16 +1,25 @@
 package com.library.mangodb.manager;
 
-import com.library.common.model.Category;
+import com.library.common.analytics.AnalyticsPrinter;
+import com.library.common.analytics.CategoryAnalytics;
+import com.library.common.metrics.TimedAnalytics;
 import com.library.common.util.ModelDataGenerator;
+import com.library.mangodb.MangoUtils;
 import com.library.mangodb.MongoConfig;
+import com.library.mangodb.crud.MangoCategoryRepository;
 import com.mongodb.client.AggregateIterable;
 import com.mongodb.client.MongoCollection;
 import org.bson.Document;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
-public class MangoCategoryManager {
+public class MangoCategoryManager implements CategoryAnalytics {
+
+		// Top-level category: first ancestor, or the path of a top-level category
+		private static final Document TOP_LEVEL = new Document("$ifNull", Arrays.asList(
+						new Document("$arrayElemAt", Arrays.asList("$" + MangoCategoryRepository.ANCESTORS, 0)), "$path"));
 
 		private final MongoCollection<Document> categoryCollection;
 
@@ -22,121 +31,122 @@ public class MangoCategoryManager {
 				// Reset database to ensure a clean state
 				MongoConfig.resetDatabase();
 
-				// Initialize collection and manager
-				MongoCollection<Document> categoryCol = MongoConfig.getDatabase().getCollection("categories");
-				MangoCategoryManager categoryManager = new MangoCategoryManager();
+				// Initialize manager
+				CategoryAnalytics categoryManager = TimedAnalytics.wrap(CategoryAnalytics.class, new MangoCategoryManager(), "mongo");
 
-				// Generate and insert test data
-				List<Category> categories = ModelDataGenerator.generateCategories();
-				for (Category c : categories) {
-						Document doc = new Document("name", c.getName())
-										.append("path", c.getPath());
-						categoryCol.insertOne(doc);
-				}
+				// Generate and insert test data, with the hierarchy fields and their indexes
+				MangoCategoryRepository repository = new MangoCategoryRepository();
+				repository.insertMany(ModelDataGenerator.generateCategories());
+				repository.ensureIndexes();
 
 				// Call methods to test each pipeline
-				System.out.println("\n1. Categories by depth level:");
-				categoryManager.countCategoriesByDepthLevel();
+				AnalyticsPrinter.print("\n1. Categories by depth level:", categoryManager.countCategoriesByDepthLevel());
 
-				System.out.println("\n2. Top-level categories:");
-				categoryManager.listTopLevelCategories();
+				AnalyticsPrinter.print("\n2. Top-level categories:", categoryManager.listTopLevelCategories());
 
-				System.out.println("\n3. Subcategories count per top-level:");
-				categoryManager.countSubcategoriesPerTopLevel();
+				AnalyticsPrinter.print("\n3. Subcategories count per top-level:", categoryManager.countSubcategoriesPerTopLevel());
 
-				System.out.println("\n4. Leaf categories:");
-				categoryManager.findLeafCategories();
+				AnalyticsPrinter.print("\n4. Leaf categories:", categoryManager.findLeafCategories());
 
-				System.out.println("\n5. Categories with their parents:");
-				categoryManager.listCategoriesWithParents();
+				AnalyticsPrinter.print("\n5. Categories with their parents:", categoryManager.listCategoriesWithParents());
 
-				System.out.println("\n6. Search categories by name containing 'fic':");
-				categoryManager.searchCategoriesByName("fic"); // e.g., should match 'Fiction'
+				AnalyticsPrinter.print("\n6. Search categories by name containing 'fic':", categoryManager.searchCategoriesByName("fic")); // e.g., should match 'Fiction'
 		}
 
-		// 1. Count how many categories exist at each depth level (based on "path")
-		// Split path by "/" and compute depth
-		public void countCategoriesByDepthLevel() {
+		// 1. Count how many categories exist at each depth level
+		// Group on the stored depth (indexed), the path is not parsed
+		@Override
+		public List<DepthCount> countCategoriesByDepthLevel() {
 				List<Document> pipeline = Arrays.asList(
-								new Document("$project", new Document("depth", new Document("$size", new Document("$split", Arrays.asList("$path", "/"))))),
-								new Document("$group", new Document("_id", "$depth").append("count", new Document("$sum", 1))),
+								new Document("$group", new Document("_id", "$" + MangoCategoryRepository.DEPTH).append("count", new Document("$sum", 1))),
 								new Document("$sort", new Document("_id", 1))
 				);
 				AggregateIterable<Document> results = categoryCollection.aggregate(pipeline);
-				results.forEach(doc -> System.out.println(doc.toJson()));
+				return results
+								.map(doc -> new DepthCount(MangoUtils.getInt(doc, "_id"), MangoUtils.getLong(doc, "count")))
+								.into(new ArrayList<>());
 		}
 
 		// 2. List all parent categories (i.e., top-level category from path)
-		// Extract first element of path
-		public void listTopLevelCategories() {
+		// First ancestor, or the path itself for a top-level category
+		@Override
+		public List<String> listTopLevelCategories() {
 				List<Document> pipeline = Arrays.asList(
-								new Document("$project", new Document("topLevel", new Document("$arrayElemAt", Arrays.asList(new Document("$split", Arrays.asList("$path", "/")), 0)))),
+								new Document("$project", new Document("topLevel", TOP_LEVEL)),
 								new Document("$group", new Document("_id", "$topLevel")),
 								new Document("$sort", new Document("_id", 1))
 				);
 				AggregateIterable<Document> results = categoryCollection.aggregate(pipeline);
-				results.forEach(doc -> System.out.println(doc.toJson()));
+				return results
+								.map(doc -> doc.getString("_id"))
+								.into(new ArrayList<>());
 		}
 
 		// 3. Count the number of subcategories under each top-level category
-		// Extract first element and group by it
-		public void countSubcategoriesPerTopLevel() {
+		// Group by the top-level ancestor
+		@Override
+		public List<TopLevelCount> countSubcategoriesPerTopLevel() {
 				List<Document> pipeline = Arrays.asList(
-								new Document("$project", new Document("topLevel", new Document("$arrayElemAt", Arrays.asList(new Document("$split", Arrays.asList("$path", "/")), 0)))),
+								new Document("$project", new Document("topLevel", TOP_LEVEL)),
 								new Document("$group", new Document("_id", "$topLevel").append("subcategoryCount", new Document("$sum", 1))),
 								new Document("$sort", new Document("subcategoryCount", -1))
 				);
 				AggregateIterable<Document> results = categoryCollection.aggregate(pipeline);
-				results.forEach(doc -> System.out.println(doc.toJson()));
+				return results
+								.map(doc -> new TopLevelCount(doc.getString("_id"), MangoUtils.getLong(doc, "subcategoryCount")))
+								.into(new ArrayList<>());
 		}
 
 		// 4. Find all leaf categories (categories that are not parents of any other category)
-		// Compare full paths to see which ones are never prefixes
-		public void findLeafCategories() {
+		// A leaf has no category listing its path in ancestors: one index probe per category, at most one match
+		@Override
+		public List<CategorySummary> findLeafCategories() {
 				List<Document> pipeline = Arrays.asList(
 								new Document("$lookup", new Document("from", "categories")
-												.append("let", new Document("path", "$path"))
+												.append("localField", "path")
+												.append("foreignField", MangoCategoryRepository.ANCESTORS)
 												.append("pipeline", List.of(
-																new Document("$match", new Document("$expr", new Document("$and", Arrays.asList(
-																				new Document("$ne", Arrays.asList("$$path", "$path")),
-																				new Document("$regexMatch", new Document("input", "$path").append("regex", new Document("$concat", Arrays.asList("^", "$$path", "/"))))
-																))))
+																new Document("$limit", 1),
+																new Document("$project", new Document("_id", 1))
 												))
 												.append("as", "children")),
 								new Document("$match", new Document("children", new Document("$size", 0))),
 								new Document("$project", new Document("name", 1).append("path", 1))
 				);
 				AggregateIterable<Document> results = categoryCollection.aggregate(pipeline);
-				results.forEach(doc -> System.out.println(doc.toJson()));
+				return results
+								.map(doc -> new CategorySummary(doc.getString("name"), doc.getString("path")))
+								.into(new ArrayList<>());
 		}
 
 		// 5. List categories with their direct parent name
-		// Extract second to last part of the path
-		public void listCategoriesWithParents() {
-				List<Document> pipeline = Arrays.asList(
-								new Document("$addFields", new Document("pathParts", new Document("$split", Arrays.asList("$path", "/")))),
-								new Document("$addFields", new Document("depth", new Document("$size", "$pathParts"))),
+		// Name of the stored parent path
+		@Override
+		public List<CategoryParent> listCategoriesWithParents() {
+				List<Document> pipeline = List.of(
 								new Document("$project", new Document("name", 1)
 												.append("path", 1)
-												.append("parent", new Document("$cond", Arrays.asList(
-																new Document("$gt", Arrays.asList("$depth", 1)),
-																new Document("$arrayElemAt", Arrays.asList("$pathParts", new Document("$subtract", Arrays.asList("$depth", 2)))),
-																null
-												)))
+												.append("parent", new Document("$arrayElemAt", Arrays.asList(
+																new Document("$split", Arrays.asList("$" + MangoCategoryRepository.PARENT, "/")), -1)))
 								)
 				);
 				AggregateIterable<Document> results = categoryCollection.aggregate(pipeline);
-				results.forEach(doc -> System.out.println(doc.toJson()));
+				return results
+								.map(doc -> new CategoryParent(doc.getString("name"), doc.getString("path"), doc.getString("parent")))
+								.into(new ArrayList<>());
 		}
 
 		// 6. Search categories by partial name (case-insensitive)
 		// Use regex in $match
-		public void searchCategoriesByName(String keyword) {
+		@Override
+		public List<CategorySummary> searchCategoriesByName(String keyword) {
 				List<Document> pipeline = Arrays.asList(
 								new Document("$match", new Document("name", new Document("$regex", keyword).append("$options", "i"))),
 								new Document("$project", new Document("name", 1).append("path", 1))
 				);
 				AggregateIterable<Document> results = categoryCollection.aggregate(pipeline);
-				results.forEach(doc -> System.out.println(doc.toJson()));
+				return results
+								.map(doc -> new CategorySummary(doc.getString("name"), doc.getString("path")))
+								.into(new ArrayList<>());
 		}
 }
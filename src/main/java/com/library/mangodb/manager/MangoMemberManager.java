@@ -1,28 +1,51 @@
 package com.library.mangodb.manager;
 
+import com.library.common.analytics.AnalyticsPrinter;
+import com.library.common.analytics.MemberAnalytics;
+import com.library.common.metrics.TimedAnalytics;
 import com.library.common.model.Member;
+import com.library.common.topk.MemberRankings;
+import com.library.common.topk.RefreshingRankings;
+import com.library.common.topk.SpaceSaving;
 import com.library.common.util.ModelDataGenerator;
+import com.library.mangodb.MangoUtils;
 import com.library.mangodb.MongoConfig;
+import com.library.mangodb.crud.CategoryPreferenceCounters;
+import com.library.mangodb.crud.MangoMemberRepository;
 import com.mongodb.client.AggregateIterable;
 import com.mongodb.client.MongoCollection;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.bson.Document;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
-public class MangoMemberManager {
+public class MangoMemberManager implements MemberAnalytics {
+		private static final Logger logger = LogManager.getLogger();
+		private static final int TOP_AUTHORS = 5;
+		private static final int SCAN_BATCH_SIZE = 1000;
+		private static final Document READING_STATS_FIELDS = new Document("readingStats", 1);
 
 		private final MongoCollection<Document> memberCollection;
+		private final CategoryPreferenceCounters categoryCounters;
+		private final RefreshingRankings rankings;
 
 		public MangoMemberManager() {
 				this.memberCollection = MongoConfig.getDatabase().getCollection("members");
+				this.categoryCounters = new CategoryPreferenceCounters();
+				MangoMemberRepository repository = new MangoMemberRepository();
+				// One cursor pass over the reading stats, memory stays bounded by the summary capacity
+				this.rankings = new RefreshingRankings(() -> MemberRankings.scan(
+								feed -> repository.forEachMember(new Document(), READING_STATS_FIELDS, SCAN_BATCH_SIZE, feed)));
 		}
 
 		public static void main(String[] args) {
 				// Drop and initialize the collection
 				MongoCollection<Document> collection = MongoConfig.getDatabase().getCollection("members");
 				collection.drop();
+				new CategoryPreferenceCounters().drop();
 
 				// Générer et insérer les membres dans la collection
 				List<Member> members = ModelDataGenerator.generateMembers(10);
@@ -30,87 +53,146 @@ public class MangoMemberManager {
 				collection.insertMany(docs);
 
 				// Initialiser le manager et exécuter les tests
-				MangoMemberManager manager = new MangoMemberManager();
+				MemberAnalytics manager = TimedAnalytics.wrap(MemberAnalytics.class, new MangoMemberManager(), "mongo");
 
-				System.out.println("\n--- Members per registration year ---");
-				manager.countMembersByRegistrationYear();
+				AnalyticsPrinter.print("\n--- Members per registration year ---", manager.countMembersByRegistrationYear());
 
-				System.out.println("\n--- Members with overdue loans ---");
-				manager.listMembersWithOverdueLoans();
+				AnalyticsPrinter.print("\n--- Members with overdue loans ---", manager.listMembersWithOverdueLoans());
 
-				System.out.println("\n--- Loans per member ---");
-				manager.countLoansPerMember();
+				AnalyticsPrinter.print("\n--- Loans per member ---", manager.countLoansPerMember());
 
-				System.out.println("\n--- Most preferred categories ---");
-				manager.mostPreferredCategories();
+				AnalyticsPrinter.print("\n--- Most preferred categories ---", manager.mostPreferredCategories());
 
-				System.out.println("\n--- Top favorite authors ---");
-				manager.topFavoriteAuthors();
+				AnalyticsPrinter.print("\n--- Top favorite authors ---", manager.topFavoriteAuthors());
 
-				System.out.println("\n--- Members with emergency contact ---");
-				manager.listMembersWithEmergencyContact();
+				AnalyticsPrinter.print("\n--- Top favorite authors (estimated) ---", manager.estimateTopFavoriteAuthors(10));
+
+				AnalyticsPrinter.print("\n--- Top categories (estimated) ---", manager.estimateTopCategories(10));
+
+				AnalyticsPrinter.print("\n--- Members with emergency contact ---", manager.listMembersWithEmergencyContact());
 		}
 
 		// 1. Count members by registration year (grouping and date transformation)
-		public void countMembersByRegistrationYear() {
+		@Override
+		public List<RegistrationYearCount> countMembersByRegistrationYear() {
 				List<Document> pipeline = Arrays.asList(
 								new Document("$project", new Document("year", new Document("$year", new Document("$toDate", "$registrationDate")))),
 								new Document("$group", new Document("_id", "$year").append("count", new Document("$sum", 1))),
 								new Document("$sort", new Document("_id", 1))
 				);
-				memberCollection.aggregate(pipeline).forEach(doc -> System.out.println(doc.toJson()));
+				return memberCollection.aggregate(pipeline)
+								.map(doc -> new RegistrationYearCount(MangoUtils.getInt(doc, "_id"), MangoUtils.getLong(doc, "count")))
+								.into(new ArrayList<>());
 		}
 
 		// 2. List members with overdue loans (array filtering and projection)
-		public void listMembersWithOverdueLoans() {
+		@Override
+		public List<MemberOverdueLoans> listMembersWithOverdueLoans() {
+				long now = System.currentTimeMillis();
 				List<Document> pipeline = List.of(
+								// Overdue is computed from dueDate, $match uses the activeLoans.dueDate multikey index
+								new Document("$match", new Document("activeLoans.dueDate", new Document("$lt", now))),
 								new Document("$project", new Document("firstName", 1)
 												.append("lastName", 1)
 												.append("email", 1)
 												.append("overdueLoans", new Document("$filter", new Document("input", "$activeLoans")
 																.append("as", "loan")
-																.append("cond", new Document("$eq", Arrays.asList("$$loan.isOverdue", true))))))
+																.append("cond", new Document("$lt", Arrays.asList("$$loan.dueDate", now))))))
 				);
-				memberCollection.aggregate(pipeline).forEach(doc -> System.out.println(doc.toJson()));
+				return memberCollection.aggregate(pipeline)
+								.map(doc -> new MemberOverdueLoans(doc.getString("firstName"), doc.getString("lastName"), doc.getString("email"), overdueBookTitles(doc)))
+								.into(new ArrayList<>());
 		}
 
 		// 3. Count number of active loans per member
-		public void countLoansPerMember() {
+		@Override
+		public List<MemberLoanCount> countLoansPerMember() {
 				List<Document> pipeline = Arrays.asList(
 								new Document("$project", new Document("fullName", new Document("$concat", Arrays.asList("$firstName", " ", "$lastName")))
 												.append("loanCount", new Document("$size", new Document("$ifNull", Arrays.asList("$activeLoans", new ArrayList<>()))))),
 								new Document("$sort", new Document("loanCount", -1))
 				);
 				AggregateIterable<Document> results = memberCollection.aggregate(pipeline);
-				results.forEach(doc -> System.out.println(doc.toJson()));
+				return results
+								.map(doc -> new MemberLoanCount(doc.getString("fullName"), MangoUtils.getInt(doc, "loanCount")))
+								.into(new ArrayList<>());
+		}
+
+		// 4. Most preferred categories (pre-aggregated per-category counters, sorted on an index)
+		@Override
+		public List<CategoryScore> mostPreferredCategories() {
+				// Read the incrementally maintained counters, rebuilt from the members if missing or invalidated by a bulk write
+				if (categoryCounters.needsRebuild()) {
+						categoryCounters.rebuild(memberCollection);
+				}
+				return categoryCounters.top(0);
+		}
+
+
+		// 5. Top 5 most common favorite authors (picked by the Space-Saving summary, exact aggregation as fallback)
+		@Override
+		public List<AuthorPopularity> topFavoriteAuthors() {
+				if (!MemberRankings.exactOnly()) {
+						List<SpaceSaving.Estimate<String>> top = rankings.get().topAuthors(TOP_AUTHORS);
+						if (top.stream().allMatch(SpaceSaving.Estimate::guaranteed)) {
+								// Summary counts overestimate and may be a refresh old, only the authors are kept
+								return countFavoriteAuthors(top.stream().map(SpaceSaving.Estimate::item).toList());
+						}
+						logger.info("Favorite authors summary cannot guarantee the top {}, using the exact aggregation", TOP_AUTHORS);
+				}
+				return exactTopFavoriteAuthors(TOP_AUTHORS);
+		}
+
+		@Override
+		public List<SpaceSaving.Estimate<String>> estimateTopFavoriteAuthors(int k) {
+				return rankings.get().topAuthors(k);
 		}
 
-		// 4. Most preferred categories (unwinding nested map into key-value pairs and counting)
-		public void mostPreferredCategories() {
+		@Override
+		public List<SpaceSaving.Estimate<String>> estimateTopCategories(int k) {
+				return rankings.get().topCategories(k);
+		}
+
+		/**
+		 * Exact favorite authors count (unwinding and grouping over every member)
+		 */
+		public List<AuthorPopularity> exactTopFavoriteAuthors(int k) {
 				List<Document> pipeline = Arrays.asList(
-								new Document("$project", new Document("preferences", "$readingStats.categoryPreferences")),
-								new Document("$project", new Document("categories", new Document("$objectToArray", "$preferences"))),
-								new Document("$unwind", "$categories"),
-								new Document("$group", new Document("_id", "$categories.k").append("totalPreferenceScore", new Document("$sum", "$categories.v"))),
-								new Document("$sort", new Document("totalPreferenceScore", -1))
+								new Document("$project", new Document("authors", "$readingStats.favoriteAuthors")),
+								new Document("$unwind", "$authors"),
+								new Document("$group", new Document("_id", "$authors").append("count", new Document("$sum", 1))),
+								new Document("$sort", new Document("count", -1)),
+								new Document("$limit", k)
 				);
-				memberCollection.aggregate(pipeline).forEach(doc -> System.out.println(doc.toJson()));
+				return memberCollection.aggregate(pipeline)
+								.map(doc -> new AuthorPopularity(doc.getString("_id"), MangoUtils.getLong(doc, "count")))
+								.into(new ArrayList<>());
 		}
 
-		// 5. Top 5 most common favorite authors (unwinding and grouping)
-		public void topFavoriteAuthors() {
+		/**
+		 * Exact counts of the given authors, grouped over the members that favor one of them only
+		 */
+		private List<AuthorPopularity> countFavoriteAuthors(List<String> authors) {
+				if (authors.isEmpty()) {
+						return List.of();
+				}
+				Document inAuthors = new Document("$in", authors);
 				List<Document> pipeline = Arrays.asList(
+								new Document("$match", new Document("readingStats.favoriteAuthors", inAuthors)),
 								new Document("$project", new Document("authors", "$readingStats.favoriteAuthors")),
 								new Document("$unwind", "$authors"),
+								new Document("$match", new Document("authors", inAuthors)),
 								new Document("$group", new Document("_id", "$authors").append("count", new Document("$sum", 1))),
-								new Document("$sort", new Document("count", -1)),
-								new Document("$limit", 5)
+								new Document("$sort", new Document("count", -1))
 				);
-				memberCollection.aggregate(pipeline).forEach(doc -> System.out.println(doc.toJson()));
+				return memberCollection.aggregate(pipeline)
+								.map(doc -> new AuthorPopularity(doc.getString("_id"), MangoUtils.getLong(doc, "count")))
+								.into(new ArrayList<>());
 		}
 
 		// 6. Members with emergency contact info (nested field projection and existence check)
-		public void listMembersWithEmergencyContact() {
+		@Override
+		public List<EmergencyContactEntry> listMembersWithEmergencyContact() {
 				List<Document> pipeline = Arrays.asList(
 								new Document("$match", new Document("contactInfo.emergencyContact", new Document("$exists", true))),
 								new Document("$project", new Document("firstName", 1)
@@ -118,6 +200,16 @@ public class MangoMemberManager {
 												.append("emergencyName", "$contactInfo.emergencyContact.name")
 												.append("emergencyPhone", "$contactInfo.emergencyContact.phone"))
 				);
-				memberCollection.aggregate(pipeline).forEach(doc -> System.out.println(doc.toJson()));
+				return memberCollection.aggregate(pipeline)
+								.map(doc -> new EmergencyContactEntry(doc.getString("firstName"), doc.getString("lastName"), doc.getString("emergencyName"), doc.getString("emergencyPhone")))
+								.into(new ArrayList<>());
+		}
+
+		private static List<String> overdueBookTitles(Document doc) {
+				List<String> titles = new ArrayList<>();
+				for (Document loan : doc.getList("overdueLoans", Document.class, List.of())) {
+						titles.add(loan.getString("bookTitle"));
+				}
+				return titles;
 		}
 }
@@ -1,17 +1,22 @@
 package com.library.mangodb.manager;
 
+import com.library.common.analytics.AnalyticsPrinter;
+import com.library.common.analytics.PublisherAnalytics;
+import com.library.common.metrics.TimedAnalytics;
 import com.library.common.model.Author;
 import com.library.common.model.Book;
 import com.library.common.model.Publisher;
 import com.library.common.util.ModelDataGenerator;
+import com.library.mangodb.MangoUtils;
 import com.library.mangodb.MongoConfig;
 import com.mongodb.client.MongoCollection;
 import org.bson.Document;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
-public class MangoPublisherManager {
+public class MangoPublisherManager implements PublisherAnalytics {
 
 		private final MongoCollection<Document> publisherCollection;
 
@@ -43,28 +48,24 @@ public class MangoPublisherManager {
 				bookCollection.insertMany(bookDocs);
 
 				// Initialiser le manager et exécuter les tests
-				MangoPublisherManager manager = new MangoPublisherManager();
+				PublisherAnalytics manager = TimedAnalytics.wrap(PublisherAnalytics.class, new MangoPublisherManager(), "mongo");
 
-				System.out.println("\n--- Nombre de livres publiés par éditeur ---");
-				manager.countBooksPerPublisher();
+				AnalyticsPrinter.print("\n--- Nombre de livres publiés par éditeur ---", manager.countBooksPerPublisher());
 
-				System.out.println("\n--- Liste unique des auteurs publiés par éditeur ---");
-				manager.listAuthorsPerPublisher();
+				AnalyticsPrinter.print("\n--- Liste unique des auteurs publiés par éditeur ---", manager.listAuthorsPerPublisher());
 
-				System.out.println("\n--- Moyenne du nombre de pages des livres par éditeur ---");
-				manager.averagePagesPerPublisher();
+				AnalyticsPrinter.print("\n--- Moyenne du nombre de pages des livres par éditeur ---", manager.averagePagesPerPublisher());
 
-				System.out.println("\n--- Éditeurs ayant publié plus de N livres ---");
 				int n = 5; // Exemple : éditeurs ayant publié plus de 5 livres
-				manager.publishersWithMoreThanNBooks(n);
+				AnalyticsPrinter.print("\n--- Éditeurs ayant publié plus de N livres ---", manager.publishersWithMoreThanNBooks(n));
 
-				System.out.println("\n--- Classement par nombre total d’emprunts dans loanHistory ---");
-				manager.rankPublishersByTotalLoans();
+				AnalyticsPrinter.print("\n--- Classement par nombre total d’emprunts dans loanHistory ---", manager.rankPublishersByTotalLoans());
 
 		}
 
 		// 1. Nombre de livres publiés par éditeur
-		public void countBooksPerPublisher() {
+		@Override
+		public List<PublisherCount> countBooksPerPublisher() {
 				List<Document> pipeline = Arrays.asList(
 								new Document("$lookup", new Document("from", "books")
 												.append("localField", "id")
@@ -74,11 +75,14 @@ public class MangoPublisherManager {
 												.append("bookCount", new Document("$size", "$books"))),
 								new Document("$sort", new Document("bookCount", -1))
 				);
-				publisherCollection.aggregate(pipeline).forEach(doc -> System.out.println(doc.toJson()));
+				return publisherCollection.aggregate(pipeline)
+								.map(doc -> new PublisherCount(doc.getString("name"), MangoUtils.getLong(doc, "bookCount")))
+								.into(new ArrayList<>());
 		}
 
 		// 2. Liste unique des auteurs publiés par éditeur
-		public void listAuthorsPerPublisher() {
+		@Override
+		public List<PublisherAuthors> listAuthorsPerPublisher() {
 				List<Document> pipeline = Arrays.asList(
 								new Document("$lookup", new Document("from", "books")
 												.append("localField", "id")
@@ -97,11 +101,14 @@ public class MangoPublisherManager {
 												.append("authors", 1)
 												.append("_id", 0))
 				);
-				publisherCollection.aggregate(pipeline).forEach(doc -> System.out.println(doc.toJson()));
+				return publisherCollection.aggregate(pipeline)
+								.map(doc -> new PublisherAuthors(doc.getString("publisher"), doc.getList("authors", String.class)))
+								.into(new ArrayList<>());
 		}
 
 		// 3. Moyenne du nombre de pages des livres par éditeur
-		public void averagePagesPerPublisher() {
+		@Override
+		public List<PublisherAverage> averagePagesPerPublisher() {
 				List<Document> pipeline = Arrays.asList(
 								new Document("$lookup", new Document("from", "books")
 												.append("localField", "id")
@@ -112,11 +119,14 @@ public class MangoPublisherManager {
 												.append("averagePages", new Document("$avg", "$books.pageCount"))),
 								new Document("$sort", new Document("averagePages", -1))
 				);
-				publisherCollection.aggregate(pipeline).forEach(doc -> System.out.println(doc.toJson()));
+				return publisherCollection.aggregate(pipeline)
+								.map(doc -> new PublisherAverage(doc.getString("_id"), MangoUtils.getDouble(doc, "averagePages")))
+								.into(new ArrayList<>());
 		}
 
 		// 4. Éditeurs ayant publié plus de N livres
-		public void publishersWithMoreThanNBooks(int n) {
+		@Override
+		public List<PublisherCount> publishersWithMoreThanNBooks(int n) {
 				List<Document> pipeline = Arrays.asList(
 								new Document("$lookup", new Document("from", "books")
 												.append("localField", "id")
@@ -127,11 +137,14 @@ public class MangoPublisherManager {
 								new Document("$match", new Document("bookCount", new Document("$gt", n))),
 								new Document("$sort", new Document("bookCount", -1))
 				);
-				publisherCollection.aggregate(pipeline).forEach(doc -> System.out.println(doc.toJson()));
+				return publisherCollection.aggregate(pipeline)
+								.map(doc -> new PublisherCount(doc.getString("name"), MangoUtils.getLong(doc, "bookCount")))
+								.into(new ArrayList<>());
 		}
 
 		// 5. Classement par nombre total d’emprunts dans loanHistory
-		public void rankPublishersByTotalLoans() {
+		@Override
+		public List<PublisherLoans> rankPublishersByTotalLoans() {
 				List<Document> pipeline = Arrays.asList(
 								new Document("$lookup", new Document("from", "books")
 												.append("localField", "id")
@@ -147,7 +160,9 @@ public class MangoPublisherManager {
 												.append("totalLoans", new Document("$sum", "$loanCount"))),
 								new Document("$sort", new Document("totalLoans", -1))
 				);
-				publisherCollection.aggregate(pipeline).forEach(doc -> System.out.println(doc.toJson()));
+				return publisherCollection.aggregate(pipeline)
+								.map(doc -> new PublisherLoans(doc.getString("_id"), MangoUtils.getLong(doc, "totalLoans")))
+								.into(new ArrayList<>());
 		}
 
 
@@ -1,6 +1,13 @@
 package com.library.ravendb;
 
+import com.library.ravendb.index.Books_ByIsbn;
+import com.library.ravendb.index.Categories_ByHierarchy;
+import com.library.ravendb.index.Members_ByCategoryPreference;
+import com.library.ravendb.index.Members_ByLoanDueDate;
 import net.ravendb.client.documents.DocumentStore;
+import net.ravendb.client.documents.indexes.IndexCreation;
+import net.ravendb.client.documents.operations.indexes.StartIndexingOperation;
+import net.ravendb.client.documents.operations.indexes.StopIndexingOperation;
 import net.ravendb.client.serverwide.DatabaseRecord;
 import net.ravendb.client.serverwide.operations.CreateDatabaseOperation;
 import net.ravendb.client.serverwide.operations.DeleteDatabasesOperation;
@@ -17,7 +24,7 @@ public class RavenConfig {
 		private static final String DATABASE_NAME = "LibraryDB";
 		private static final String[] URLS = new String[]{"http://localhost:8080"};
 		private static final String[] KNOWN_COLLECTIONS = new String[]{
-						"Members", "Books", "Authors", "Categories", "Publishers"
+						"Members", "Books", "Authors", "Categories", "Publishers", "OverdueNotices"
 		};
 		private static DocumentStore store;
 
@@ -35,6 +42,9 @@ public class RavenConfig {
 
 						// Ensure database exists
 						ensureDatabaseExists();
+
+						// Deploy static indexes
+						deployIndexes();
 				}
 				return store;
 		}
@@ -57,6 +67,28 @@ public class RavenConfig {
 				}
 		}
 
+		private static void deployIndexes() {
+				try {
+						IndexCreation.createIndexes(List.of(new Members_ByLoanDueDate(), new Members_ByCategoryPreference(),
+										new Categories_ByHierarchy(), new Books_ByIsbn()), store);
+				} catch (Exception e) {
+						logger.error("Error deploying static indexes: ", e);
+				}
+		}
+
+		/**
+		 * Pause indexing during bulk loads, indexes catch up in one pass on {@link #resumeIndexing()}
+		 */
+		public static void pauseIndexing() {
+				getDocumentStore().maintenance().send(new StopIndexingOperation());
+				logger.info("Indexing paused on {}", DATABASE_NAME);
+		}
+
+		public static void resumeIndexing() {
+				getDocumentStore().maintenance().send(new StartIndexingOperation());
+				logger.info("Indexing resumed on {}", DATABASE_NAME);
+		}
+
 		public static void resetDatabase() {
 				try {
 						logger.info("Resetting database: {}", DATABASE_NAME);
@@ -1,12 +1,19 @@
 package com.library.ravendb.crud;
 
+import com.library.common.facet.BookFacetIndex;
 import com.library.common.model.Book;
+import com.library.common.model.BookListItem;
 import com.library.common.util.ModelDataGenerator;
+import com.library.common.util.UniqueKeyFilter;
 import com.library.ravendb.RavenConfig;
+import com.library.ravendb.index.Books_ByIsbn;
+import net.ravendb.client.documents.commands.StreamResult;
 import net.ravendb.client.documents.session.IDocumentSession;
+import net.ravendb.client.primitives.CloseableIterator;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -14,9 +21,17 @@ import java.util.List;
  */
 public class RavenBookRepository extends RavenGenericRepository<Book> {
 		private static final Logger logger = LogManager.getLogger();
+		private static final String[] LIST_ITEM_FIELDS = {"title", "isbn", "available"};
+
+		private final UniqueReservations<Book> isbnReservations;
+		private final UniqueKeyFilter<Book> isbnFilter;
+		private volatile BookFacetIndex facets;
 
 		public RavenBookRepository() {
 				super(Book.class, "book", "books");
+				this.isbnReservations = new UniqueReservations<>(store, Book.class, "isbns/", "isbn", Book::getIsbn);
+				this.isbnFilter = new UniqueKeyFilter<>("ISBN", Book::getIsbn, Book::getId,
+								isbnReservations::forEachReserved, isbnReservations::owners);
 		}
 
 		/**
@@ -64,6 +79,15 @@ public class RavenBookRepository extends RavenGenericRepository<Book> {
 										sample.getTitle(), sample.getIsbn(), sample.isAvailable());
 				}
 
+				// Test typed projection
+				logger.info("=== Testing findListItems ===");
+				List<BookListItem> bookItems = repository.findListItems();
+				if (!bookItems.isEmpty()) {
+						BookListItem item = bookItems.get(0);
+						logger.info("Found {} book list items, first: Title={}, ISBN={}, Available={}",
+										bookItems.size(), item.getTitle(), item.getIsbn(), item.isAvailable());
+				}
+
 				// Test find by category
 				if (!allBooks.isEmpty()) {
 						Book sampleBook = allBooks.get(0);
@@ -190,6 +214,11 @@ public class RavenBookRepository extends RavenGenericRepository<Book> {
 				book.setId(id);
 		}
 
+		@Override
+		protected UniqueReservations<Book> uniqueReservations() {
+				return isbnReservations;
+		}
+
 		/**
 		 * Find books by category
 		 */
@@ -223,20 +252,48 @@ public class RavenBookRepository extends RavenGenericRepository<Book> {
 				}
 		}
 
+		/**
+		 * Find books as list items (title, isbn, available)
+		 */
+		public List<BookListItem> findListItems() {
+				return findProjected(BookListItem.class, LIST_ITEM_FIELDS);
+		}
+
+		/**
+		 * Find available books as list items
+		 */
+		public List<BookListItem> findAvailableListItems() {
+				return findProjectedWithWhereClause("available", true, BookListItem.class, LIST_ITEM_FIELDS);
+		}
+
 		/**
 		 * Update book availability
 		 */
 		public boolean updateAvailability(String bookId, boolean available) {
-				return updateField(bookId, "available", available);
+				boolean updated = updateField(bookId, "available", available);
+				BookFacetIndex index = facets;
+				if (updated && index != null) {
+						index.setAvailable(bookId, available);
+				}
+				return updated;
 		}
 
 		/**
-		 * Find book by ISBN
+		 * Find book by ISBN: a load through its compare-exchange reservation,
+		 * the Books_ByIsbn index for books stored without one
 		 */
 		public Book findByIsbn(String isbn) {
 				try (IDocumentSession session = store.openSession()) {
-						List<Book> books = session.query(Book.class)
-										.whereEquals("isbn", isbn)
+						String id = isbnReservations.owner(isbn);
+						if (id != null) {
+								Book book = session.load(Book.class, id);
+								if (book != null && isbn.equalsIgnoreCase(book.getIsbn())) {
+										return book;
+								}
+						}
+						List<Book> books = session.query(Book.class, Books_ByIsbn.class)
+										.whereEquals(Books_ByIsbn.ISBN, isbn)
+										.take(1)
 										.toList();
 						return books.isEmpty() ? null : books.get(0);
 				}
@@ -274,4 +331,146 @@ public class RavenBookRepository extends RavenGenericRepository<Book> {
 										.toList();
 				}
 		}
-}
\ No newline at end of file
+
+		/**
+		 * Load every book into the facet index and keep it current from this repository's writes.
+		 * Bulk updates and deletes by field reload the index.
+		 */
+		public void feedFacets(BookFacetIndex index) {
+				loadFacets(index);
+				this.facets = index;
+		}
+
+		/**
+		 * Stream the books into a facet index
+		 *
+		 * @return Number of books indexed
+		 */
+		public long loadFacets(BookFacetIndex index) {
+				long start = System.nanoTime();
+				long loaded = 0;
+				index.clear();
+				IDocumentSession session = store.openSession();
+				try (session; CloseableIterator<StreamResult<Book>> results = session.advanced().stream(session.query(Book.class))) {
+						while (results.hasNext()) {
+								StreamResult<Book> result = results.next();
+								index.put(result.getId(), result.getDocument());
+								loaded++;
+						}
+				} finally {
+						recordSession("loadFacets", start, session);
+				}
+				logger.info("Indexed {} books in the facet index", loaded);
+				return loaded;
+		}
+
+		@Override
+		public String insertOne(Book book) {
+				String id = super.insertOne(book);
+				BookFacetIndex index = facets;
+				if (index != null) {
+						index.put(id, book);
+				}
+				return id;
+		}
+
+		/**
+		 * Insert the books whose ISBN is not reserved yet, reserving it in the same transaction
+		 */
+		@Override
+		public List<String> insertMany(List<Book> books) {
+				return storeUnique(books, false);
+		}
+
+		/**
+		 * Upsert the books whose ISBN is free or already theirs, reserving the new ones in the same transaction
+		 */
+		@Override
+		public long upsertMany(List<Book> books) {
+				return storeUnique(books, true).size();
+		}
+
+		private List<String> storeUnique(List<Book> books, boolean upsert) {
+				UniqueKeyFilter.Admission<Book> admission = isbnFilter.admit(books);
+				try {
+						List<Book> accepted = admission.accepted();
+						List<String> ids = storeWithReservations(accepted, isbnReservations, admission.owned(), upsert);
+						List<String> stored = new ArrayList<>(ids.size());
+						BookFacetIndex index = facets;
+						for (int i = 0; i < ids.size(); i++) {
+								if (ids.get(i) != null) {
+										stored.add(ids.get(i));
+										if (index != null) {
+												index.put(ids.get(i), accepted.get(i));
+										}
+								}
+						}
+						return stored;
+				} finally {
+						isbnFilter.release(admission);
+				}
+		}
+
+		@Override
+		public boolean update(Book book) {
+				boolean updated = super.update(book);
+				BookFacetIndex index = facets;
+				if (updated && index != null) {
+						index.put(book);
+				}
+				return updated;
+		}
+
+		@Override
+		public boolean updateMany(String fieldName, Object matchValue, String updateField, Object updateValue) {
+				boolean updated = super.updateMany(fieldName, matchValue, updateField, updateValue);
+				BookFacetIndex index = facets;
+				if (updated && index != null) {
+						loadFacets(index);
+				}
+				return updated;
+		}
+
+		@Override
+		public boolean delete(Book book) {
+				boolean deleted = super.delete(book);
+				BookFacetIndex index = facets;
+				if (deleted && index != null) {
+						index.remove(book.getId());
+				}
+				return deleted;
+		}
+
+		@Override
+		public boolean deleteById(String id) {
+				boolean deleted = super.deleteById(id);
+				BookFacetIndex index = facets;
+				if (deleted && index != null) {
+						index.remove(id);
+				}
+				return deleted;
+		}
+
+		@Override
+		public boolean deleteMany(String fieldName, Object value) {
+				boolean deleted = super.deleteMany(fieldName, value);
+				BookFacetIndex index = facets;
+				if (deleted && index != null) {
+						loadFacets(index);
+				}
+				return deleted;
+		}
+
+		@Override
+		public boolean deleteAll() {
+				boolean deleted = super.deleteAll();
+				if (deleted) {
+						isbnFilter.reset();
+				}
+				BookFacetIndex index = facets;
+				if (deleted && index != null) {
+						index.clear();
+				}
+				return deleted;
+		}
+}
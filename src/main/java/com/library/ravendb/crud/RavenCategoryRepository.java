@@ -1,12 +1,21 @@
 package com.library.ravendb.crud;
 
 import com.library.common.model.Category;
+import com.library.common.util.CategoryPaths;
+import com.library.common.util.CategoryTree;
 import com.library.common.util.ModelDataGenerator;
 import com.library.ravendb.RavenConfig;
+import com.library.ravendb.index.Categories_ByHierarchy;
+import net.ravendb.client.Parameters;
+import net.ravendb.client.documents.operations.Operation;
+import net.ravendb.client.documents.operations.PatchByQueryOperation;
+import net.ravendb.client.documents.queries.IndexQuery;
+import net.ravendb.client.documents.queries.QueryOperationOptions;
 import net.ravendb.client.documents.session.IDocumentSession;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.time.Duration;
 import java.util.List;
 
 /**
@@ -14,9 +23,21 @@ import java.util.List;
  */
 public class RavenCategoryRepository extends RavenGenericRepository<Category> {
 		private static final Logger logger = LogManager.getLogger();
+		// Longest wait for Categories_ByHierarchy to catch up before a move patches it
+		private static final Duration MOVE_STALE_TIMEOUT = Duration.ofSeconds(30);
+
+		private final RavenMemberRepository members;
 
 		public RavenCategoryRepository() {
+				this(new RavenMemberRepository());
+		}
+
+		/**
+		 * @param members Member repository renaming the preferences of moved categories
+		 */
+		public RavenCategoryRepository(RavenMemberRepository members) {
 				super(Category.class, "category", "categories");
+				this.members = members;
 		}
 
 		/**
@@ -82,6 +103,16 @@ public class RavenCategoryRepository extends RavenGenericRepository<Category> {
 						logger.info("Found {} categories with name containing 'Fiction'", categoriesByName.size());
 				}
 
+				// Test hierarchy lookups
+				if (!allCategories.isEmpty()) {
+						logger.info("=== Testing hierarchy lookups ===");
+						CategoryTree tree = repository.loadTree();
+						logger.info("Tree: {} roots, {} leaves", tree.roots().size(), tree.leaves().size());
+						logger.info("Children of 'Fiction': {}", repository.findChildren("Fiction").size());
+						logger.info("Subtree of 'Fiction': {}", repository.findSubtree("Fiction").size());
+						logger.info("Categories at depth 2: {}", repository.findAtDepth(2).size());
+				}
+
 				// Test find by parent
 				if (!allCategories.isEmpty()) {
 						logger.info("=== Testing findByParent ===");
@@ -201,40 +232,115 @@ public class RavenCategoryRepository extends RavenGenericRepository<Category> {
 		}
 
 		/**
-		 * Find category by parent
+		 * Find every descendant of a category path (index lookup on ancestors)
 		 */
 		public List<Category> findByParent(String parent) {
 				try (IDocumentSession session = store.openSession()) {
-						return session.advanced().documentQuery(Category.class)
-										.whereRegex("path", "^" + parent + "/.*")
+						return session.query(Category.class, Categories_ByHierarchy.class)
+										.whereEquals(Categories_ByHierarchy.ANCESTORS, parent)
 										.toList();
 				}
 		}
 
 		/**
-		 * Update category path with prefix
+		 * Find the direct children of a category path
 		 */
-		public boolean updatePathPrefix(String oldPrefix, String newPrefix) {
+		public List<Category> findChildren(String parentPath) {
 				try (IDocumentSession session = store.openSession()) {
-						List<Category> categories = findByPath(oldPrefix);
-						if (categories.isEmpty()) {
-								return false;
-						}
+						return session.query(Category.class, Categories_ByHierarchy.class)
+										.whereEquals(Categories_ByHierarchy.PARENT, parentPath)
+										.toList();
+				}
+		}
 
-						for (Category category : categories) {
-								String oldPath = category.getPath();
-								String newPath = oldPath.replace(oldPrefix, newPrefix);
-								category.setPath(newPath);
-								session.store(category);
-						}
+		/**
+		 * Find a category and all its descendants
+		 */
+		public List<Category> findSubtree(String path) {
+				try (IDocumentSession session = store.openSession()) {
+						return session.query(Category.class, Categories_ByHierarchy.class)
+										.whereEquals(Categories_ByHierarchy.PATH, path)
+										.orElse()
+										.whereEquals(Categories_ByHierarchy.ANCESTORS, path)
+										.toList();
+				}
+		}
 
-						session.saveChanges();
-						logger.info("Updated path prefix from '{}' to '{}' for {} categories",
-										oldPrefix, newPrefix, categories.size());
-						return true;
+		/**
+		 * Find categories at a depth, 1 being top-level
+		 */
+		public List<Category> findAtDepth(int depth) {
+				try (IDocumentSession session = store.openSession()) {
+						return session.query(Category.class, Categories_ByHierarchy.class)
+										.whereEquals(Categories_ByHierarchy.DEPTH, depth)
+										.toList();
+				}
+		}
+
+		/**
+		 * Load every category into an in-memory tree
+		 */
+		public CategoryTree loadTree() {
+				return new CategoryTree(find());
+		}
+
+		/**
+		 * Update category path with prefix, segment-wise: the subtree rooted at oldPrefix moves to newPrefix
+		 */
+		public boolean updatePathPrefix(String oldPrefix, String newPrefix) {
+				try {
+						return moveSubtree(oldPrefix, newPrefix);
 				} catch (Exception e) {
 						logger.error("Failed to update path prefix: ", e);
 						return false;
 				}
 		}
+
+		/**
+		 * Move a category and all its descendants under a new path with one patch-by-query operation.
+		 * The server rewrites path, ancestors, depth and parent of every matching document, then the
+		 * member preferences keyed by a moved path; books reference categories by ID and need no change.
+		 *
+		 * @param oldPath Path of the subtree root, e.g. "Fiction/Fantasy"
+		 * @param newPath New path of the root, e.g. "Genre/Fantasy"
+		 * @return true once the operation completed
+		 */
+		public boolean moveSubtree(String oldPath, String newPath) {
+				if (CategoryPaths.isInSubtree(newPath, oldPath)) {
+						throw new IllegalArgumentException("Cannot move " + oldPath + " into its own subtree " + newPath);
+				}
+				if (!findSubtree(newPath).isEmpty()) {
+						throw new IllegalArgumentException("Target path already exists: " + newPath);
+				}
+
+				IndexQuery query = new IndexQuery("from index '" + new Categories_ByHierarchy().getIndexName() + "' " +
+								"where " + Categories_ByHierarchy.PATH + " = $oldPath or " + Categories_ByHierarchy.ANCESTORS + " = $oldPath " +
+								"update { " +
+								"var suffix = this.path.substring($oldLength); " +
+								"this.ancestors = $newAncestors.concat(this.ancestors.slice($oldDepth - 1)" +
+								".map(function (a) { return $newPath + a.substring($oldLength); })); " +
+								"this.parent = suffix === '' ? $newParent : $newPath + this.parent.substring($oldLength); " +
+								"this.depth = this.depth + $depthDelta; " +
+								"this.path = $newPath + suffix; " +
+								"}");
+				Parameters parameters = new Parameters();
+				parameters.put("oldPath", oldPath);
+				parameters.put("newPath", newPath);
+				parameters.put("oldLength", oldPath.length());
+				parameters.put("oldDepth", CategoryPaths.depthOf(oldPath));
+				parameters.put("depthDelta", CategoryPaths.depthOf(newPath) - CategoryPaths.depthOf(oldPath));
+				parameters.put("newAncestors", CategoryPaths.ancestorsOf(newPath));
+				parameters.put("newParent", CategoryPaths.parentOf(newPath));
+				query.setQueryParameters(parameters);
+
+				// Patching a stale index would miss the latest categories, wait for it instead of failing
+				QueryOperationOptions options = new QueryOperationOptions();
+				options.setStaleTimeout(MOVE_STALE_TIMEOUT);
+				Operation operation = store.operations().sendAsync(new PatchByQueryOperation(query, options));
+				operation.waitForCompletion();
+				members.renameCategoryPrefix(oldPath, newPath);
+				logger.info("Moved category subtree '{}' to '{}'", oldPath, newPath);
+				return true;
+		}
+
 }
\ No newline at end of file
@@ -1,13 +1,36 @@
 package com.library.ravendb.crud;
 
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.library.common.metrics.Counter;
+import com.library.common.metrics.Metrics;
+import com.library.common.metrics.RepositoryMetrics;
+import com.library.common.paging.ContinuationTokens;
+import com.library.common.paging.Page;
+import com.library.common.util.LogSampler;
+import com.library.common.util.UniqueKeyFilter;
 import com.library.ravendb.RavenConfig;
 import net.ravendb.client.documents.DocumentStore;
+import net.ravendb.client.documents.session.IDocumentQuery;
 import net.ravendb.client.documents.session.IDocumentSession;
+import net.ravendb.client.documents.session.OrderingType;
+import net.ravendb.client.documents.session.SessionOptions;
+import net.ravendb.client.documents.session.TransactionMode;
+import net.ravendb.client.exceptions.ConcurrencyException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * Generic RavenDB repository with CRUD operations
@@ -16,10 +39,19 @@ import java.util.List;
  */
 public abstract class RavenGenericRepository<T> {
 		private static final Logger logger = LogManager.getLogger();
+		private static final ObjectMapper mapper = new ObjectMapper();
+		private static final String ID_FIELD = "id()";
+		// Max session requests per entity, shared by the repository instances of that entity so its gauge is registered once
+		private static final Map<String, AtomicInteger> MAX_SESSION_REQUESTS = new ConcurrentHashMap<>();
 		protected final DocumentStore store;
 		protected final Class<T> entityClass;
 		protected final String entityName;
 		protected final String collectionName;
+		// One sampler per operation, so a line only reports the lines of its own operation it stood for
+		private final Map<String, LogSampler> opLogSamplers = new ConcurrentHashMap<>();
+		protected final RepositoryMetrics metrics;
+		private final Counter sessionRequests;
+		private final AtomicInteger maxSessionRequests;
 
 		/**
 		 * Constructor for generic repository
@@ -33,6 +65,13 @@ public abstract class RavenGenericRepository<T> {
 				this.entityClass = entityClass;
 				this.entityName = entityName;
 				this.collectionName = collectionName;
+				this.metrics = new RepositoryMetrics("raven", entityName);
+				this.sessionRequests = Metrics.registry().counter("raven.session.requests", "entity", entityName);
+				this.maxSessionRequests = MAX_SESSION_REQUESTS.computeIfAbsent(entityName, name -> {
+						AtomicInteger max = new AtomicInteger();
+						Metrics.registry().gauge("raven.session.requests.max", max::get, "entity", name);
+						return max;
+				});
 		}
 
 		/**
@@ -45,6 +84,28 @@ public abstract class RavenGenericRepository<T> {
 		 */
 		protected abstract void setEntityId(T entity, String id);
 
+		/**
+		 * Reservations of the entity's unique key, null when it has none.
+		 * Every write of such an entity then goes through a cluster-wide transaction that keeps its reservation in step.
+		 */
+		protected UniqueReservations<T> uniqueReservations() {
+				return null;
+		}
+
+		/**
+		 * Record operation latency and the number of server requests the session made
+		 */
+		protected void recordSession(String operation, long startNanos, IDocumentSession session) {
+				metrics.record(operation, startNanos);
+				int requests = session.advanced().getNumberOfRequests();
+				sessionRequests.increment(requests);
+				maxSessionRequests.accumulateAndGet(requests, Math::max);
+		}
+
+		private LogSampler opLogSampler(String operation) {
+				return opLogSamplers.computeIfAbsent(operation, k -> new LogSampler());
+		}
+
 		/// ///////////////////////
 		///  CREATE OPERATIONS   //
 		/// ///////////////////////
@@ -56,15 +117,31 @@ public abstract class RavenGenericRepository<T> {
 		 * @return ID of the inserted entity
 		 */
 		public String insertOne(T entity) {
-				try (IDocumentSession session = store.openSession()) {
+				UniqueReservations<T> reservations = uniqueReservations();
+				if (reservations != null) {
+						try {
+								return storeOneReserving("insertOne", entity, reservations, false);
+						} catch (Exception e) {
+								logger.error("Error inserting {}: ", entityName, e);
+								throw new RuntimeException("Failed to insert " + entityName, e);
+						}
+				}
+				long start = System.nanoTime();
+				IDocumentSession session = store.openSession();
+				try (session) {
 						session.store(entity);
 						String id = session.advanced().getDocumentId(entity);
 						session.saveChanges();
-						logger.info("Inserted {} with ID: {}", entityName, id);
+						metrics.documentsWritten(1);
+						if (logger.isInfoEnabled() && opLogSampler("insertOne").tryAcquire()) {
+								logger.info("Inserted {} with ID: {} (+{} sampled out)", entityName, id, opLogSampler("insertOne").drainSuppressed());
+						}
 						return id;
 				} catch (Exception e) {
 						logger.error("Error inserting {}: ", entityName, e);
 						throw new RuntimeException("Failed to insert " + entityName, e);
+				} finally {
+						recordSession("insertOne", start, session);
 				}
 		}
 
@@ -75,7 +152,9 @@ public abstract class RavenGenericRepository<T> {
 		 * @return List of inserted entity IDs
 		 */
 		public List<String> insertMany(List<T> entities) {
-				try (IDocumentSession session = store.openSession()) {
+				long start = System.nanoTime();
+				IDocumentSession session = store.openSession();
+				try (session) {
 						List<String> ids = new ArrayList<>();
 
 						for (T entity : entities) {
@@ -84,11 +163,197 @@ public abstract class RavenGenericRepository<T> {
 						}
 
 						session.saveChanges();
+						metrics.documentsWritten(entities.size());
 						logger.info("Inserted {} {}s", entities.size(), entityName);
 						return ids;
 				} catch (Exception e) {
 						logger.error("Error inserting {}s: ", entityName, e);
 						throw new RuntimeException("Failed to insert " + entityName + "s", e);
+				} finally {
+						recordSession("insertMany", start, session);
+				}
+		}
+
+		/**
+		 * Insert or overwrite many entities under their own IDs, replaying the same batch is harmless
+		 *
+		 * @param entities List of entities to upsert
+		 * @return Number of stored entities
+		 */
+		public long upsertMany(List<T> entities) {
+				long start = System.nanoTime();
+				IDocumentSession session = store.openSession();
+				try (session) {
+						for (T entity : entities) {
+								String id = getEntityId(entity);
+								if (id == null) {
+										session.store(entity);
+								} else {
+										session.store(entity, id);
+								}
+						}
+
+						session.saveChanges();
+						metrics.documentsWritten(entities.size());
+						logger.info("Upserted {} {}s", entities.size(), entityName);
+						return entities.size();
+				} catch (Exception e) {
+						logger.error("Error upserting {}s: ", entityName, e);
+						throw new RuntimeException("Failed to upsert " + entityName + "s", e);
+				} finally {
+						recordSession("upsertMany", start, session);
+				}
+		}
+
+		/**
+		 * Store entities in one cluster-wide transaction that also reserves their unique key.
+		 * If a key was taken in the meantime the transaction fails as a whole, the entities are then
+		 * stored one by one and the ones whose key is taken are skipped. Existing documents are
+		 * loaded in the transaction before being overwritten, so a replayed batch is not a conflict.
+		 *
+		 * @param entities     Entities to store
+		 * @param reservations Reservations of the unique key
+		 * @param owned        Keys already reserved by the entity holding them, not reserved again
+		 * @param useEntityIds Store under the entities' own IDs when they have one (upsert)
+		 * @return IDs aligned with the entities, null for the skipped ones
+		 */
+		protected List<String> storeWithReservations(List<T> entities, UniqueReservations<T> reservations,
+																								 Set<String> owned, boolean useEntityIds) {
+				long start = System.nanoTime();
+				try {
+						List<String> ids = storeReserving(entities, reservations, owned, useEntityIds);
+						metrics.documentsWritten(entities.size());
+						if (logger.isInfoEnabled() && opLogSampler("storeWithReservations").tryAcquire()) {
+								logger.info("Stored {} {}s with their reservations (+{} sampled out)", entities.size(), entityName,
+												opLogSampler("storeWithReservations").drainSuppressed());
+						}
+						return ids;
+				} catch (ConcurrencyException e) {
+						logger.warn("A {} key was taken during the batch, storing one by one", entityName);
+				} finally {
+						metrics.record("storeWithReservations", start);
+				}
+
+				List<String> ids = new ArrayList<>(entities.size());
+				int skipped = 0;
+				for (T entity : entities) {
+						try {
+								ids.add(storeReserving(List.of(entity), reservations, owned, useEntityIds).get(0));
+						} catch (ConcurrencyException e) {
+								ids.add(null);
+								skipped++;
+						}
+				}
+				metrics.documentsWritten(entities.size() - skipped);
+				if (logger.isInfoEnabled() && opLogSampler("storeWithReservations").tryAcquire()) {
+						logger.info("Stored {} {}s with their reservations, {} duplicates skipped (+{} sampled out)",
+										entities.size() - skipped, entityName, skipped, opLogSampler("storeWithReservations").drainSuppressed());
+				}
+				return ids;
+		}
+
+		/**
+		 * Store one entity with its reservation, after checking the key is free or already its own
+		 * (a stale reservation of the key is reclaimed by the check)
+		 *
+		 * @return ID of the stored entity
+		 */
+		private String storeOneReserving(String operation, T entity, UniqueReservations<T> reservations, boolean useEntityId) {
+				long start = System.nanoTime();
+				try {
+						String key = reservations.getKeyOf().apply(entity);
+						Set<String> owned = ownedKey(reservations, key, getEntityId(entity));
+						String id = storeReserving(List.of(entity), reservations, owned, useEntityId).get(0);
+						metrics.documentsWritten(1);
+						if (logger.isInfoEnabled() && opLogSampler(operation).tryAcquire()) {
+								logger.info("Stored {} with ID {} and its reservation (+{} sampled out)", entityName, id, opLogSampler(operation).drainSuppressed());
+						}
+						return id;
+				} finally {
+						metrics.record(operation, start);
+				}
+		}
+
+		/**
+		 * The normalized key when the document already holds its reservation, none when the key is free
+		 *
+		 * @throws IllegalStateException if another document holds the key
+		 */
+		private Set<String> ownedKey(UniqueReservations<T> reservations, String key, String id) {
+				if (key == null) {
+						return Set.of();
+				}
+				String owner = reservations.owners(List.of(key)).get(UniqueKeyFilter.normalize(key));
+				if (owner == null) {
+						return Set.of();
+				}
+				if (!owner.equals(id)) {
+						throw new IllegalStateException(entityName + " " + reservations.getField() + " " + key + " is already held by " + owner);
+				}
+				return Set.of(UniqueKeyFilter.normalize(key));
+		}
+
+		private List<String> storeReserving(List<T> entities, UniqueReservations<T> reservations,
+																				Set<String> owned, boolean useEntityIds) {
+				try (IDocumentSession session = openClusterSession()) {
+						// A cluster-wide transaction only overwrites the documents it loaded, a blind store would conflict
+						List<String> entityIds = useEntityIds
+										? entities.stream().map(this::getEntityId).filter(Objects::nonNull).distinct().toList()
+										: List.of();
+						Map<String, T> existing = entityIds.isEmpty() ? Map.of() : session.load(entityClass, entityIds);
+
+						List<String> ids = new ArrayList<>(entities.size());
+						for (T entity : entities) {
+								String id = useEntityIds ? getEntityId(entity) : null;
+								T previous = id == null ? null : existing.get(id);
+								String previousKey = previous == null ? null : reservations.getKeyOf().apply(previous);
+								if (id == null) {
+										session.store(entity);
+										id = session.advanced().getDocumentId(entity);
+								} else if (previous == null) {
+										session.store(entity, id);
+								} else {
+										overwrite(previous, entity);
+								}
+								moveReservation(session, reservations, id, previousKey, reservations.getKeyOf().apply(entity), owned);
+								ids.add(id);
+						}
+						session.saveChanges();
+						return ids;
+				}
+		}
+
+		private IDocumentSession openClusterSession() {
+				SessionOptions options = new SessionOptions();
+				options.setTransactionMode(TransactionMode.CLUSTER_WIDE);
+				return store.openSession(options);
+		}
+
+		/**
+		 * Copy the entity's state onto the document tracked by the session
+		 */
+		private void overwrite(T tracked, T entity) {
+				try {
+						store.getConventions().getEntityMapper().updateValue(tracked, entity);
+				} catch (JsonMappingException e) {
+						throw new RuntimeException("Failed to copy " + entityName + " " + getEntityId(entity), e);
+				}
+		}
+
+		/**
+		 * Keep the reservation in step with a write of the document: reserve the key unless the document
+		 * already holds it, release the previous key when the write changes it
+		 *
+		 * @param owned Normalized keys already reserved by their document
+		 */
+		private static <T> void moveReservation(IDocumentSession session, UniqueReservations<T> reservations, String id,
+																						String previousKey, String key, Set<String> owned) {
+				String normalized = UniqueKeyFilter.normalize(key);
+				if (normalized != null && !owned.contains(normalized)) {
+						reservations.reserve(session, key, id);
+				}
+				if (previousKey != null && !UniqueKeyFilter.normalize(previousKey).equals(normalized)) {
+						reservations.release(session, previousKey, id);
 				}
 		}
 
@@ -100,8 +365,14 @@ public abstract class RavenGenericRepository<T> {
 		 * Find entity by ID
 		 */
 		public T findById(String id) {
-				try (IDocumentSession session = store.openSession()) {
-						return session.load(entityClass, id);
+				long start = System.nanoTime();
+				IDocumentSession session = store.openSession();
+				try (session) {
+						T entity = session.load(entityClass, id);
+						metrics.documentsRead(entity != null ? 1 : 0);
+						return entity;
+				} finally {
+						recordSession("findById", start, session);
 				}
 		}
 
@@ -109,9 +380,15 @@ public abstract class RavenGenericRepository<T> {
 		 * Find all entities
 		 */
 		public List<T> find() {
-				try (IDocumentSession session = store.openSession()) {
-						return session.query(entityClass)
+				long start = System.nanoTime();
+				IDocumentSession session = store.openSession();
+				try (session) {
+						List<T> entities = session.query(entityClass)
 										.toList();
+						metrics.documentsRead(entities.size());
+						return entities;
+				} finally {
+						recordSession("find", start, session);
 				}
 		}
 
@@ -121,13 +398,172 @@ public abstract class RavenGenericRepository<T> {
 		 * This is a basic implementation that can be extended
 		 */
 		public List<T> findWithWhereClause(String fieldName, Object value) {
-				try (IDocumentSession session = store.openSession()) {
-						return session.query(entityClass)
+				long start = System.nanoTime();
+				IDocumentSession session = store.openSession();
+				try (session) {
+						List<T> entities = session.query(entityClass)
 										.whereEquals(fieldName, value)
 										.toList();
+						metrics.documentsRead(entities.size());
+						return entities;
+				} finally {
+						recordSession("findWithWhereClause", start, session);
+				}
+		}
+
+		/**
+		 * Find all entities as a typed view, only the selected fields are returned by the server.
+		 * The view's id field is filled from the document metadata.
+		 */
+		public <P> List<P> findProjected(Class<P> projectionClass, String... fields) {
+				long start = System.nanoTime();
+				IDocumentSession session = store.openSession();
+				try (session) {
+						List<P> views = session.query(entityClass)
+										.selectFields(projectionClass, fields)
+										.toList();
+						metrics.documentsRead(views.size());
+						return views;
+				} finally {
+						recordSession("findProjected", start, session);
 				}
 		}
 
+		/**
+		 * Find entities matching a field value as a typed view
+		 */
+		public <P> List<P> findProjectedWithWhereClause(String fieldName, Object value, Class<P> projectionClass, String... fields) {
+				long start = System.nanoTime();
+				IDocumentSession session = store.openSession();
+				try (session) {
+						List<P> views = session.query(entityClass)
+										.whereEquals(fieldName, value)
+										.selectFields(projectionClass, fields)
+										.toList();
+						metrics.documentsRead(views.size());
+						return views;
+				} finally {
+						recordSession("findProjectedWithWhereClause", start, session);
+				}
+		}
+
+		/**
+		 * Keyset pagination on (sortField, document id).
+		 * Each page filters past the last returned key instead of skipping, so deep pages
+		 * cost the same as the first one and never hit the server page size limit.
+		 *
+		 * @param sortField         Top-level sort field, null to page on the document id only
+		 * @param descending        Sort direction
+		 * @param pageSize          Maximum number of entities per page
+		 * @param continuationToken Token from the previous page, null for the first page
+		 */
+		public Page<T> findPage(String sortField, boolean descending, int pageSize, String continuationToken) {
+				long start = System.nanoTime();
+				String field = sortField != null ? sortField : ID_FIELD;
+				OrderingType ordering = orderingOf(field);
+				IDocumentSession session = store.openSession();
+				try (session) {
+						IDocumentQuery<T> query = session.advanced().documentQuery(entityClass);
+
+						if (continuationToken != null) {
+								JsonNode position = mapper.readTree(ContinuationTokens.decode(continuationToken));
+								if (!field.equals(position.path("f").asText())) {
+										throw new IllegalArgumentException("Continuation token was issued for sort field " + position.path("f").asText());
+								}
+								String lastId = position.path("id").asText();
+								if (ID_FIELD.equals(field)) {
+										whereAfter(query, ID_FIELD, lastId, descending);
+								} else {
+										Object lastValue = mapper.treeToValue(position.get("v"), Object.class);
+										query.openSubclause();
+										whereAfter(query, field, lastValue, descending);
+										query.orElse()
+														.openSubclause()
+														.whereEquals(field, lastValue)
+														.andAlso();
+										whereAfter(query, ID_FIELD, lastId, descending);
+										query.closeSubclause()
+														.closeSubclause();
+								}
+						}
+
+						if (!ID_FIELD.equals(field)) {
+								orderBy(query, field, ordering, descending);
+						}
+						orderBy(query, ID_FIELD, OrderingType.STRING, descending);
+
+						// One extra document tells whether a next page exists
+						List<T> entities = query.take(pageSize + 1).toList();
+
+						String nextToken = null;
+						if (entities.size() > pageSize) {
+								entities = new ArrayList<>(entities.subList(0, pageSize));
+								T last = entities.get(entities.size() - 1);
+								ObjectNode position = mapper.createObjectNode()
+												.put("f", field)
+												.put("id", session.advanced().getDocumentId(last));
+								if (!ID_FIELD.equals(field)) {
+										position.set("v", mapper.valueToTree(last).get(field));
+								}
+								nextToken = ContinuationTokens.encode(mapper.writeValueAsString(position));
+						}
+
+						metrics.documentsRead(entities.size());
+						return new Page<>(entities, nextToken);
+				} catch (IllegalArgumentException e) {
+						throw e;
+				} catch (Exception e) {
+						logger.error("Failed to page {}s by {}", entityName, field, e);
+						throw new RuntimeException("Failed to page " + entityName + "s", e);
+				} finally {
+						recordSession("findPage", start, session);
+				}
+		}
+
+		/**
+		 * Keyset pagination on the document id
+		 */
+		public Page<T> findPage(int pageSize, String continuationToken) {
+				return findPage(null, false, pageSize, continuationToken);
+		}
+
+		private static <Q> void whereAfter(IDocumentQuery<Q> query, String field, Object value, boolean descending) {
+				if (descending) {
+						query.whereLessThan(field, value);
+				} else {
+						query.whereGreaterThan(field, value);
+				}
+		}
+
+		private static <Q> void orderBy(IDocumentQuery<Q> query, String field, OrderingType ordering, boolean descending) {
+				if (descending) {
+						query.orderByDescending(field, ordering);
+				} else {
+						query.orderBy(field, ordering);
+				}
+		}
+
+		/**
+		 * Numeric fields must be ordered numerically, otherwise "10" sorts before "9"
+		 */
+		private OrderingType orderingOf(String field) {
+				if (ID_FIELD.equals(field)) {
+						return OrderingType.STRING;
+				}
+				try {
+						Class<?> type = entityClass.getDeclaredField(field).getType();
+						if (type == int.class || type == long.class || type == Integer.class || type == Long.class) {
+								return OrderingType.LONG;
+						}
+						if (type == double.class || type == float.class || type == Double.class || type == Float.class) {
+								return OrderingType.DOUBLE;
+						}
+				} catch (NoSuchFieldException e) {
+						throw new IllegalArgumentException("Unknown sort field " + field + " for " + entityName, e);
+				}
+				return OrderingType.STRING;
+		}
+
 		/// ///////////////////////
 		///  UPDATE OPERATIONS   //
 		/// ///////////////////////
@@ -136,14 +572,31 @@ public abstract class RavenGenericRepository<T> {
 		 * Update an entity
 		 */
 		public boolean update(T entity) {
-				try (IDocumentSession session = store.openSession()) {
+				UniqueReservations<T> reservations = uniqueReservations();
+				if (reservations != null) {
+						try {
+								storeOneReserving("update", entity, reservations, true);
+								return true;
+						} catch (Exception e) {
+								logger.error("Failed to update {} with id: {}", entityName, getEntityId(entity), e);
+								return false;
+						}
+				}
+				long start = System.nanoTime();
+				IDocumentSession session = store.openSession();
+				try (session) {
 						session.store(entity);
 						session.saveChanges();
-						logger.info("{} update operation - id: {}", entityName, getEntityId(entity));
+						metrics.documentsWritten(1);
+						if (logger.isInfoEnabled() && opLogSampler("update").tryAcquire()) {
+								logger.info("{} update operation - id: {} (+{} sampled out)", entityName, getEntityId(entity), opLogSampler("update").drainSuppressed());
+						}
 						return true;
 				} catch (Exception e) {
 						logger.error("Failed to update {} with id: {}", entityName, getEntityId(entity), e);
 						return false;
+				} finally {
+						recordSession("update", start, session);
 				}
 		}
 
@@ -151,7 +604,13 @@ public abstract class RavenGenericRepository<T> {
 		 * Update an entity field with specific value
 		 */
 		public boolean updateField(String id, String fieldName, Object value) {
-				try (IDocumentSession session = store.openSession()) {
+				UniqueReservations<T> reservations = uniqueReservations();
+				if (reservations != null && reservations.getField().equals(fieldName)) {
+						return updateKeyField(id, value, reservations);
+				}
+				long start = System.nanoTime();
+				IDocumentSession session = store.openSession();
+				try (session) {
 						T entity = session.load(entityClass, id);
 						if (entity == null) {
 								return false;
@@ -161,12 +620,48 @@ public abstract class RavenGenericRepository<T> {
 						// will update only the modified fields
 						session.advanced().patch(entity, fieldName, value);
 						session.saveChanges();
+						metrics.documentsWritten(1);
 
-						logger.info("{} field '{}' updated for id: {}", entityName, fieldName, id);
+						if (logger.isInfoEnabled() && opLogSampler("updateField").tryAcquire()) {
+								logger.info("{} field '{}' updated for id: {} (+{} sampled out)", entityName, fieldName, id, opLogSampler("updateField").drainSuppressed());
+						}
 						return true;
 				} catch (Exception e) {
 						logger.error("Failed to update field {} for {} with id: {}", fieldName, entityName, id, e);
 						return false;
+				} finally {
+						recordSession("updateField", start, session);
+				}
+		}
+
+		/**
+		 * Set the unique key of a document and move its reservation in the same cluster-wide transaction
+		 */
+		private boolean updateKeyField(String id, Object value, UniqueReservations<T> reservations) {
+				long start = System.nanoTime();
+				try {
+						String key = value == null ? null : value.toString();
+						Set<String> owned = ownedKey(reservations, key, id);
+						try (IDocumentSession session = openClusterSession()) {
+								T entity = session.load(entityClass, id);
+								if (entity == null) {
+										return false;
+								}
+								String previousKey = reservations.getKeyOf().apply(entity);
+								store.getConventions().getEntityMapper().updateValue(entity, Collections.singletonMap(reservations.getField(), value));
+								moveReservation(session, reservations, id, previousKey, key, owned);
+								session.saveChanges();
+						}
+						metrics.documentsWritten(1);
+						if (logger.isInfoEnabled() && opLogSampler("updateField").tryAcquire()) {
+								logger.info("{} field '{}' updated for id: {} (+{} sampled out)", entityName, reservations.getField(), id, opLogSampler("updateField").drainSuppressed());
+						}
+						return true;
+				} catch (Exception e) {
+						logger.error("Failed to update field {} for {} with id: {}", reservations.getField(), entityName, id, e);
+						return false;
+				} finally {
+						metrics.record("updateField", start);
 				}
 		}
 
@@ -175,7 +670,9 @@ public abstract class RavenGenericRepository<T> {
 		 * Note: In RavenDB, this is typically done with patch operations
 		 */
 		public boolean updateMany(String fieldName, Object matchValue, String updateField, Object updateValue) {
-				try (IDocumentSession session = store.openSession()) {
+				long start = System.nanoTime();
+				IDocumentSession session = store.openSession();
+				try (session) {
 						List<T> entities = session.query(entityClass)
 										.whereEquals(fieldName, matchValue)
 										.toList();
@@ -184,16 +681,29 @@ public abstract class RavenGenericRepository<T> {
 								return false;
 						}
 
+						UniqueReservations<T> reservations = uniqueReservations();
+						if (reservations != null && reservations.getField().equals(updateField)) {
+								// Each document moves its own reservation, only one of them can take the key
+								boolean updated = false;
+								for (T entity : entities) {
+										updated |= updateKeyField(session.advanced().getDocumentId(entity), updateValue, reservations);
+								}
+								return updated;
+						}
+
 						for (T entity : entities) {
 								session.advanced().patch(entity, updateField, updateValue);
 						}
 
 						session.saveChanges();
+						metrics.documentsWritten(entities.size());
 						logger.info("Updated {} {}s where {}={}", entities.size(), entityName, fieldName, matchValue);
 						return true;
 				} catch (Exception e) {
 						logger.error("Failed to update {}s where {}={}", entityName, fieldName, matchValue, e);
 						return false;
+				} finally {
+						recordSession("updateMany", start, session);
 				}
 		}
 
@@ -205,15 +715,26 @@ public abstract class RavenGenericRepository<T> {
 		 * Delete an entity
 		 */
 		public boolean delete(T entity) {
-				try (IDocumentSession session = store.openSession()) {
+				UniqueReservations<T> reservations = uniqueReservations();
+				if (reservations != null) {
+						return deleteByIdReserving("delete", getEntityId(entity), reservations);
+				}
+				long start = System.nanoTime();
+				IDocumentSession session = store.openSession();
+				try (session) {
 						String id = getEntityId(entity);
 						session.delete(id);
 						session.saveChanges();
-						logger.info("Deleted {} with ID {}", entityName, id);
+						metrics.documentsWritten(1);
+						if (logger.isInfoEnabled() && opLogSampler("delete").tryAcquire()) {
+								logger.info("Deleted {} with ID {} (+{} sampled out)", entityName, id, opLogSampler("delete").drainSuppressed());
+						}
 						return true;
 				} catch (Exception e) {
 						logger.error("Failed to delete {} with id: {}", entityName, getEntityId(entity), e);
 						return false;
+				} finally {
+						recordSession("delete", start, session);
 				}
 		}
 
@@ -221,14 +742,67 @@ public abstract class RavenGenericRepository<T> {
 		 * Delete entity by ID
 		 */
 		public boolean deleteById(String id) {
-				try (IDocumentSession session = store.openSession()) {
+				UniqueReservations<T> reservations = uniqueReservations();
+				if (reservations != null) {
+						return deleteByIdReserving("deleteById", id, reservations);
+				}
+				long start = System.nanoTime();
+				IDocumentSession session = store.openSession();
+				try (session) {
 						session.delete(id);
 						session.saveChanges();
-						logger.info("Deleted {} with ID {}", entityName, id);
+						metrics.documentsWritten(1);
+						if (logger.isInfoEnabled() && opLogSampler("deleteById").tryAcquire()) {
+								logger.info("Deleted {} with ID {} (+{} sampled out)", entityName, id, opLogSampler("deleteById").drainSuppressed());
+						}
+						return true;
+				} catch (Exception e) {
+						logger.error("Failed to delete {} with id: {}", entityName, id, e);
+						return false;
+				} finally {
+						recordSession("deleteById", start, session);
+				}
+		}
+
+		/**
+		 * Delete a document and release its reservation in the same cluster-wide transaction
+		 */
+		private boolean deleteByIdReserving(String operation, String id, UniqueReservations<T> reservations) {
+				long start = System.nanoTime();
+				try {
+						deleteReserving(reservations, session -> {
+								T entity = session.load(entityClass, id);
+								return entity == null ? List.of() : List.of(entity);
+						});
+						metrics.documentsWritten(1);
+						if (logger.isInfoEnabled() && opLogSampler(operation).tryAcquire()) {
+								logger.info("Deleted {} with ID {} and its reservation (+{} sampled out)", entityName, id, opLogSampler(operation).drainSuppressed());
+						}
 						return true;
 				} catch (Exception e) {
 						logger.error("Failed to delete {} with id: {}", entityName, id, e);
 						return false;
+				} finally {
+						metrics.record(operation, start);
+				}
+		}
+
+		/**
+		 * Delete the documents found by the lookup and release their reservations, in one cluster-wide transaction
+		 *
+		 * @return Number of deleted documents
+		 */
+		private int deleteReserving(UniqueReservations<T> reservations, Function<IDocumentSession, List<T>> lookup) {
+				try (IDocumentSession session = openClusterSession()) {
+						List<T> entities = lookup.apply(session);
+						for (T entity : entities) {
+								reservations.release(session, reservations.getKeyOf().apply(entity), session.advanced().getDocumentId(entity));
+								session.delete(entity);
+						}
+						if (!entities.isEmpty()) {
+								session.saveChanges();
+						}
+						return entities.size();
 				}
 		}
 
@@ -236,7 +810,26 @@ public abstract class RavenGenericRepository<T> {
 		 * Delete multiple entities matching a condition
 		 */
 		public boolean deleteMany(String fieldName, Object value) {
-				try (IDocumentSession session = store.openSession()) {
+				UniqueReservations<T> reservations = uniqueReservations();
+				if (reservations != null) {
+						long start = System.nanoTime();
+						try {
+								int deleted = deleteReserving(reservations, session -> session.query(entityClass)
+												.whereEquals(fieldName, value)
+												.toList());
+								metrics.documentsWritten(deleted);
+								logger.info("Deleted {} {}s where {}={} with their reservations", deleted, entityName, fieldName, value);
+								return deleted > 0;
+						} catch (Exception e) {
+								logger.error("Failed to delete {}s where {}={}", entityName, fieldName, value, e);
+								return false;
+						} finally {
+								metrics.record("deleteMany", start);
+						}
+				}
+				long start = System.nanoTime();
+				IDocumentSession session = store.openSession();
+				try (session) {
 						List<T> entities = session.query(entityClass)
 										.whereEquals(fieldName, value)
 										.toList();
@@ -250,40 +843,53 @@ public abstract class RavenGenericRepository<T> {
 						}
 
 						session.saveChanges();
+						metrics.documentsWritten(entities.size());
 						logger.info("Deleted {} {}s where {}={}", entities.size(), entityName, fieldName, value);
 						return true;
 				} catch (Exception e) {
 						logger.error("Failed to delete {}s where {}={}", entityName, fieldName, value, e);
 						return false;
+				} finally {
+						recordSession("deleteMany", start, session);
 				}
 		}
 
 		/**
-		 * Delete all entities in the collection
+		 * Delete all entities in the collection, then every reservation of their unique key
 		 *
 		 * @return true if operation was successful
 		 */
 		public boolean deleteAll() {
-				try (IDocumentSession session = store.openSession()) {
+				long start = System.nanoTime();
+				IDocumentSession session = store.openSession();
+				try (session) {
 						// First, load all entities in this collection
 						List<T> entities = session.query(entityClass).toList();
 
 						if (entities.isEmpty()) {
 								logger.info("No {}s found to delete", entityName);
-								return true;
+						} else {
+								// Delete each entity
+								for (T entity : entities) {
+										session.delete(entity);
+								}
+
+								session.saveChanges();
+								metrics.documentsWritten(entities.size());
+								logger.info("Deleted all {} {}s", entities.size(), entityName);
 						}
 
-						// Delete each entity
-						for (T entity : entities) {
-								session.delete(entity);
+						// Reservations left behind by the deleted documents, or by an earlier interrupted load
+						UniqueReservations<T> reservations = uniqueReservations();
+						if (reservations != null) {
+								reservations.clear();
 						}
-
-						session.saveChanges();
-						logger.info("Deleted all {} {}s", entities.size(), entityName);
 						return true;
 				} catch (Exception e) {
 						logger.error("Failed to delete all {}s: ", entityName, e);
 						return false;
+				} finally {
+						recordSession("deleteAll", start, session);
 				}
 		}
 }
\ No newline at end of file
@@ -1,12 +1,24 @@
 package com.library.ravendb.crud;
 
 import com.library.common.model.Member;
+import com.library.common.model.MemberListItem;
+import com.library.common.paging.Page;
 import com.library.common.util.ModelDataGenerator;
+import com.library.common.util.UniqueKeyFilter;
 import com.library.ravendb.RavenConfig;
+import com.library.ravendb.index.Members_ByCategoryPreference;
+import com.library.ravendb.index.Members_ByLoanDueDate;
+import net.ravendb.client.Parameters;
+import net.ravendb.client.documents.operations.Operation;
+import net.ravendb.client.documents.operations.PatchByQueryOperation;
+import net.ravendb.client.documents.queries.IndexQuery;
+import net.ravendb.client.documents.queries.QueryOperationOptions;
 import net.ravendb.client.documents.session.IDocumentSession;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -16,9 +28,18 @@ import java.util.Map;
  */
 public class RavenMemberRepository extends RavenGenericRepository<Member> {
 		private static final Logger logger = LogManager.getLogger();
+		private static final String[] LIST_ITEM_FIELDS = {"firstName", "lastName", "email"};
+		// Longest wait for Members_ByCategoryPreference to catch up before a rename patches it
+		private static final Duration RENAME_STALE_TIMEOUT = Duration.ofSeconds(30);
+
+		private final UniqueReservations<Member> emailReservations;
+		private final UniqueKeyFilter<Member> emailFilter;
 
 		public RavenMemberRepository() {
 				super(Member.class, "member", "members");
+				this.emailReservations = new UniqueReservations<>(store, Member.class, "emails/", "email", Member::getEmail);
+				this.emailFilter = new UniqueKeyFilter<>("email", Member::getEmail, Member::getId,
+								emailReservations::forEachReserved, emailReservations::owners);
 		}
 
 		/**
@@ -66,6 +87,25 @@ public class RavenMemberRepository extends RavenGenericRepository<Member> {
 										sample.getFirstName(), sample.getLastName(), sample.getEmail());
 				}
 
+				// Test typed projection
+				logger.info("=== Testing findListItems ===");
+				List<MemberListItem> memberItems = repository.findListItems();
+				if (!memberItems.isEmpty()) {
+						MemberListItem item = memberItems.get(0);
+						logger.info("Found {} member list items, first: {} {} <{}>",
+										memberItems.size(), item.getFirstName(), item.getLastName(), item.getEmail());
+				}
+
+				// Test keyset pagination
+				logger.info("=== Testing findPage ===");
+				String token = null;
+				int pageNumber = 0;
+				do {
+						Page<Member> page = repository.findPage("lastName", false, 3, token);
+						logger.info("Page {}: {} members, has next: {}", ++pageNumber, page.items().size(), page.hasNext());
+						token = page.nextToken();
+				} while (token != null);
+
 				// Test find by name
 				if (!allMembers.isEmpty()) {
 						Member sampleMember = allMembers.get(0);
@@ -166,6 +206,94 @@ public class RavenMemberRepository extends RavenGenericRepository<Member> {
 				member.setId(id);
 		}
 
+		@Override
+		protected UniqueReservations<Member> uniqueReservations() {
+				return emailReservations;
+		}
+
+		/**
+		 * Insert the members whose email is not reserved yet, reserving it in the same transaction
+		 */
+		@Override
+		public List<String> insertMany(List<Member> members) {
+				return storeUnique(members, false);
+		}
+
+		/**
+		 * Upsert the members whose email is free or already theirs, reserving the new ones in the same transaction
+		 */
+		@Override
+		public long upsertMany(List<Member> members) {
+				return storeUnique(members, true).size();
+		}
+
+		@Override
+		public boolean deleteAll() {
+				boolean deleted = super.deleteAll();
+				if (deleted) {
+						emailFilter.reset();
+				}
+				return deleted;
+		}
+
+		private List<String> storeUnique(List<Member> members, boolean upsert) {
+				UniqueKeyFilter.Admission<Member> admission = emailFilter.admit(members);
+				try {
+						List<String> ids = storeWithReservations(admission.accepted(), emailReservations, admission.owned(), upsert);
+						List<String> stored = new ArrayList<>(ids.size());
+						for (String id : ids) {
+								if (id != null) {
+										stored.add(id);
+								}
+						}
+						return stored;
+				} finally {
+						emailFilter.release(admission);
+				}
+		}
+
+		/**
+		 * Rename the category preferences of the subtree rooted at oldPath after a category move,
+		 * with one patch over the members found by Members_ByCategoryPreference
+		 */
+		public void renameCategoryPrefix(String oldPath, String newPath) {
+				IndexQuery query = new IndexQuery("from index '" + new Members_ByCategoryPreference().getIndexName() + "' " +
+								"where " + Members_ByCategoryPreference.CATEGORY_PATHS + " = $oldPath " +
+								"or startsWith(" + Members_ByCategoryPreference.CATEGORY_PATHS + ", $oldPrefix) " +
+								"update { " +
+								"var preferences = this.readingStats ? this.readingStats.categoryPreferences : null; " +
+								"if (preferences) { " +
+								"var renamed = {}; var changed = false; " +
+								"for (var key in preferences) { " +
+								"var moved = key === $oldPath || key.substring(0, $oldLength + 1) === $oldPath + '/'; " +
+								"renamed[moved ? $newPath + key.substring($oldLength) : key] = preferences[key]; " +
+								"changed = changed || moved; " +
+								"} " +
+								"if (changed) this.readingStats.categoryPreferences = renamed; " +
+								"} " +
+								"}");
+				Parameters parameters = new Parameters();
+				parameters.put("oldPath", oldPath);
+				parameters.put("oldPrefix", oldPath + "/");
+				parameters.put("newPath", newPath);
+				parameters.put("oldLength", oldPath.length());
+				query.setQueryParameters(parameters);
+
+				// Patching a stale index would miss the latest preferences, wait for it instead of failing
+				QueryOperationOptions options = new QueryOperationOptions();
+				options.setStaleTimeout(RENAME_STALE_TIMEOUT);
+				Operation operation = store.operations().sendAsync(new PatchByQueryOperation(query, options));
+				operation.waitForCompletion();
+				logger.info("Renamed member category preferences under '{}' to '{}'", oldPath, newPath);
+		}
+
+		/**
+		 * Find members as list items (name, email)
+		 */
+		public List<MemberListItem> findListItems() {
+				return findProjected(MemberListItem.class, LIST_ITEM_FIELDS);
+		}
+
 		/**
 		 * Find member by name
 		 */
@@ -194,9 +322,17 @@ public class RavenMemberRepository extends RavenGenericRepository<Member> {
 		 * Find members with overdue books
 		 */
 		public List<Member> findMembersWithOverdueBooks() {
+				return findMembersWithOverdueBooks(System.currentTimeMillis());
+		}
+
+		/**
+		 * Find members with at least one loan due before the given time.
+		 * Overdue status is computed at query time through the Members_ByLoanDueDate static index.
+		 */
+		public List<Member> findMembersWithOverdueBooks(long now) {
 				try (IDocumentSession session = store.openSession()) {
-						return session.advanced().documentQuery(Member.class)
-										.whereEquals("activeLoans[].isOverdue", true)
+						return session.query(Member.class, Members_ByLoanDueDate.class)
+										.whereLessThan(Members_ByLoanDueDate.LOAN_DUE_DATES, now)
 										.toList();
 				}
 		}
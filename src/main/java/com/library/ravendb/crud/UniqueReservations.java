@@ -0,0 +1,175 @@
+package com.library.ravendb.crud;
+
+import com.library.common.util.UniqueKeyFilter;
+import net.ravendb.client.documents.DocumentStore;
+import net.ravendb.client.documents.operations.compareExchange.CompareExchangeValue;
+import net.ravendb.client.documents.operations.compareExchange.DeleteCompareExchangeValueOperation;
+import net.ravendb.client.documents.operations.compareExchange.GetCompareExchangeValueOperation;
+import net.ravendb.client.documents.operations.compareExchange.GetCompareExchangeValuesOperation;
+import net.ravendb.client.documents.session.IDocumentSession;
+import net.ravendb.client.documents.session.SessionOptions;
+import net.ravendb.client.documents.session.TransactionMode;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Compare-exchange reservations of a unique key: the value of "prefix + key" is the ID of the
+ * document owning the key. Reservations are created in the cluster-wide transaction that stores
+ * the document, so two documents can never hold the same key.
+ * A reservation whose document is gone or no longer has the key is stale and is reclaimed on lookup.
+ * Compare-exchange keys are case-insensitive, reservations are made on the normalized key.
+ */
+public class UniqueReservations<T> {
+		private static final Logger logger = LogManager.getLogger();
+		private static final int PAGE_SIZE = 1024;
+
+		private final DocumentStore store;
+		private final Class<T> entityClass;
+		private final String prefix;
+		private final String field;
+		private final Function<T, String> keyOf;
+
+		/**
+		 * @param prefix Prefix of the compare-exchange keys, e.g. "isbns/"
+		 * @param field  Document field holding the key
+		 * @param keyOf  Key of an entity, null when it has none
+		 */
+		public UniqueReservations(DocumentStore store, Class<T> entityClass, String prefix, String field, Function<T, String> keyOf) {
+				this.store = store;
+				this.entityClass = entityClass;
+				this.prefix = prefix;
+				this.field = field;
+				this.keyOf = keyOf;
+		}
+
+		public String reservationKey(String key) {
+				return prefix + UniqueKeyFilter.normalize(key);
+		}
+
+		public String getField() {
+				return field;
+		}
+
+		public Function<T, String> getKeyOf() {
+				return keyOf;
+		}
+
+		/**
+		 * ID of the document holding the key, null when free
+		 */
+		public String owner(String key) {
+				CompareExchangeValue<String> value = store.operations()
+								.send(new GetCompareExchangeValueOperation<>(String.class, reservationKey(key)));
+				return value == null ? null : value.getValue();
+		}
+
+		/**
+		 * Live owner of each reserved key by normalized key, stale reservations are deleted and left out
+		 */
+		public Map<String, String> owners(Collection<String> keys) {
+				String[] reservationKeys = keys.stream().map(this::reservationKey).distinct().toArray(String[]::new);
+				Map<String, CompareExchangeValue<String>> values = store.operations()
+								.send(new GetCompareExchangeValuesOperation<>(String.class, reservationKeys));
+
+				Map<String, String> owners = new HashMap<>();
+				if (values == null || values.isEmpty()) {
+						return owners;
+				}
+
+				try (IDocumentSession session = store.openSession()) {
+						Map<String, T> documents = session.load(entityClass,
+										values.values().stream().map(CompareExchangeValue::getValue).toList());
+						for (CompareExchangeValue<String> value : values.values()) {
+								// Reservations made before the keys were normalized may come back in another case
+								String key = UniqueKeyFilter.normalize(value.getKey().substring(prefix.length()));
+								T document = documents.get(value.getValue());
+								if (document != null && key.equals(UniqueKeyFilter.normalize(keyOf.apply(document)))) {
+										owners.put(key, value.getValue());
+								} else {
+										reclaim(value);
+								}
+						}
+				}
+				return owners;
+		}
+
+		/**
+		 * Feed every reserved key, page by page
+		 */
+		public void forEachReserved(Consumer<String> consumer) {
+				int start = 0;
+				while (true) {
+						Map<String, CompareExchangeValue<String>> page = store.operations()
+										.send(new GetCompareExchangeValuesOperation<>(String.class, prefix, start, PAGE_SIZE));
+						if (page == null || page.isEmpty()) {
+								return;
+						}
+						page.keySet().forEach(key -> consumer.accept(key.substring(prefix.length())));
+						if (page.size() < PAGE_SIZE) {
+								return;
+						}
+						start += page.size();
+				}
+		}
+
+		/**
+		 * Delete every reservation of the prefix, one cluster-wide transaction per page, e.g. after the
+		 * collection was emptied
+		 *
+		 * @return Number of deleted reservations
+		 */
+		public long clear() {
+				long cleared = 0;
+				while (true) {
+						// Deleted reservations leave the listing, the next page starts at 0 again
+						Map<String, CompareExchangeValue<String>> page = store.operations()
+										.send(new GetCompareExchangeValuesOperation<>(String.class, prefix, 0, PAGE_SIZE));
+						if (page == null || page.isEmpty()) {
+								break;
+						}
+						SessionOptions options = new SessionOptions();
+						options.setTransactionMode(TransactionMode.CLUSTER_WIDE);
+						try (IDocumentSession session = store.openSession(options)) {
+								for (CompareExchangeValue<String> value : page.values()) {
+										session.advanced().clusterTransaction().deleteCompareExchangeValue(value.getKey(), value.getIndex());
+								}
+								session.saveChanges();
+						}
+						cleared += page.size();
+				}
+				logger.info("Released {} {} reservations", cleared, prefix);
+				return cleared;
+		}
+
+		/**
+		 * Add the creation of the key's reservation to a cluster-wide session
+		 */
+		public void reserve(IDocumentSession clusterSession, String key, String documentId) {
+				clusterSession.advanced().clusterTransaction().createCompareExchangeValue(reservationKey(key), documentId);
+		}
+
+		/**
+		 * Add the deletion of the key's reservation to a cluster-wide session, if the document holds it
+		 */
+		public void release(IDocumentSession clusterSession, String key, String documentId) {
+				if (key == null) {
+						return;
+				}
+				CompareExchangeValue<String> value = clusterSession.advanced().clusterTransaction()
+								.getCompareExchangeValue(String.class, reservationKey(key));
+				if (value != null && documentId.equals(value.getValue())) {
+						clusterSession.advanced().clusterTransaction().deleteCompareExchangeValue(value);
+				}
+		}
+
+		private void reclaim(CompareExchangeValue<String> value) {
+				store.operations().send(new DeleteCompareExchangeValueOperation<>(String.class, value.getKey(), value.getIndex()));
+				logger.debug("Released reservation {} of {}", value.getKey(), value.getValue());
+		}
+}
@@ -0,0 +1,29 @@
+package com.library.ravendb.dataloader;
+
+import com.library.common.LoadOrchestrator;
+import com.library.ravendb.RavenConfig;
+
+/**
+ * Loads the whole RavenDB database in one run
+ */
+public class RavenDatabaseLoader {
+
+		/**
+		 * Authors, categories and publishers first, then the books referencing them, then the members borrowing books.
+		 * Indexing is paused during the bulk load so static indexes are built in one pass at the end.
+		 */
+		public static LoadOrchestrator orchestrator(String dataPath) {
+				return new LoadOrchestrator("RavenDB", RavenConfig::resetDatabase)
+								.beforeLoad(RavenConfig::pauseIndexing)
+								.afterLoad(RavenConfig::resumeIndexing)
+								.stage(new RavenAuthorDataLoader(dataPath, 100),
+												new RavenCategoryDataLoader(dataPath),
+												new RavenPublisherDataLoader(dataPath, 30))
+								.stage(new RavenBookDataLoader(dataPath, 5000))
+								.stage(new RavenMemberDataLoader(dataPath, 1000));
+		}
+
+		public static void main(String[] args) {
+				orchestrator("generated-data").run();
+		}
+}
@@ -33,12 +33,23 @@ public abstract class RavenGenericDataLoader<T> extends GenericDataLoader<T, Rav
 		}
 
 		@Override
-		protected void populateDatabase(List<T> entities) {
+		protected void prepareLoad() {
 				// Delete existing data for this entity type (no direct collection drop in RavenDB)
 				repository.deleteAll();
+		}
 
-				// Insert new data
+		@Override
+		protected void insertBatch(List<T> entities) {
 				repository.insertMany(entities);
-				logger.info("Inserted {} {} into RavenDB", entities.size(), getEntityName());
+		}
+
+		@Override
+		protected void upsertBatch(List<T> entities) {
+				repository.upsertMany(entities);
+		}
+
+		@Override
+		protected void finishLoad(long inserted) {
+				logger.info("Inserted {} {} into RavenDB", inserted, getEntityName());
 		}
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.library.ravendb.export;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.library.common.export.DatabaseExporter;
+import com.library.common.export.ExportFormat;
+import com.library.common.export.ExportOptions;
+import com.library.common.export.JsonExportWriter;
+import com.library.ravendb.RavenConfig;
+import net.ravendb.client.documents.DocumentStore;
+import net.ravendb.client.documents.commands.StreamResult;
+import net.ravendb.client.documents.operations.CollectionStatistics;
+import net.ravendb.client.documents.operations.GetCollectionStatisticsOperation;
+import net.ravendb.client.documents.session.IDocumentSession;
+import net.ravendb.client.primitives.CloseableIterator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exports every RavenDB collection through the streaming API.
+ * Documents are streamed untracked as raw JSON trees, @metadata included.
+ */
+public class RavenDatabaseExporter extends DatabaseExporter {
+		private final DocumentStore store;
+
+		public RavenDatabaseExporter() {
+				this.store = RavenConfig.getDocumentStore();
+		}
+
+		public static void main(String[] args) {
+				new RavenDatabaseExporter().export(Path.of("export", "ravendb"), new ExportOptions()
+								.format(ExportFormat.NDJSON)
+								.gzip(true));
+				RavenConfig.shutdown();
+		}
+
+		@Override
+		protected List<String> collections() {
+				CollectionStatistics statistics = store.maintenance().send(new GetCollectionStatisticsOperation());
+				return new ArrayList<>(statistics.getCollections().keySet());
+		}
+
+		@Override
+		protected void exportCollection(String collection, JsonExportWriter writer, ExportOptions options) throws IOException {
+				try (IDocumentSession session = store.openSession();
+						 CloseableIterator<StreamResult<ObjectNode>> results = session.advanced()
+										 .stream(session.advanced().rawQuery(ObjectNode.class, "from '" + collection + "'"))) {
+						while (results.hasNext()) {
+								writer.writeObject(results.next().getDocument());
+						}
+				}
+		}
+
+		@Override
+		protected String getBackendName() {
+				return "RavenDB";
+		}
+}
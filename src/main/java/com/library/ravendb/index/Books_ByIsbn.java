@@ -0,0 +1,14 @@
+package com.library.ravendb.index;
+
+import net.ravendb.client.documents.indexes.AbstractIndexCreationTask;
+
+/**
+ * Static index on the ISBN of books, for the books stored without a compare-exchange reservation
+ */
+public class Books_ByIsbn extends AbstractIndexCreationTask {
+		public static final String ISBN = "isbn";
+
+		public Books_ByIsbn() {
+				map = "from b in docs.Books select new { " + ISBN + " = b.isbn }";
+		}
+}
@@ -0,0 +1,20 @@
+package com.library.ravendb.index;
+
+import net.ravendb.client.documents.indexes.AbstractIndexCreationTask;
+
+/**
+ * Static index over the stored hierarchy fields of categories.
+ * ancestors holds one value per ancestor path, so an equality query returns a whole subtree.
+ */
+public class Categories_ByHierarchy extends AbstractIndexCreationTask {
+		public static final String PATH = "path";
+		public static final String ANCESTORS = "ancestors";
+		public static final String PARENT = "parent";
+		public static final String DEPTH = "depth";
+
+		public Categories_ByHierarchy() {
+				map = "from c in docs.Categories " +
+								"select new { " + PATH + " = c.path, " + ANCESTORS + " = c.ancestors, " +
+								PARENT + " = c.parent, " + DEPTH + " = c.depth }";
+		}
+}
@@ -0,0 +1,17 @@
+package com.library.ravendb.index;
+
+import net.ravendb.client.documents.indexes.AbstractIndexCreationTask;
+
+/**
+ * Static index over the category paths a member has a preference for.
+ * categoryPaths holds one value per preference key, so a prefix query finds the members
+ * with a preference inside a category subtree.
+ */
+public class Members_ByCategoryPreference extends AbstractIndexCreationTask {
+		public static final String CATEGORY_PATHS = "categoryPaths";
+
+		public Members_ByCategoryPreference() {
+				map = "from m in docs.Members " +
+								"select new { " + CATEGORY_PATHS + " = m.readingStats.categoryPreferences.Select(p => p.Key) }";
+		}
+}
@@ -0,0 +1,17 @@
+package com.library.ravendb.index;
+
+import net.ravendb.client.documents.indexes.AbstractIndexCreationTask;
+
+/**
+ * Static index over the due dates of every active loan of a member.
+ * loanDueDates holds one value per loan, so a range query matches members
+ * with at least one loan due before a given time.
+ */
+public class Members_ByLoanDueDate extends AbstractIndexCreationTask {
+		public static final String LOAN_DUE_DATES = "loanDueDates";
+
+		public Members_ByLoanDueDate() {
+				map = "from m in docs.Members " +
+								"select new { " + LOAN_DUE_DATES + " = m.activeLoans.Select(l => l.dueDate) }";
+		}
+}
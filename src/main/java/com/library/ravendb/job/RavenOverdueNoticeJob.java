@@ -0,0 +1,88 @@
+package com.library.ravendb.job;
+
+import com.library.common.model.Member;
+import com.library.common.model.OverdueNotice;
+import com.library.ravendb.RavenConfig;
+import com.library.ravendb.index.Members_ByLoanDueDate;
+import net.ravendb.client.documents.BulkInsertOperation;
+import net.ravendb.client.documents.DocumentStore;
+import net.ravendb.client.documents.commands.StreamResult;
+import net.ravendb.client.documents.session.IDocumentQuery;
+import net.ravendb.client.documents.session.IDocumentSession;
+import net.ravendb.client.primitives.CloseableIterator;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overdue notices job.
+ * Streams members with a loan due before now from the Members_ByLoanDueDate index
+ * (untracked, bounded memory) and writes notices through a bulk insert, which batches
+ * the writes on its own connection. Notice ids are stable so a re-run overwrites them.
+ */
+public class RavenOverdueNoticeJob {
+		private static final Logger logger = LogManager.getLogger();
+		private static final String NOTICES_COLLECTION = "OverdueNotices";
+
+		private final DocumentStore store;
+
+		public RavenOverdueNoticeJob() {
+				this.store = RavenConfig.getDocumentStore();
+		}
+
+		public static void main(String[] args) {
+				RavenOverdueNoticeJob job = new RavenOverdueNoticeJob();
+				long written = job.run(System.currentTimeMillis());
+				logger.info("Overdue notices job wrote {} notices", written);
+		}
+
+		/**
+		 * Create or refresh the notices of every loan due before now
+		 *
+		 * @return Number of notices written
+		 */
+		public long run(long now) {
+				long scanned = 0;
+				long written = 0;
+
+				try (IDocumentSession session = store.openSession();
+						 BulkInsertOperation bulkInsert = store.bulkInsert()) {
+						IDocumentQuery<Member> query = session.query(Member.class, Members_ByLoanDueDate.class)
+										.whereLessThan(Members_ByLoanDueDate.LOAN_DUE_DATES, now);
+
+						try (CloseableIterator<StreamResult<Member>> results = session.advanced().stream(query)) {
+								while (results.hasNext()) {
+										StreamResult<Member> result = results.next();
+										Member member = result.getDocument();
+										scanned++;
+
+										for (Member.ActiveLoan loan : member.getActiveLoans()) {
+												if (loan.isOverdueAt(now)) {
+														OverdueNotice notice = toNotice(result.getId(), member, loan, now);
+														bulkInsert.store(notice, notice.getId());
+														written++;
+												}
+										}
+								}
+						}
+				}
+
+				logger.info("Scanned {} members with overdue loans, wrote {} notices", scanned, written);
+				return written;
+		}
+
+		private static OverdueNotice toNotice(String memberId, Member member, Member.ActiveLoan loan, long now) {
+				OverdueNotice notice = new OverdueNotice();
+				notice.setId(NOTICES_COLLECTION + "/" + OverdueNotice.noticeKey(memberId, loan.getBookId(), loan.getDueDate()));
+				notice.setMemberId(memberId);
+				notice.setMemberName(member.getFirstName() + " " + member.getLastName());
+				notice.setEmail(member.getEmail());
+				notice.setBookId(loan.getBookId());
+				notice.setBookTitle(loan.getBookTitle());
+				notice.setDueDate(loan.getDueDate());
+				notice.setDaysOverdue((int) TimeUnit.MILLISECONDS.toDays(now - loan.getDueDate()));
+				notice.setNoticeDate(now);
+				return notice;
+		}
+}
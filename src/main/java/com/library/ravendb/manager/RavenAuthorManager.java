@@ -1,5 +1,8 @@
 package com.library.ravendb.manager;
 
+import com.library.common.analytics.AnalyticsPrinter;
+import com.library.common.analytics.AuthorAnalytics;
+import com.library.common.metrics.TimedAnalytics;
 import com.library.common.model.Author;
 import com.library.common.model.Book;
 import com.library.common.util.ModelDataGenerator;
@@ -10,7 +13,7 @@ import net.ravendb.client.documents.session.IDocumentSession;
 import java.util.*;
 import java.util.stream.Collectors;
 
-public class RavenAuthorManager {
+public class RavenAuthorManager implements AuthorAnalytics {
 
 		private final IDocumentStore store;
 
@@ -20,13 +23,14 @@ public class RavenAuthorManager {
 		}
 
 		public static void main(String[] args) {
-				RavenAuthorManager manager = new RavenAuthorManager();
+				RavenAuthorManager ravenManager = new RavenAuthorManager();
+				AuthorAnalytics manager = TimedAnalytics.wrap(AuthorAnalytics.class, ravenManager, "raven");
 
 				// Generate test data
 				List<Author> testAuthors = ModelDataGenerator.generateAuthors(10);
 				List<Book> testBooks = new ArrayList<>();
 
-				try (IDocumentSession session = manager.store.openSession()) {
+				try (IDocumentSession session = ravenManager.store.openSession()) {
 						for (int i = 0; i < testAuthors.size(); i++) {
 								Author author = testAuthors.get(i);
 								author.setId(UUID.randomUUID().toString());
@@ -43,100 +47,106 @@ public class RavenAuthorManager {
 						session.saveChanges();
 				}
 
-				System.out.println("1. Count Authors by Nationality:");
-				manager.countAuthorsByNationality();
+				AnalyticsPrinter.print("1. Count Authors by Nationality:", manager.countAuthorsByNationality());
 
 				String nationality = testAuthors.get(0).getNationality();
-				System.out.println("\n2. List Authors by Nationality (" + nationality + "):");
-				manager.listAuthorsByNationality(nationality);
+				AnalyticsPrinter.print("\n2. List Authors by Nationality (" + nationality + "):", manager.listAuthorsByNationality(nationality));
 
-				System.out.println("\n3. Authors Starting with 'A':");
-				manager.findAuthorsStartingWith('A');
+				AnalyticsPrinter.print("\n3. Authors Starting with 'A':", manager.findAuthorsStartingWith('A'));
 
-				System.out.println("\n4. Compute Name Length for Authors:");
-				manager.computeNameLengthForAuthors();
+				AnalyticsPrinter.print("\n4. Compute Name Length for Authors:", manager.computeNameLengthForAuthors());
 
-				System.out.println("\n5. Sort Authors by Name:");
-				manager.sortAuthorsByName();
+				AnalyticsPrinter.print("\n5. Sort Authors by Name:", manager.sortAuthorsByName());
 
-				System.out.println("\n6. Authors with Books:");
-				manager.getAuthorsWithBooks();
+				AnalyticsPrinter.print("\n6. Authors with Books:", manager.getAuthorsWithBooks());
 		}
 
 		// 1. Count authors by nationality
-		public void countAuthorsByNationality() {
+		@Override
+		public List<NationalityCount> countAuthorsByNationality() {
 				try (IDocumentSession session = store.openSession()) {
 						List<Author> authors = session.query(Author.class).toList();
 
 						Map<String, Long> countByNationality = authors.stream()
 										.collect(Collectors.groupingBy(Author::getNationality, Collectors.counting()));
 
-						countByNationality.entrySet().stream()
+						return countByNationality.entrySet().stream()
 										.sorted((e1, e2) -> Long.compare(e2.getValue(), e1.getValue()))
-										.forEach(e -> System.out.println(e.getKey() + ": " + e.getValue()));
+										.map(e -> new NationalityCount(e.getKey(), e.getValue()))
+										.collect(Collectors.toList());
 				}
 		}
 
 		// 2. List authors by nationality
-		public void listAuthorsByNationality(String nationality) {
+		@Override
+		public List<String> listAuthorsByNationality(String nationality) {
 				try (IDocumentSession session = store.openSession()) {
 						List<Author> authors = session.query(Author.class)
 										.whereEquals("nationality", nationality)
 										.toList();
 
-						authors.forEach(author -> System.out.println(author.getName()));
+						return authors.stream()
+										.map(Author::getName)
+										.collect(Collectors.toList());
 				}
 		}
 
 		// 3. Authors starting with a given letter
-		public void findAuthorsStartingWith(char letter) {
+		@Override
+		public List<AuthorSummary> findAuthorsStartingWith(char letter) {
 				try (IDocumentSession session = store.openSession()) {
 						List<Author> authors = session.query(Author.class).toList();
 
-						authors.stream()
+						return authors.stream()
 										.filter(author -> author.getName() != null && author.getName().toLowerCase().startsWith(String.valueOf(letter).toLowerCase()))
-										.forEach(author -> System.out.println(author.getName() + " (" + author.getNationality() + ")"));
+										.map(author -> new AuthorSummary(author.getName(), author.getNationality()))
+										.collect(Collectors.toList());
 				}
 		}
 
 		// 4. Compute name length
-		public void computeNameLengthForAuthors() {
+		@Override
+		public List<NameLength> computeNameLengthForAuthors() {
 				try (IDocumentSession session = store.openSession()) {
 						List<Author> authors = session.query(Author.class).toList();
 
-						authors.forEach(author -> {
-								int length = author.getName() != null ? author.getName().length() : 0;
-								System.out.println(author.getName() + " (Length: " + length + ")");
-						});
+						return authors.stream()
+										.map(author -> new NameLength(author.getName(), author.getName() != null ? author.getName().length() : 0))
+										.collect(Collectors.toList());
 				}
 		}
 
 		// 5. Sort authors by name
-		public void sortAuthorsByName() {
+		@Override
+		public List<String> sortAuthorsByName() {
 				try (IDocumentSession session = store.openSession()) {
 						List<Author> authors = session.query(Author.class).toList();
 
-						authors.stream()
-										.sorted(Comparator.comparing(Author::getName, String.CASE_INSENSITIVE_ORDER))
-										.forEach(author -> System.out.println(author.getName()));
+						return authors.stream()
+										.map(Author::getName)
+										.sorted(String.CASE_INSENSITIVE_ORDER)
+										.collect(Collectors.toList());
 				}
 		}
 
 		// 6. Simulate join with books using authorsId
-		public void getAuthorsWithBooks() {
+		@Override
+		public List<AuthorBooks> getAuthorsWithBooks() {
 				try (IDocumentSession session = store.openSession()) {
 						List<Author> authors = session.query(Author.class).toList();
 						List<Book> books = session.query(Book.class).toList();
 
+						List<AuthorBooks> result = new ArrayList<>();
 						for (Author author : authors) {
 								String authorId = author.getId();
-								List<Book> authorBooks = books.stream()
+								List<String> titles = books.stream()
 												.filter(book -> book.getAuthorsId() != null && book.getAuthorsId().contains(authorId))
+												.map(Book::getTitle)
 												.collect(Collectors.toList());
 
-								System.out.println("Author: " + author.getName());
-								authorBooks.forEach(book -> System.out.println("  - " + book.getTitle()));
+								result.add(new AuthorBooks(author.getName(), titles));
 						}
+						return result;
 				}
 		}
 }
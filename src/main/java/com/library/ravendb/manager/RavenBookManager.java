@@ -1,5 +1,8 @@
 package com.library.ravendb.manager;
 
+import com.library.common.analytics.AnalyticsPrinter;
+import com.library.common.analytics.BookAnalytics;
+import com.library.common.metrics.TimedAnalytics;
 import com.library.common.model.Author;
 import com.library.common.model.Book;
 import com.library.common.model.Category;
@@ -11,7 +14,7 @@ import net.ravendb.client.documents.session.IDocumentSession;
 import java.util.*;
 import java.util.stream.Collectors;
 
-public class RavenBookManager {
+public class RavenBookManager implements BookAnalytics {
 
 		private final DocumentStore store;
 
@@ -24,7 +27,7 @@ public class RavenBookManager {
 				RavenConfig.resetDatabase();
 
 				// Managers
-				RavenBookManager manager = new RavenBookManager();
+				BookAnalytics manager = TimedAnalytics.wrap(BookAnalytics.class, new RavenBookManager(), "raven");
 				DocumentStore store = RavenConfig.getDocumentStore();
 
 				// Insert authors
@@ -75,36 +78,34 @@ public class RavenBookManager {
 				}
 
 				// Run tests
-				System.out.println("1. Books by year:");
-				manager.countBooksPerPublicationYear();
+				AnalyticsPrinter.print("1. Books by year:", manager.countBooksPerPublicationYear());
 
-				System.out.println("\n2. Avg pages per author:");
-				manager.averagePageCountPerAuthor();
+				AnalyticsPrinter.print("\n2. Avg pages per author:", manager.averagePageCountPerAuthor());
 
-				System.out.println("\n3. Books with authors:");
-				manager.listBooksWithAuthors();
+				AnalyticsPrinter.print("\n3. Books with authors:", manager.listBooksWithAuthors());
 
-				System.out.println("\n4. Books by author:");
-				manager.countBooksByAuthor();
+				AnalyticsPrinter.print("\n4. Books by author:", manager.countBooksByAuthor());
 
-				System.out.println("\n5. Books starting with 'L':");
-				manager.findBooksStartingWith('L');
+				AnalyticsPrinter.print("\n5. Books starting with 'L':", manager.findBooksStartingWith('L'));
 		}
 
 		// 1. Count the number of books published per year
-		public void countBooksPerPublicationYear() {
+		@Override
+		public List<YearCount> countBooksPerPublicationYear() {
 				try (IDocumentSession session = store.openSession()) {
 						List<Book> books = session.query(Book.class).toList();
 						Map<Integer, Long> countByYear = books.stream()
 										.collect(Collectors.groupingBy(Book::getPublicationYear, TreeMap::new, Collectors.counting()));
 
-						countByYear.forEach((year, count) ->
-										System.out.println("Year: " + year + ", Count: " + count));
+						return countByYear.entrySet().stream()
+										.map(e -> new YearCount(e.getKey(), e.getValue()))
+										.collect(Collectors.toList());
 				}
 		}
 
 		// 2. Compute the average page count of books per author
-		public void averagePageCountPerAuthor() {
+		@Override
+		public List<AuthorAverage> averagePageCountPerAuthor() {
 				try (IDocumentSession session = store.openSession()) {
 						List<Book> books = session.query(Book.class).toList();
 						Map<String, List<Integer>> authorPageCounts = new HashMap<>();
@@ -115,36 +116,41 @@ public class RavenBookManager {
 								}
 						}
 
+						List<AuthorAverage> result = new ArrayList<>();
 						for (Map.Entry<String, List<Integer>> entry : authorPageCounts.entrySet()) {
 								String authorId = entry.getKey();
 								List<Integer> pages = entry.getValue();
 								double avg = pages.stream().mapToInt(i -> i).average().orElse(0);
 								Author author = session.load(Author.class, authorId);
 								String authorName = author != null ? author.getName() : "Unknown";
-								System.out.println("Author: " + authorName + ", Avg Pages: " + avg);
+								result.add(new AuthorAverage(authorName, avg));
 						}
+						result.sort(Comparator.comparingDouble(AuthorAverage::averagePages).reversed());
+						return result;
 				}
 		}
 
 		// 3. List all books with their associated authors
-		public void listBooksWithAuthors() {
+		@Override
+		public List<BookAuthors> listBooksWithAuthors() {
 				try (IDocumentSession session = store.openSession()) {
 						List<Book> books = session.query(Book.class).toList();
+						List<BookAuthors> result = new ArrayList<>();
 						for (Book book : books) {
 								List<String> authorNames = book.getAuthorsId().stream()
 												.map(id -> session.load(Author.class, id))
 												.filter(Objects::nonNull)
 												.map(Author::getName)
 												.collect(Collectors.toList());
-								System.out.println("Title: " + book.getTitle() +
-												", Year: " + book.getPublicationYear() +
-												", Authors: " + authorNames);
+								result.add(new BookAuthors(book.getTitle(), book.getPublicationYear(), authorNames));
 						}
+						return result;
 				}
 		}
 
 		// 4. Count the number of books written by each author
-		public void countBooksByAuthor() {
+		@Override
+		public List<AuthorCount> countBooksByAuthor() {
 				try (IDocumentSession session = store.openSession()) {
 						List<Book> books = session.query(Book.class).toList();
 						Map<String, Integer> authorCounts = new HashMap<>();
@@ -155,25 +161,29 @@ public class RavenBookManager {
 								}
 						}
 
+						List<AuthorCount> result = new ArrayList<>();
 						for (Map.Entry<String, Integer> entry : authorCounts.entrySet()) {
 								String authorId = entry.getKey();
 								Author author = session.load(Author.class, authorId);
 								String name = author != null ? author.getName() : "Unknown";
-								System.out.println("Author: " + name + ", Book Count: " + entry.getValue());
+								result.add(new AuthorCount(name, entry.getValue()));
 						}
+						result.sort(Comparator.comparingLong(AuthorCount::bookCount).reversed());
+						return result;
 				}
 		}
 
 		// 5. Find all books whose title starts with a given letter (case-insensitive)
-		public void findBooksStartingWith(char letter) {
+		@Override
+		public List<BookSummary> findBooksStartingWith(char letter) {
 				try (IDocumentSession session = store.openSession()) {
 						List<Book> books = session.query(Book.class)
 										.whereStartsWith("title", String.valueOf(letter))
 										.toList();
 
-						for (Book book : books) {
-								System.out.println("Title: " + book.getTitle() + ", Year: " + book.getPublicationYear());
-						}
+						return books.stream()
+										.map(book -> new BookSummary(book.getTitle(), book.getPublicationYear()))
+										.collect(Collectors.toList());
 				}
 		}
 }
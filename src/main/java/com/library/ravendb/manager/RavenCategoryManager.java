@@ -1,6 +1,11 @@
 package com.library.ravendb.manager;
 
+import com.library.common.analytics.AnalyticsPrinter;
+import com.library.common.analytics.CategoryAnalytics;
+import com.library.common.metrics.TimedAnalytics;
 import com.library.common.model.Category;
+import com.library.common.util.CategoryPaths;
+import com.library.common.util.CategoryTree;
 import com.library.common.util.ModelDataGenerator;
 import com.library.ravendb.RavenConfig;
 import net.ravendb.client.documents.DocumentStore;
@@ -9,7 +14,7 @@ import net.ravendb.client.documents.session.IDocumentSession;
 import java.util.*;
 import java.util.stream.Collectors;
 
-public class RavenCategoryManager {
+public class RavenCategoryManager implements CategoryAnalytics {
 
 		private final DocumentStore store;
 
@@ -22,121 +27,119 @@ public class RavenCategoryManager {
 				RavenConfig.resetDatabase();
 
 				// Init manager and generate data
-				RavenCategoryManager manager = new RavenCategoryManager();
+				CategoryAnalytics manager = TimedAnalytics.wrap(CategoryAnalytics.class, new RavenCategoryManager(), "raven");
 				List<Category> categories = ModelDataGenerator.generateCategories();
 
-				try (IDocumentSession session = manager.store.openSession()) {
+				try (IDocumentSession session = RavenConfig.getDocumentStore().openSession()) {
 						for (Category c : categories) {
 								session.store(c);
 						}
 						session.saveChanges();
 				}
 
-				System.out.println("\n1. Categories by depth level:");
-				manager.countCategoriesByDepthLevel();
+				AnalyticsPrinter.print("\n1. Categories by depth level:", manager.countCategoriesByDepthLevel());
 
-				System.out.println("\n2. Top-level categories:");
-				manager.listTopLevelCategories();
+				AnalyticsPrinter.print("\n2. Top-level categories:", manager.listTopLevelCategories());
 
-				System.out.println("\n3. Subcategories count per top-level:");
-				manager.countSubcategoriesPerTopLevel();
+				AnalyticsPrinter.print("\n3. Subcategories count per top-level:", manager.countSubcategoriesPerTopLevel());
 
-				System.out.println("\n4. Leaf categories:");
-				manager.findLeafCategories();
+				AnalyticsPrinter.print("\n4. Leaf categories:", manager.findLeafCategories());
 
-				System.out.println("\n5. Categories with their parents:");
-				manager.listCategoriesWithParents();
+				AnalyticsPrinter.print("\n5. Categories with their parents:", manager.listCategoriesWithParents());
 
-				System.out.println("\n6. Search categories by name containing 'fic':");
-				manager.searchCategoriesByName("fic");
+				AnalyticsPrinter.print("\n6. Search categories by name containing 'fic':", manager.searchCategoriesByName("fic"));
 		}
 
-		// 1. Count how many categories exist at each depth level (based on "path")
-		public void countCategoriesByDepthLevel() {
+		// 1. Count how many categories exist at each depth level (stored depth)
+		@Override
+		public List<DepthCount> countCategoriesByDepthLevel() {
 				try (IDocumentSession session = store.openSession()) {
 						Map<Integer, Long> result = session.query(Category.class)
 										.toList()
 										.stream()
 										.collect(Collectors.groupingBy(
-														cat -> cat.getPath().split("/").length,
+														Category::getDepth,
 														TreeMap::new,
 														Collectors.counting()
 										));
-
-						result.forEach((depth, count) -> System.out.printf("Depth %d: %d categories%n", depth, count));
+						return result.entrySet().stream()
+										.map(e -> new DepthCount(e.getKey(), e.getValue()))
+										.collect(Collectors.toList());
 				}
 		}
 
 		// 2. List all parent categories (top-level from path)
-		public void listTopLevelCategories() {
+		@Override
+		public List<String> listTopLevelCategories() {
 				try (IDocumentSession session = store.openSession()) {
 						Set<String> topLevels = session.query(Category.class)
 										.toList()
 										.stream()
-										.map(cat -> cat.getPath().split("/")[0])
+										.map(RavenCategoryManager::topLevel)
 										.collect(Collectors.toCollection(TreeSet::new));
 
-						topLevels.forEach(System.out::println);
+						return new ArrayList<>(topLevels);
 				}
 		}
 
 		// 3. Count the number of subcategories under each top-level category
-		public void countSubcategoriesPerTopLevel() {
+		@Override
+		public List<TopLevelCount> countSubcategoriesPerTopLevel() {
 				try (IDocumentSession session = store.openSession()) {
 						Map<String, Long> result = session.query(Category.class)
 										.toList()
 										.stream()
 										.collect(Collectors.groupingBy(
-														cat -> cat.getPath().split("/")[0],
+														RavenCategoryManager::topLevel,
 														Collectors.counting()
 										));
 
-						result.entrySet().stream()
+						return result.entrySet().stream()
 										.sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-										.forEach(e -> System.out.printf("%s: %d subcategories%n", e.getKey(), e.getValue()));
+										.map(e -> new TopLevelCount(e.getKey(), e.getValue()))
+										.collect(Collectors.toList());
 				}
 		}
 
-		// 4. Find all leaf categories (not parents of any other)
-		public void findLeafCategories() {
+		// 4. Find all leaf categories (not parents of any other), from the in-memory tree
+		@Override
+		public List<CategorySummary> findLeafCategories() {
 				try (IDocumentSession session = store.openSession()) {
-						List<Category> all = session.query(Category.class).toList();
-						Set<String> allPaths = all.stream().map(Category::getPath).collect(Collectors.toSet());
-
-						List<Category> leaves = all.stream()
-										.filter(cat -> allPaths.stream()
-														.noneMatch(other -> !other.equals(cat.getPath()) && other.startsWith(cat.getPath() + "/"))
-										)
+						return new CategoryTree(session.query(Category.class).toList()).leaves().stream()
+										.map(cat -> new CategorySummary(cat.getName(), cat.getPath()))
 										.collect(Collectors.toList());
-
-						leaves.forEach(cat -> System.out.printf("Leaf: %s (%s)%n", cat.getName(), cat.getPath()));
 				}
 		}
 
-		// 5. List categories with their direct parent name
-		public void listCategoriesWithParents() {
+		// 5. List categories with their direct parent name (stored parent path)
+		@Override
+		public List<CategoryParent> listCategoriesWithParents() {
 				try (IDocumentSession session = store.openSession()) {
 						List<Category> categories = session.query(Category.class).toList();
-
+						List<CategoryParent> result = new ArrayList<>();
 						for (Category cat : categories) {
-								String[] parts = cat.getPath().split("/");
-								String parent = parts.length >= 2 ? parts[parts.length - 2] : null;
-								System.out.printf("Category: %s, Parent: %s%n", cat.getName(), parent);
+								result.add(new CategoryParent(cat.getName(), cat.getPath(), CategoryPaths.nameOf(cat.getParent())));
 						}
+						return result;
 				}
 		}
 
+		private static String topLevel(Category category) {
+				List<String> ancestors = category.getAncestors();
+				return ancestors == null || ancestors.isEmpty() ? category.getPath() : ancestors.get(0);
+		}
+
 		// 6. Search categories by partial name (case-insensitive)
-		public void searchCategoriesByName(String keyword) {
+		@Override
+		public List<CategorySummary> searchCategoriesByName(String keyword) {
 				try (IDocumentSession session = store.openSession()) {
-						List<Category> results = session.query(Category.class)
+						return session.query(Category.class)
 										.whereEquals("name", keyword) // fallback if not indexed
 										.toList()
 										.stream()
 										.filter(cat -> cat.getName().toLowerCase().contains(keyword.toLowerCase()))
+										.map(cat -> new CategorySummary(cat.getName(), cat.getPath()))
 										.collect(Collectors.toList());
-
-						results.forEach(cat -> System.out.printf("Match: %s (%s)%n", cat.getName(), cat.getPath()));
 				}
 		}
 }
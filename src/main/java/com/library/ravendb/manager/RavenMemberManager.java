@@ -1,65 +1,83 @@
 package com.library.ravendb.manager;
 
+import com.library.common.analytics.AnalyticsPrinter;
+import com.library.common.analytics.MemberAnalytics;
+import com.library.common.metrics.TimedAnalytics;
 import com.library.common.model.Member;
+import com.library.common.topk.MemberRankings;
+import com.library.common.topk.RefreshingRankings;
+import com.library.common.topk.SpaceSaving;
 import com.library.common.util.ModelDataGenerator;
 import com.library.ravendb.RavenConfig;
+import com.library.ravendb.index.Members_ByLoanDueDate;
 import net.ravendb.client.documents.DocumentStore;
+import net.ravendb.client.documents.commands.StreamResult;
+import net.ravendb.client.documents.session.IDocumentQuery;
 import net.ravendb.client.documents.session.IDocumentSession;
+import net.ravendb.client.primitives.CloseableIterator;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
-public class RavenMemberManager {
+public class RavenMemberManager implements MemberAnalytics {
+		private static final Logger logger = LogManager.getLogger();
+		private static final int TOP_AUTHORS = 5;
 
 		private final DocumentStore store;
+		private final RefreshingRankings rankings;
 
 		public RavenMemberManager() {
 				this.store = RavenConfig.getDocumentStore();
+				this.rankings = new RefreshingRankings(() -> MemberRankings.scan(this::streamMembers));
 		}
 
 		public static void main(String[] args) {
 				// Reset RavenDB database
 				RavenConfig.resetDatabase();
 
-				RavenMemberManager manager = new RavenMemberManager();
+				MemberAnalytics manager = TimedAnalytics.wrap(MemberAnalytics.class, new RavenMemberManager(), "raven");
 
 				// Génère quelques membres pour test
 				List<Member> members = ModelDataGenerator.generateMembers(10);
 
-				try (IDocumentSession session = manager.store.openSession()) {
+				try (IDocumentSession session = RavenConfig.getDocumentStore().openSession()) {
 						for (Member member : members) {
 								session.store(member);
 						}
 						session.saveChanges();
 				}
 
-				System.out.println("\n--- Members per registration year ---");
-				manager.countMembersByRegistrationYear();
+				AnalyticsPrinter.print("\n--- Members per registration year ---", manager.countMembersByRegistrationYear());
+
+				AnalyticsPrinter.print("\n--- Members with overdue loans ---", manager.listMembersWithOverdueLoans());
 
-				System.out.println("\n--- Members with overdue loans ---");
-				manager.listMembersWithOverdueLoans();
+				AnalyticsPrinter.print("\n--- Loans per member ---", manager.countLoansPerMember());
 
-				System.out.println("\n--- Loans per member ---");
-				manager.countLoansPerMember();
+				AnalyticsPrinter.print("\n--- Most preferred categories ---", manager.mostPreferredCategories());
 
-				System.out.println("\n--- Most preferred categories ---");
-				manager.mostPreferredCategories();
+				AnalyticsPrinter.print("\n--- Top favorite authors ---", manager.topFavoriteAuthors());
 
-				System.out.println("\n--- Top favorite authors ---");
-				manager.topFavoriteAuthors();
+				AnalyticsPrinter.print("\n--- Top favorite authors (estimated) ---", manager.estimateTopFavoriteAuthors(10));
 
-				System.out.println("\n--- Members with emergency contact ---");
-				manager.listMembersWithEmergencyContact();
+				AnalyticsPrinter.print("\n--- Top categories (estimated) ---", manager.estimateTopCategories(10));
+
+				AnalyticsPrinter.print("\n--- Members with emergency contact ---", manager.listMembersWithEmergencyContact());
 		}
 
 		// 1. Count members by registration year
-		public void countMembersByRegistrationYear() {
+		@Override
+		public List<RegistrationYearCount> countMembersByRegistrationYear() {
 				try (IDocumentSession session = RavenConfig.getDocumentStore().openSession()) {
 						List<Member> members = session.query(Member.class).toList();
 
@@ -67,93 +85,172 @@ public class RavenMemberManager {
 										.map(m -> LocalDateTime.ofInstant(Instant.ofEpochMilli(m.getRegistrationDate()), ZoneId.systemDefault()).getYear())
 										.collect(Collectors.groupingBy(y -> y, TreeMap::new, Collectors.counting()));
 
-						countByYear.forEach((year, count) -> System.out.println("Year: " + year + ", Count: " + count));
+						return countByYear.entrySet().stream()
+										.map(e -> new RegistrationYearCount(e.getKey(), e.getValue()))
+										.collect(Collectors.toList());
 				}
 		}
 
 		// 2. List members with overdue loans
-		public void listMembersWithOverdueLoans() {
+		@Override
+		public List<MemberOverdueLoans> listMembersWithOverdueLoans() {
+				long now = System.currentTimeMillis();
 				try (IDocumentSession session = RavenConfig.getDocumentStore().openSession()) {
-						List<Member> members = session.query(Member.class).toList();
+						// Only members with a loan due before now, through the static index
+						List<Member> members = session.query(Member.class, Members_ByLoanDueDate.class)
+										.whereLessThan(Members_ByLoanDueDate.LOAN_DUE_DATES, now)
+										.toList();
 
-						members.stream()
-										.filter(m -> m.getActiveLoans() != null && m.getActiveLoans().stream().anyMatch(Member.ActiveLoan::getIsOverdue))
-										.forEach(m -> {
-												List<Member.ActiveLoan> overdueLoans = m.getActiveLoans().stream()
-																.filter(Member.ActiveLoan::getIsOverdue)
+						return members.stream()
+										.map(m -> {
+												List<String> overdueTitles = m.getActiveLoans().stream()
+																.filter(loan -> loan.isOverdueAt(now))
+																.map(Member.ActiveLoan::getBookTitle)
 																.collect(Collectors.toList());
 
-												System.out.println("Member: " + m.getFirstName() + " " + m.getLastName() + ", Email: " + m.getEmail());
-												overdueLoans.forEach(loan -> System.out.println("  Overdue Book: " + loan.getBookTitle()));
-										});
+												return new MemberOverdueLoans(m.getFirstName(), m.getLastName(), m.getEmail(), overdueTitles);
+										})
+										.collect(Collectors.toList());
 				}
 		}
 
 		// 3. Count number of active loans per member
-		public void countLoansPerMember() {
+		@Override
+		public List<MemberLoanCount> countLoansPerMember() {
 				try (IDocumentSession session = RavenConfig.getDocumentStore().openSession()) {
 						List<Member> members = session.query(Member.class).toList();
 
-						members.forEach(m -> {
-								int count = m.getActiveLoans() == null ? 0 : m.getActiveLoans().size();
-								System.out.println(m.getFirstName() + " " + m.getLastName() + ": " + count + " loans");
-						});
+						return members.stream()
+										.map(m -> new MemberLoanCount(m.getFirstName() + " " + m.getLastName(),
+														m.getActiveLoans() == null ? 0 : m.getActiveLoans().size()))
+										.sorted(Comparator.comparingInt(MemberLoanCount::loanCount).reversed())
+										.collect(Collectors.toList());
 				}
 		}
 
 		// 4. Most preferred categories
-		public void mostPreferredCategories() {
+		@Override
+		public List<CategoryScore> mostPreferredCategories() {
 				try (IDocumentSession session = RavenConfig.getDocumentStore().openSession()) {
 						List<Member> members = session.query(Member.class).toList();
-						Map<String, Integer> categoryScores = new HashMap<>();
+						Map<String, Long> categoryScores = new HashMap<>();
 
 						for (Member m : members) {
 								if (m.getReadingStats() != null && m.getReadingStats().getCategoryPreferences() != null) {
 										for (Map.Entry<String, Integer> entry : m.getReadingStats().getCategoryPreferences().entrySet()) {
-												categoryScores.merge(entry.getKey(), entry.getValue(), Integer::sum);
+												categoryScores.merge(entry.getKey(), entry.getValue().longValue(), Long::sum);
 										}
 								}
 						}
 
-						categoryScores.entrySet().stream()
-										.sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-										.forEach(e -> System.out.println("Category: " + e.getKey() + ", Score: " + e.getValue()));
+						return categoryScores.entrySet().stream()
+										.sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+										.map(e -> new CategoryScore(e.getKey(), e.getValue()))
+										.collect(Collectors.toList());
 				}
 		}
 
 		// 5. Top 5 favorite authors
-		public void topFavoriteAuthors() {
-				try (IDocumentSession session = RavenConfig.getDocumentStore().openSession()) {
-						List<Member> members = session.query(Member.class).toList();
-						Map<String, Long> authorCounts = new HashMap<>();
+		@Override
+		public List<AuthorPopularity> topFavoriteAuthors() {
+				if (!MemberRankings.exactOnly()) {
+						List<SpaceSaving.Estimate<String>> top = rankings.get().topAuthors(TOP_AUTHORS);
+						if (top.stream().allMatch(SpaceSaving.Estimate::guaranteed)) {
+								// Summary counts overestimate and may be a refresh old, only the authors are kept
+								return countFavoriteAuthors(top.stream().map(SpaceSaving.Estimate::item).toList());
+						}
+						logger.info("Favorite authors summary cannot guarantee the top {}, using the exact count", TOP_AUTHORS);
+				}
+				return exactTopFavoriteAuthors(TOP_AUTHORS);
+		}
 
-						for (Member m : members) {
-								if (m.getReadingStats() != null && m.getReadingStats().getFavoriteAuthors() != null) {
-										for (String author : m.getReadingStats().getFavoriteAuthors()) {
-												authorCounts.merge(author, 1L, Long::sum);
-										}
+		@Override
+		public List<SpaceSaving.Estimate<String>> estimateTopFavoriteAuthors(int k) {
+				return rankings.get().topAuthors(k);
+		}
+
+		@Override
+		public List<SpaceSaving.Estimate<String>> estimateTopCategories(int k) {
+				return rankings.get().topCategories(k);
+		}
+
+		/**
+		 * Exact favorite authors count over every member
+		 */
+		public List<AuthorPopularity> exactTopFavoriteAuthors(int k) {
+				Map<String, Long> authorCounts = new HashMap<>();
+				streamMembers(m -> {
+						if (m.getReadingStats() != null && m.getReadingStats().getFavoriteAuthors() != null) {
+								for (String author : m.getReadingStats().getFavoriteAuthors()) {
+										authorCounts.merge(author, 1L, Long::sum);
 								}
 						}
+				});
 
-						authorCounts.entrySet().stream()
-										.sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-										.limit(5)
-										.forEach(e -> System.out.println("Author: " + e.getKey() + ", Count: " + e.getValue()));
-				}
+				return authorCounts.entrySet().stream()
+								.sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+								.limit(k)
+								.map(e -> new AuthorPopularity(e.getKey(), e.getValue()))
+								.collect(Collectors.toList());
 		}
 
 		// 6. Members with emergency contact info
-		public void listMembersWithEmergencyContact() {
+		@Override
+		public List<EmergencyContactEntry> listMembersWithEmergencyContact() {
 				try (IDocumentSession session = RavenConfig.getDocumentStore().openSession()) {
 						List<Member> members = session.query(Member.class).toList();
 
-						members.stream()
+						return members.stream()
 										.filter(m -> m.getContactInfo() != null && m.getContactInfo().getEmergencyContact() != null)
-										.forEach(m -> {
+										.map(m -> {
 												Member.ContactInfo.EmergencyContact ec = m.getContactInfo().getEmergencyContact();
-												System.out.println(m.getFirstName() + " " + m.getLastName() +
-																" | Emergency Contact: " + ec.getName() + " - " + ec.getPhone());
-										});
+												return new EmergencyContactEntry(m.getFirstName(), m.getLastName(), ec.getName(), ec.getPhone());
+										})
+										.collect(Collectors.toList());
+				}
+		}
+
+		/**
+		 * Exact counts of the given authors, streamed over the members that favor one of them only
+		 */
+		private List<AuthorPopularity> countFavoriteAuthors(List<String> authors) {
+				if (authors.isEmpty()) {
+						return List.of();
+				}
+				Map<String, Long> authorCounts = new HashMap<>();
+				try (IDocumentSession session = store.openSession()) {
+						IDocumentQuery<Member> query = session.query(Member.class)
+										.whereIn("readingStats.favoriteAuthors", new ArrayList<>(authors));
+						try (CloseableIterator<StreamResult<Member>> results = session.advanced().stream(query)) {
+								while (results.hasNext()) {
+										Member.ReadingStats stats = results.next().getDocument().getReadingStats();
+										if (stats != null && stats.getFavoriteAuthors() != null) {
+												for (String author : stats.getFavoriteAuthors()) {
+														if (authors.contains(author)) {
+																authorCounts.merge(author, 1L, Long::sum);
+														}
+												}
+										}
+								}
+						}
+				}
+				return authorCounts.entrySet().stream()
+								.sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+								.map(e -> new AuthorPopularity(e.getKey(), e.getValue()))
+								.collect(Collectors.toList());
+		}
+
+		/**
+		 * Stream every member through the server-side cursor, without loading the whole collection
+		 */
+		private void streamMembers(Consumer<Member> consumer) {
+				try (IDocumentSession session = store.openSession()) {
+						IDocumentQuery<Member> query = session.query(Member.class);
+						try (CloseableIterator<StreamResult<Member>> results = session.advanced().stream(query)) {
+								while (results.hasNext()) {
+										consumer.accept(results.next().getDocument());
+								}
+						}
 				}
 		}
 }
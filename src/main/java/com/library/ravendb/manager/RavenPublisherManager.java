@@ -1,5 +1,9 @@
 package com.library.ravendb.manager;
 
+import com.library.common.analytics.AnalyticsPrinter;
+import com.library.common.analytics.PublisherAnalytics;
+import com.library.common.metrics.TimedAnalytics;
+import com.library.common.model.Author;
 import com.library.common.model.Book;
 import com.library.common.model.Publisher;
 import com.library.common.util.ModelDataGenerator;
@@ -9,13 +13,13 @@ import net.ravendb.client.documents.session.IDocumentSession;
 import java.util.*;
 import java.util.stream.Collectors;
 
-public class RavenPublisherManager {
+public class RavenPublisherManager implements PublisherAnalytics {
 
 		public static void main(String[] args) {
 				// Reset RavenDB database
 				RavenConfig.resetDatabase();
 
-				RavenPublisherManager manager = new RavenPublisherManager();
+				PublisherAnalytics manager = TimedAnalytics.wrap(PublisherAnalytics.class, new RavenPublisherManager(), "raven");
 
 				// Generate and insert test publishers, books, and authors
 				List<Publisher> publishers = ModelDataGenerator.generatePublishers(10);
@@ -31,25 +35,21 @@ public class RavenPublisherManager {
 						session.saveChanges();
 				}
 
-				System.out.println("\n--- Number of books published per publisher ---");
-				manager.countBooksPerPublisher();
+				AnalyticsPrinter.print("\n--- Number of books published per publisher ---", manager.countBooksPerPublisher());
 
-				System.out.println("\n--- Unique list of authors per publisher ---");
-				manager.listAuthorsPerPublisher();
+				AnalyticsPrinter.print("\n--- Unique list of authors per publisher ---", manager.listAuthorsPerPublisher());
 
-				System.out.println("\n--- Average number of pages per publisher ---");
-				manager.averagePagesPerPublisher();
+				AnalyticsPrinter.print("\n--- Average number of pages per publisher ---", manager.averagePagesPerPublisher());
 
-				System.out.println("\n--- Publishers with more than N books ---");
 				int n = 5;
-				manager.publishersWithMoreThanNBooks(n);
+				AnalyticsPrinter.print("\n--- Publishers with more than N books ---", manager.publishersWithMoreThanNBooks(n));
 
-				System.out.println("\n--- Ranking publishers by total loans ---");
-				manager.rankPublishersByTotalLoans();
+				AnalyticsPrinter.print("\n--- Ranking publishers by total loans ---", manager.rankPublishersByTotalLoans());
 		}
 
 		// 1. Number of books published per publisher
-		public void countBooksPerPublisher() {
+		@Override
+		public List<PublisherCount> countBooksPerPublisher() {
 				try (IDocumentSession session = RavenConfig.getDocumentStore().openSession()) {
 						// Load all publishers and books in one batch
 						List<Publisher> publishers = session.query(Publisher.class).toList();
@@ -65,16 +65,20 @@ public class RavenPublisherManager {
 								booksByPublisher.computeIfAbsent(book.getPublisherId(), k -> new ArrayList<>()).add(book);
 						}
 
-						// Print the number of books per publisher
+						// Number of books per publisher
+						List<PublisherCount> result = new ArrayList<>();
 						for (Publisher publisher : publishers) {
 								List<Book> publisherBooks = booksByPublisher.getOrDefault(publisher.getId(), Collections.emptyList());
-								System.out.println("Publisher: " + publisher.getName() + " | Books Count: " + publisherBooks.size());
+								result.add(new PublisherCount(publisher.getName(), publisherBooks.size()));
 						}
+						result.sort(Comparator.comparingLong(PublisherCount::bookCount).reversed());
+						return result;
 				}
 		}
 
 		// 2. Unique list of authors per publisher
-		public void listAuthorsPerPublisher() {
+		@Override
+		public List<PublisherAuthors> listAuthorsPerPublisher() {
 				try (IDocumentSession session = RavenConfig.getDocumentStore().openSession()) {
 						List<Publisher> publishers = session.query(Publisher.class).toList();
 
@@ -93,16 +97,31 @@ public class RavenPublisherManager {
 								}
 						}
 
-						// Print unique authors for each publisher
+						// Author names, as the MongoDB implementation returns them
+						Set<String> allAuthorIds = new HashSet<>();
+						authorsByPublisher.values().forEach(allAuthorIds::addAll);
+						Map<String, Author> authors = session.load(Author.class, allAuthorIds);
+
+						// Unique author names for each publisher name, publishers without authors are left out
+						Map<String, Set<String>> authorNamesByPublisher = new LinkedHashMap<>();
 						for (Publisher publisher : publishers) {
-								Set<String> authorIds = authorsByPublisher.getOrDefault(publisher.getId(), Collections.emptySet());
-								System.out.println("Publisher: " + publisher.getName() + " | Authors: " + authorIds);
+								for (String authorId : authorsByPublisher.getOrDefault(publisher.getId(), Collections.emptySet())) {
+										Author author = authors.get(authorId);
+										if (author != null) {
+												authorNamesByPublisher.computeIfAbsent(publisher.getName(), k -> new HashSet<>()).add(author.getName());
+										}
+								}
 						}
+
+						List<PublisherAuthors> result = new ArrayList<>();
+						authorNamesByPublisher.forEach((name, authorNames) -> result.add(new PublisherAuthors(name, new ArrayList<>(authorNames))));
+						return result;
 				}
 		}
 
 		// 3. Average number of pages per publisher
-		public void averagePagesPerPublisher() {
+		@Override
+		public List<PublisherAverage> averagePagesPerPublisher() {
 				try (IDocumentSession session = RavenConfig.getDocumentStore().openSession()) {
 						List<Publisher> publishers = session.query(Publisher.class).toList();
 
@@ -118,16 +137,20 @@ public class RavenPublisherManager {
 						}
 
 						// Compute average page count per publisher
+						List<PublisherAverage> result = new ArrayList<>();
 						for (Publisher publisher : publishers) {
 								List<Book> publisherBooks = booksByPublisher.getOrDefault(publisher.getId(), Collections.emptyList());
 								double averagePages = publisherBooks.stream().mapToInt(Book::getPageCount).average().orElse(0.0);
-								System.out.println("Publisher: " + publisher.getName() + " | Average Pages: " + averagePages);
+								result.add(new PublisherAverage(publisher.getName(), averagePages));
 						}
+						result.sort(Comparator.comparingDouble(PublisherAverage::averagePages).reversed());
+						return result;
 				}
 		}
 
 		// 4. Publishers who have published more than N books
-		public void publishersWithMoreThanNBooks(int n) {
+		@Override
+		public List<PublisherCount> publishersWithMoreThanNBooks(int n) {
 				try (IDocumentSession session = RavenConfig.getDocumentStore().openSession()) {
 						List<Publisher> publishers = session.query(Publisher.class).toList();
 
@@ -142,18 +165,22 @@ public class RavenPublisherManager {
 								booksByPublisher.computeIfAbsent(book.getPublisherId(), k -> new ArrayList<>()).add(book);
 						}
 
-						// Print publishers that have published more than N books
+						// Keep publishers that have published more than N books
+						List<PublisherCount> result = new ArrayList<>();
 						for (Publisher publisher : publishers) {
 								List<Book> publisherBooks = booksByPublisher.getOrDefault(publisher.getId(), Collections.emptyList());
 								if (publisherBooks.size() > n) {
-										System.out.println("Publisher: " + publisher.getName() + " | Books Count: " + publisherBooks.size());
+										result.add(new PublisherCount(publisher.getName(), publisherBooks.size()));
 								}
 						}
+						result.sort(Comparator.comparingLong(PublisherCount::bookCount).reversed());
+						return result;
 				}
 		}
 
 		// 5. Ranking publishers by total loan count in loanHistory
-		public void rankPublishersByTotalLoans() {
+		@Override
+		public List<PublisherLoans> rankPublishersByTotalLoans() {
 				try (IDocumentSession session = RavenConfig.getDocumentStore().openSession()) {
 						List<Publisher> publishers = session.query(Publisher.class).toList();
 
@@ -162,17 +189,23 @@ public class RavenPublisherManager {
 										.whereIn("publisherId", publishers.stream().map(Publisher::getId).collect(Collectors.toList()))
 										.toList();
 
-						// Compute total loan count per publisher
+						Map<String, String> publisherNames = new HashMap<>();
+						for (Publisher publisher : publishers) {
+								publisherNames.put(publisher.getId(), publisher.getName());
+						}
+
+						// Compute total loan count per publisher name, as the MongoDB implementation groups them
 						Map<String, Long> loanCountByPublisher = new HashMap<>();
 						for (Book book : books) {
 								long loanCount = (book.getLoanHistory() != null) ? book.getLoanHistory().size() : 0;
-								loanCountByPublisher.merge(book.getPublisherId(), loanCount, Long::sum);
+								loanCountByPublisher.merge(publisherNames.get(book.getPublisherId()), loanCount, Long::sum);
 						}
 
-						// Print publishers ranked by total loan count
-						loanCountByPublisher.entrySet().stream()
+						// Publishers ranked by total loan count
+						return loanCountByPublisher.entrySet().stream()
 										.sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-										.forEach(e -> System.out.println("Publisher: " + e.getKey() + " | Total Loans: " + e.getValue()));
+										.map(e -> new PublisherLoans(e.getKey(), e.getValue()))
+										.collect(Collectors.toList());
 				}
 		}
 }
@@ -0,0 +1,195 @@
+package com.library.recommendation;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Item-item co-occurrence index: "members who borrowed this book also borrowed".
+ * <p>
+ * Loans are fed one (member, book) pair at a time. Ids are mapped to dense ints and kept in two
+ * inverted lists, books per member and members per book. {@link #refresh()} recomputes in parallel
+ * only the rows of the books touched since the last refresh, and keeps the {@code topN} most
+ * co-borrowed books of each row. Reads are a single concurrent map lookup on the published rows.
+ */
+public class CoBorrowingIndex {
+		private static final Logger logger = LogManager.getLogger();
+		private static final int ROWS_PER_TASK = 256;
+
+		private final int topN;
+		private final ForkJoinPool pool;
+
+		private final Map<String, Integer> memberIndex = new HashMap<>();
+		private final Map<String, Integer> bookIndex = new HashMap<>();
+		private final List<String> bookIds = new ArrayList<>();
+		private final List<IntList> booksByMember = new ArrayList<>();
+		private final List<IntList> membersByBook = new ArrayList<>();
+		private final BitSet dirty = new BitSet();
+		private long loans;
+
+		private final Map<String, List<Recommendation>> rows = new ConcurrentHashMap<>();
+
+		public CoBorrowingIndex(int topN) {
+				this(topN, ForkJoinPool.commonPool());
+		}
+
+		public CoBorrowingIndex(int topN, ForkJoinPool pool) {
+				if (topN <= 0) {
+						throw new IllegalArgumentException("topN must be positive");
+				}
+				this.topN = topN;
+				this.pool = pool;
+		}
+
+		/**
+		 * Record that a member borrowed a book, a pair already known is ignored
+		 *
+		 * @return Whether the pair was new
+		 */
+		public synchronized boolean addLoan(String memberId, String bookId) {
+				if (memberId == null || bookId == null) {
+						return false;
+				}
+
+				int member = memberIndex.computeIfAbsent(memberId, id -> {
+						booksByMember.add(new IntList());
+						return booksByMember.size() - 1;
+				});
+				int book = bookIndex.computeIfAbsent(bookId, id -> {
+						bookIds.add(id);
+						membersByBook.add(new IntList());
+						return bookIds.size() - 1;
+				});
+
+				IntList basket = booksByMember.get(member);
+				if (basket.contains(book)) {
+						return false;
+				}
+
+				// The new book and every book already in the basket gain a co-borrowing
+				dirty.set(book);
+				for (int i = 0; i < basket.size(); i++) {
+						dirty.set(basket.get(i));
+				}
+				basket.add(book);
+				membersByBook.get(book).add(member);
+				loans++;
+				return true;
+		}
+
+		/**
+		 * Recompute the rows of the books touched since the last refresh
+		 *
+		 * @return Number of rows recomputed
+		 */
+		public synchronized int refresh() {
+				int[] books = dirty.stream().toArray();
+				if (books.length == 0) {
+						return 0;
+				}
+
+				long start = System.nanoTime();
+				pool.invoke(new RowTask(books, 0, books.length));
+				dirty.clear();
+				logger.info("Recomputed {} co-borrowing rows ({} books, {} members, {} loans) in {} ms",
+								books.length, bookIds.size(), booksByMember.size(), loans,
+								TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+				return books.length;
+		}
+
+		/**
+		 * Books most often borrowed by the members who borrowed this one, from the last refresh
+		 */
+		public List<Recommendation> recommend(String bookId, int limit) {
+				List<Recommendation> row = rows.get(bookId);
+				if (row == null) {
+						return List.of();
+				}
+				return row.size() <= limit ? row : row.subList(0, limit);
+		}
+
+		/**
+		 * First known book ids, in first-loan order
+		 */
+		public synchronized List<String> getBookIds(int limit) {
+				return List.copyOf(bookIds.subList(0, Math.min(limit, bookIds.size())));
+		}
+
+		public synchronized int getBookCount() {
+				return bookIds.size();
+		}
+
+		public synchronized long getLoanCount() {
+				return loans;
+		}
+
+		private List<Recommendation> computeRow(int book, IntIntHashMap scratch) {
+				scratch.clear();
+				IntList members = membersByBook.get(book);
+				for (int m = 0; m < members.size(); m++) {
+						IntList basket = booksByMember.get(members.get(m));
+						for (int i = 0; i < basket.size(); i++) {
+								int other = basket.get(i);
+								if (other != book) {
+										scratch.addTo(other, 1);
+								}
+						}
+				}
+
+				// Sorting packed (count, book) longs keeps the pruning free of boxing
+				long[] entries = scratch.packedEntries();
+				Arrays.sort(entries);
+				int kept = Math.min(topN, entries.length);
+				Recommendation[] row = new Recommendation[kept];
+				for (int i = 0; i < kept; i++) {
+						long entry = entries[entries.length - 1 - i];
+						row[i] = new Recommendation(bookIds.get((int) entry), (int) (entry >>> 32));
+				}
+				return List.of(row);
+		}
+
+		private class RowTask extends RecursiveAction {
+				private static final long serialVersionUID = 1L;
+
+				private final int[] books;
+				private final int from;
+				private final int to;
+
+				private RowTask(int[] books, int from, int to) {
+						this.books = books;
+						this.from = from;
+						this.to = to;
+				}
+
+				@Override
+				protected void compute() {
+						if (to - from > ROWS_PER_TASK) {
+								int mid = (from + to) >>> 1;
+								invokeAll(new RowTask(books, from, mid), new RowTask(books, mid, to));
+								return;
+						}
+
+						IntIntHashMap scratch = new IntIntHashMap();
+						for (int i = from; i < to; i++) {
+								int book = books[i];
+								rows.put(bookIds.get(book), computeRow(book, scratch));
+						}
+				}
+		}
+
+		/**
+		 * A co-borrowed book and the number of members who borrowed both
+		 */
+		public record Recommendation(String bookId, int members) {
+		}
+}
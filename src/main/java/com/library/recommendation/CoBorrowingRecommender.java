@@ -0,0 +1,134 @@
+package com.library.recommendation;
+
+import com.library.common.model.Book;
+import com.library.common.model.Member;
+import com.library.mangodb.MangoUtils;
+import com.library.mangodb.MongoConfig;
+import com.library.ravendb.RavenConfig;
+import com.mongodb.client.MongoDatabase;
+import net.ravendb.client.documents.DocumentStore;
+import net.ravendb.client.documents.commands.StreamResult;
+import net.ravendb.client.documents.session.IDocumentSession;
+import net.ravendb.client.primitives.CloseableIterator;
+import org.bson.Document;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * "Members who borrowed this also borrowed" recommendations over the loans of either backend.
+ * <p>
+ * A refresh streams the loan history of the books and the active loans of the members into the
+ * {@link CoBorrowingIndex}; pairs already known are skipped, so only the books with new loans are
+ * recomputed. Loans recorded through {@link #recordLoan(String, String)} are served after the next refresh.
+ */
+public class CoBorrowingRecommender {
+		private static final int SCAN_BATCH_SIZE = 1000;
+
+		private final CoBorrowingIndex index;
+		private final Consumer<BiConsumer<String, String>> loanSource;
+
+		/**
+		 * @param topN       Co-borrowed books kept per book
+		 * @param loanSource Scan feeding every (memberId, bookId) loan to the given consumer
+		 */
+		public CoBorrowingRecommender(int topN, Consumer<BiConsumer<String, String>> loanSource) {
+				this.index = new CoBorrowingIndex(topN);
+				this.loanSource = loanSource;
+		}
+
+		public static CoBorrowingRecommender mongo(int topN) {
+				return new CoBorrowingRecommender(topN, CoBorrowingRecommender::scanMongo);
+		}
+
+		public static CoBorrowingRecommender raven(int topN) {
+				return new CoBorrowingRecommender(topN, CoBorrowingRecommender::scanRaven);
+		}
+
+		public static void main(String[] args) {
+				CoBorrowingRecommender recommender = args.length > 0 && args[0].equals("raven") ? raven(20) : mongo(20);
+				recommender.refresh();
+
+				for (String bookId : recommender.getIndex().getBookIds(5)) {
+						long start = System.nanoTime();
+						List<CoBorrowingIndex.Recommendation> recommendations = recommender.recommend(bookId, 5);
+						long micros = (System.nanoTime() - start) / 1000;
+						System.out.println(bookId + " (" + micros + " µs) -> " + recommendations);
+				}
+		}
+
+		/**
+		 * Rescan the loans and recompute the books that gained co-borrowings
+		 *
+		 * @return Number of books recomputed
+		 */
+		public int refresh() {
+				loanSource.accept(index::addLoan);
+				return index.refresh();
+		}
+
+		/**
+		 * Feed a loan as it is written, without waiting for the next scan
+		 */
+		public void recordLoan(String memberId, String bookId) {
+				index.addLoan(memberId, bookId);
+		}
+
+		public List<CoBorrowingIndex.Recommendation> recommend(String bookId, int limit) {
+				return index.recommend(bookId, limit);
+		}
+
+		public CoBorrowingIndex getIndex() {
+				return index;
+		}
+
+		@SuppressWarnings("unchecked")
+		private static void scanMongo(BiConsumer<String, String> loans) {
+				MongoDatabase database = MongoConfig.getDatabase();
+
+				for (Document book : database.getCollection("books").find()
+								.projection(new Document("loanHistory.memberId", 1)).batchSize(SCAN_BATCH_SIZE)) {
+						String bookId = MangoUtils.getIdAsString(book, "_id");
+						List<Document> history = (List<Document>) book.get("loanHistory");
+						if (history != null) {
+								history.forEach(loan -> loans.accept(MangoUtils.getIdAsString(loan, "memberId"), bookId));
+						}
+				}
+
+				for (Document member : database.getCollection("members").find()
+								.projection(new Document("activeLoans.bookId", 1)).batchSize(SCAN_BATCH_SIZE)) {
+						String memberId = MangoUtils.getIdAsString(member, "_id");
+						List<Document> activeLoans = (List<Document>) member.get("activeLoans");
+						if (activeLoans != null) {
+								activeLoans.forEach(loan -> loans.accept(memberId, MangoUtils.getIdAsString(loan, "bookId")));
+						}
+				}
+		}
+
+		private static void scanRaven(BiConsumer<String, String> loans) {
+				DocumentStore store = RavenConfig.getDocumentStore();
+
+				try (IDocumentSession session = store.openSession();
+						 CloseableIterator<StreamResult<Book>> books = session.advanced().stream(session.query(Book.class))) {
+						while (books.hasNext()) {
+								StreamResult<Book> result = books.next();
+								List<Book.LoanRecord> history = result.getDocument().getLoanHistory();
+								if (history != null) {
+										history.forEach(loan -> loans.accept(loan.getMemberId(), result.getId()));
+								}
+						}
+				}
+
+				try (IDocumentSession session = store.openSession();
+						 CloseableIterator<StreamResult<Member>> members = session.advanced().stream(session.query(Member.class))) {
+						while (members.hasNext()) {
+								StreamResult<Member> result = members.next();
+								List<Member.ActiveLoan> activeLoans = result.getDocument().getActiveLoans();
+								if (activeLoans != null) {
+										activeLoans.forEach(loan -> loans.accept(result.getId(), loan.getBookId()));
+								}
+						}
+				}
+		}
+}
@@ -0,0 +1,93 @@
+package com.library.recommendation;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing map from non-negative int keys to int counters, no boxing.
+ * Used as the per-thread scratch row while counting co-occurrences.
+ */
+class IntIntHashMap {
+		private static final int EMPTY = -1;
+
+		private int[] keys;
+		private int[] values;
+		private int size;
+		private int mask;
+
+		IntIntHashMap() {
+				this(64);
+		}
+
+		IntIntHashMap(int expected) {
+				int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+				allocate(capacity);
+		}
+
+		/**
+		 * Add {@code delta} to the counter of {@code key}, starting from 0
+		 */
+		void addTo(int key, int delta) {
+				int slot = mix(key) & mask;
+				while (keys[slot] != EMPTY) {
+						if (keys[slot] == key) {
+								values[slot] += delta;
+								return;
+						}
+						slot = (slot + 1) & mask;
+				}
+				keys[slot] = key;
+				values[slot] = delta;
+				if (++size * 2 > keys.length) {
+						grow();
+				}
+		}
+
+		int size() {
+				return size;
+		}
+
+		/**
+		 * Entries packed as {@code count << 32 | key}, unordered
+		 */
+		long[] packedEntries() {
+				long[] packed = new long[size];
+				int n = 0;
+				for (int slot = 0; slot < keys.length; slot++) {
+						if (keys[slot] != EMPTY) {
+								packed[n++] = ((long) values[slot] << 32) | keys[slot];
+						}
+				}
+				return packed;
+		}
+
+		void clear() {
+				if (size > 0) {
+						Arrays.fill(keys, EMPTY);
+						size = 0;
+				}
+		}
+
+		private void grow() {
+				int[] oldKeys = keys;
+				int[] oldValues = values;
+				allocate(oldKeys.length * 2);
+				for (int slot = 0; slot < oldKeys.length; slot++) {
+						if (oldKeys[slot] != EMPTY) {
+								addTo(oldKeys[slot], oldValues[slot]);
+						}
+				}
+		}
+
+		private void allocate(int capacity) {
+				keys = new int[capacity];
+				values = new int[capacity];
+				Arrays.fill(keys, EMPTY);
+				mask = capacity - 1;
+				size = 0;
+		}
+
+		private static int mix(int key) {
+				int h = key * 0x9E3779B9;
+				return h ^ (h >>> 16);
+		}
+}
@@ -0,0 +1,43 @@
+package com.library.recommendation;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints
+ */
+class IntList {
+		private int[] values;
+		private int size;
+
+		IntList() {
+				this(4);
+		}
+
+		IntList(int initialCapacity) {
+				this.values = new int[Math.max(1, initialCapacity)];
+		}
+
+		void add(int value) {
+				if (size == values.length) {
+						values = Arrays.copyOf(values, size * 2);
+				}
+				values[size++] = value;
+		}
+
+		int get(int index) {
+				return values[index];
+		}
+
+		int size() {
+				return size;
+		}
+
+		boolean contains(int value) {
+				for (int i = 0; i < size; i++) {
+						if (values[i] == value) {
+								return true;
+						}
+				}
+				return false;
+		}
+}
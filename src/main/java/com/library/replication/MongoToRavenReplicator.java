@@ -0,0 +1,403 @@
+package com.library.replication;
+
+import com.library.common.metrics.Counter;
+import com.library.common.metrics.Metrics;
+import com.library.common.metrics.Timer;
+import com.library.mangodb.MongoConfig;
+import com.library.mangodb.crud.MangoAuthorRepository;
+import com.library.mangodb.crud.MangoBookRepository;
+import com.library.mangodb.crud.MangoCategoryRepository;
+import com.library.mangodb.crud.MangoMemberRepository;
+import com.library.mangodb.crud.MangoPublisherRepository;
+import com.library.mangodb.crud.MongoGenericRepository;
+import com.library.ravendb.crud.RavenAuthorRepository;
+import com.library.ravendb.crud.RavenBookRepository;
+import com.library.ravendb.crud.RavenCategoryRepository;
+import com.library.ravendb.crud.RavenGenericRepository;
+import com.library.ravendb.crud.RavenMemberRepository;
+import com.library.ravendb.crud.RavenPublisherRepository;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tails the MongoDB change stream of library_management and applies the changes to RavenDB's LibraryDB.
+ * <p>
+ * A reader thread pushes events into a bounded queue; when RavenDB falls behind the queue fills up and the
+ * reader blocks, leaving the backlog in the oplog. An applier thread writes batches, keeping only the last change
+ * of each document, and persists the resume token of the batch once it is applied, so a restart replays at most
+ * one batch. Documents are stored under their Mongo ObjectId, replays overwrite them.
+ * <p>
+ * Changes go through the RavenDB repositories' upserts and deletes, so the replica keeps the ISBN/email
+ * reservations and the facet index of the book repository given to the constructor. A collection drop
+ * (the loaders' prepareLoad) empties the RavenDB collection with deleteAll.
+ * <p>
+ * Change streams need a replica set (a single-node one is enough).
+ */
+public class MongoToRavenReplicator implements AutoCloseable {
+		private static final Logger logger = LogManager.getLogger();
+		private static final long RETRY_DELAY_MILLIS = 1000;
+		private static final long MAX_RETRY_DELAY_MILLIS = 30_000;
+
+		private final Map<String, Replica<?>> replicas = new LinkedHashMap<>();
+		private final Path tokenFile;
+		private final int batchSize;
+		private final long maxBatchDelayMillis;
+		private final BlockingQueue<ChangeStreamDocument<Document>> queue;
+		private final CountDownLatch stopped = new CountDownLatch(2);
+		private volatile boolean running;
+		private volatile BsonDocument lastQueuedToken;
+
+		private final Counter eventsApplied = Metrics.registry().counter("replication.events.applied");
+		private final Counter batchesApplied = Metrics.registry().counter("replication.batches.applied");
+		private final Timer batchTimer = Metrics.registry().timer("replication.batch");
+		// Cluster time of the first change of the batch being applied, 0 between batches
+		private final AtomicLong applyingEventMillis = new AtomicLong();
+
+		/**
+		 * @param tokenFile           File holding the resume token of the last applied batch
+		 * @param batchSize           Maximum changes per RavenDB session
+		 * @param queueCapacity       Events buffered between the change stream and RavenDB
+		 * @param maxBatchDelayMillis How long a partial batch waits for more events
+		 */
+		public MongoToRavenReplicator(Path tokenFile, int batchSize, int queueCapacity, long maxBatchDelayMillis) {
+				this(tokenFile, batchSize, queueCapacity, maxBatchDelayMillis, new RavenBookRepository(), new RavenMemberRepository());
+		}
+
+		/**
+		 * @param books   RavenDB book repository, a facet index it feeds follows the replicated books
+		 * @param members RavenDB member repository
+		 */
+		public MongoToRavenReplicator(Path tokenFile, int batchSize, int queueCapacity, long maxBatchDelayMillis,
+																	RavenBookRepository books, RavenMemberRepository members) {
+				if (batchSize <= 0 || queueCapacity <= 0 || maxBatchDelayMillis < 0) {
+						throw new IllegalArgumentException("Batch size and queue capacity must be positive");
+				}
+				this.tokenFile = tokenFile;
+				this.batchSize = batchSize;
+				this.maxBatchDelayMillis = maxBatchDelayMillis;
+				this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+				MangoMemberRepository mongoMembers = new MangoMemberRepository();
+				replicas.put("authors", new Replica<>(new MangoAuthorRepository(), new RavenAuthorRepository()));
+				replicas.put("categories", new Replica<>(new MangoCategoryRepository(mongoMembers), new RavenCategoryRepository(members)));
+				replicas.put("publishers", new Replica<>(new MangoPublisherRepository(), new RavenPublisherRepository()));
+				replicas.put("books", new Replica<>(new MangoBookRepository(), books));
+				replicas.put("members", new Replica<>(mongoMembers, members));
+
+				Metrics.registry().gauge("replication.queue.size", queue::size);
+				Metrics.registry().gauge("replication.lag.millis", this::lagMillis);
+		}
+
+		public static void main(String[] args) throws InterruptedException {
+				MongoToRavenReplicator replicator = new MongoToRavenReplicator(
+								Paths.get("replication", "mongo-resume-token.json"), 500, 10_000, 200);
+				Runtime.getRuntime().addShutdownHook(new Thread(replicator::close));
+				replicator.start();
+				replicator.awaitTermination();
+		}
+
+		/**
+		 * Start the reader and applier threads, resuming after the stored token if any
+		 */
+		public synchronized void start() {
+				if (running) {
+						return;
+				}
+				lastQueuedToken = loadToken();
+				running = true;
+				new Thread(this::readLoop, "replication-reader").start();
+				new Thread(this::applyLoop, "replication-applier").start();
+				logger.info("Replication started {}", lastQueuedToken == null ? "from now" : "from stored resume token");
+		}
+
+		public void awaitTermination() throws InterruptedException {
+				stopped.await();
+		}
+
+		/**
+		 * Stop reading, apply what is already queued and store the last token.
+		 * A batch failing meanwhile ends the draining, it is replayed with the rest on restart.
+		 */
+		@Override
+		public void close() {
+				running = false;
+				try {
+						stopped.await(30, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+				}
+		}
+
+		private void readLoop() {
+				long retryDelay = RETRY_DELAY_MILLIS;
+				try {
+						while (running) {
+								try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = openStream().cursor()) {
+										retryDelay = RETRY_DELAY_MILLIS;
+										while (running) {
+												ChangeStreamDocument<Document> change = cursor.tryNext();
+												if (change == null) {
+														continue;
+												}
+												// Blocks while the queue is full: backpressure on the change stream
+												while (running && !queue.offer(change, 100, TimeUnit.MILLISECONDS)) {
+														// wait for the applier
+												}
+												lastQueuedToken = change.getResumeToken();
+										}
+								} catch (InterruptedException e) {
+										Thread.currentThread().interrupt();
+										return;
+								} catch (Exception e) {
+										// Reopen after the last queued event, nothing is lost or queued twice
+										logger.warn("Change stream failed, reopening in {} ms", retryDelay, e);
+										sleep(retryDelay);
+										retryDelay = Math.min(retryDelay * 2, MAX_RETRY_DELAY_MILLIS);
+								}
+						}
+				} finally {
+						running = false;
+						stopped.countDown();
+				}
+		}
+
+		private ChangeStreamIterable<Document> openStream() {
+				ChangeStreamIterable<Document> stream = MongoConfig.getDatabase()
+								.watch(List.of(Aggregates.match(Filters.and(
+												Filters.in("ns.coll", replicas.keySet()),
+												Filters.in("operationType", List.of("insert", "update", "replace", "delete", "drop"))))))
+								.fullDocument(FullDocument.UPDATE_LOOKUP)
+								.batchSize(batchSize)
+								.maxAwaitTime(1, TimeUnit.SECONDS);
+				BsonDocument token = lastQueuedToken;
+				return token == null ? stream : stream.resumeAfter(token);
+		}
+
+		private void applyLoop() {
+				try {
+						while (running || !queue.isEmpty()) {
+								List<ChangeStreamDocument<Document>> batch = nextBatch();
+								if (!batch.isEmpty() && !applyWithRetry(batch)) {
+										// Applying a later batch would store a token past the failed one
+										logger.warn("Stopped with {} queued changes, replayed on restart from the stored token", queue.size());
+										return;
+								}
+						}
+				} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+				} finally {
+						running = false;
+						stopped.countDown();
+				}
+		}
+
+		/**
+		 * Wait for a first event, then fill the batch until it is full or maxBatchDelayMillis has passed
+		 */
+		private List<ChangeStreamDocument<Document>> nextBatch() throws InterruptedException {
+				List<ChangeStreamDocument<Document>> batch = new ArrayList<>(batchSize);
+				ChangeStreamDocument<Document> first = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (first == null) {
+						return batch;
+				}
+				batch.add(first);
+				long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxBatchDelayMillis);
+				while (batch.size() < batchSize) {
+						queue.drainTo(batch, batchSize - batch.size());
+						long remaining = deadline - System.nanoTime();
+						if (batch.size() >= batchSize || remaining <= 0) {
+								break;
+						}
+						ChangeStreamDocument<Document> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+						if (next == null) {
+								break;
+						}
+						batch.add(next);
+				}
+				return batch;
+		}
+
+		/**
+		 * Apply a batch until RavenDB accepts it, the stream is not advanced past a failed batch
+		 *
+		 * @return false if the batch failed while stopping, its token was not saved
+		 */
+		private boolean applyWithRetry(List<ChangeStreamDocument<Document>> batch) {
+				long retryDelay = RETRY_DELAY_MILLIS;
+				applyingEventMillis.set(eventMillis(batch.get(0)));
+				try {
+						while (true) {
+								try {
+										applyBatch(batch);
+										return true;
+								} catch (Exception e) {
+										if (!running) {
+												logger.warn("Failed to apply {} changes to RavenDB while stopping", batch.size(), e);
+												return false;
+										}
+										logger.warn("Failed to apply {} changes to RavenDB, retrying in {} ms", batch.size(), retryDelay, e);
+										sleep(retryDelay);
+										retryDelay = Math.min(retryDelay * 2, MAX_RETRY_DELAY_MILLIS);
+								}
+						}
+				} finally {
+						applyingEventMillis.set(0);
+				}
+		}
+
+		private void applyBatch(List<ChangeStreamDocument<Document>> batch) throws IOException {
+				long start = System.nanoTime();
+
+				// Last change per document wins, the changes before a collection drop are applied first
+				Map<String, ChangeStreamDocument<Document>> latest = new LinkedHashMap<>();
+				int documents = 0;
+				for (ChangeStreamDocument<Document> change : batch) {
+						String collection = change.getNamespace().getCollectionName();
+						if (change.getOperationType() == OperationType.DROP) {
+								documents += apply(latest.values());
+								latest.clear();
+								replicas.get(collection).drop();
+						} else {
+								latest.put(collection + "/" + documentId(change), change);
+						}
+				}
+				documents += apply(latest.values());
+
+				saveToken(batch.get(batch.size() - 1).getResumeToken());
+				eventsApplied.increment(batch.size());
+				batchesApplied.increment();
+				batchTimer.recordSince(start);
+				logger.debug("Applied {} changes ({} documents) to RavenDB", batch.size(), documents);
+		}
+
+		/**
+		 * Apply the last change of each document, the deletes of a collection before its upserts
+		 *
+		 * @return Number of documents written or deleted
+		 */
+		private int apply(Collection<ChangeStreamDocument<Document>> changes) {
+				Map<String, List<String>> deletes = new LinkedHashMap<>();
+				Map<String, List<Document>> upserts = new LinkedHashMap<>();
+				for (ChangeStreamDocument<Document> change : changes) {
+						String collection = change.getNamespace().getCollectionName();
+						Document fullDocument = change.getFullDocument();
+						if (change.getOperationType() == OperationType.DELETE || fullDocument == null) {
+								// A null full document means it was deleted before the update lookup
+								deletes.computeIfAbsent(collection, k -> new ArrayList<>()).add(documentId(change));
+						} else {
+								upserts.computeIfAbsent(collection, k -> new ArrayList<>()).add(fullDocument);
+						}
+				}
+				deletes.forEach((collection, ids) -> replicas.get(collection).delete(ids));
+				upserts.forEach((collection, documents) -> replicas.get(collection).upsert(documents));
+				return changes.size();
+		}
+
+		/**
+		 * Age of the oldest change read from the stream but not applied yet, 0 once RavenDB has caught up
+		 */
+		private long lagMillis() {
+				long oldest = applyingEventMillis.get();
+				if (oldest == 0) {
+						ChangeStreamDocument<Document> next = queue.peek();
+						oldest = next == null ? 0 : eventMillis(next);
+				}
+				return oldest == 0 ? 0 : Math.max(0, System.currentTimeMillis() - oldest);
+		}
+
+		private static long eventMillis(ChangeStreamDocument<Document> change) {
+				return change.getClusterTime() == null ? 0 : change.getClusterTime().getTime() * 1000L;
+		}
+
+		private static String documentId(ChangeStreamDocument<Document> change) {
+				BsonValue id = change.getDocumentKey().get("_id");
+				return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue();
+		}
+
+		private BsonDocument loadToken() {
+				try {
+						return Files.exists(tokenFile) ? BsonDocument.parse(Files.readString(tokenFile)) : null;
+				} catch (Exception e) {
+						logger.warn("Ignoring unreadable resume token {}", tokenFile, e);
+						return null;
+				}
+		}
+
+		private void saveToken(BsonDocument token) throws IOException {
+				Path parent = tokenFile.toAbsolutePath().getParent();
+				Files.createDirectories(parent);
+				Path tmp = parent.resolve(tokenFile.getFileName() + ".tmp");
+				Files.writeString(tmp, token.toJson());
+				Files.move(tmp, tokenFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+
+		/**
+		 * A replicated collection: decoded with the MongoDB repository, written with the RavenDB one
+		 */
+		private static final class Replica<T> {
+				private final MongoGenericRepository<T> source;
+				private final RavenGenericRepository<T> target;
+
+				private Replica(MongoGenericRepository<T> source, RavenGenericRepository<T> target) {
+						this.source = source;
+						this.target = target;
+				}
+
+				private void upsert(List<Document> documents) {
+						List<T> entities = documents.stream().map(source::decode).toList();
+						long stored = target.upsertMany(entities);
+						if (stored < entities.size()) {
+								// Another document of the replica still holds their unique key
+								logger.warn("Replicated {} of {} changed documents, the others hold a taken unique key", stored, entities.size());
+						}
+				}
+
+				private void delete(List<String> ids) {
+						for (String id : ids) {
+								if (!target.deleteById(id)) {
+										throw new IllegalStateException("Failed to delete replicated document " + id);
+								}
+						}
+				}
+
+				private void drop() {
+						if (!target.deleteAll()) {
+								throw new IllegalStateException("Failed to empty a dropped collection");
+						}
+				}
+		}
+
+		private static void sleep(long millis) {
+				try {
+						Thread.sleep(millis);
+				} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+				}
+		}
+}